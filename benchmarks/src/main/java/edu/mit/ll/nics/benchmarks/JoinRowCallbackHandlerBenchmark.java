@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.benchmarks;
+
+import edu.mit.ll.jdbc.JoinRowCallbackHandler;
+import edu.mit.ll.jdbc.StreamingJoinRowCallbackHandler;
+import edu.mit.ll.nics.jdbc.test.mapper.DeepChildRowMapper;
+import edu.mit.ll.nics.jdbc.test.mapper.MultipleChildRowMapper;
+import edu.mit.ll.nics.jdbc.test.mapper.ParentObjectRowMapper;
+import edu.mit.ll.nics.jdbc.test.mapper.SingleChildRowMapper;
+import edu.mit.ll.nics.jdbc.test.model.ParentObject;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Maps the all-join shape used by JoinRowCallbackHandlerTest (parent, single child, deep child and three multiple
+ * children per parent, every table with its own "name" column) through the fixture mappers from dao-lib's tests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoinRowCallbackHandlerBenchmark {
+
+    private static final int MULTIPLE_CHILDREN_PER_PARENT = 3;
+
+    @Param({"10", "1000"})
+    private int parents;
+
+    private ResultSet rs;
+
+    @Setup
+    public void setUp() throws SQLException {
+        SyntheticResultSet builder = new SyntheticResultSet()
+                .column("parent_obj", "parent_id", Types.INTEGER)
+                .column("parent_obj", "name", Types.VARCHAR)
+                .column("parent_obj", "single_child_id", Types.INTEGER)
+                .column("parent_obj", "deep_child_id", Types.INTEGER)
+                .column("deep_child", "deep_child_id", Types.INTEGER)
+                .column("deep_child", "name", Types.VARCHAR)
+                .column("single_child", "single_child_id", Types.INTEGER)
+                .column("single_child", "name", Types.VARCHAR)
+                .column("multiple_child", "multiple_child_id", Types.INTEGER)
+                .column("multiple_child", "name", Types.VARCHAR);
+
+        int multipleChildId = 1;
+        for(int parent = 1; parent <= parents; parent++) {
+            for(int i = 0; i < MULTIPLE_CHILDREN_PER_PARENT; i++, multipleChildId++) {
+                builder.row(parent, "Parent " + parent, parent, parent, parent, "Deep child " + parent,
+                        parent, "Single child " + parent, multipleChildId, "Multiple child " + multipleChildId);
+            }
+        }
+        rs = builder.build();
+    }
+
+    @Benchmark
+    public List<ParentObject> joinAll() throws SQLException {
+        JoinRowCallbackHandler<ParentObject> handler = new JoinRowCallbackHandler<ParentObject>(
+                new ParentObjectRowMapper(), new SingleChildRowMapper(), new DeepChildRowMapper(),
+                new MultipleChildRowMapper());
+        rs.beforeFirst();
+        while(rs.next()) {
+            handler.processRow(rs);
+        }
+        return handler.getResults();
+    }
+
+    @Benchmark
+    public Integer joinAllStreaming(final Blackhole blackhole) throws SQLException {
+        StreamingJoinRowCallbackHandler<ParentObject> handler = new StreamingJoinRowCallbackHandler<ParentObject>(
+                blackhole::consume, new ParentObjectRowMapper(), new SingleChildRowMapper(),
+                new DeepChildRowMapper(), new MultipleChildRowMapper());
+        rs.beforeFirst();
+        return handler.extractData(rs);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.benchmarks;
+
+import edu.mit.ll.dao.QueryModel;
+import edu.mit.ll.nics.common.constants.SADisplayConstants;
+import edu.mit.ll.nics.nicsdao.QueryManager;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the SQL for representative DAO queries: the feature state join, an id list rendered inline and bound as
+ * an array, and the mobile device track upsert.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryModelBenchmark {
+
+    private static final List<String> MDT_FIELDS = Arrays.asList(SADisplayConstants.MDT_DEVICEID,
+            SADisplayConstants.USER_NAME, SADisplayConstants.MDT_NAME, SADisplayConstants.MDT_COURSE,
+            SADisplayConstants.MDT_SPEED, SADisplayConstants.MDT_ACCURACY, SADisplayConstants.MDT_LOCATION,
+            SADisplayConstants.MDT_TIMESTAMP, SADisplayConstants.DESCRIPTION, SADisplayConstants.WORKSPACE_ID);
+
+    @Param({"100"})
+    private int ids;
+
+    private List<Integer> idList;
+
+    @Setup
+    public void setUp() {
+        idList = new ArrayList<Integer>(ids);
+        for(int i = 0; i < ids; i++) {
+            idList.add(i);
+        }
+    }
+
+    @Benchmark
+    public String featureStateQuery() {
+        QueryModel query = QueryManager.createQuery(SADisplayConstants.FEATURE).selectAllFromFeatureTable(0)
+                .join(SADisplayConstants.COLLABROOM_FEATURE_TABLE).using(SADisplayConstants.FEATURE_ID).left()
+                .join(SADisplayConstants.DOCUMENT_FEATURE_TABLE).using(SADisplayConstants.FEATURE_ID).left()
+                .join(SADisplayConstants.DOCUMENT_TABLE).using(SADisplayConstants.DOCUMENT_ID).where()
+                .equals(SADisplayConstants.COLLAB_ROOM_ID, 1).and().equals(SADisplayConstants.DELETED)
+                .and().greaterThanOrEquals(SADisplayConstants.LAST_UPDATE, new Timestamp(0L));
+        return query.toString();
+    }
+
+    @Benchmark
+    public String inListQuery() {
+        return QueryManager.createQuery(SADisplayConstants.INCIDENT_TABLE).selectAllFromTableWhere()
+                .inAsInteger(SADisplayConstants.INCIDENT_ID, idList).toString();
+    }
+
+    @Benchmark
+    public String inArrayQuery() {
+        return QueryManager.createQuery(SADisplayConstants.INCIDENT_TABLE).selectAllFromTableWhere()
+                .inArrayAsInteger(SADisplayConstants.INCIDENT_ID, idList).toString();
+    }
+
+    @Benchmark
+    public String mobileDeviceTrackUpsert() {
+        return QueryManager.createQuery(SADisplayConstants.MDT_TABLE).insertInto(MDT_FIELDS)
+                .VALUES(MDT_FIELDS, false).onConflict(SADisplayConstants.MDT_DEVICEID, SADisplayConstants.USER_NAME,
+                        SADisplayConstants.WORKSPACE_ID).doUpdateExcluded(MDT_FIELDS).toString();
+    }
+}
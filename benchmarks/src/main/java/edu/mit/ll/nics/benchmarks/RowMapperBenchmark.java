@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.benchmarks;
+
+import edu.mit.ll.nics.common.constants.SADisplayConstants;
+import edu.mit.ll.nics.common.entity.Feature;
+import edu.mit.ll.nics.common.entity.MobileDeviceTrack;
+import edu.mit.ll.nics.nicsdao.mappers.FeatureRowMapper;
+import edu.mit.ll.nics.nicsdao.mappers.MobileDeviceTrackRowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.postgis.PGgeometry;
+import org.postgis.Point;
+
+/**
+ * Maps synthetic feature and mobile device track rows with the production row mappers. A new mapper is created for
+ * each pass, as the DAOs do for each query, so column resolution is part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final String FEATURE = "feature";
+    private static final String[] FEATURE_STRINGS = {"dashstyle", "attributes", "fillcolor", "graphic", "ip",
+            "labeltext", "nickname", "strokecolor", "time", "topic", "type", "username", "version"};
+    private static final String[] FEATURE_DOUBLES = {"graphicheight", "graphicwidth", "labelsize", "opacity",
+            "pointradius", "rotation", "strokewidth"};
+
+    @Param({"1000"})
+    private int rows;
+
+    private ResultSet features;
+    private ResultSet tracks;
+
+    @Setup
+    public void setUp() throws SQLException {
+        features = buildFeatures();
+        tracks = buildTracks();
+    }
+
+    private ResultSet buildFeatures() throws SQLException {
+        SyntheticResultSet builder = new SyntheticResultSet()
+                .column("", "st_astext", Types.VARCHAR)
+                .column(FEATURE, "featureid", Types.BIGINT)
+                .column(FEATURE, "hasgraphic", Types.BOOLEAN)
+                .column(FEATURE, "lastupdate", Types.TIMESTAMP)
+                .column(FEATURE, "seqnum", Types.BIGINT)
+                .column(FEATURE, "seqtime", Types.BIGINT)
+                .column(FEATURE, "usersessionid", Types.INTEGER);
+        for(String column : FEATURE_STRINGS) {
+            builder.column(FEATURE, column, Types.VARCHAR);
+        }
+        for(String column : FEATURE_DOUBLES) {
+            builder.column(FEATURE, column, Types.DOUBLE);
+        }
+
+        int width = 7 + FEATURE_STRINGS.length + FEATURE_DOUBLES.length;
+        long now = System.currentTimeMillis();
+        for(int i = 0; i < rows; i++) {
+            Object[] row = new Object[width];
+            int c = 0;
+            row[c++] = "POINT(" + (-71.26 + i * 0.0001) + " 42.45)";
+            row[c++] = (long) i;
+            row[c++] = Boolean.FALSE;
+            row[c++] = new Timestamp(now);
+            row[c++] = (long) i;
+            row[c++] = now;
+            row[c++] = 42;
+            for(String column : FEATURE_STRINGS) {
+                row[c++] = column + "-" + i;
+            }
+            for(int d = 0; d < FEATURE_DOUBLES.length; d++) {
+                row[c++] = 1.5d;
+            }
+            builder.row(row);
+        }
+        return builder.build();
+    }
+
+    private ResultSet buildTracks() throws SQLException {
+        String mdt = SADisplayConstants.MDT_TABLE;
+        SyntheticResultSet builder = new SyntheticResultSet()
+                .column(mdt, SADisplayConstants.MDT_ID, Types.INTEGER)
+                .column(mdt, SADisplayConstants.MDT_DEVICEID, Types.VARCHAR)
+                .column(mdt, SADisplayConstants.USER_NAME, Types.VARCHAR)
+                .column(mdt, SADisplayConstants.MDT_NAME, Types.VARCHAR)
+                .column(mdt, SADisplayConstants.DESCRIPTION, Types.VARCHAR)
+                .column(mdt, SADisplayConstants.MDT_EXTENDEDDATA, Types.VARCHAR)
+                .column(mdt, SADisplayConstants.MDT_ACCURACY, Types.DOUBLE)
+                .column(mdt, SADisplayConstants.MDT_COURSE, Types.DOUBLE)
+                .column(mdt, SADisplayConstants.MDT_SPEED, Types.DOUBLE)
+                .column(mdt, SADisplayConstants.MDT_LOCATION, Types.JAVA_OBJECT)
+                .column(mdt, SADisplayConstants.MDT_TIMESTAMP, Types.TIMESTAMP)
+                .column(mdt, SADisplayConstants.WORKSPACE_ID, Types.INTEGER);
+
+        long now = System.currentTimeMillis();
+        for(int i = 0; i < rows; i++) {
+            Point point = new Point(-71.26 + i * 0.0001, 42.45, 30);
+            point.setSrid(4326);
+            builder.row(i, "device-" + i, "user" + i + "@example.com", "Device " + i, "", "{}", 5d, 90d, 1.2d,
+                    new PGgeometry(point), new Timestamp(now), 1);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public void mapFeatures(Blackhole blackhole) throws SQLException {
+        FeatureRowMapper mapper = new FeatureRowMapper();
+        features.beforeFirst();
+        while(features.next()) {
+            Feature feature = mapper.mapRow(features, features.getRow());
+            blackhole.consume(feature);
+        }
+    }
+
+    @Benchmark
+    public void mapMobileDeviceTracks(Blackhole blackhole) throws SQLException {
+        MobileDeviceTrackRowMapper mapper = new MobileDeviceTrackRowMapper();
+        tracks.beforeFirst();
+        while(tracks.next()) {
+            MobileDeviceTrack track = mapper.mapRow(tracks, tracks.getRow());
+            blackhole.consume(track);
+        }
+    }
+}
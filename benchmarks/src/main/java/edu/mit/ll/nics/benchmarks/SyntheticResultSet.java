@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.rowset.RowSetMetaDataImpl;
+
+/**
+ * Builds read-only, in-memory ResultSets so the row mapping benchmarks measure the mappers rather than a database
+ * driver. Each column carries a table name, which is what JoinRowMapper uses to tell apart duplicated labels.
+ * Getters hand back the stored values with no conversion beyond unboxing, unlike CachedRowSet, which round-trips
+ * numbers and timestamps through strings and calendars and would outweigh the mappers themselves. The proxy
+ * dispatch is a fixed cost per getter call, so compare results against each other rather than read them as
+ * absolute driver timings.
+ */
+final class SyntheticResultSet {
+
+    private final List<String> tables = new ArrayList<String>();
+    private final List<String> labels = new ArrayList<String>();
+    private final List<Integer> types = new ArrayList<Integer>();
+    private final List<Object[]> rows = new ArrayList<Object[]>();
+
+    SyntheticResultSet column(String table, String label, int sqlType) {
+        tables.add(table);
+        labels.add(label);
+        types.add(sqlType);
+        return this;
+    }
+
+    SyntheticResultSet row(Object... values) {
+        if(values.length != labels.size()) {
+            throw new IllegalArgumentException("Expected " + labels.size() + " values, got " + values.length);
+        }
+        rows.add(values);
+        return this;
+    }
+
+    ResultSet build() throws SQLException {
+        int count = labels.size();
+        RowSetMetaDataImpl meta = new RowSetMetaDataImpl();
+        meta.setColumnCount(count);
+        for(int i = 0; i < count; i++) {
+            meta.setTableName(i + 1, tables.get(i));
+            meta.setColumnName(i + 1, labels.get(i));
+            meta.setColumnLabel(i + 1, labels.get(i));
+            meta.setColumnType(i + 1, types.get(i));
+            meta.setNullable(i + 1, RowSetMetaDataImpl.columnNullable);
+        }
+        Cursor cursor = new Cursor(meta, rows.toArray(new Object[rows.size()][]));
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                cursor);
+    }
+
+    private static final class Cursor implements InvocationHandler {
+
+        private final RowSetMetaDataImpl meta;
+        private final Object[][] rows;
+        private int position;
+        private boolean wasNull;
+
+        private Cursor(RowSetMetaDataImpl meta, Object[][] rows) {
+            this.meta = meta;
+            this.rows = rows;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch(method.getName()) {
+                case "next":
+                    return ++position <= rows.length;
+                case "beforeFirst":
+                    position = 0;
+                    return null;
+                case "getRow":
+                    return position <= rows.length ? position : 0;
+                case "getMetaData":
+                    return meta;
+                case "wasNull":
+                    return wasNull;
+                case "close":
+                    return null;
+                case "isClosed":
+                    return false;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "SyntheticResultSet@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    break;
+            }
+
+            if(method.getName().equals("findColumn")) {
+                return findColumn((String) args[0]);
+            }
+            if(method.getName().startsWith("get") && args != null && args.length == 1) {
+                int column = args[0] instanceof String ? findColumn((String) args[0]) : (Integer) args[0];
+                return get(method.getName(), method.getReturnType(), column);
+            }
+            throw new SQLFeatureNotSupportedException(method.getName());
+        }
+
+        private int findColumn(String label) throws SQLException {
+            for(int i = 1; i <= meta.getColumnCount(); i++) {
+                if(meta.getColumnLabel(i).equalsIgnoreCase(label)) {
+                    return i;
+                }
+            }
+            throw new SQLException("No column with label '" + label + "'");
+        }
+
+        private Object get(String getter, Class<?> type, int column) throws SQLException {
+            if(position < 1 || position > rows.length) {
+                throw new SQLException("Cursor is not on a row");
+            }
+            Object value = rows[position - 1][column - 1];
+            wasNull = value == null;
+
+            if(type == String.class) {
+                return value == null ? null : value.toString();
+            } else if(!type.isPrimitive()) {
+                return value;
+            } else if(type == boolean.class) {
+                return value != null && (Boolean) value;
+            }
+
+            Number number = value == null ? 0 : (Number) value;
+            if(type == int.class) {
+                return number.intValue();
+            } else if(type == long.class) {
+                return number.longValue();
+            } else if(type == double.class) {
+                return number.doubleValue();
+            } else if(type == float.class) {
+                return number.floatValue();
+            } else if(type == short.class) {
+                return number.shortValue();
+            } else if(type == byte.class) {
+                return number.byteValue();
+            }
+            throw new SQLFeatureNotSupportedException(getter);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+/**
+ * An immutable, pre-parsed SQL statement built from a {@link QueryModel}.
+ *
+ * <p>DAOs whose SQL never changes between calls can hold these as static finals, so the statement text is built
+ * and its named parameters are parsed once rather than on every call. Parameter values are supplied per call; any
+ * values captured by the QueryModel while it was built are ignored.</p>
+ */
+public final class CompiledQuery {
+
+    private static final ConcurrentMap<String, CompiledQuery> NAMED_QUERIES =
+            new ConcurrentHashMap<String, CompiledQuery>();
+
+    private final String name;
+    private final String sql;
+    private final ParsedSql parsedSql;
+    private final List<String> parameterNames;
+    private final String jdbcSql;
+
+    CompiledQuery(String name, String sql) {
+        this.name = name;
+        this.sql = sql;
+        this.parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+        this.jdbcSql = NamedParameterUtils.substituteNamedParameters(parsedSql, null);
+
+        List<String> names = new ArrayList<String>();
+        for(SqlParameter parameter : NamedParameterUtils.buildSqlParameterList(parsedSql,
+                new MapSqlParameterSource())) {
+            if(!names.contains(parameter.getName())) {
+                names.add(parameter.getName());
+            }
+        }
+        this.parameterNames = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Returns the query registered under the given name, building and compiling it on first use.
+     */
+    public static CompiledQuery named(String name, Supplier<QueryModel> builder) {
+        CompiledQuery query = NAMED_QUERIES.get(name);
+        if(query == null) {
+            query = builder.get().compile(name);
+            CompiledQuery existing = NAMED_QUERIES.putIfAbsent(name, query);
+            if(existing != null) {
+                query = existing;
+            }
+        }
+        return query;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getSql() {
+        return this.sql;
+    }
+
+    public ParsedSql getParsedSql() {
+        return this.parsedSql;
+    }
+
+    public List<String> getParameterNames() {
+        return this.parameterNames;
+    }
+
+    public PreparedStatementCreator newPreparedStatementCreator(Map<String, ?> params) {
+        return newPreparedStatementCreator(new MapSqlParameterSource(params));
+    }
+
+    public PreparedStatementCreator newPreparedStatementCreator(SqlParameterSource params) {
+        // Collections are expanded into one placeholder per element, so only then does the JDBC SQL differ
+        String sqlToUse = hasCollectionValue(params) ?
+                NamedParameterUtils.substituteNamedParameters(parsedSql, params) : jdbcSql;
+        List<SqlParameter> declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, params);
+        Object[] values = NamedParameterUtils.buildValueArray(parsedSql, params, null);
+
+        return new PreparedStatementCreatorFactory(sqlToUse, declaredParameters).newPreparedStatementCreator(values);
+    }
+
+    public void query(NamedParameterJdbcOperations template, SqlParameterSource params, RowCallbackHandler handler) {
+        template.getJdbcOperations().query(newPreparedStatementCreator(params), handler);
+    }
+
+    public <T> List<T> query(NamedParameterJdbcOperations template, SqlParameterSource params,
+                             RowMapper<T> rowMapper) {
+        return template.getJdbcOperations().query(newPreparedStatementCreator(params), rowMapper);
+    }
+
+    public <T> T queryForObject(NamedParameterJdbcOperations template, SqlParameterSource params,
+                                Class<T> requiredType) {
+        List<T> results = template.getJdbcOperations().query(newPreparedStatementCreator(params),
+                new SingleColumnRowMapper<T>(requiredType));
+        return DataAccessUtils.nullableSingleResult(results);
+    }
+
+    public int update(NamedParameterJdbcOperations template, SqlParameterSource params) {
+        return template.getJdbcOperations().update(newPreparedStatementCreator(params));
+    }
+
+    public String toString() {
+        return this.sql;
+    }
+
+    private boolean hasCollectionValue(SqlParameterSource params) {
+        for(String parameterName : parameterNames) {
+            if(params.hasValue(parameterName)) {
+                Object value = params.getValue(parameterName);
+                if(value instanceof SqlParameterValue) {
+                    value = ((SqlParameterValue) value).getValue();
+                }
+                if(value instanceof Iterable) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -75,6 +75,11 @@ public final class QueryBuilder {
     public static String DISTINCT = "distinct";
     public static String IN = " in";
     public static String MAX = " max";
+    public static String ANY = " ANY";
+    public static String ALL_OF = " ALL";
+    public static String ON_CONFLICT = " on conflict";
+    public static String DO_UPDATE = " do update";
+    public static String EXCLUDED = "excluded.";
 
     public static String COLON = ":";
     public static String EQUALS = "=";
@@ -104,7 +109,7 @@ public final class QueryBuilder {
     }
 
     public static String selectFrom(String table, String value, boolean distinct) {
-        StringBuffer selectFrom = new StringBuffer(SELECT);
+        StringBuilder selectFrom = new StringBuilder(SELECT);
         selectFrom.append(SPACE);
 
         if(distinct) {
@@ -118,7 +123,7 @@ public final class QueryBuilder {
     }
 
     public static String selectFrom(String table) {
-        StringBuffer selectFrom = new StringBuffer();
+        StringBuilder selectFrom = new StringBuilder();
         selectFrom.append(FROM);
         selectFrom.append(SPACE);
         selectFrom.append(table);
@@ -126,14 +131,14 @@ public final class QueryBuilder {
     }
 
     public static String selectFromWhere(String table) {
-        StringBuffer selectFromWhere = new StringBuffer();
+        StringBuilder selectFromWhere = new StringBuilder();
         selectFromWhere.append(selectFrom(table));
         selectFromWhere.append(WHERE);
         return selectFromWhere.toString();
     }
 
     public static String selectFromWhere(String table, String value, boolean distinct) {
-        StringBuffer selectFromWhere = new StringBuffer(SELECT);
+        StringBuilder selectFromWhere = new StringBuilder(SELECT);
         selectFromWhere.append(SPACE);
 
         if(distinct) {
@@ -149,7 +154,7 @@ public final class QueryBuilder {
     }
 
     public static String deleteFromWhere(String table) {
-        StringBuffer deleteFromWhere = new StringBuffer();
+        StringBuilder deleteFromWhere = new StringBuilder();
         deleteFromWhere.append(DELETE);
         deleteFromWhere.append(FROM);
         deleteFromWhere.append(SPACE);
@@ -179,7 +184,7 @@ public final class QueryBuilder {
     }
 
     public static String selectMaxFromColumn(String table, String field) {
-        StringBuffer maxColumnString = new StringBuffer();
+        StringBuilder maxColumnString = new StringBuilder();
         maxColumnString.append(SELECT);
         maxColumnString.append(MAX);
         maxColumnString.append(OPEN);
@@ -193,7 +198,7 @@ public final class QueryBuilder {
     }
 
     public static String addFieldCondition(String name, String pName, String operator) {
-        StringBuffer query = new StringBuffer();
+        StringBuilder query = new StringBuilder();
         query.append(SPACE);
         query.append(name);
         query.append(operator);
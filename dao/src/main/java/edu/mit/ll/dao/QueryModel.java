@@ -39,7 +39,7 @@ import java.util.Map;
 public class QueryModel {
 
     private Map<String, Object> parameters = new HashMap<String, Object>();
-    private StringBuffer query = new StringBuffer();
+    private StringBuilder query = new StringBuilder();
     private String table;
 
     public QueryModel() {
@@ -270,7 +270,7 @@ public class QueryModel {
     }
 
     public QueryModel equalsLower(String field) {
-        StringBuffer tempQuery = new StringBuffer();
+        StringBuilder tempQuery = new StringBuilder();
         tempQuery.append(QueryBuilder.LOWER);
         tempQuery.append(QueryBuilder.OPEN);
         tempQuery.append(field);
@@ -351,6 +351,34 @@ public class QueryModel {
         return this;
     }
 
+    public QueryModel onConflict(String... columns) {
+        query.append(QueryBuilder.ON_CONFLICT);
+        query.append(QueryBuilder.SPACE);
+        query.append(QueryBuilder.OPEN);
+        query.append(this.buildList(Arrays.asList(columns), QueryBuilder.COMMA, null));
+        query.append(QueryBuilder.CLOSE);
+        return this;
+    }
+
+    /* do update set field=excluded.field, ... i.e. overwrite the conflicting row with the values being inserted */
+    public QueryModel doUpdateExcluded(List<String> fields) {
+        query.append(QueryBuilder.DO_UPDATE);
+        query.append(QueryBuilder.SET);
+        query.append(QueryBuilder.SPACE);
+        Iterator<String> itr = fields.iterator();
+        while(itr.hasNext()) {
+            String field = itr.next();
+            query.append(field);
+            query.append(QueryBuilder.EQUALS);
+            query.append(QueryBuilder.EXCLUDED);
+            query.append(field);
+            if(itr.hasNext()) {
+                query.append(QueryBuilder.COMMA);
+            }
+        }
+        return this;
+    }
+
     public QueryModel insertInto(List<String> fields, QueryModel select) {
         this.buildInsert(fields, null);
         query.append(QueryBuilder.SPACE);
@@ -440,6 +468,52 @@ public class QueryModel {
         return this;
     }
 
+    public QueryModel inArrayAsLong(String column, List<Long> values) {
+        return this.inArrayAsLong(column, column, values);
+    }
+
+    public QueryModel inArrayAsLong(String column, String pName, List<Long> values) {
+        return this.anyArray(column, pName, new SqlArrayValue(SqlArrayValue.BIGINT, values), false);
+    }
+
+    public QueryModel inArrayAsInteger(String column, List<Integer> values) {
+        return this.inArrayAsInteger(column, column, values);
+    }
+
+    public QueryModel inArrayAsInteger(String column, String pName, List<Integer> values) {
+        return this.anyArray(column, pName, new SqlArrayValue(SqlArrayValue.INTEGER, values), false);
+    }
+
+    public QueryModel notInArrayAsInteger(String column, List<Integer> values) {
+        return this.notInArrayAsInteger(column, column, values);
+    }
+
+    public QueryModel notInArrayAsInteger(String column, String pName, List<Integer> values) {
+        return this.anyArray(column, pName, new SqlArrayValue(SqlArrayValue.INTEGER, values), true);
+    }
+
+    public QueryModel inArrayAsString(String column, List<String> values) {
+        return this.inArrayAsString(column, column, values);
+    }
+
+    public QueryModel inArrayAsString(String column, String pName, List<String> values) {
+        return this.anyArray(column, pName, new SqlArrayValue(SqlArrayValue.VARCHAR, values), false);
+    }
+
+    /* column = ANY(:pName) or column <> ALL(:pName), with the values bound as one array parameter */
+    private QueryModel anyArray(String column, String pName, SqlArrayValue value, boolean negate) {
+        this.parameters.put(pName, value);
+        query.append(QueryBuilder.SPACE);
+        query.append(column);
+        query.append(negate ? QueryBuilder.NOT_EQUAL : QueryBuilder.EQUALS);
+        query.append(negate ? QueryBuilder.ALL_OF : QueryBuilder.ANY);
+        query.append(QueryBuilder.OPEN);
+        query.append(QueryBuilder.COLON);
+        query.append(pName);
+        query.append(QueryBuilder.CLOSE);
+        return this;
+    }
+
     public QueryModel inAsString(String column, List<String> fields) {
         query.append(QueryBuilder.SPACE);
         query.append(column);
@@ -584,6 +658,14 @@ public class QueryModel {
         return this;
     }
 
+    public CompiledQuery compile() {
+        return new CompiledQuery(null, this.toString());
+    }
+
+    public CompiledQuery compile(String name) {
+        return new CompiledQuery(name, this.toString());
+    }
+
     public Map<String, Object> getParameters() {
         return this.parameters;
     }
@@ -594,7 +676,7 @@ public class QueryModel {
     }
 
     public String buildFeaturesList(List<String> fields, boolean transform, String postDelimiter, String preDelimiter) {
-        StringBuffer result = new StringBuffer();
+        StringBuilder result = new StringBuilder();
         //For multiple fields
         for(String field : fields) {
             if(result.length() != 0) {
@@ -620,7 +702,7 @@ public class QueryModel {
     }
 
     public String buildList(List<? extends Object> fields, String delimiter) {
-        StringBuffer result = new StringBuffer();
+        StringBuilder result = new StringBuilder();
         //For multiple fields
         for(Object field : fields) {
             if(result.length() != 0) {
@@ -633,7 +715,7 @@ public class QueryModel {
     }
 
     public String buildList(List<String> fields, String postDelimiter, String preDelimiter) {
-        StringBuffer result = new StringBuffer();
+        StringBuilder result = new StringBuilder();
         //For multiple fields
         for(String field : fields) {
             if(result.length() != 0) {
@@ -654,7 +736,7 @@ public class QueryModel {
     }
 
     private String insertGeometryWithGeo(String field) {
-        StringBuffer result = new StringBuffer();
+        StringBuilder result = new StringBuilder();
         result.append(QueryBuilder.GEO_TRANSFORM_FUNCTION);
         result.append(QueryBuilder.OPEN);
         result.append(QueryBuilder.GEOMETRY_FUNCTION);
@@ -672,7 +754,7 @@ public class QueryModel {
     }
 
     private String insertGeometry(String field) {
-        StringBuffer result = new StringBuffer();
+        StringBuilder result = new StringBuilder();
         result.append(QueryBuilder.GEOMETRY_FUNCTION);
         result.append(QueryBuilder.OPEN);
         result.append(QueryBuilder.COLON);
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+
+/**
+ * Binds a collection as a single typed SQL array parameter, e.g. for {@code column = ANY(:ids)}. The statement text
+ * stays the same regardless of how many values are bound, so the driver and the database can reuse the prepared
+ * statement and its plan.
+ */
+public class SqlArrayValue extends AbstractSqlTypeValue {
+
+    public static final String BIGINT = "bigint";
+    public static final String INTEGER = "integer";
+    public static final String VARCHAR = "varchar";
+
+    private final String elementType;
+    private final Object[] values;
+
+    public SqlArrayValue(String elementType, Collection<?> values) {
+        this.elementType = elementType;
+        this.values = values.toArray();
+    }
+
+    public String getElementType() {
+        return elementType;
+    }
+
+    public Object[] getValues() {
+        return values.clone();
+    }
+
+    @Override
+    protected Object createTypeValue(Connection con, int sqlType, String typeName) throws SQLException {
+        return con.createArrayOf(elementType, values);
+    }
+}
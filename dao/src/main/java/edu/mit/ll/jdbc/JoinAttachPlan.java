@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.jdbc;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pre-resolved strategy for attaching a mapped child object to its parent during a join.
+ *
+ * <p>Plans are resolved once per (root class, mapped class) pair using the same setter matching rules
+ * {@link JoinRowCallbackHandler} has always used, and are then shared by every handler in the process. Attaching a
+ * child through a plan does no reflective lookups.</p>
+ */
+public abstract class JoinAttachPlan {
+
+    private static final Logger log = LoggerFactory.getLogger(JoinAttachPlan.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<ConcurrentMap<Class<?>, JoinAttachPlan>> PLANS =
+            new ClassValue<ConcurrentMap<Class<?>, JoinAttachPlan>>() {
+                @Override
+                protected ConcurrentMap<Class<?>, JoinAttachPlan> computeValue(Class<?> rootClass) {
+                    return new ConcurrentHashMap<Class<?>, JoinAttachPlan>();
+                }
+            };
+
+    /**
+     * Returns the cached plan for attaching instances of mappedClass to instances of rootClass, resolving it on
+     * first use.
+     */
+    public static JoinAttachPlan forClasses(Class<?> rootClass, Class<?> mappedClass) {
+        ConcurrentMap<Class<?>, JoinAttachPlan> plans = PLANS.get(rootClass);
+        JoinAttachPlan plan = plans.get(mappedClass);
+        if(plan == null) {
+            plan = resolve(rootClass, mappedClass);
+            JoinAttachPlan existing = plans.putIfAbsent(mappedClass, plan);
+            if(existing != null) {
+                plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    public abstract void attach(Object rootObject, Object mappedObject) throws SQLException;
+
+    private static JoinAttachPlan resolve(Class<?> rootClass, Class<?> mappedClass) {
+        Method method = findMatchingSetter(rootClass.getMethods(), mappedClass, rootClass);
+        if(method == null) {
+            return new MissingSetterPlan(mappedClass);
+        }
+
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        if(Collection.class.isAssignableFrom(method.getParameterTypes()[0])) {
+            String getterName = method.getName().replaceFirst("set", "get");
+            try {
+                Method getterMethod = rootClass.getMethod(getterName);
+                return new CollectionAdderPlan(method,
+                        lookup.unreflect(getterMethod).asType(GETTER_TYPE),
+                        lookup.unreflect(method).asType(SETTER_TYPE));
+            } catch(Exception e) {
+                log.debug("Unable to resolve Collection accessors for [" + mappedClass.getSimpleName() + "] using " +
+                        method.toString(), e);
+                return new MissingSetterPlan(mappedClass);
+            }
+        }
+
+        try {
+            return new SetterPlan(method, lookup.unreflect(method).asType(SETTER_TYPE));
+        } catch(IllegalAccessException e) {
+            return new InaccessibleSetterPlan(method);
+        }
+    }
+
+    private static Method findMatchingSetter(Method[] methods, Class<?> paramClass, Class<?> rootClass) {
+        // Find a method that is a setter for an object matching the class
+        // of the paramClass
+        log.trace("Looking for a setter for {}", paramClass);
+        for(int i = 0; i < methods.length; i++) {
+            Method method = methods[i];
+            String methodName = method.getName();
+            Class[] paramTypes = method.getParameterTypes();
+            if(methodName.startsWith("set") && paramTypes.length == 1) {
+                Class paramType = paramTypes[0];
+                log.trace("Found a setter [{}]", method);
+
+                if(paramClass.equals(paramType)) {
+                    return method;
+                }
+                // Also check if its a setter for a Collection matching the paramClass
+                else if(Collection.class.isAssignableFrom(paramType) &&
+                        findMatchingCollectionSetter(methodName, paramClass, rootClass)) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean findMatchingCollectionSetter(String methodName, Class<?> paramClass, Class<?> rootClass) {
+        //Get the field name of the method by stripping off the beginning "set" and changing the first letter to
+        // lower case
+        String fieldName = methodName.substring(3, 5).toLowerCase() + methodName.substring(5, methodName.length());
+        try {
+            Field field = rootClass.getDeclaredField(fieldName);
+            //The field is a collection - so get the type
+            if(field != null) {
+                ParameterizedType type = (ParameterizedType) field.getGenericType();
+
+                Class listClass = (Class<?>) type.getActualTypeArguments()[0];
+
+                //Check to see if the type in the array list is the same as the object we're trying to set
+                if(listClass.equals(paramClass)) {
+                    return true;
+                }
+            }
+        } catch(Exception e) {
+            log.debug("No field found in {} with name {}", rootClass, fieldName);
+        }
+        return false;
+    }
+
+    private static SQLException missingSetter(Object mappedObject) {
+        return new SQLException(
+                "Couldn't find a setter for the object [" + mappedObject.getClass().getSimpleName() + "]");
+    }
+
+    private static final class SetterPlan extends JoinAttachPlan {
+
+        private final Method method;
+        private final MethodHandle setter;
+
+        SetterPlan(Method method, MethodHandle setter) {
+            this.method = method;
+            this.setter = setter;
+        }
+
+        @Override
+        public void attach(Object rootObject, Object mappedObject) throws SQLException {
+            try {
+                setter.invokeExact(rootObject, mappedObject);
+            } catch(Throwable e) {
+                throw new SQLException("Couldn't invoke setter [" +
+                        method.getName() + "] on " +
+                        rootObject.getClass().getSimpleName() + " with " +
+                        mappedObject.getClass().getSimpleName());
+            }
+        }
+    }
+
+    private static final class CollectionAdderPlan extends JoinAttachPlan {
+
+        private final Method method;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        CollectionAdderPlan(Method method, MethodHandle getter, MethodHandle setter) {
+            this.method = method;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        @Override
+        public void attach(Object rootObject, Object mappedObject) throws SQLException {
+            // Add to the existing Collection (creating it if it doesn't exist yet)
+            // and call the setter with it
+            try {
+                Object existing = getter.invokeExact(rootObject);
+                Collection collection = (Collection) existing;
+                if(collection == null) {
+                    collection = new ArrayList();
+                }
+                collection.add(mappedObject);
+                setter.invokeExact(rootObject, (Object) collection);
+                return; // If we make it this far, the set worked
+            } catch(Throwable e) {
+                log.debug("Exception while trying to set [" +
+                        mappedObject.getClass().getSimpleName() + "] using " +
+                        method.toString(), e);
+            }
+            throw missingSetter(mappedObject);
+        }
+    }
+
+    private static final class InaccessibleSetterPlan extends JoinAttachPlan {
+
+        private final Method method;
+
+        InaccessibleSetterPlan(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public void attach(Object rootObject, Object mappedObject) throws SQLException {
+            throw new SQLException("Couldn't invoke setter [" +
+                    method.getName() + "] on " +
+                    rootObject.getClass().getSimpleName() + " with " +
+                    mappedObject.getClass().getSimpleName());
+        }
+    }
+
+    private static final class MissingSetterPlan extends JoinAttachPlan {
+
+        private final Class<?> mappedClass;
+
+        MissingSetterPlan(Class<?> mappedClass) {
+            this.mappedClass = mappedClass;
+        }
+
+        @Override
+        public void attach(Object rootObject, Object mappedObject) throws SQLException {
+            throw new SQLException("Couldn't find a setter for the object [" + mappedClass.getSimpleName() + "]");
+        }
+    }
+}
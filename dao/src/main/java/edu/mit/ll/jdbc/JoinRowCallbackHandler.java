@@ -29,13 +29,10 @@
  */
 package edu.mit.ll.jdbc;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,12 +44,12 @@ public class JoinRowCallbackHandler<T> implements RowCallbackHandler {
 
     private List<T> results;
     private JoinRowMapper<T> mainMapper;
-    private JoinRowMapper[] additionalMappers;
+    private List<JoinRowMapper> additionalMappers;
 
     public JoinRowCallbackHandler(JoinRowMapper<T> mainMapper, JoinRowMapper... additionalMappers) {
         this.results = new ArrayList<T>();
         this.mainMapper = mainMapper;
-        this.additionalMappers = additionalMappers;
+        this.additionalMappers = Arrays.asList(additionalMappers);
     }
 
 
@@ -85,130 +82,25 @@ public class JoinRowCallbackHandler<T> implements RowCallbackHandler {
         }
     }
 
-    private void handleAdditionalMappers(JoinRowMapper[] additionalMappers, Object rootObject, ResultSet rs, int rowNum)
-            throws SQLException {
-        Method[] methods = rootObject.getClass().getMethods();
+    static void handleAdditionalMappers(List<JoinRowMapper> additionalMappers, Object rootObject, ResultSet rs,
+                                        int rowNum) throws SQLException {
+        Class rootClass = rootObject.getClass();
 
-        for(int i = 0; i < additionalMappers.length; i++) {
-            JoinRowMapper mapper = additionalMappers[i];
+        for(int i = 0; i < additionalMappers.size(); i++) {
+            JoinRowMapper mapper = additionalMappers.get(i);
             Object mappedObject = mapper.getExistingObject(rs);
             if(mappedObject == null) {
                 mappedObject = mapper.mapRow(rs, rowNum);
             }
             if(mappedObject != null) { //Check to make sure that the mapping returned a valid object
-                Class mappedClass = mappedObject.getClass();
-                Method method = findMatchingSetter(methods, mappedClass, rootObject);
-                if(method != null) {
-                    trySetting(method, rootObject, mappedObject);
-                } else {
-                    throw new SQLException(
-                            "Couldn't find a setter for the object [" + mappedClass.getSimpleName() + "]");
-                }
+                JoinAttachPlan.forClasses(rootClass, mappedObject.getClass()).attach(rootObject, mappedObject);
 
                 // If this JoinRowMapper has additionalMappers attached, use them now
                 List<JoinRowMapper> newMappers = mapper.getAdditionalMappers();
                 if(!newMappers.isEmpty()) {
-                    handleAdditionalMappers(newMappers.toArray(new JoinRowMapper[newMappers.size()]), mappedObject, rs,
-                            rowNum);
-                }
-            }
-        }
-    }
-
-    private Method findMatchingSetter(Method[] methods, Class paramClass, Object mainObject) {
-        // Find a method that is a setter for an object matching the class
-        // of the paramClass
-        if(log.isDebugEnabled()) {
-            log.trace("Looking for a setter for {}", paramClass.toString());
-        }
-        for(int i = 0; i < methods.length; i++) {
-            Method method = methods[i];
-            String methodName = method.getName();
-            Class[] paramTypes = method.getParameterTypes();
-            if(methodName.startsWith("set") && paramTypes.length == 1) {
-                Class paramType = paramTypes[0];
-                if(log.isDebugEnabled()) {
-                    log.trace("Found a setter [{}]", method.toString());
-                }
-
-                if(paramClass.equals(paramType)) {
-                    return method;
-                }
-                // Also check if its a setter for a Collection matching the paramClass
-                else if(Collection.class.isAssignableFrom(paramType) &&
-                        findMatchingCollectionSetter(method.getName(), paramClass, mainObject)) {
-                    return method;
-                }
-            }
-        }
-        return null;
-    }
-
-    private boolean findMatchingCollectionSetter(String methodName, Class paramClass, Object mainObject) {
-        //Get the field name of the method by stripping off the beginning "set" and changing the first letter to
-        // lower case
-        String fieldName = methodName.substring(3, 5).toLowerCase() + methodName.substring(5, methodName.length());
-        try {
-            Field field = mainObject.getClass().getDeclaredField(fieldName);
-            //The field is a collection - so get the type
-            if(field != null) {
-                ParameterizedType type = (ParameterizedType) field.getGenericType();
-
-                Class listClass = (Class<?>) type.getActualTypeArguments()[0];
-
-                //Check to see if the type in the array list is the same as the object we're trying to set
-                if(listClass.equals(paramClass)) {
-                    return true;
-                }
-            }
-        } catch(Exception e) {
-            log.debug("No field found in #0 with name #1", mainObject.getClass().toString(), fieldName);
-        }
-        return false;
-    }
-
-    private <W> void trySetting(Method method, W thisObject, Object parameterObject) throws SQLException {
-        Class paramType = method.getParameterTypes()[0];
-        if(Collection.class.isAssignableFrom(paramType)) {
-            // If the setter is looking for a Collection, then we don't actually
-            // know if this is the right setter due to type erasure. We'll have to
-            // try setting and catch the exception if it's the wrong type. In order
-            // to add to the Collection we'll first have to look up the getter for
-            // this field, get the existing Collection (if it exists, otherwise
-            // create it), and then add to the Collection and call the setter with it.
-            String getterName = method.getName().replaceFirst("set", "get");
-            try {
-                Method getterMethod = thisObject.getClass().getMethod(getterName);
-                Collection collection = (Collection) getterMethod.invoke(thisObject);
-                if(collection == null) {
-                    collection = new ArrayList();
-                }
-                collection.add(parameterObject);
-                method.invoke(thisObject, collection);
-                if(log.isDebugEnabled()) {
-                    log.trace("Was able to set Collection using setter {}", method.toString());
+                    handleAdditionalMappers(newMappers, mappedObject, rs, rowNum);
                 }
-                return; // If we make it this far, the set worked
-            } catch(Exception e) {
-                log.debug("Exception while trying to set [" +
-                        parameterObject.getClass().getSimpleName() + "] using " +
-                        method.toString(), e);
-            }
-        } else {
-            // If setter is not looking for a Collection, then use it normally
-            try {
-                method.invoke(thisObject, parameterObject);
-                return; // If we make it this far, the set worked
-            } catch(Exception e) {
-                throw new SQLException("Couldn't invoke setter [" +
-                        method.getName() + "] on " +
-                        thisObject.getClass().getSimpleName() + " with " +
-                        parameterObject.getClass().getSimpleName());
             }
         }
-
-        // If we make it here, then none of the setters worked, so throw an exception
-        throw new SQLException(
-                "Couldn't find a setter for the object [" + parameterObject.getClass().getSimpleName() + "]");
     }
 }
@@ -46,6 +46,7 @@ public abstract class JoinRowMapper<T> implements RowMapper<T> {
     private Logger log = LoggerFactory.getLogger(JoinRowMapper.class);
     private List<JoinRowMapper> additionalMappers;
     private Map<Object, T> mappedObjects = new HashMap<Object, T>();
+    private ColumnSnapshot columnSnapshot;
 
     public JoinRowMapper(String tableName) {
         this.tableName = tableName;
@@ -73,7 +74,39 @@ public abstract class JoinRowMapper<T> implements RowMapper<T> {
     }
 
     public int getColumnId(ResultSet rs, String columnName) throws SQLException {
-        ResultSetMetaData meta = rs.getMetaData();
+        Integer id = this.getColumnSnapshot(rs).qualifiedIds.get(columnName);
+        if(id == null) {
+            id = this.resolveColumnId(rs.getMetaData(), columnName);
+            this.columnSnapshot.qualifiedIds.put(columnName, id);
+        }
+        return id;
+    }
+
+    /**
+     * Resolves a column label to its index in the ResultSet, the way ResultSet.findColumn does, except that when
+     * more than one column carries the label the column belonging to this mapper's table is preferred. Resolved
+     * indexes are cached for the lifetime of the ResultSet, so mappers can call this for every field on every row.
+     */
+    public int findColumn(ResultSet rs, String columnLabel) throws SQLException {
+        Integer id = this.getColumnSnapshot(rs).labelIds.get(columnLabel);
+        if(id == null) {
+            id = this.resolveColumnLabel(rs.getMetaData(), columnLabel);
+            this.columnSnapshot.labelIds.put(columnLabel, id);
+        }
+        if(id < 1) {
+            throw new SQLException("No column with label '" + columnLabel + "' in result set");
+        }
+        return id;
+    }
+
+    private ColumnSnapshot getColumnSnapshot(ResultSet rs) {
+        if(this.columnSnapshot == null || this.columnSnapshot.resultSet != rs) {
+            this.columnSnapshot = new ColumnSnapshot(rs);
+        }
+        return this.columnSnapshot;
+    }
+
+    private int resolveColumnId(ResultSetMetaData meta, String columnName) throws SQLException {
         int numCols = meta.getColumnCount();
 
         if(log.isDebugEnabled()) {
@@ -99,6 +132,34 @@ public abstract class JoinRowMapper<T> implements RowMapper<T> {
         throw new SQLException("No column with name '" + columnName + "' in table '" + tableName + "'");
     }
 
+    private int resolveColumnLabel(ResultSetMetaData meta, String columnLabel) throws SQLException {
+        int numCols = meta.getColumnCount();
+        int first = 0;
+        boolean duplicated = false;
+
+        for(int i = 1; i <= numCols; i++) {
+            if(meta.getColumnLabel(i).equalsIgnoreCase(columnLabel)) {
+                if(first == 0) {
+                    first = i;
+                } else {
+                    duplicated = true;
+                    break;
+                }
+            }
+        }
+
+        // Only look at table names when the label is ambiguous
+        if(duplicated) {
+            for(int i = first; i <= numCols; i++) {
+                if(meta.getColumnLabel(i).equalsIgnoreCase(columnLabel) &&
+                        this.tableName.equalsIgnoreCase(meta.getTableName(i))) {
+                    return i;
+                }
+            }
+        }
+        return first;
+    }
+
     public JoinRowMapper<T> attachAdditionalMapper(JoinRowMapper mapper) {
         additionalMappers.add(mapper);
         return this;
@@ -125,4 +186,18 @@ public abstract class JoinRowMapper<T> implements RowMapper<T> {
         return null;
     }
 
+    public void clearExistingObjects() {
+        mappedObjects.clear();
+    }
+
+    private static final class ColumnSnapshot {
+
+        private final ResultSet resultSet;
+        private final Map<String, Integer> qualifiedIds = new HashMap<String, Integer>();
+        private final Map<String, Integer> labelIds = new HashMap<String, Integer>();
+
+        private ColumnSnapshot(ResultSet resultSet) {
+            this.resultSet = resultSet;
+        }
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+/**
+ * Streaming counterpart to {@link JoinRowCallbackHandler}.
+ *
+ * <p>Rather than collecting every root object, each completed root aggregate is handed to a consumer as soon as the
+ * main mapper's key changes, and the mappers' existing object maps are cleared, so memory use is bounded by a single
+ * root and its children. Joined queries must therefore be ordered by the main mapper's key. Child objects are no
+ * longer shared between roots; a child joined to two roots is mapped once for each.</p>
+ */
+public class StreamingJoinRowCallbackHandler<T> implements ResultSetExtractor<Integer> {
+
+    private Consumer<? super T> consumer;
+    private JoinRowMapper<T> mainMapper;
+    private List<JoinRowMapper> additionalMappers;
+
+    public StreamingJoinRowCallbackHandler(Consumer<? super T> consumer, JoinRowMapper<T> mainMapper,
+                                           JoinRowMapper... additionalMappers) {
+        this.consumer = consumer;
+        this.mainMapper = mainMapper;
+        this.additionalMappers = Arrays.asList(additionalMappers);
+    }
+
+    /**
+     * @return the number of root objects passed to the consumer
+     */
+    @Override
+    public Integer extractData(ResultSet rs) throws SQLException {
+        int emitted = 0;
+        Object currentKey = null;
+        T current = null;
+
+        while(rs.next()) {
+            int rowNum = rs.getRow();
+            Object key = mainMapper.getKey(rs);
+
+            if(current == null || !Objects.equals(key, currentKey)) {
+                // The previous root is complete, so hand it off and forget its children
+                if(current != null) {
+                    consumer.accept(current);
+                    emitted++;
+                }
+                clearExistingObjects();
+
+                currentKey = key;
+                current = mainMapper.mapRow(rs, rowNum);
+                if(current == null) {
+                    continue;
+                }
+            }
+
+            JoinRowCallbackHandler.handleAdditionalMappers(additionalMappers, current, rs, rowNum);
+        }
+
+        if(current != null) {
+            consumer.accept(current);
+            emitted++;
+        }
+        return emitted;
+    }
+
+    private void clearExistingObjects() {
+        mainMapper.clearExistingObjects();
+        clearExistingObjects(additionalMappers);
+    }
+
+    private static void clearExistingObjects(List<JoinRowMapper> mappers) {
+        for(JoinRowMapper mapper : mappers) {
+            mapper.clearExistingObjects();
+            clearExistingObjects(mapper.getAdditionalMappers());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.jdbc.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import edu.mit.ll.dao.CompiledQuery;
+import edu.mit.ll.dao.QueryModel;
+import edu.mit.ll.jdbc.JoinRowCallbackHandler;
+import edu.mit.ll.nics.jdbc.test.mapper.ParentObjectRowMapper;
+import edu.mit.ll.nics.jdbc.test.model.ParentObject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:applicationContext.xml")
+public class CompiledQueryTest {
+
+    private static final CompiledQuery PARENT_BY_ID = new QueryModel("parent_obj")
+            .selectAllFromTableWhere().equals("parent_id").compile();
+
+    @Autowired
+    private DataSource datasource;
+
+    private NamedParameterJdbcTemplate template;
+
+    @Before
+    public void setUp() {
+        template = new NamedParameterJdbcTemplate(datasource);
+    }
+
+    @Test
+    public void testCompiledSql() {
+        assertEquals("select * from parent_obj where parent_id=:parent_id", PARENT_BY_ID.getSql());
+        assertEquals(Collections.singletonList("parent_id"), PARENT_BY_ID.getParameterNames());
+    }
+
+    @Test
+    public void testQueryWithCompiledStatement() {
+        JoinRowCallbackHandler<ParentObject> handler = new JoinRowCallbackHandler<ParentObject>(
+                new ParentObjectRowMapper());
+        PARENT_BY_ID.query(template, new MapSqlParameterSource("parent_id", 4), handler);
+        ParentObject parent = handler.getSingleResult();
+        assertTrue(parent.getId() == 4);
+        assertTrue(parent.getName().equals("Parent: has single child 2"));
+
+        CompiledQuery nameById = new QueryModel("parent_obj").selectFromTableWhere("name")
+                .equals("parent_id").compile();
+        String name = nameById.queryForObject(template, new MapSqlParameterSource("parent_id", 4), String.class);
+        assertEquals("Parent: has single child 2", name);
+    }
+
+    @Test
+    public void testQueryWithCollectionParameter() {
+        CompiledQuery query = new QueryModel("parent_obj").selectFromTable("parent_id").where()
+                .value("parent_id in (:ids)").orderBy("parent_id").compile();
+        List<Integer> ids = query.query(template, new MapSqlParameterSource("ids", Arrays.asList(2, 3, 6)),
+                (rs, rowNum) -> rs.getInt(1));
+        assertEquals(Arrays.asList(2, 3, 6), ids);
+    }
+
+    @Test
+    public void testNamedQueryIsShared() {
+        CompiledQuery first = CompiledQuery.named("CompiledQueryTest.parentIds",
+                () -> new QueryModel("parent_obj").selectFromTable("parent_id"));
+        CompiledQuery second = CompiledQuery.named("CompiledQueryTest.parentIds", () -> {
+            throw new AssertionError("Named query should only be built once");
+        });
+        assertSame(first, second);
+        assertEquals("CompiledQueryTest.parentIds", first.getName());
+    }
+}
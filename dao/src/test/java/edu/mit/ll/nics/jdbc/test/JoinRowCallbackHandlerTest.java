@@ -29,9 +29,13 @@
  */
 package edu.mit.ll.nics.jdbc.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 
+import edu.mit.ll.jdbc.JoinAttachPlan;
 import edu.mit.ll.jdbc.JoinRowCallbackHandler;
 import edu.mit.ll.jdbc.JoinRowMapper;
 import edu.mit.ll.nics.jdbc.test.mapper.DeepChildRowMapper;
@@ -42,6 +46,7 @@ import edu.mit.ll.nics.jdbc.test.model.DeepChild;
 import edu.mit.ll.nics.jdbc.test.model.MultipleChild;
 import edu.mit.ll.nics.jdbc.test.model.ParentObject;
 import edu.mit.ll.nics.jdbc.test.model.SingleChild;
+import java.sql.SQLException;
 import java.util.List;
 import javax.sql.DataSource;
 import org.junit.Before;
@@ -283,6 +288,30 @@ public class JoinRowCallbackHandlerTest {
 
     }
 
+    @Test
+    public void testFindColumnPrefersMapperTable() {
+        final SingleChildRowMapper childMapper = new SingleChildRowMapper();
+        final ParentObjectRowMapper parentMapper = new ParentObjectRowMapper();
+        template.query("select * from parent_obj join single_child using(single_child_id) where parent_id = :id",
+                new MapSqlParameterSource("id", 1), rs -> {
+                    assertEquals(childMapper.getColumnId(rs, "name"), childMapper.findColumn(rs, "name"));
+                    assertEquals(parentMapper.getColumnId(rs, "name"), parentMapper.findColumn(rs, "name"));
+                    assertNotEquals(childMapper.findColumn(rs, "name"), parentMapper.findColumn(rs, "name"));
+                    assertEquals(rs.findColumn("parent_id"), parentMapper.findColumn(rs, "PARENT_ID"));
+                });
+    }
+
+    @Test
+    public void testAttachPlanIsShared() {
+        JoinAttachPlan plan = JoinAttachPlan.forClasses(ParentObject.class, MultipleChild.class);
+        assertSame(plan, JoinAttachPlan.forClasses(ParentObject.class, MultipleChild.class));
+    }
+
+    @Test(expected = SQLException.class)
+    public void testAttachPlanWithoutSetter() throws SQLException {
+        JoinAttachPlan.forClasses(SingleChild.class, ParentObject.class).attach(new SingleChild(), new ParentObject());
+    }
+
     private JoinRowCallbackHandler<ParentObject> getHandlerWith(JoinRowMapper... mappers) {
         return new JoinRowCallbackHandler(new ParentObjectRowMapper(), mappers);
     }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.jdbc.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import edu.mit.ll.dao.QueryModel;
+import edu.mit.ll.dao.SqlArrayValue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:applicationContext.xml")
+public class QueryModelArrayTest {
+
+    @Autowired
+    private DataSource datasource;
+
+    @Test
+    public void testSqlIsIndependentOfListSize() {
+        QueryModel one = idsWhere().inArrayAsInteger("parent_id", Collections.singletonList(1));
+        QueryModel three = idsWhere().inArrayAsInteger("parent_id", Arrays.asList(1, 2, 3));
+        assertEquals("select parent_id from parent_obj where parent_id= ANY(:parent_id)", one.toString());
+        assertEquals(one.toString(), three.toString());
+    }
+
+    @Test
+    public void testArrayParameters() {
+        QueryModel query = idsWhere().inArrayAsLong("parent_id", "ids", Arrays.asList(4L, 5L))
+                .and().notInArrayAsInteger("single_child_id", Arrays.asList(1, 2))
+                .and().inArrayAsString("name", Arrays.asList("a", "b"));
+        assertEquals("select parent_id from parent_obj where parent_id= ANY(:ids) and single_child_id<> ALL" +
+                "(:single_child_id) and name= ANY(:name)", query.toString());
+
+        SqlArrayValue ids = (SqlArrayValue) query.getParameters().get("ids");
+        assertEquals(SqlArrayValue.BIGINT, ids.getElementType());
+        assertArrayEquals(new Object[]{4L, 5L}, ids.getValues());
+        assertEquals(SqlArrayValue.INTEGER,
+                ((SqlArrayValue) query.getParameters().get("single_child_id")).getElementType());
+        assertEquals(SqlArrayValue.VARCHAR, ((SqlArrayValue) query.getParameters().get("name")).getElementType());
+    }
+
+    @Test
+    public void testBindArrayValue() {
+        // The embedded database has no = ANY(array) support, so bind through its UNNEST form instead
+        NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(datasource);
+        List<Integer> ids = template.queryForList(
+                "select parent_id from parent_obj where parent_id in (unnest(:ids)) order by parent_id",
+                new MapSqlParameterSource("ids", new SqlArrayValue(SqlArrayValue.INTEGER, Arrays.asList(6, 2, 3))),
+                Integer.class);
+        assertEquals(Arrays.asList(2, 3, 6), ids);
+
+        List<Integer> none = template.queryForList(
+                "select parent_id from parent_obj where parent_id in (unnest(:ids))",
+                new MapSqlParameterSource("ids", new SqlArrayValue(SqlArrayValue.INTEGER,
+                        Collections.<Integer>emptyList())),
+                Integer.class);
+        assertTrue(none.isEmpty());
+    }
+
+    private QueryModel idsWhere() {
+        return new QueryModel("parent_obj").selectFromTable("parent_id").where();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.jdbc.test;
+
+import static org.junit.Assert.assertTrue;
+
+
+import edu.mit.ll.jdbc.StreamingJoinRowCallbackHandler;
+import edu.mit.ll.nics.jdbc.test.mapper.DeepChildRowMapper;
+import edu.mit.ll.nics.jdbc.test.mapper.MultipleChildRowMapper;
+import edu.mit.ll.nics.jdbc.test.mapper.ParentObjectRowMapper;
+import edu.mit.ll.nics.jdbc.test.mapper.SingleChildRowMapper;
+import edu.mit.ll.nics.jdbc.test.model.MultipleChild;
+import edu.mit.ll.nics.jdbc.test.model.ParentObject;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:applicationContext.xml")
+public class StreamingJoinRowCallbackHandlerTest {
+
+    @Autowired
+    private DataSource datasource;
+
+    private NamedParameterJdbcTemplate template;
+
+    @Before
+    public void setUp() {
+        template = new NamedParameterJdbcTemplate(datasource);
+    }
+
+    @Test
+    public void testStreamMultipleRowsWithMultipleJoins() {
+        List<ParentObject> parents = new ArrayList<ParentObject>();
+        int emitted = template.query(
+                "select * from parent_obj join parent_obj_multiple_child using(parent_id) join multiple_child using " +
+                        "(multiple_child_id) order by parent_id, multiple_child_id",
+                new MapSqlParameterSource(),
+                new StreamingJoinRowCallbackHandler<ParentObject>(parents::add, new ParentObjectRowMapper(),
+                        new MultipleChildRowMapper()));
+
+        assertTrue(emitted == 3);
+        assertTrue(parents.size() == 3);
+
+        // Check first parent
+        ParentObject parent1 = parents.get(0);
+        assertTrue(parent1.getId() == 2);
+        List<MultipleChild> children1 = parent1.getMultipleChildren();
+        assertTrue(children1.size() == 2);
+        assertTrue(children1.get(0).getId() == 1);
+        assertTrue(children1.get(1).getId() == 2);
+
+        // Check second parent, which shares multiple child 2 with the first
+        ParentObject parent2 = parents.get(1);
+        assertTrue(parent2.getId() == 5);
+        List<MultipleChild> children2 = parent2.getMultipleChildren();
+        assertTrue(children2.size() == 3);
+        assertTrue(children2.get(0).getId() == 2);
+        assertTrue(children2.get(0).getName().equals("Multiple child 2"));
+        assertTrue(children2.get(1).getId() == 3);
+        assertTrue(children2.get(2).getId() == 4);
+
+        // Check third parent
+        ParentObject parent3 = parents.get(2);
+        assertTrue(parent3.getId() == 7);
+        assertTrue(parent3.getMultipleChildren().size() == 2);
+    }
+
+    @Test
+    public void testStreamDeepJoin() {
+        List<ParentObject> parents = new ArrayList<ParentObject>();
+        String sql = "select * from parent_obj join deep_child " +
+                "using(deep_child_id) join single_child on deep_child.single_child_id " +
+                "= single_child.single_child_id order by parent_id";
+        int emitted = template.query(sql, new MapSqlParameterSource(),
+                new StreamingJoinRowCallbackHandler<ParentObject>(parents::add, new ParentObjectRowMapper(),
+                        new DeepChildRowMapper().attachAdditionalMapper(new SingleChildRowMapper())));
+
+        assertTrue(emitted == 3);
+        assertTrue(parents.get(0).getId() == 3);
+        assertTrue(parents.get(0).getDeepChild().getChild().getId() == 1);
+        assertTrue(parents.get(1).getId() == 6);
+        assertTrue(parents.get(1).getDeepChild().getChild().getId() == 3);
+        assertTrue(parents.get(2).getId() == 7);
+        assertTrue(parents.get(2).getDeepChild().getId() == 1);
+    }
+
+    @Test
+    public void testStreamEmptyResult() {
+        List<ParentObject> parents = new ArrayList<ParentObject>();
+        int emitted = template.query("select * from parent_obj where parent_id < :id",
+                new MapSqlParameterSource("id", 0),
+                new StreamingJoinRowCallbackHandler<ParentObject>(parents::add, new ParentObjectRowMapper()));
+        assertTrue(emitted == 0);
+        assertTrue(parents.isEmpty());
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api;
+
+import edu.mit.ll.nics.common.geoserver.api.http.ProgressListener;
+import edu.mit.ll.nics.common.geoserver.api.http.StreamingBody;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * Non-blocking variant of the most used {@link GeoServer} calls. Lists and reads carry their value in the
+ * {@link RestResult}; writes carry only the status and GeoServer's response.
+ */
+public class AsyncGeoServer extends AsyncSuperGeoServer {
+
+    public AsyncGeoServer(GeoServer server) {
+        this(server, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public AsyncGeoServer(GeoServer server, int maxInFlight) {
+        super(server, maxInFlight);
+    }
+
+    public AsyncGeoServer(GeoServer server, ExecutorService executor) {
+        super(server, executor);
+    }
+
+    public CompletableFuture<RestResult<List<String>>> getLayerList() {
+        return list("/layers.json", "layer");
+    }
+
+    public CompletableFuture<RestResult<List<String>>> getWorkspaceList() {
+        return list("/workspaces.json", "workspace");
+    }
+
+    public CompletableFuture<RestResult<List<String>>> getDataStoreList(String workspaceName) {
+        return list("/workspaces/" + workspaceName + "/datastores.json", "dataStore");
+    }
+
+    public CompletableFuture<RestResult<List<String>>> getFeatureTypeList(String workspaceName,
+                                                                          String dataStoreName) {
+        return list(GeoServer.featureTypesUrl(workspaceName, dataStoreName) + ".json", "featureType");
+    }
+
+    public CompletableFuture<RestResult<List<String>>> getStyles() {
+        return list("/styles.json", "styles");
+    }
+
+    public CompletableFuture<RestResult<String>> getLayer(String layerName, String workspaceName,
+                                                          String contentType) {
+        return get("/layers/" + workspaceName + ":" + layerName, contentType);
+    }
+
+    public CompletableFuture<RestResult<String>> getFeatureType(String workspaceName, String dataStoreName,
+                                                                String featureTypeName, String contentType) {
+        return get(GeoServer.featureTypeUrl(workspaceName, dataStoreName, featureTypeName) + ".json", contentType);
+    }
+
+    public CompletableFuture<RestResult<String>> getStyle(String styleName) {
+        return get("/styles/" + styleName, "application/vnd.ogc.sld+xml");
+    }
+
+    public CompletableFuture<RestResult<Void>> addFeatureType(String workspaceName, String dataStoreName,
+                                                              String featureTypeName, String srs) {
+        return addFeatureTypeSQL(workspaceName, dataStoreName, featureTypeName, srs, null, null, null, null);
+    }
+
+    /**
+     * @param sqlFilter sql query to build the view with, or null for a plain feature type
+     */
+    public CompletableFuture<RestResult<Void>> addFeatureTypeSQL(String workspaceName, String dataStoreName,
+                                                                 String featureTypeName, String srs,
+                                                                 String sqlFilter, String geometryAttribute,
+                                                                 String geometryType, Integer srid) {
+        String xml = GeoServer.buildFeatureTypeXML(workspaceName, dataStoreName, featureTypeName, srs, sqlFilter,
+                geometryAttribute, geometryType, srid);
+        return post(GeoServer.featureTypesUrl(workspaceName, dataStoreName), xml, "application/xml");
+    }
+
+    public CompletableFuture<RestResult<Void>> updateFeatureTypeTitle(String featureTypeName, String workspaceName,
+                                                                      String dataStoreName, String title) {
+        return put(GeoServer.featureTypeUrl(workspaceName, dataStoreName, featureTypeName),
+                GeoServer.featureTypeTitleXml(title), "application/xml");
+    }
+
+    /**
+     * Completes exceptionally with an IllegalArgumentException, without calling GeoServer, if either envelope is
+     * empty
+     */
+    public CompletableFuture<RestResult<Void>> updateFeatureTypeBounds(String workspaceName, String dataStoreName,
+                                                                       String featureTypeName, Envelope nativeBounds,
+                                                                       Envelope latlonBounds, String srs) {
+        if(latlonBounds.isNull() || nativeBounds.isNull()) {
+            return failed(new IllegalArgumentException("Incorrect bounds envelope must have 4 points"));
+        }
+        return put(GeoServer.featureTypeUrl(workspaceName, dataStoreName, featureTypeName),
+                GeoServer.featureTypeBoundsXml(nativeBounds, latlonBounds, srs), "application/xml");
+    }
+
+    public CompletableFuture<RestResult<Void>> removeFeatureType(String workspaceName, String dataStoreName,
+                                                                 String featureTypeName) {
+        return delete(GeoServer.featureTypeUrl(workspaceName, dataStoreName, featureTypeName));
+    }
+
+    public CompletableFuture<RestResult<Void>> updateLayerStyle(String layerName, String workspaceName,
+                                                                String style) {
+        return put(GeoServer.layerUrl(layerName, workspaceName), GeoServer.layerStyleXml(style), "application/xml");
+    }
+
+    public CompletableFuture<RestResult<Void>> updateLayerEnabled(String layerName, String workspaceName,
+                                                                  boolean enabled) {
+        return put(GeoServer.layerUrl(layerName, workspaceName), GeoServer.layerEnabledXml(enabled),
+                "application/xml");
+    }
+
+    public CompletableFuture<RestResult<Void>> removeLayer(String layerName) {
+        return delete("/layers/" + layerName);
+    }
+
+    public CompletableFuture<RestResult<Void>> addStyle(String styleName, String styleXml) {
+        return post("/styles?name=" + styleName, styleXml, "application/vnd.ogc.sld+xml");
+    }
+
+    public CompletableFuture<RestResult<Void>> updateStyle(String styleName, String styleXml) {
+        return put("/styles/" + styleName, styleXml, "application/vnd.ogc.sld+xml");
+    }
+
+    public CompletableFuture<RestResult<Void>> removeStyle(String styleName) {
+        return delete("/styles/" + styleName);
+    }
+
+    /**
+     * Streams a geotiff, or a zip containing one or more geotiffs, into a new coverage store, as
+     * {@link GeoServer#addGeotiff(String, String, String, String, Path, boolean, ProgressListener)} does
+     *
+     * @param listener told how many bytes have been uploaded, or null
+     */
+    public CompletableFuture<RestResult<Void>> addGeotiff(String workspace, String storeName, String displayName,
+                                                          String contentType, Path file, boolean isMosaic,
+                                                          ProgressListener listener) {
+        try {
+            return putBinary(GeoServer.coverageStoreUrl(workspace, storeName, displayName, "file", isMosaic),
+                    StreamingBody.of(file, listener), contentType);
+        } catch(IOException e) {
+            return failed(e);
+        }
+    }
+}
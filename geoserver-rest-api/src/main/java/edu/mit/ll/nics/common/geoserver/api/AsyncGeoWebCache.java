@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Non-blocking variant of {@link GeoWebCache}
+ */
+public class AsyncGeoWebCache extends AsyncSuperGeoServer {
+
+    public AsyncGeoWebCache(GeoWebCache server) {
+        this(server, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public AsyncGeoWebCache(GeoWebCache server, int maxInFlight) {
+        super(server, maxInFlight);
+    }
+
+    public AsyncGeoWebCache(GeoWebCache server, ExecutorService executor) {
+        super(server, executor);
+    }
+
+    public CompletableFuture<RestResult<Void>> clearCache(String featureTypeName, int srs, String imageFormat,
+                                                          int threadCount) {
+        return post("/seed/" + featureTypeName + ".xml",
+                GeoWebCache.seedRequestXml(featureTypeName, 0, 20, srs, imageFormat, "truncate", threadCount),
+                "text/xml");
+    }
+
+    public CompletableFuture<RestResult<Void>> seedCache(String featureTypeName, int zoomStart, int zoomStop,
+                                                         int srs, String imageFormat, int threadCount) {
+        return post("/seed/" + featureTypeName + ".xml",
+                GeoWebCache.seedRequestXml(featureTypeName, zoomStart, zoomStop, srs, imageFormat, "reseed",
+                        threadCount), "text/xml");
+    }
+
+    public CompletableFuture<RestResult<Void>> reload() {
+        return post("/reload", "reload_configuration=1", "text");
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api;
+
+import edu.mit.ll.nics.common.geoserver.api.http.HttpResponse;
+import edu.mit.ll.nics.common.geoserver.api.http.RequestBody;
+import edu.mit.ll.nics.common.geoserver.api.http.UrlConnectionTransport;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous counterpart of {@link SuperGeoServer}: REST calls run on a bounded pool and return
+ * {@link CompletableFuture}s of {@link RestResult}s, so callers never wait on GeoServer.
+ *
+ * <p>At most maxInFlight calls run at once; further calls queue without blocking the caller. A future completes
+ * normally whatever status GeoServer answers with, and exceptionally only when no answer was received. Calls share
+ * the wrapped client's transport, credentials and catalog cache, and successful writes invalidate the cache as
+ * the synchronous methods do.</p>
+ */
+public class AsyncSuperGeoServer implements AutoCloseable {
+
+    /**
+     * Calls in flight by default, matching {@link UrlConnectionTransport#DEFAULT_MAX_PER_ROUTE}
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = UrlConnectionTransport.DEFAULT_MAX_PER_ROUTE;
+
+    private final SuperGeoServer server;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+
+    /**
+     * @param maxInFlight calls running at once; more than the transport's per-route limit only adds waiting threads
+     */
+    public AsyncSuperGeoServer(SuperGeoServer server, int maxInFlight) {
+        this(server, newExecutor(maxInFlight), true);
+    }
+
+    /**
+     * @param executor runs the calls; its size bounds the calls in flight, and it is not shut down by close
+     */
+    public AsyncSuperGeoServer(SuperGeoServer server, ExecutorService executor) {
+        this(server, executor, false);
+    }
+
+    private AsyncSuperGeoServer(SuperGeoServer server, ExecutorService executor, boolean ownsExecutor) {
+        this.server = server;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    public SuperGeoServer getServer() {
+        return server;
+    }
+
+    /**
+     * Stops the pool created by this client, letting queued calls finish.
+     */
+    @Override
+    public void close() {
+        if(ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return the response body on 200, or GeoServer's message otherwise
+     */
+    protected CompletableFuture<RestResult<String>> get(String appendUrl, String contentType) {
+        return call(() -> {
+            HttpResponse response = server.execute(appendUrl, server.METHOD_GET, null, contentType,
+                    new HashMap<String, String>());
+            boolean ok = response.getStatusCode() == server.GET_SUCCESS;
+            return new RestResult<String>(response.getStatusCode(), ok, ok ? response.getBodyString() : null,
+                    response.getBodyString());
+        });
+    }
+
+    protected CompletableFuture<RestResult<List<String>>> list(String url, String objectType) {
+        return call(() -> server.fetchList(url, objectType));
+    }
+
+    protected CompletableFuture<RestResult<Void>> post(String appendUrl, String content, String contentType) {
+        return send(server.METHOD_POST, appendUrl, textBody(content), contentType, server.POST_SUCCESS,
+                server.GET_SUCCESS);
+    }
+
+    protected CompletableFuture<RestResult<Void>> put(String appendUrl, String content, String contentType) {
+        return send(server.METHOD_PUT, appendUrl, textBody(content), contentType, server.PUT_SUCCESS);
+    }
+
+    protected CompletableFuture<RestResult<Void>> putBinary(String appendUrl, RequestBody content,
+                                                            String contentType) {
+        return send(server.METHOD_PUT, appendUrl, content, contentType, server.PUT_SUCCESS, server.POST_SUCCESS);
+    }
+
+    protected CompletableFuture<RestResult<Void>> delete(String appendUrl) {
+        return send(server.METHOD_DELETE, appendUrl, null, null, server.DELETE_SUCCESS);
+    }
+
+    /**
+     * @param successCodes statuses that mean the call succeeded
+     */
+    protected CompletableFuture<RestResult<Void>> send(String method, String appendUrl, RequestBody body,
+                                                       String contentType, int... successCodes) {
+        return call(() -> {
+            HttpResponse response = server.execute(appendUrl, method, body, contentType,
+                    new HashMap<String, String>());
+            boolean ok = false;
+            for(int code : successCodes) {
+                ok |= response.getStatusCode() == code;
+            }
+            if(ok) {
+                server.writeSucceeded(appendUrl);
+            }
+            return new RestResult<Void>(response.getStatusCode(), ok, null, response.getBodyString());
+        });
+    }
+
+    protected <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private interface Call<T> {
+        T call() throws Exception;
+    }
+
+    private <T> CompletableFuture<T> call(Call<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call();
+            } catch(Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private static RequestBody textBody(String content) {
+        return content == null ? null : RequestBody.of(content, StandardCharsets.UTF_8);
+    }
+
+    private static ExecutorService newExecutor(int maxInFlight) {
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxInFlight, maxInFlight, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), runnable -> {
+            Thread thread = new Thread(runnable, "geoserver-async-" + sequence.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
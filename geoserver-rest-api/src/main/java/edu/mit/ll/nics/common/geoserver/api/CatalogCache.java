@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches the name lists read by {@link SuperGeoServer#getList}, keyed by their REST url, e.g. "/layers.json".
+ *
+ * <p>A list younger than the ttl is returned without asking GeoServer. An older one is revalidated with a
+ * conditional GET when GeoServer sent an ETag or Last-Modified header for it, and fetched again otherwise. At most
+ * maxEntries lists are kept, least recently used first out. Writes through the same {@link SuperGeoServer} drop the
+ * lists they may have changed, see {@link #invalidate(String)}, and a list fetched while such a write completed is
+ * not cached; changes made by anyone else are seen once the ttl runs out.</p>
+ */
+public class CatalogCache {
+
+    public static final long DEFAULT_TTL = 10000;
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * A cached list and the validators GeoServer sent with it
+     */
+    public static final class Entry {
+        private final List<String> names;
+        private final String etag;
+        private final String lastModified;
+        private volatile long fetchedAt;
+
+        private Entry(List<String> names, String etag, String lastModified, long fetchedAt) {
+            this.names = Collections.unmodifiableList(new ArrayList<String>(names));
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetchedAt = fetchedAt;
+        }
+
+        public List<String> getNames() {
+            return names;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public boolean isRevalidatable() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    private final long ttl;
+    private final Map<String, Entry> entries;
+    private long generation;
+
+    public CatalogCache() {
+        this(DEFAULT_TTL, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param ttl        milliseconds a list is used without checking with GeoServer
+     * @param maxEntries lists kept at most
+     */
+    public CatalogCache(long ttl, int maxEntries) {
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the cached list for the url, fresh or not, or null
+     */
+    public synchronized Entry get(String url) {
+        return entries.get(url);
+    }
+
+    public boolean isFresh(Entry entry) {
+        return System.currentTimeMillis() - entry.fetchedAt < ttl;
+    }
+
+    /**
+     * @return a counter that every invalidation moves on; read it before fetching a list and hand it to
+     * {@link #put}
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches a list fetched from GeoServer, unless the cache was invalidated since the fetch started: the list may
+     * then predate the write that invalidated it.
+     *
+     * @param generation {@link #getGeneration()} as read before the fetch
+     * @return the cached entry, or null if the list was not cached
+     */
+    public synchronized Entry put(String url, List<String> names, String etag, String lastModified,
+                                  long generation) {
+        if(generation != this.generation) {
+            return null;
+        }
+        Entry entry = new Entry(names, etag, lastModified, System.currentTimeMillis());
+        entries.put(url, entry);
+        return entry;
+    }
+
+    /**
+     * Marks the entry fresh again after GeoServer answered a conditional GET with 304 Not Modified.
+     */
+    public void revalidated(Entry entry) {
+        entry.fetchedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Drops the lists a successful write to the url may have changed: the list the written object belongs to,
+     * lists nested under it, e.g. a removed workspace's datastores, and the layer list for writes that create or
+     * remove layers along with their feature type or coverage.
+     *
+     * @param writeUrl the REST url written to, e.g. "/workspaces/nics/datastores/db/featuretypes"
+     */
+    public synchronized void invalidate(String writeUrl) {
+        generation++;
+        String written = resourcePath(writeUrl);
+        boolean layers = written.contains("/featuretypes") || written.contains("/coveragestores");
+        for(Iterator<String> urls = entries.keySet().iterator(); urls.hasNext(); ) {
+            String list = resourcePath(urls.next());
+            boolean member = written.startsWith(list + "/") && written.indexOf('/', list.length() + 1) < 0;
+            if(written.equals(list) || member || list.startsWith(written + "/") || (layers && list.equals("/layers"))) {
+                urls.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @return the url without its query string and format extension, so "/styles.json" and "/styles?name=x" both
+     * give "/styles"
+     */
+    private static String resourcePath(String url) {
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if(dot > slash && (path.endsWith(".json") || path.endsWith(".xml"))) {
+            path = path.substring(0, dot);
+        }
+        return path;
+    }
+}
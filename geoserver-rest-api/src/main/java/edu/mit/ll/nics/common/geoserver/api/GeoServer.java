@@ -29,6 +29,13 @@
  */
 package edu.mit.ll.nics.common.geoserver.api;
 
+import edu.mit.ll.nics.common.geoserver.api.http.HttpTransport;
+import edu.mit.ll.nics.common.geoserver.api.http.ProgressListener;
+import edu.mit.ll.nics.common.geoserver.api.http.RequestBody;
+import edu.mit.ll.nics.common.geoserver.api.http.StreamingBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -53,6 +60,10 @@ public class GeoServer extends SuperGeoServer {
         super(_url, username, password);
     }
 
+    public GeoServer(String _url, String username, String password, HttpTransport transport) {
+        super(_url, username, password, transport);
+    }
+
     /**
      * @return Return all the layers in geoserver
      */
@@ -79,14 +90,7 @@ public class GeoServer extends SuperGeoServer {
      * @return success of updating object
      */
     public boolean updateLayerStyle(String layerName, String style) {
-        String xml = "<layer>"
-                //+ "<name>" + layerName + "</name>"
-                + "<defaultStyle>"
-                + "<name>" + style + "</name>"
-                + "</defaultStyle>"
-                + "<enabled>true</enabled>"
-                + "</layer>";
-        return restPut("/layers/" + layerName, xml, "application/xml");
+        return restPut("/layers/" + layerName, layerStyleXml(style), "application/xml");
     }
 
     /**
@@ -97,11 +101,7 @@ public class GeoServer extends SuperGeoServer {
      * @return success of updating object
      */
     public boolean updateLayerEnabled(String layerName, boolean enabled) {
-        String xml = "<layer>"
-                //+ "<name>" + layerName + "</name>"
-                + "<enabled>" + enabled + "</enabled>"
-                + "</layer>";
-        return restPut("/layers/" + layerName, xml, "application/xml");
+        return restPut("/layers/" + layerName, layerEnabledXml(enabled), "application/xml");
     }
 
     /**
@@ -125,14 +125,21 @@ public class GeoServer extends SuperGeoServer {
      * @return success of updating object
      */
     public boolean updateLayerStyle(String layerName, String workspaceName, String style) {
-        String xml = "<layer>"
+        return restPut(layerUrl(layerName, workspaceName), layerStyleXml(style), "application/xml");
+    }
+
+    static String layerStyleXml(String style) {
+        return "<layer>"
                 //+ "<name>" + layerName + "</name>"
                 + "<defaultStyle>"
                 + "<name>" + style + "</name>"
                 + "</defaultStyle>"
                 + "<enabled>true</enabled>"
                 + "</layer>";
-        return restPut("/layers/" + workspaceName + ":" + layerName + ".xml", xml, "application/xml");
+    }
+
+    static String layerUrl(String layerName, String workspaceName) {
+        return "/layers/" + workspaceName + ":" + layerName + ".xml";
     }
 
     /**
@@ -144,11 +151,14 @@ public class GeoServer extends SuperGeoServer {
      * @return success of updating object
      */
     public boolean updateLayerEnabled(String layerName, String workspaceName, boolean enabled) {
-        String xml = "<layer>"
+        return restPut(layerUrl(layerName, workspaceName), layerEnabledXml(enabled), "application/xml");
+    }
+
+    static String layerEnabledXml(boolean enabled) {
+        return "<layer>"
                 //+ "<name>" + layerName + "</name>"
                 + "<enabled>" + enabled + "</enabled>"
                 + "</layer>";
-        return restPut("/layers/" + workspaceName + ":" + layerName + ".xml", xml, "application/xml");
     }
 
     /**
@@ -308,12 +318,22 @@ public class GeoServer extends SuperGeoServer {
      */
     public boolean updateFeatureTypeTitle(String featureTypeName, String workspaceName, String dataStoreName,
                                           String title) {
-        String xml = "<featureType>"
+        return restPut(featureTypeUrl(workspaceName, dataStoreName, featureTypeName), featureTypeTitleXml(title),
+                "application/xml");
+    }
+
+    static String featureTypeTitleXml(String title) {
+        return "<featureType>"
                 + "<title>" + title + "</title>"
                 + "</featureType>";
-        return restPut(
-                "/workspaces/" + workspaceName + "/datastores/" + dataStoreName + "/featuretypes/" + featureTypeName,
-                xml, "application/xml");
+    }
+
+    static String featureTypesUrl(String workspaceName, String dataStoreName) {
+        return "/workspaces/" + workspaceName + "/datastores/" + dataStoreName + "/featuretypes";
+    }
+
+    static String featureTypeUrl(String workspaceName, String dataStoreName, String featureTypeName) {
+        return featureTypesUrl(workspaceName, dataStoreName) + "/" + featureTypeName;
     }
 
     /**
@@ -329,8 +349,8 @@ public class GeoServer extends SuperGeoServer {
      * @param srid
      * @return
      */
-    private String buildFeatureTypeXML(String workspaceName, String dataStoreName, String featureTypeName, String srs,
-                                       String sqlFilter, String geometryAttribute, String geometryType, Integer srid) {
+    static String buildFeatureTypeXML(String workspaceName, String dataStoreName, String featureTypeName, String srs,
+                                      String sqlFilter, String geometryAttribute, String geometryType, Integer srid) {
         String xml = "<featureType>"
                 + "<name>" + featureTypeName + "</name>"
                 + "<nativeName>" + featureTypeName + "</nativeName>"
@@ -453,7 +473,12 @@ public class GeoServer extends SuperGeoServer {
             log.warning("Incorrect bounds envelope must have 4 points");
             return false;
         }
-        String xml = "<featureType>"
+        return restPut(featureTypeUrl(workspaceName, dataStoreName, featureTypeName),
+                featureTypeBoundsXml(nativeBounds, latlonBounds, srs), "application/xml");
+    }
+
+    static String featureTypeBoundsXml(Envelope nativeBounds, Envelope latlonBounds, String srs) {
+        return "<featureType>"
                 /*+ "<name>" + featureTypeName + "</name>"
                 + "<nativeName>" + featureTypeName + "</nativeName>"
                 + "<namespace>"
@@ -475,9 +500,6 @@ public class GeoServer extends SuperGeoServer {
                 + "<crs>EPSG:4326</crs>"
                 + "</latLonBoundingBox>"
                 + "</featureType>";
-        return restPut(
-                "/workspaces/" + workspaceName + "/datastores/" + dataStoreName + "/featuretypes/" + featureTypeName,
-                xml, "application/xml");
     }
 
     /**
@@ -585,6 +607,18 @@ public class GeoServer extends SuperGeoServer {
     }
 
 
+    /**
+     * Create feature types and set their bounds, titles and styles for many layers at once. Each layer's calls are
+     * made in order, and different layers are provisioned in parallel.
+     *
+     * @param specs       layers to publish
+     * @param parallelism maximum number of layers provisioned at the same time
+     * @return per layer results, in the order of specs, and timings
+     */
+    public ProvisioningReport provisionLayers(List<LayerSpec> specs, int parallelism) throws InterruptedException {
+        return new LayerProvisioner(this).provision(specs, parallelism);
+    }
+
     /**
      * Makes the PUT request to Geoserver for adding a geotiff or a zip containing one or more geotiffs, assuming the
      * file has been uploaded to the mapserver, or if you provide the file bytes in the contents parameter
@@ -605,9 +639,6 @@ public class GeoServer extends SuperGeoServer {
         // Default to specifying file in request body
         String location = "file";
 
-        // Default to geotiff, which means a geotiff file or zip containing a geotiff is expected
-        String type = "geotiff";
-
         // If no content, and the filePath has a value, it's a filepath to a file local to the server
         if(content == null && filePath != null) {
             location = "external";
@@ -617,18 +648,61 @@ public class GeoServer extends SuperGeoServer {
             content = filePath.getBytes();
         }
 
-        if(isMosaic) {
-            type = "imagemosaic";
-        }
+        String appendUrl = coverageStoreUrl(workspace, storeName, displayName, location, isMosaic);
+        log.fine("Using url for restPutBinary call: " + appendUrl);
+
+        return restPutBinary(appendUrl, content, contentType);
+    }
 
-        final String locationAndType = location + "." + type;
+    /**
+     * Same as {@link #addGeotiff(String, String, String, String, String, byte[], boolean)} with the file's bytes as
+     * content, but streams the file instead of loading it into memory
+     *
+     * @param file     the geotiff, or zip containing one or more geotiffs, to upload
+     * @param listener told how many bytes have been uploaded, or null
+     * @return JSON with a 'status' field and a 'msg' field, as for addGeotiff
+     */
+    public String addGeotiff(String workspace, String storeName, String displayName, String contentType,
+                             Path file, boolean isMosaic, ProgressListener listener) {
+        try {
+            return addGeotiff(workspace, storeName, displayName, contentType, StreamingBody.of(file, listener),
+                    isMosaic);
+        } catch(IOException e) {
+            log.log(Level.SEVERE, "Unable to read " + file, e);
+            return "{'status':'fail', 'msg':'Unable to read " + file + ": " + e.getMessage() + "'}";
+        }
+    }
 
-        // Build the REST URI for adding the coverage
-        String appendUrl = String.format("/workspaces/%s/coveragestores/%s/%s?coverageName=%s",
-                workspace, storeName, locationAndType, displayName);
+    /**
+     * Same as {@link #addGeotiff(String, String, String, String, Path, boolean, ProgressListener)} for content read
+     * from a stream, which is closed afterwards
+     *
+     * @param length   bytes in the stream, or -1 if unknown, in which case the upload is sent chunked
+     * @param listener told how many bytes have been uploaded, or null
+     * @return JSON with a 'status' field and a 'msg' field, as for addGeotiff
+     */
+    public String addGeotiff(String workspace, String storeName, String displayName, String contentType,
+                             InputStream content, long length, boolean isMosaic, ProgressListener listener) {
+        return addGeotiff(workspace, storeName, displayName, contentType,
+                StreamingBody.of(content, length, listener), isMosaic);
+    }
 
+    private String addGeotiff(String workspace, String storeName, String displayName, String contentType,
+                              RequestBody content, boolean isMosaic) {
+        String appendUrl = coverageStoreUrl(workspace, storeName, displayName, "file", isMosaic);
         log.fine("Using url for restPutBinary call: " + appendUrl);
-
         return restPutBinary(appendUrl, content, contentType);
     }
+
+    /**
+     * @param location "file" for content in the request body, "external" for a path local to the server
+     * @return the REST URI for adding the coverage
+     */
+    static String coverageStoreUrl(String workspace, String storeName, String displayName, String location,
+                                   boolean isMosaic) {
+        // Default to geotiff, which means a geotiff file or zip containing a geotiff is expected
+        String type = isMosaic ? "imagemosaic" : "geotiff";
+        return String.format("/workspaces/%s/coveragestores/%s/%s.%s?coverageName=%s",
+                workspace, storeName, location, type, displayName);
+    }
 }
@@ -29,6 +29,7 @@
  */
 package edu.mit.ll.nics.common.geoserver.api;
 
+import edu.mit.ll.nics.common.geoserver.api.http.HttpTransport;
 import java.util.logging.Logger;
 
 
@@ -46,6 +47,10 @@ public class GeoWebCache extends SuperGeoServer {
         super(_url, username, password);
     }
 
+    public GeoWebCache(String _url, String username, String password, HttpTransport transport) {
+        super(_url, username, password, transport);
+    }
+
     /**
      * Clear GeoWebCache's Cache for a specific layer
      *
@@ -57,13 +62,8 @@ public class GeoWebCache extends SuperGeoServer {
     public boolean clearCache(String featureTypeName, int srs, String imageFormat, int threadCount) {
         int zoomStart = 0;
         int zoomStop = 20;
-        String resetXML = "<seedRequest><name>" + featureTypeName
-                + "</name><srs><number>" + srs
-                + "</number></srs><zoomStart>" + zoomStart
-                + "</zoomStart><zoomStop>" + zoomStop
-                + "</zoomStop><format>" + imageFormat
-                + "</format><type>truncate</type><threadCount>"
-                + threadCount + "</threadCount></seedRequest>";
+        String resetXML = seedRequestXml(featureTypeName, zoomStart, zoomStop, srs, imageFormat, "truncate",
+                threadCount);
         return restPost("/seed/" + featureTypeName + ".xml", resetXML, "text/xml");
     }
 
@@ -79,14 +79,23 @@ public class GeoWebCache extends SuperGeoServer {
      */
     public boolean seedCache(String featureTypeName, int zoomStart, int zoomStop, int srs, String imageFormat,
                              int threadCount) {
-        String seedXML = "<seedRequest><name>" + featureTypeName
+        String seedXML = seedRequestXml(featureTypeName, zoomStart, zoomStop, srs, imageFormat, "reseed",
+                threadCount);
+        return restPost("/seed/" + featureTypeName + ".xml", seedXML, "text/xml");
+    }
+
+    /**
+     * @param type truncate or reseed
+     */
+    static String seedRequestXml(String featureTypeName, int zoomStart, int zoomStop, int srs, String imageFormat,
+                                 String type, int threadCount) {
+        return "<seedRequest><name>" + featureTypeName
                 + "</name><srs><number>" + srs
                 + "</number></srs><zoomStart>" + zoomStart
                 + "</zoomStart><zoomStop>" + zoomStop
                 + "</zoomStop><format>" + imageFormat
-                + "</format><type>reseed</type><threadCount>"
+                + "</format><type>" + type + "</type><threadCount>"
                 + threadCount + "</threadCount></seedRequest>";
-        return restPost("/seed/" + featureTypeName + ".xml", seedXML, "text/xml");
     }
 
     /**
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes many layers at once. Each layer's calls run in order on one task, feature type first and style last,
+ * since each depends on the one before; different layers run in parallel on a bounded executor.
+ *
+ * <p>The calls still go through the GeoServer's {@link edu.mit.ll.nics.common.geoserver.api.http.HttpTransport},
+ * whose per-route limit caps how many actually reach GeoServer at once, so parallelism above that limit only adds
+ * waiting threads.</p>
+ */
+public class LayerProvisioner {
+
+    public static final int DEFAULT_PARALLELISM = 5;
+
+    private static final Logger log = Logger.getLogger(LayerProvisioner.class.getSimpleName());
+
+    private interface StepCall {
+        boolean call() throws Exception;
+    }
+
+    private final GeoServer geoServer;
+
+    public LayerProvisioner(GeoServer geoServer) {
+        this.geoServer = geoServer;
+    }
+
+    /**
+     * Provisions the layers on a thread pool of the given size, created for this call and shut down afterwards.
+     */
+    public ProvisioningReport provision(List<LayerSpec> specs, int parallelism) throws InterruptedException {
+        AtomicInteger sequence = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, specs.size())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "geoserver-provision-" + sequence.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            return provision(specs, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Provisions the layers on the caller's executor and waits for all of them.
+     */
+    public ProvisioningReport provision(List<LayerSpec> specs, ExecutorService executor)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        List<Future<LayerResult>> futures = new ArrayList<Future<LayerResult>>(specs.size());
+        for(LayerSpec spec : specs) {
+            futures.add(executor.submit((Callable<LayerResult>) () -> provision(spec)));
+        }
+        List<LayerResult> results = new ArrayList<LayerResult>(specs.size());
+        for(int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch(ExecutionException | CancellationException e) {
+                LayerResult result = new LayerResult(specs.get(i));
+                result.fail(LayerResult.Step.CREATE_FEATURE_TYPE,
+                        e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                results.add(result);
+            }
+        }
+        ProvisioningReport report = new ProvisioningReport(results, millisSince(start));
+        log.info(report.toString());
+        return report;
+    }
+
+    /**
+     * Provisions one layer on the calling thread.
+     */
+    public LayerResult provision(LayerSpec spec) {
+        long start = System.nanoTime();
+        LayerResult result = new LayerResult(spec);
+        String workspace = spec.getWorkspaceName();
+        String dataStore = spec.getDataStoreName();
+        String featureType = spec.getFeatureTypeName();
+
+        boolean ok = run(result, LayerResult.Step.CREATE_FEATURE_TYPE, () -> spec.getSqlFilter() == null ?
+                geoServer.addFeatureType(workspace, dataStore, featureType, spec.getSrs()) :
+                geoServer.addFeatureTypeSQL(workspace, dataStore, featureType, spec.getSrs(), spec.getSqlFilter(),
+                        spec.getGeometryAttribute(), spec.getGeometryType(), spec.getSrid()));
+        if(ok && spec.getNativeBounds() != null && spec.getLatlonBounds() != null) {
+            ok = run(result, LayerResult.Step.UPDATE_BOUNDS, () -> geoServer.updateFeatureTypeBounds(workspace,
+                    dataStore, featureType, spec.getNativeBounds(), spec.getLatlonBounds(), spec.getSrs()));
+        }
+        if(ok && spec.getTitle() != null) {
+            ok = run(result, LayerResult.Step.UPDATE_TITLE, () -> geoServer.updateFeatureTypeTitle(featureType,
+                    workspace, dataStore, spec.getTitle()));
+        }
+        if(ok && spec.getStyle() != null) {
+            run(result, LayerResult.Step.UPDATE_STYLE, () -> geoServer.updateLayerStyle(featureType, workspace,
+                    spec.getStyle()));
+        }
+        result.setTotalMillis(millisSince(start));
+        return result;
+    }
+
+    private boolean run(LayerResult result, LayerResult.Step step, StepCall call) {
+        long start = System.nanoTime();
+        try {
+            if(call.call()) {
+                return true;
+            }
+            result.fail(step, null);
+        } catch(Exception e) {
+            log.log(Level.WARNING, "Failed " + step + " for " + result.getSpec(), e);
+            result.fail(step, e);
+        } finally {
+            result.recordStep(step, millisSince(start));
+        }
+        return false;
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1000000;
+    }
+}
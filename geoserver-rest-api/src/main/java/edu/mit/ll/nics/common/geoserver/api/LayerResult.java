@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The outcome of provisioning one {@link LayerSpec}: which steps ran, how long each took, and the step that failed,
+ * if any. Steps after a failed one are not attempted.
+ */
+public class LayerResult {
+
+    /**
+     * The calls made for a layer, in the order they run
+     */
+    public enum Step {
+        CREATE_FEATURE_TYPE,
+        UPDATE_BOUNDS,
+        UPDATE_TITLE,
+        UPDATE_STYLE
+    }
+
+    private final LayerSpec spec;
+    private final Map<Step, Long> stepMillis = new EnumMap<Step, Long>(Step.class);
+    private Step failedStep;
+    private Exception error;
+    private long totalMillis;
+
+    public LayerResult(LayerSpec spec) {
+        this.spec = spec;
+    }
+
+    public LayerSpec getSpec() {
+        return spec;
+    }
+
+    public boolean isSuccess() {
+        return failedStep == null;
+    }
+
+    /**
+     * @return the step that failed, or null if every step succeeded
+     */
+    public Step getFailedStep() {
+        return failedStep;
+    }
+
+    /**
+     * @return the exception thrown by the failed step, or null if it failed by returning false
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * @return milliseconds taken by each step that ran, failed step included
+     */
+    public Map<Step, Long> getStepMillis() {
+        return Collections.unmodifiableMap(stepMillis);
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    void recordStep(Step step, long millis) {
+        stepMillis.put(step, millis);
+    }
+
+    void fail(Step step, Exception error) {
+        this.failedStep = step;
+        this.error = error;
+    }
+
+    void setTotalMillis(long totalMillis) {
+        this.totalMillis = totalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return spec + (isSuccess() ? " ok" : " failed at " + failedStep) + " in " + totalMillis + "ms " + stepMillis;
+    }
+}
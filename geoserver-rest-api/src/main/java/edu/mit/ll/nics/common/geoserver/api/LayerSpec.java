@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api;
+
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * Describes a layer to publish with {@link GeoServer#provisionLayers}: the feature type to create and, optionally,
+ * its bounds, title and default style. Optional parts left null are skipped.
+ */
+public class LayerSpec {
+
+    private final String workspaceName;
+    private final String dataStoreName;
+    private final String featureTypeName;
+    private final String srs;
+    private String sqlFilter;
+    private String geometryAttribute;
+    private String geometryType;
+    private Integer srid;
+    private Envelope nativeBounds;
+    private Envelope latlonBounds;
+    private String title;
+    private String style;
+
+    public LayerSpec(String workspaceName, String dataStoreName, String featureTypeName, String srs) {
+        this.workspaceName = workspaceName;
+        this.dataStoreName = dataStoreName;
+        this.featureTypeName = featureTypeName;
+        this.srs = srs;
+    }
+
+    public String getWorkspaceName() {
+        return workspaceName;
+    }
+
+    public String getDataStoreName() {
+        return dataStoreName;
+    }
+
+    public String getFeatureTypeName() {
+        return featureTypeName;
+    }
+
+    public String getSrs() {
+        return srs;
+    }
+
+    public String getSqlFilter() {
+        return sqlFilter;
+    }
+
+    public String getGeometryAttribute() {
+        return geometryAttribute;
+    }
+
+    public String getGeometryType() {
+        return geometryType;
+    }
+
+    public Integer getSrid() {
+        return srid;
+    }
+
+    /**
+     * Makes the feature type a SQL view, as with {@link GeoServer#addFeatureTypeSQL}
+     */
+    public void setSqlView(String sqlFilter, String geometryAttribute, String geometryType, Integer srid) {
+        this.sqlFilter = sqlFilter;
+        this.geometryAttribute = geometryAttribute;
+        this.geometryType = geometryType;
+        this.srid = srid;
+    }
+
+    public Envelope getNativeBounds() {
+        return nativeBounds;
+    }
+
+    public Envelope getLatlonBounds() {
+        return latlonBounds;
+    }
+
+    /**
+     * @param nativeBounds in the layer's srs
+     * @param latlonBounds in EPSG:4326
+     */
+    public void setBounds(Envelope nativeBounds, Envelope latlonBounds) {
+        this.nativeBounds = nativeBounds;
+        this.latlonBounds = latlonBounds;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getStyle() {
+        return style;
+    }
+
+    public void setStyle(String style) {
+        this.style = style;
+    }
+
+    @Override
+    public String toString() {
+        return workspaceName + ":" + featureTypeName;
+    }
+}
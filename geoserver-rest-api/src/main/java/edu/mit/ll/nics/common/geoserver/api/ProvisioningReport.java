@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of {@link GeoServer#provisionLayers}, one per layer in the order the specs were given, with timings.
+ */
+public class ProvisioningReport {
+
+    private final List<LayerResult> results;
+    private final long elapsedMillis;
+
+    public ProvisioningReport(List<LayerResult> results, long elapsedMillis) {
+        this.results = Collections.unmodifiableList(results);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<LayerResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return wall clock milliseconds for the whole batch
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return milliseconds the layers took added together, i.e. roughly what running them one after another would
+     * have taken
+     */
+    public long getSerialMillis() {
+        long total = 0;
+        for(LayerResult result : results) {
+            total += result.getTotalMillis();
+        }
+        return total;
+    }
+
+    /**
+     * @return milliseconds spent in each step, added up across layers
+     */
+    public Map<LayerResult.Step, Long> getStepMillis() {
+        Map<LayerResult.Step, Long> totals = new EnumMap<LayerResult.Step, Long>(LayerResult.Step.class);
+        for(LayerResult result : results) {
+            for(Map.Entry<LayerResult.Step, Long> step : result.getStepMillis().entrySet()) {
+                Long total = totals.get(step.getKey());
+                totals.put(step.getKey(), (total == null ? 0 : total) + step.getValue());
+            }
+        }
+        return totals;
+    }
+
+    public int getSucceededCount() {
+        int succeeded = 0;
+        for(LayerResult result : results) {
+            if(result.isSuccess()) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    public int getFailedCount() {
+        return results.size() - getSucceededCount();
+    }
+
+    public boolean isSuccess() {
+        return getFailedCount() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Provisioned " + getSucceededCount() + "/" + results.size() + " layers in " + elapsedMillis +
+                "ms (" + getSerialMillis() + "ms serial) " + getStepMillis();
+    }
+}
@@ -29,6 +29,12 @@
  */
 package edu.mit.ll.nics.common.geoserver.api;
 
+import edu.mit.ll.nics.common.geoserver.api.http.HttpRequest;
+import edu.mit.ll.nics.common.geoserver.api.http.HttpResponse;
+import edu.mit.ll.nics.common.geoserver.api.http.HttpTransport;
+import edu.mit.ll.nics.common.geoserver.api.http.RequestBody;
+import edu.mit.ll.nics.common.geoserver.api.http.StreamingBody;
+import edu.mit.ll.nics.common.geoserver.api.http.UrlConnectionTransport;
 import java.io.BufferedReader;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -38,6 +44,7 @@ import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -59,9 +66,16 @@ public class SuperGeoServer {
 
     // TODO: mixed use of different loggers throughout this class, needs updated to slf4j
     private static final Logger log = Logger.getLogger(GeoServer.class.getSimpleName());
+    /**
+     * Shared by every instance that is not given its own transport, so they share its connection limits
+     */
+    private static final HttpTransport SHARED_TRANSPORT = new UrlConnectionTransport();
     private final String serverUrl; //url for the server ie http://hostname:8080
     private String username; //username for REST access
     private String password; //password for REST access
+    private final String authorization; //Basic auth header value, built once
+    private final HttpTransport transport;
+    private volatile CatalogCache catalogCache = new CatalogCache();
     /**
      * Rest Parameters
      */
@@ -75,9 +89,50 @@ public class SuperGeoServer {
     public final Integer DELETE_SUCCESS = 200;
 
     public SuperGeoServer(String _url, String username, String password) {
+        this(_url, username, password, SHARED_TRANSPORT);
+    }
+
+    /**
+     * @param transport sends the REST calls, e.g. a {@link UrlConnectionTransport} with its own connection limits
+     */
+    public SuperGeoServer(String _url, String username, String password, HttpTransport transport) {
         this.serverUrl = checkUrl(_url);
         this.username = username;
         this.password = password;
+        this.authorization = "Basic " + Base64.encodeBase64String(
+                (username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.transport = transport;
+    }
+
+    /**
+     * @return the transport REST calls are sent through
+     */
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return the cache for catalog lists, or null if lists are always fetched
+     */
+    public CatalogCache getCatalogCache() {
+        return catalogCache;
+    }
+
+    /**
+     * @param catalogCache cache for catalog lists such as {@link GeoServer#getLayerList()}, or null to always fetch
+     */
+    public void setCatalogCache(CatalogCache catalogCache) {
+        this.catalogCache = catalogCache;
+    }
+
+    /**
+     * Drop cached lists that a successful write to appendUrl may have changed
+     */
+    protected void writeSucceeded(String appendUrl) {
+        CatalogCache cache = catalogCache;
+        if(cache != null) {
+            cache.invalidate(appendUrl);
+        }
     }
 
     /**
@@ -125,10 +180,7 @@ public class SuperGeoServer {
             throws MalformedURLException, IOException {
         //Collect output data
         boolean doOut = !method.equals(METHOD_DELETE) && content != null;
-        String link = serverUrl + appendUrl;
-        //Replace spaces in link
-        link = link.replaceAll(" ", "%20");
-        URL url = new URL(link);
+        URL url = new URL(link(appendUrl));
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         connection.setDoOutput(doOut);
         if(contentType != null && contentType.length() > 0) {
@@ -138,10 +190,8 @@ public class SuperGeoServer {
         for(String key : params.keySet()) {
             connection.setRequestProperty(key, params.get(key));
         }
-        String authString = username + ":" + password;
-        String authEncString = new String(Base64.encodeBase64(authString.getBytes()));
         connection.setRequestMethod(method);
-        connection.setRequestProperty("Authorization", "Basic " + authEncString);
+        connection.setRequestProperty("Authorization", authorization);
         connection.connect();
         if(connection.getDoOutput()) {
             Writer writer = new OutputStreamWriter(connection.getOutputStream());
@@ -188,10 +238,7 @@ public class SuperGeoServer {
                                                Map<String, String> params) throws MalformedURLException, IOException {
 
         boolean doOut = !method.equals(METHOD_DELETE) && content != null;
-        String link = serverUrl + appendUrl;
-        //Replace spaces in link
-        link = link.replaceAll(" ", "%20");
-        URL url = new URL(link);
+        URL url = new URL(link(appendUrl));
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         connection.setDoOutput(doOut);
         if(contentType != null && contentType.length() > 0) {
@@ -200,10 +247,8 @@ public class SuperGeoServer {
         for(String key : params.keySet()) {
             connection.setRequestProperty(key, params.get(key));
         }
-        String authString = username + ":" + password;
-        String authEncString = new String(Base64.encodeBase64(authString.getBytes()));
         connection.setRequestMethod(method);
-        connection.setRequestProperty("Authorization", "Basic " + authEncString);
+        connection.setRequestProperty("Authorization", authorization);
         connection.connect();
         if(connection.getDoOutput()) {
             //Writer writer = new OutputStreamWriter(connection.getOutputStream());
@@ -215,6 +260,37 @@ public class SuperGeoServer {
         return connection;
     }
 
+    /**
+     * Sends a REST call through the transport. The response is read in full, so the connection goes back to the
+     * pool whatever the outcome.
+     *
+     * @param appendUrl   rest endpoint to append to geoserver url
+     * @param method      GET, POST, PUT, or DELETE
+     * @param body        data to post or put, or null
+     * @param contentType mime type of data, or null
+     * @param params      additional request headers
+     * @return the response
+     *
+     * @throws IOException if no response was received
+     */
+    protected HttpResponse execute(String appendUrl, String method, RequestBody body, String contentType,
+                                   Map<String, String> params) throws IOException {
+        Map<String, String> headers = new HashMap<String, String>(params);
+        if(contentType != null && contentType.length() > 0) {
+            headers.put("Content-Type", contentType);
+        }
+        headers.put("Authorization", authorization);
+        RequestBody sent = method.equals(METHOD_DELETE) ? null : body;
+        return transport.execute(new HttpRequest(method, link(appendUrl), headers, sent));
+    }
+
+    /**
+     * @return the full url for a rest endpoint, with spaces escaped
+     */
+    protected String link(String appendUrl) {
+        return (serverUrl + appendUrl).replace(" ", "%20");
+    }
+
     /**
      * Extract response string from connection object
      *
@@ -224,12 +300,13 @@ public class SuperGeoServer {
      * @throws IOException
      */
     protected String responseString(HttpURLConnection connection) throws IOException {
-        BufferedReader br = new BufferedReader(new InputStreamReader(connection.getInputStream()));
         StringBuilder sb = new StringBuilder();
-        String line = null;
-        //TODO Add error handling
-        while((line = br.readLine()) != null) {
-            sb.append(line).append('\n');
+        try(BufferedReader br = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            String line = null;
+            //TODO Add error handling
+            while((line = br.readLine()) != null) {
+                sb.append(line).append('\n');
+            }
         }
         return sb.toString();
     }
@@ -243,12 +320,13 @@ public class SuperGeoServer {
      * @throws IOException
      */
     protected String errorString(HttpURLConnection connection) throws IOException {
-        BufferedReader br = new BufferedReader(new InputStreamReader(connection.getErrorStream()));
         StringBuilder sb = new StringBuilder();
-        String line = null;
-        //TODO Add error handling
-        while((line = br.readLine()) != null) {
-            sb.append(line).append('\n');
+        try(BufferedReader br = new BufferedReader(new InputStreamReader(connection.getErrorStream()))) {
+            String line = null;
+            //TODO Add error handling
+            while((line = br.readLine()) != null) {
+                sb.append(line).append('\n');
+            }
         }
         return sb.toString();
     }
@@ -262,24 +340,16 @@ public class SuperGeoServer {
      */
     protected String restGet(String appendUrl, String contentType) {
         try {
-            HttpURLConnection connection = httpCall(appendUrl, METHOD_GET, null, contentType);
-            if(connection.getResponseCode() == GET_SUCCESS) {
+            HttpResponse response = execute(appendUrl, METHOD_GET, null, contentType,
+                    new HashMap<String, String>());
+            if(response.getStatusCode() == GET_SUCCESS) {
                 log.log(Level.INFO, "Succesful GET from {0}", serverUrl.concat(appendUrl));
-                String response = responseString(connection);
-                return response;
-            } else if(connection.getResponseCode() == 404) {
+                return response.getBodyString();
+            } else if(response.getStatusCode() == 404) {
                 log.log(Level.INFO, "404 on GET from {0}", serverUrl.concat(appendUrl));
-                String response = "";
-                try {
-                    // TODO: COULD still have responseString
-                    response = errorString(connection);
-                } catch(IOException e) {
-                    log.log(Level.WARNING, "Exception processing 404 response from {0}",
-                            serverUrl.concat(appendUrl));
-                }
-                return response;
+                return response.getBodyString();
             } else {
-                log.warning(errorString(connection));
+                log.warning(response.getBodyString());
                 return null;
             }
         } catch(MalformedURLException ex) {
@@ -305,12 +375,13 @@ public class SuperGeoServer {
 
     protected boolean restPost(String appendUrl, String content, String contentType, Map<String, String> params) {
         try {
-            HttpURLConnection connection = httpCall(appendUrl, METHOD_POST, content, contentType, params);
-            if(connection.getResponseCode() == POST_SUCCESS || connection.getResponseCode() == GET_SUCCESS) {
+            HttpResponse response = execute(appendUrl, METHOD_POST, textBody(content), contentType, params);
+            if(response.getStatusCode() == POST_SUCCESS || response.getStatusCode() == GET_SUCCESS) {
                 log.log(Level.INFO, "Succesful POST to {0}{1}", new Object[] {serverUrl, appendUrl});
+                writeSucceeded(appendUrl);
                 return true;
             } else {
-                log.warning(errorString(connection));
+                log.warning(response.getBodyString());
                 return false;
             }
         } catch(MalformedURLException ex) {
@@ -331,12 +402,14 @@ public class SuperGeoServer {
      */
     protected boolean restPut(String appendUrl, String content, String contentType) {
         try {
-            HttpURLConnection connection = httpCall(appendUrl, METHOD_PUT, content, contentType);
-            if(connection.getResponseCode() == PUT_SUCCESS) {
+            HttpResponse response = execute(appendUrl, METHOD_PUT, textBody(content), contentType,
+                    new HashMap<String, String>());
+            if(response.getStatusCode() == PUT_SUCCESS) {
                 log.log(Level.INFO, "Succesful PUT to {0}{1}", new Object[] {serverUrl, appendUrl});
+                writeSucceeded(appendUrl);
                 return true;
             } else {
-                log.warning(errorString(connection));
+                log.warning(response.getBodyString());
                 return false;
             }
         } catch(MalformedURLException ex) {
@@ -356,43 +429,39 @@ public class SuperGeoServer {
      * @return JSON with status success/fail whether PUT was successful
      */
     protected String restPutBinary(String appendUrl, byte[] content, String contentType) {
+        return restPutBinary(appendUrl, content == null ? null : RequestBody.of(content), contentType);
+    }
+
+    /**
+     * Copy of {@link SuperGeoServer#restPutBinary(String, byte[], String)} that streams the body, e.g. a
+     * {@link StreamingBody} reading a file, instead of holding it in memory.
+     *
+     * @param appendUrl   url to PUT object to
+     * @param content     body to stream
+     * @param contentType object type (mime type, e.g., application/zip, image/tif, etc)
+     * @return JSON with status success/fail whether PUT was successful
+     */
+    protected String restPutBinary(String appendUrl, RequestBody content, String contentType) {
         String response = "";
         try {
-            HttpURLConnection connection = httpCallBinary(appendUrl, METHOD_PUT, content, contentType);
-            final int responseCode = connection.getResponseCode();
+            HttpResponse httpResponse = execute(appendUrl, METHOD_PUT, content, contentType,
+                    new HashMap<String, String>());
+            final int responseCode = httpResponse.getStatusCode();
             log.info("restPutBinary:Response code: " + responseCode);
 
             if(responseCode == PUT_SUCCESS || responseCode == POST_SUCCESS) {
                 log.log(Level.INFO, "Successful PUT to {0}{1}", new Object[] {serverUrl, appendUrl});
-                return "{'status':'success', 'msg':'" + responseString(connection) + "'}";
+                writeSucceeded(appendUrl);
+                return "{'status':'success', 'msg':'" + httpResponse.getBodyString() + "'}";
             } else {
-                String failResponseString = "";
-                try {
-                    failResponseString = responseString(connection);
-                    log.severe(failResponseString);
-                } catch(IOException e) {
-                    Logger.getLogger(SuperGeoServer.class.getName()).log(Level.WARNING,
-                            "Exception attempting to read error response. There probably" +
-                                    " wasn't an error to read", e);
+                String failErrorString = httpResponse.getBodyString();
+                log.warning(failErrorString);
+                if(failErrorString.isEmpty()) {
                     response = "{'status':'fail', 'msg':'Success response not received: " +
-                            responseCode + " - " + failResponseString + " '}";
-                }
-
-                String failErrorString = "";
-                try {
-                    failErrorString = errorString(connection);
-                    log.warning(failErrorString);
+                            responseCode + "'}";
+                } else {
                     response = "{'status':'fail', 'msg':'Success response not received: " +
                             responseCode + " - " + failErrorString + " '}";
-                } catch(IOException e) {
-                    Logger.getLogger(SuperGeoServer.class.getName()).log(Level.SEVERE,
-                            "Exception attempting to read error response. There probably" +
-                                    " wasn't an error to read", e);
-                }
-
-                if(response.isEmpty()) {
-                    response = "{'status':'fail', 'msg':'Success response not received: " +
-                            responseCode + "'}";
                 }
             }
         } catch(MalformedURLException ex) {
@@ -415,12 +484,13 @@ public class SuperGeoServer {
      */
     protected boolean restDelete(String appendUrl) {
         try {
-            HttpURLConnection connection = httpCall(appendUrl, METHOD_DELETE, null, null);
-            if(connection.getResponseCode() == DELETE_SUCCESS) {
+            HttpResponse response = execute(appendUrl, METHOD_DELETE, null, null, new HashMap<String, String>());
+            if(response.getStatusCode() == DELETE_SUCCESS) {
                 log.log(Level.INFO, "Succesful DELETE of {0}{1}", new Object[] {serverUrl, appendUrl});
+                writeSucceeded(appendUrl);
                 return true;
             } else {
-                log.warning(errorString(connection));
+                log.warning(response.getBodyString());
                 return false;
             }
         } catch(MalformedURLException ex) {
@@ -431,26 +501,71 @@ public class SuperGeoServer {
         return false;
     }
 
+    private static RequestBody textBody(String content) {
+        return content == null ? null : RequestBody.of(content, StandardCharsets.UTF_8);
+    }
+
     /**
      * GetList
      *
      * @param objectType object to get list of ie layer, datastore, workspace, featuretype
-     * @return gets a list of the objects from the URL
+     * @return gets a list of the objects from the URL, served from the catalog cache while it is fresh
      */
     protected List<String> getList(String url, String objectType) {
-        List<String> names = new ArrayList<String>();
         try {
-            JSONObject response = new JSONObject(restGet(url, "application/json"));
-            if(response.has(objectType + "s") && !response.get(objectType + "s").equals("") &&
-                    response.getJSONObject(objectType + "s").has(objectType)) {
-                JSONArray layers = response.getJSONObject(objectType + "s").getJSONArray(objectType);
-                for(int i = 0; i < layers.length(); i++) {
-                    names.add(layers.getJSONObject(i).getString("name"));
-                }
+            RestResult<List<String>> result = fetchList(url, objectType);
+            if(!result.isSuccess()) {
+                log.log(Level.WARNING, "{0} on GET from {1}", new Object[] {result.getStatusCode(), url});
             }
+            return result.getValue();
         } catch(JSONException ex) {
             Logger.getLogger(SuperGeoServer.class.getName()).log(Level.SEVERE, null, ex);
+        } catch(IOException ex) {
+            Logger.getLogger(SuperGeoServer.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return new ArrayList<String>();
+    }
+
+    /**
+     * Reads a list through the catalog cache, see {@link #getList(String, String)}
+     *
+     * @return the names, empty unless GeoServer answered 200 or 304; a fresh cached list is reported as 200
+     */
+    protected RestResult<List<String>> fetchList(String url, String objectType) throws IOException {
+        CatalogCache cache = catalogCache;
+        CatalogCache.Entry cached = cache == null ? null : cache.get(url);
+        long generation = cache == null ? 0 : cache.getGeneration();
+        if(cached != null && cache.isFresh(cached)) {
+            return new RestResult<List<String>>(GET_SUCCESS, true, new ArrayList<String>(cached.getNames()), null);
+        }
+
+        Map<String, String> headers = new HashMap<String, String>();
+        if(cached != null && cached.getEtag() != null) {
+            headers.put("If-None-Match", cached.getEtag());
+        }
+        if(cached != null && cached.getLastModified() != null) {
+            headers.put("If-Modified-Since", cached.getLastModified());
+        }
+        HttpResponse response = execute(url, METHOD_GET, null, "application/json", headers);
+        if(response.getStatusCode() == 304 && cached != null) {
+            cache.revalidated(cached);
+            return new RestResult<List<String>>(304, true, new ArrayList<String>(cached.getNames()), null);
+        }
+        List<String> names = new ArrayList<String>();
+        if(response.getStatusCode() != GET_SUCCESS) {
+            return new RestResult<List<String>>(response.getStatusCode(), false, names, response.getBodyString());
+        }
+        JSONObject json = new JSONObject(response.getBodyString());
+        if(json.has(objectType + "s") && !json.get(objectType + "s").equals("") &&
+                json.getJSONObject(objectType + "s").has(objectType)) {
+            JSONArray layers = json.getJSONObject(objectType + "s").getJSONArray(objectType);
+            for(int i = 0; i < layers.length(); i++) {
+                names.add(layers.getJSONObject(i).getString("name"));
+            }
+        }
+        if(cache != null) {
+            cache.put(url, names, response.getHeader("ETag"), response.getHeader("Last-Modified"), generation);
         }
-        return names;
+        return new RestResult<List<String>>(GET_SUCCESS, true, names, null);
     }
 }
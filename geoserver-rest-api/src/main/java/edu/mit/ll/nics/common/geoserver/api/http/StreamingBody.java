@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A request body copied from a file or stream in fixed size chunks, so uploading it takes the same memory whatever
+ * its size. With a known length the request is sent in fixed-length streaming mode, otherwise chunked.
+ */
+public class StreamingBody implements RequestBody {
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private interface Source {
+        ReadableByteChannel open() throws IOException;
+    }
+
+    private final Source source;
+    private final long length;
+    private final ProgressListener listener;
+
+    private StreamingBody(Source source, long length, ProgressListener listener) {
+        this.source = source;
+        this.length = length;
+        this.listener = listener;
+    }
+
+    /**
+     * @param listener told of progress, or null
+     */
+    public static StreamingBody of(Path file, ProgressListener listener) throws IOException {
+        return new StreamingBody(() -> FileChannel.open(file, StandardOpenOption.READ), Files.size(file), listener);
+    }
+
+    /**
+     * The stream is read once, when the request is sent, and closed afterwards.
+     *
+     * @param length   bytes the stream holds, or -1 if unknown
+     * @param listener told of progress, or null
+     */
+    public static StreamingBody of(InputStream in, long length, ProgressListener listener) {
+        return new StreamingBody(() -> Channels.newChannel(in), length, listener);
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        long sent = 0;
+        try(ReadableByteChannel channel = source.open()) {
+            while(channel.read(chunk) != -1) {
+                chunk.flip();
+                while(chunk.hasRemaining()) {
+                    sent += target.write(chunk);
+                }
+                chunk.clear();
+                if(listener != null) {
+                    listener.progress(sent, length);
+                }
+            }
+        }
+        if(length >= 0 && sent != length) {
+            throw new IOException("Body was " + sent + " bytes, expected " + length);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HttpTransport} over {@link HttpURLConnection}, reusing connections through the JDK's keep-alive cache.
+ *
+ * <p>The JDK only returns a connection to its cache once the response has been read to the end and closed, which
+ * this transport always does, error responses included. The cache keeps up to http.maxConnections idle connections
+ * per destination, 5 unless that system property says otherwise, so the per-route limit defaults to the same
+ * number: requests beyond it wait for a connection instead of opening extra ones that would be thrown away.</p>
+ */
+public class UrlConnectionTransport implements HttpTransport {
+
+    public static final int DEFAULT_MAX_PER_ROUTE = 5;
+
+    public static final int DEFAULT_MAX_TOTAL = 20;
+
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+
+    /**
+     * No read timeout by default, since GeoServer can take minutes to answer an upload of a large coverage
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 0;
+
+    public static final long DEFAULT_ACQUIRE_TIMEOUT = 60000;
+
+    private final int maxPerRoute;
+    private final Semaphore total;
+    private final ConcurrentMap<String, Semaphore> routes = new ConcurrentHashMap<String, Semaphore>();
+    private volatile int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private volatile int readTimeout = DEFAULT_READ_TIMEOUT;
+    private volatile long acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+
+    public UrlConnectionTransport() {
+        this(DEFAULT_MAX_PER_ROUTE, DEFAULT_MAX_TOTAL);
+    }
+
+    /**
+     * @param maxPerRoute requests in flight to one scheme, host and port at a time
+     * @param maxTotal    requests in flight across all routes at a time
+     */
+    public UrlConnectionTransport(int maxPerRoute, int maxTotal) {
+        this.maxPerRoute = maxPerRoute;
+        this.total = new Semaphore(maxTotal, true);
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        URL url = new URL(request.getUrl());
+        Semaphore route = routes.computeIfAbsent(route(url), key -> new Semaphore(maxPerRoute, true));
+        acquire(total, request);
+        try {
+            acquire(route, request);
+            try {
+                return send(url, request);
+            } finally {
+                route.release();
+            }
+        } finally {
+            total.release();
+        }
+    }
+
+    protected HttpResponse send(URL url, HttpRequest request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setRequestMethod(request.getMethod());
+        for(Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        RequestBody body = request.getBody();
+        if(body != null) {
+            connection.setDoOutput(true);
+            long length = body.length();
+            if(length >= 0) {
+                connection.setFixedLengthStreamingMode(length);
+            } else {
+                connection.setChunkedStreamingMode(0);
+            }
+        }
+
+        try {
+            if(body != null) {
+                try(OutputStream out = connection.getOutputStream()) {
+                    body.writeTo(out);
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            return new HttpResponse(status, headers(connection), readFully(in));
+        } catch(IOException e) {
+            // Reading the error stream lets the JDK keep the connection alive after a failure
+            try {
+                readFully(connection.getErrorStream());
+            } catch(IOException ignored) {
+                // The connection is discarded instead
+            }
+            throw e;
+        }
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public long getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    /**
+     * @param acquireTimeout milliseconds a request waits for its route or the total limit before failing
+     */
+    public void setAcquireTimeout(long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    private void acquire(Semaphore permits, HttpRequest request) throws IOException {
+        try {
+            if(!permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out waiting for a connection to " + request.getUrl());
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection to " + request.getUrl());
+        }
+    }
+
+    private static String route(URL url) {
+        return url.getProtocol() + "://" + url.getHost() + ":" + (url.getPort() == -1 ? url.getDefaultPort() :
+                url.getPort());
+    }
+
+    private static Map<String, String> headers(HttpURLConnection connection) {
+        Map<String, String> headers = new HashMap<String, String>();
+        for(Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            // The status line is reported under a null name
+            if(header.getKey() != null && !header.getValue().isEmpty()) {
+                headers.put(header.getKey(), header.getValue().get(0));
+            }
+        }
+        return headers;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        if(in == null) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(InputStream stream = in) {
+            byte[] chunk = new byte[8192];
+            int read;
+            while((read = stream.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+}
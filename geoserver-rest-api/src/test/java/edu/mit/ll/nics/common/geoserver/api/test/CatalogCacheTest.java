@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.geoserver.api.test;
+
+import edu.mit.ll.nics.common.geoserver.api.CatalogCache;
+import java.util.Arrays;
+import java.util.Collections;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests which cached lists CatalogCache drops for a write, and that lists fetched across a write are not cached
+ */
+public class CatalogCacheTest {
+
+    @Test
+    public void testWriteDropsItsOwnList() {
+        CatalogCache cache = cache("/styles.json", "/workspaces.json");
+        cache.invalidate("/styles");
+        Assert.assertNull(cache.get("/styles.json"));
+        Assert.assertNotNull(cache.get("/workspaces.json"));
+    }
+
+    @Test
+    public void testWriteToMemberDropsParentList() {
+        CatalogCache cache = cache("/workspaces/nics/datastores.json",
+                "/workspaces/nics/datastores/db/featuretypes.json", "/workspaces.json");
+        cache.invalidate("/workspaces/nics/datastores/db");
+        Assert.assertNull(cache.get("/workspaces/nics/datastores.json"));
+        Assert.assertNull(cache.get("/workspaces/nics/datastores/db/featuretypes.json"), "nested under the store");
+        Assert.assertNotNull(cache.get("/workspaces.json"));
+    }
+
+    @Test
+    public void testWriteDoesNotDropListsTwoLevelsUp() {
+        CatalogCache cache = cache("/workspaces.json");
+        cache.invalidate("/workspaces/nics/datastores");
+        Assert.assertNotNull(cache.get("/workspaces.json"));
+    }
+
+    @Test
+    public void testRemovingWorkspaceDropsNestedLists() {
+        CatalogCache cache = cache("/workspaces.json", "/workspaces/nics/datastores.json",
+                "/workspaces/other/datastores.json");
+        cache.invalidate("/workspaces/nics?recurse=true");
+        Assert.assertNull(cache.get("/workspaces.json"));
+        Assert.assertNull(cache.get("/workspaces/nics/datastores.json"));
+        Assert.assertNotNull(cache.get("/workspaces/other/datastores.json"));
+    }
+
+    @Test
+    public void testFeatureTypeAndCoverageWritesDropLayerList() {
+        CatalogCache cache = cache("/layers.json", "/styles.json");
+        cache.invalidate("/workspaces/nics/datastores/db/featuretypes");
+        Assert.assertNull(cache.get("/layers.json"));
+        Assert.assertNotNull(cache.get("/styles.json"));
+
+        cache = cache("/layers.json");
+        cache.invalidate("/workspaces/nics/coveragestores/dem/file.geotiff");
+        Assert.assertNull(cache.get("/layers.json"));
+
+        cache = cache("/layers.json");
+        cache.invalidate("/workspaces/nics/datastores/db");
+        Assert.assertNotNull(cache.get("/layers.json"), "a store write alone does not change the layers");
+    }
+
+    @Test
+    public void testFormatAndQueryIgnored() {
+        CatalogCache cache = cache("/styles.xml", "/layergroups.json?quietOnNotFound=true");
+        cache.invalidate("/styles.json");
+        cache.invalidate("/layergroups");
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testListFetchedAcrossWriteNotCached() {
+        CatalogCache cache = new CatalogCache();
+        long generation = cache.getGeneration();
+        cache.invalidate("/styles");
+        Assert.assertNull(cache.put("/styles.json", Collections.singletonList("stale"), null, null, generation));
+        Assert.assertNull(cache.get("/styles.json"));
+
+        Assert.assertNotNull(cache.put("/styles.json", Collections.singletonList("fresh"), null, null,
+                cache.getGeneration()));
+        Assert.assertEquals(cache.get("/styles.json").getNames(), Collections.singletonList("fresh"));
+    }
+
+    @Test
+    public void testClearStartsNewGeneration() {
+        CatalogCache cache = new CatalogCache();
+        long generation = cache.getGeneration();
+        cache.clear();
+        Assert.assertNull(cache.put("/styles.json", Collections.singletonList("stale"), null, null, generation));
+    }
+
+    @Test
+    public void testFreshnessAndRevalidation() throws InterruptedException {
+        CatalogCache cache = new CatalogCache(50, 10);
+        CatalogCache.Entry entry = cache.put("/styles.json", Arrays.asList("a", "b"), "\"v1\"", null,
+                cache.getGeneration());
+        Assert.assertTrue(cache.isFresh(entry));
+        Assert.assertTrue(entry.isRevalidatable());
+        Thread.sleep(80);
+        Assert.assertFalse(cache.isFresh(entry));
+        cache.revalidated(entry);
+        Assert.assertTrue(cache.isFresh(entry));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        CatalogCache cache = new CatalogCache(CatalogCache.DEFAULT_TTL, 2);
+        cache.put("/a.json", Collections.<String>emptyList(), null, null, cache.getGeneration());
+        cache.put("/b.json", Collections.<String>emptyList(), null, null, cache.getGeneration());
+        cache.get("/a.json");
+        cache.put("/c.json", Collections.<String>emptyList(), null, null, cache.getGeneration());
+        Assert.assertNotNull(cache.get("/a.json"));
+        Assert.assertNull(cache.get("/b.json"));
+        Assert.assertNotNull(cache.get("/c.json"));
+    }
+
+    private static CatalogCache cache(String... urls) {
+        CatalogCache cache = new CatalogCache();
+        for(String url : urls) {
+            cache.put(url, Collections.singletonList("name"), null, null, cache.getGeneration());
+        }
+        return cache;
+    }
+}
@@ -35,12 +35,15 @@ import edu.mit.ll.nics.common.entity.FeatureComment;
 import edu.mit.ll.nics.common.entity.UserFeature;
 import edu.mit.ll.nics.nicsdao.query.QueryConstraint.UTCRange;
 import java.util.List;
+import java.util.function.Consumer;
 import org.json.JSONObject;
 
 
 public interface FeatureDAO extends BaseDAO {
     public List<Feature> getFeatureState(int collabroomid, UTCRange dateRange, int geoType);
 
+    public int streamFeatureState(int collabroomid, UTCRange dateRange, int geoType, Consumer<Feature> consumer);
+
     public List<Feature> getUserFeatureState(int userid);
 
     public Feature getFeature(long featureId);
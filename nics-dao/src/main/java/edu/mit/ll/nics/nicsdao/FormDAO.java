@@ -32,6 +32,8 @@ package edu.mit.ll.nics.nicsdao;
 import edu.mit.ll.nics.common.entity.Form;
 import edu.mit.ll.nics.common.entity.FormType;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 
 public interface FormDAO extends BaseDAO {
@@ -48,4 +50,14 @@ public interface FormDAO extends BaseDAO {
     public List<FormType> getFormTypes();
 
     public int updateFormMessage(Form form);
+
+    /**
+     * Streams the forms of the given types to the consumer through a server-side cursor, rather than loading them
+     * all into memory.
+     *
+     * @param queryOpts the same query options readForms accepts
+     * @return the number of forms passed to the consumer
+     */
+    public int streamForms(List<Integer> formTypeIds, Map<String, Object> queryOpts,
+                           Consumer<Form> consumer) throws Exception;
 }
@@ -32,13 +32,27 @@ package edu.mit.ll.nics.nicsdao;
 import javax.naming.Context;
 import javax.naming.InitialContext;
 import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 public abstract class GenericDAO implements BaseDAO {
 
+    /**
+     * Number of rows fetched per round trip by {@link #queryStreaming}
+     */
+    public static final int STREAMING_FETCH_SIZE = 1000;
+
     public DataSource datasource;
 
     private boolean initialized = false;
 
+    private NamedParameterJdbcTemplate streamingTemplate;
+    private TransactionTemplate streamingTransaction;
+
     public GenericDAO() {
         this.doInit();
     }
@@ -68,8 +82,40 @@ public abstract class GenericDAO implements BaseDAO {
         return this;
     }
 
-    public void setDataSource(DataSource datasource) {
+    public synchronized void setDataSource(DataSource datasource) {
         this.datasource = datasource;
+        this.streamingTemplate = null;
+        this.streamingTransaction = null;
+    }
+
+    /**
+     * Runs a query through a server-side cursor, fetching {@link #STREAMING_FETCH_SIZE} rows at a time. The query is
+     * run in a read-only transaction, since PostgreSQL only honors the fetch size when auto-commit is off.
+     *
+     * @param sql the query to run
+     * @param params the named parameters for the query
+     * @param extractor consumes the rows as they are fetched, e.g. a StreamingJoinRowCallbackHandler
+     *
+     * @return the result of the extractor
+     */
+    protected <T> T queryStreaming(final String sql, final SqlParameterSource params,
+                                   final ResultSetExtractor<T> extractor) {
+        final NamedParameterJdbcTemplate template;
+        final TransactionTemplate transaction;
+        synchronized(this) {
+            if(streamingTemplate == null) {
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(datasource);
+                jdbcTemplate.setFetchSize(STREAMING_FETCH_SIZE);
+                streamingTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+                streamingTransaction = new TransactionTemplate(new DataSourceTransactionManager(datasource));
+                streamingTransaction.setReadOnly(true);
+            }
+            template = streamingTemplate;
+            transaction = streamingTransaction;
+        }
+
+        return transaction.execute(status -> template.query(sql, params, extractor));
     }
 
 
@@ -31,6 +31,7 @@ package edu.mit.ll.nics.nicsdao;
 
 import edu.mit.ll.nics.common.constants.SADisplayConstants;
 import edu.mit.ll.nics.common.entity.MobileDeviceTrack;
+import java.util.Collection;
 import org.springframework.dao.DataAccessException;
 
 
@@ -47,6 +48,26 @@ public interface MobileDeviceTrackDao extends BaseDAO {
      */
     boolean insertOrUpdate(MobileDeviceTrack mobileDeviceTrack) throws DataAccessException;
 
+    /**
+     * Inserts or updates each of the tracks, as {@link #insertOrUpdate(MobileDeviceTrack)} does. The tracks should
+     * have distinct deviceId, username and workspaceId combinations, see {@link MobileDeviceTrackIngest}. This
+     * default writes them one at a time, implementations may send them to the database as a single batch.
+     *
+     * @param mobileDeviceTracks the tracks to persist
+     * @return the number of tracks that were successfully persisted
+     *
+     * @throws DataAccessException if there was an issue with the batch
+     */
+    default int insertOrUpdate(Collection<MobileDeviceTrack> mobileDeviceTracks) throws DataAccessException {
+        int persisted = 0;
+        for(MobileDeviceTrack mobileDeviceTrack : mobileDeviceTracks) {
+            if(insertOrUpdate(mobileDeviceTrack)) {
+                persisted++;
+            }
+        }
+        return persisted;
+    }
+
     /**
      * Delete's the track with the specified values
      *
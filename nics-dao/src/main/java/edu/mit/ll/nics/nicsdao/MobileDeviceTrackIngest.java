@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.nicsdao;
+
+import edu.mit.ll.nics.common.entity.MobileDeviceTrack;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk ingest for {@link MobileDeviceTrack} pings.
+ *
+ * <p>Producers {@link #offer(MobileDeviceTrack)} pings into a bounded queue. A single flusher thread drains the
+ * queue once {@code batchSize} pings are waiting or {@code flushInterval} has passed since the first ping of the
+ * window arrived. Only the latest ping per deviceId, username and workspaceId in the window is kept, and that set is
+ * written with one {@link MobileDeviceTrackDao#insertOrUpdate(java.util.Collection)} batch. Later pings replace
+ * earlier ones, as they would if each was written on its own.</p>
+ *
+ * <p>A batch that fails is logged and counted in {@link #getFailedFlushes()}, it is not retried. Call
+ * {@link #close()} to write what is queued and stop the flusher.</p>
+ */
+public class MobileDeviceTrackIngest implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MobileDeviceTrackIngest.class);
+
+    public static final int DEFAULT_CAPACITY = 50000;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    private final MobileDeviceTrackDao dao;
+    private final BlockingQueue<MobileDeviceTrack> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+
+    /* Held shared while queueing and exclusively by close(), so nothing is queued after the final drain */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    public MobileDeviceTrackIngest(MobileDeviceTrackDao dao) {
+        this(dao, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * @param dao the DAO the batches are written with
+     * @param capacity the maximum number of pings waiting to be written
+     * @param batchSize the number of pings that triggers a flush
+     * @param flushInterval the longest a ping waits before a flush, in milliseconds
+     */
+    public MobileDeviceTrackIngest(MobileDeviceTrackDao dao, int capacity, int batchSize, long flushInterval) {
+        if(capacity < 1 || batchSize < 1 || flushInterval < 1) {
+            throw new IllegalArgumentException("capacity, batchSize and flushInterval must be positive");
+        }
+
+        this.dao = dao;
+        this.queue = new ArrayBlockingQueue<MobileDeviceTrack>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+
+        this.flusher = new Thread(this::run, "mdt-ingest-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues a ping to be written with the next batch
+     *
+     * @param mobileDeviceTrack the ping
+     * @return true if queued, false if the queue is full or the ingest is closed
+     */
+    public boolean offer(MobileDeviceTrack mobileDeviceTrack) {
+        closeLock.readLock().lock();
+        try {
+            if(running && queue.offer(mobileDeviceTrack)) {
+                received.incrementAndGet();
+                return true;
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Queues a ping, waiting up to the timeout for space in the queue. A close() started meanwhile waits for this
+     * call to finish.
+     *
+     * @return true if queued, false if the timeout elapsed or the ingest is closed
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean offer(MobileDeviceTrack mobileDeviceTrack, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        closeLock.readLock().lock();
+        try {
+            if(running && queue.offer(mobileDeviceTrack, timeout, unit)) {
+                received.incrementAndGet();
+                return true;
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Stops accepting pings, writes those still queued, and stops the flusher
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closeLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        flusher.interrupt();
+        flusher.join();
+    }
+
+    private void run() {
+        List<MobileDeviceTrack> window = new ArrayList<MobileDeviceTrack>(batchSize);
+        while(running) {
+            try {
+                MobileDeviceTrack first = queue.take();
+                window.add(first);
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while(window.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if(remaining <= 0 || queue.drainTo(window, batchSize - window.size()) == 0 &&
+                            !poll(window, remaining)) {
+                        break;
+                    }
+                }
+            } catch(InterruptedException e) {
+                // close() was called, fall through to write what we have and drain the rest
+            }
+            flush(window);
+        }
+
+        // The interrupt from close() may not have been consumed by a wait, don't let it reach the DAO
+        Thread.interrupted();
+        while(!queue.isEmpty()) {
+            queue.drainTo(window, batchSize);
+            flush(window);
+        }
+    }
+
+    private boolean poll(List<MobileDeviceTrack> window, long timeoutNanos) throws InterruptedException {
+        MobileDeviceTrack next = queue.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+        if(next == null) {
+            return false;
+        }
+        window.add(next);
+        return true;
+    }
+
+    private void flush(List<MobileDeviceTrack> window) {
+        if(window.isEmpty()) {
+            return;
+        }
+
+        Map<TrackKey, MobileDeviceTrack> latest = new LinkedHashMap<TrackKey, MobileDeviceTrack>(window.size() * 2);
+        for(MobileDeviceTrack track : window) {
+            latest.put(new TrackKey(track), track);
+        }
+        coalesced.addAndGet(window.size() - latest.size());
+        window.clear();
+
+        long start = System.nanoTime();
+        try {
+            persisted.addAndGet(dao.insertOrUpdate(latest.values()));
+        } catch(Exception e) {
+            failedFlushes.incrementAndGet();
+            LOG.error("Failed to write batch of {} mobile device tracks", latest.size(), e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushes.incrementAndGet();
+            totalFlushNanos.addAndGet(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+            lastFlushNanos = elapsed;
+        }
+    }
+
+    /**
+     * @return the number of pings waiting to be written
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of pings accepted by offer
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * @return the number of pings refused because the queue was full or the ingest was closed
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the number of pings dropped because a later ping for the same track was in the same window
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of tracks successfully written
+     */
+    public long getPersisted() {
+        return persisted.get();
+    }
+
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes.get();
+    }
+
+    /**
+     * @return the duration of the most recent flush, in milliseconds
+     */
+    public double getLastFlushLatency() {
+        return lastFlushNanos / 1e6;
+    }
+
+    /**
+     * @return the longest flush so far, in milliseconds
+     */
+    public double getMaxFlushLatency() {
+        return maxFlushNanos.get() / 1e6;
+    }
+
+    /**
+     * @return the mean flush duration, in milliseconds
+     */
+    public double getMeanFlushLatency() {
+        long count = flushes.get();
+        return count == 0 ? 0 : totalFlushNanos.get() / 1e6 / count;
+    }
+
+    private static final class TrackKey {
+        private final String deviceId;
+        private final String username;
+        private final Integer workspaceId;
+
+        private TrackKey(MobileDeviceTrack track) {
+            this.deviceId = track.getDeviceId();
+            this.username = track.getUsername();
+            this.workspaceId = track.getWorkspaceId();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof TrackKey)) {
+                return false;
+            }
+            TrackKey other = (TrackKey) o;
+            return Objects.equals(deviceId, other.deviceId) && Objects.equals(username, other.username) &&
+                    Objects.equals(workspaceId, other.workspaceId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(deviceId, username, workspaceId);
+        }
+    }
+}
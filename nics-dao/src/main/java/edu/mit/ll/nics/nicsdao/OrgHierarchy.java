@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.nicsdao;
+
+import edu.mit.ll.dao.QueryModel;
+import edu.mit.ll.nics.common.constants.SADisplayConstants;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntFunction;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Cached view of the org parent/child hierarchy.
+ *
+ * <p>The parentorgid of every org is loaded with a single query. The descendants and ancestors of each org are
+ * walked in memory, so expanding a user's orgs costs no round trips once the hierarchy is loaded. The closure of a
+ * single org is kept as an int array after first use. Writes that change the hierarchy must call
+ * {@link #invalidate()}. The hierarchy is also reloaded once it is older than {@link #getMaxAge()} milliseconds, to
+ * pick up changes made by other processes.</p>
+ *
+ * <p>Orgs are returned level by level, the way the recursive queries this replaces found them: first every direct
+ * child (or parent) of the given orgs, then theirs, and so on. Ids within a level are in ascending order.</p>
+ *
+ * <p>One instance is shared per DataSource, see {@link #forDataSource(DataSource)}. The instance only holds the
+ * DataSource weakly, so a DataSource that is no longer used elsewhere can be collected along with its
+ * hierarchy.</p>
+ */
+public class OrgHierarchy {
+
+    public static final long DEFAULT_MAX_AGE = 60000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrgHierarchy.class);
+
+    private static final Map<DataSource, OrgHierarchy> HIERARCHIES =
+            Collections.synchronizedMap(new WeakHashMap<DataSource, OrgHierarchy>());
+
+    private static final int[] NONE = new int[0];
+
+    private final Reference<DataSource> datasource;
+
+    private volatile long maxAge = DEFAULT_MAX_AGE;
+
+    private volatile Snapshot snapshot;
+
+    /* Incremented by invalidate(), so a load that raced with a write is not kept */
+    private long generation;
+
+    public OrgHierarchy(DataSource datasource) {
+        this.datasource = new WeakReference<DataSource>(datasource);
+    }
+
+    /**
+     * @return the hierarchy shared by all DAOs using this DataSource
+     */
+    public static OrgHierarchy forDataSource(DataSource datasource) {
+        return HIERARCHIES.computeIfAbsent(datasource, OrgHierarchy::new);
+    }
+
+    /**
+     * Returns every descendant of the given orgs, nearest first. The given orgs are never included.
+     *
+     * @param orgIds the orgs to expand
+     * @return the ids of all child orgs, recursively
+     */
+    public List<Integer> getDescendants(Collection<Integer> orgIds) {
+        if(orgIds == null || orgIds.isEmpty()) {
+            return new ArrayList<Integer>();
+        }
+
+        Snapshot current = snapshot();
+        Integer single = single(orgIds);
+        if(single != null) {
+            return toList(current.descendantsOf(single));
+        }
+        return levels(orgIds, current::childrenOf);
+    }
+
+    /**
+     * Returns every ancestor of the given orgs, nearest first. The given orgs are never included.
+     *
+     * @param orgIds the orgs to expand
+     * @return the ids of all parent orgs, recursively
+     */
+    public List<Integer> getAncestors(Collection<Integer> orgIds) {
+        if(orgIds == null || orgIds.isEmpty()) {
+            return new ArrayList<Integer>();
+        }
+
+        Snapshot current = snapshot();
+        Integer single = single(orgIds);
+        if(single != null) {
+            return toList(current.ancestorsOf(single));
+        }
+        return levels(orgIds, current::parentOf);
+    }
+
+    /**
+     * Drops the cached hierarchy, it is reloaded on next use. Any change to an org's parent alters the closure of all
+     * of its ancestors and descendants, so the whole snapshot is dropped rather than individual entries.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+    }
+
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if(current != null && !current.isOlderThan(maxAge)) {
+            return current;
+        }
+
+        long loadGeneration;
+        synchronized(this) {
+            current = snapshot;
+            if(current != null && !current.isOlderThan(maxAge)) {
+                return current;
+            }
+            loadGeneration = generation;
+        }
+
+        current = load();
+
+        synchronized(this) {
+            if(loadGeneration == generation) {
+                snapshot = current;
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        QueryModel query = QueryManager.createQuery(SADisplayConstants.ORG_TABLE)
+                .selectFromTable(SADisplayConstants.ORG_ID, SADisplayConstants.PARENT_ORG_ID);
+
+        DataSource source = datasource.get();
+        if(source == null) {
+            throw new IllegalStateException("The DataSource of this org hierarchy has been released");
+        }
+
+        final Map<Integer, Integer> parents = new HashMap<Integer, Integer>();
+        final Map<Integer, List<Integer>> children = new HashMap<Integer, List<Integer>>();
+        new NamedParameterJdbcTemplate(source).query(query.toString(), new MapSqlParameterSource(), rs -> {
+            int orgId = rs.getInt(1);
+            int parentId = rs.getInt(2);
+            // A null or 0 parentorgid means a top level org
+            if(parentId > 0) {
+                parents.put(orgId, parentId);
+                children.computeIfAbsent(parentId, id -> new ArrayList<Integer>()).add(orgId);
+            }
+        });
+
+        Map<Integer, int[]> childIds = new HashMap<Integer, int[]>(children.size() * 2);
+        for(Map.Entry<Integer, List<Integer>> entry : children.entrySet()) {
+            int[] ids = toArray(entry.getValue());
+            Arrays.sort(ids);
+            childIds.put(entry.getKey(), ids);
+        }
+
+        LOG.debug("Loaded org hierarchy with {} child orgs under {} parents", parents.size(), childIds.size());
+        return new Snapshot(parents, childIds);
+    }
+
+    /* The only usable org id in orgIds, or null when there are several */
+    private static Integer single(Collection<Integer> orgIds) {
+        if(orgIds == null || orgIds.size() != 1) {
+            return null;
+        }
+        Integer orgId = orgIds.iterator().next();
+        return orgId != null && orgId >= 0 ? orgId : null;
+    }
+
+    /*
+     * Breadth first from all the given orgs at once, so each level is complete before the next starts. The given
+     * orgs are marked as visited up front, which keeps them out of the result and guards against cycles.
+     */
+    private static List<Integer> levels(Collection<Integer> orgIds, IntFunction<int[]> next) {
+        List<Integer> result = new ArrayList<Integer>();
+        BitSet seen = new BitSet();
+        List<Integer> level = new ArrayList<Integer>();
+        for(Integer orgId : orgIds) {
+            if(orgId != null && orgId >= 0 && !seen.get(orgId)) {
+                seen.set(orgId);
+                level.add(orgId);
+            }
+        }
+
+        while(!level.isEmpty()) {
+            List<Integer> found = new ArrayList<Integer>();
+            for(int orgId : level) {
+                for(int id : next.apply(orgId)) {
+                    if(!seen.get(id)) {
+                        seen.set(id);
+                        found.add(id);
+                    }
+                }
+            }
+            Collections.sort(found);
+            result.addAll(found);
+            level = found;
+        }
+        return result;
+    }
+
+    private static List<Integer> toList(int[] ids) {
+        List<Integer> list = new ArrayList<Integer>(ids.length);
+        for(int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        int[] array = new int[ids.size()];
+        for(int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+
+    private static final class Snapshot {
+
+        private final long loadedAt = System.currentTimeMillis();
+
+        private final Map<Integer, Integer> parents;
+        private final Map<Integer, int[]> children;
+
+        private final ConcurrentMap<Integer, int[]> descendants = new ConcurrentHashMap<Integer, int[]>();
+        private final ConcurrentMap<Integer, int[]> ancestors = new ConcurrentHashMap<Integer, int[]>();
+
+        private Snapshot(Map<Integer, Integer> parents, Map<Integer, int[]> children) {
+            this.parents = Collections.unmodifiableMap(parents);
+            this.children = Collections.unmodifiableMap(children);
+        }
+
+        private boolean isOlderThan(long maxAge) {
+            return System.currentTimeMillis() - loadedAt > maxAge;
+        }
+
+        private int[] childrenOf(int orgId) {
+            int[] childIds = children.get(orgId);
+            return childIds == null ? NONE : childIds;
+        }
+
+        private int[] parentOf(int orgId) {
+            Integer parentId = parents.get(orgId);
+            return parentId == null ? NONE : new int[] {parentId};
+        }
+
+        private int[] descendantsOf(int orgId) {
+            return descendants.computeIfAbsent(orgId,
+                    id -> toArray(levels(Collections.singletonList(id), this::childrenOf)));
+        }
+
+        private int[] ancestorsOf(int orgId) {
+            return ancestors.computeIfAbsent(orgId,
+                    id -> toArray(levels(Collections.singletonList(id), this::parentOf)));
+        }
+    }
+}
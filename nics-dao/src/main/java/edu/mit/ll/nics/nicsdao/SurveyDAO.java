@@ -34,6 +34,7 @@ import edu.mit.ll.nics.common.entity.Survey;
 import edu.mit.ll.nics.common.entity.SurveyHistory;
 import edu.mit.ll.nics.common.entity.SurveyResult;
 import java.util.List;
+import java.util.function.Consumer;
 import org.springframework.dao.DataAccessException;
 
 
@@ -78,6 +79,15 @@ public interface SurveyDAO {
 
     List<SurveyResult> getSurveyResults();
 
+    /**
+     * Streams all SurveyResults to the consumer through a server-side cursor, rather than loading them into memory
+     *
+     * @param consumer receives each SurveyResult as it is read
+     *
+     * @return the number of SurveyResults passed to the consumer, or -1 on error
+     */
+    int streamSurveyResults(Consumer<SurveyResult> consumer);
+
     List<SurveyResult> getSurveyResultsForSurvey(int surveyId);
 
     int createSurveyResult(SurveyResult newResult);
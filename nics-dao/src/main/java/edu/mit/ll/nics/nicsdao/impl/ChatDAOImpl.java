@@ -29,6 +29,7 @@
  */
 package edu.mit.ll.nics.nicsdao.impl;
 
+import edu.mit.ll.dao.CompiledQuery;
 import edu.mit.ll.dao.QueryModel;
 import edu.mit.ll.jdbc.JoinRowCallbackHandler;
 import edu.mit.ll.jdbc.JoinRowMapper;
@@ -54,6 +55,20 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 public class ChatDAOImpl extends GenericDAO implements ChatDAO {
 
+    private static final CompiledQuery GET_CHAT_MESSAGE = QueryManager.createQuery(SADisplayConstants.CHAT_TABLE)
+            .selectAllFromTable()
+            .join(SADisplayConstants.USER_ORG_TABLE).using(SADisplayConstants.USER_ORG_ID)
+            .join(SADisplayConstants.USER_ESCAPED).using(SADisplayConstants.USER_ID)
+            .join(SADisplayConstants.ORG_TABLE).using(SADisplayConstants.ORG_ID)
+            .where()
+            .equals(SADisplayConstants.CHAT_ID).compile();
+
+    private static final CompiledQuery ADD_CHAT = QueryManager.createQuery(SADisplayConstants.CHAT_TABLE)
+            .insertInto(Arrays.asList(
+                    SADisplayConstants.COLLAB_ROOM_ID, SADisplayConstants.USER_ORG_ID,
+                    SADisplayConstants.CREATED, SADisplayConstants.SEQ_NUM, SADisplayConstants.MESSAGE))
+            .returnValue(SADisplayConstants.CHAT_ID).compile();
+
     private NamedParameterJdbcTemplate template;
 
     @Override
@@ -84,33 +99,18 @@ public class ChatDAOImpl extends GenericDAO implements ChatDAO {
 
     @Override
     public Chat getChatMessage(long chatId) {
-        QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.CHAT_TABLE)
-                .selectAllFromTable()
-                .join(SADisplayConstants.USER_ORG_TABLE).using(SADisplayConstants.USER_ORG_ID)
-                .join(SADisplayConstants.USER_ESCAPED).using(SADisplayConstants.USER_ID)
-                .join(SADisplayConstants.ORG_TABLE).using(SADisplayConstants.ORG_ID)
-                .where()
-                .equals(SADisplayConstants.CHAT_ID, chatId);
-
         JoinRowMapper<UserOrg> userOrgMapper = new UserOrgRowMapper()
                 .attachAdditionalMapper(new UserRowMapper()) //skip password fields
                 .attachAdditionalMapper(new OrgRowMapper());
         JoinRowCallbackHandler<Chat> handler = getHandler(userOrgMapper);
-        this.template.query(queryModel.toString(), queryModel.getParameters(), handler);
+        GET_CHAT_MESSAGE.query(this.template, new MapSqlParameterSource(SADisplayConstants.CHAT_ID, chatId), handler);
         return handler.getSingleResult();
     }
 
     @Override
     public long addChat(Chat chat) throws Exception {
-        List<String> fields = Arrays.asList(
-                SADisplayConstants.COLLAB_ROOM_ID, SADisplayConstants.USER_ORG_ID,
-                SADisplayConstants.CREATED, SADisplayConstants.SEQ_NUM, SADisplayConstants.MESSAGE);
-
-        QueryModel model = QueryManager.createQuery(SADisplayConstants.CHAT_TABLE).insertInto(fields)
-                .returnValue(SADisplayConstants.CHAT_ID);
-
         try {
-            return this.template.queryForObject(model.toString(), new MapSqlParameterSource(
+            return ADD_CHAT.queryForObject(this.template, new MapSqlParameterSource(
                     SADisplayConstants.COLLAB_ROOM_ID, chat.getCollabroomid())
                     .addValue(SADisplayConstants.USER_ORG_ID, chat.getUserorgid())
                     .addValue(SADisplayConstants.CREATED, chat.getCreated())
@@ -29,10 +29,12 @@
  */
 package edu.mit.ll.nics.nicsdao.impl;
 
+import edu.mit.ll.dao.CompiledQuery;
 import edu.mit.ll.dao.QueryBuilder;
 import edu.mit.ll.dao.QueryModel;
 import edu.mit.ll.jdbc.JoinRowCallbackHandler;
 import edu.mit.ll.jdbc.JoinRowMapper;
+import edu.mit.ll.jdbc.StreamingJoinRowCallbackHandler;
 import edu.mit.ll.nics.common.constants.SADisplayConstants;
 import edu.mit.ll.nics.common.entity.CollabroomFeature;
 import edu.mit.ll.nics.common.entity.Feature;
@@ -53,6 +55,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +65,31 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 public class FeatureDAOImpl extends GenericDAO implements FeatureDAO {
 
+    private static final CompiledQuery GET_FEATURE = QueryManager.createQuery(SADisplayConstants.FEATURE)
+            .selectAllFromTable().left()
+            .join(SADisplayConstants.DOCUMENT_FEATURE_TABLE).using(SADisplayConstants.FEATURE_ID).left()
+            .join(SADisplayConstants.DOCUMENT_TABLE).using(SADisplayConstants.DOCUMENT_ID).where()
+            .equals(SADisplayConstants.FEATURE_ID).compile();
+
+    private static final CompiledQuery ADD_COLLABROOM_FEATURE = QueryManager
+            .createQuery(SADisplayConstants.FEATURE_COLLABROOM)
+            .insertInto(Arrays.asList(SADisplayConstants.COLLAB_ROOM_ID, SADisplayConstants.FEATURE_ID)).compile();
+
+    private static final CompiledQuery ADD_USER_FEATURE = QueryManager.createQuery(SADisplayConstants.FEATURE_USER)
+            .insertInto(Arrays.asList(SADisplayConstants.USER_ID, SADisplayConstants.FEATURE_ID)).compile();
+
+    private static final CompiledQuery ADD_FEATURE_COMMENT = QueryManager
+            .createQuery(SADisplayConstants.FEATURE_COMMENT_TABLE)
+            .insertInto(Arrays.asList(SADisplayConstants.FEATURE_COMMENT, SADisplayConstants.TIMESTAMP,
+                    SADisplayConstants.FEATURE_ID, SADisplayConstants.USER_NAME), SADisplayConstants.FEATURE_COMMENT_ID)
+            .returnValue(SADisplayConstants.FEATURE_COMMENT_ID).compile();
+
+    private static final CompiledQuery DELETE_USER_FEATURE = QueryManager.createQuery(SADisplayConstants.USER_FEATURE)
+            .deleteFromTableWhere().equals(SADisplayConstants.FEATURE_ID).compile();
+
+    private static final CompiledQuery DELETE_FEATURE = QueryManager.createQuery(SADisplayConstants.FEATURE)
+            .deleteFromTableWhere().equals(SADisplayConstants.FEATURE_ID).compile();
+
     private Logger log;
 
     private NamedParameterJdbcTemplate template;
@@ -75,13 +103,35 @@ public class FeatureDAOImpl extends GenericDAO implements FeatureDAO {
     }
 
     public List<Feature> getFeatureState(int collabroomId, UTCRange dateRange, int geoType) {
+        MapSqlParameterSource map = new MapSqlParameterSource();
+        QueryModel query = buildFeatureStateQuery(collabroomId, dateRange, geoType, map);
+
+        JoinRowCallbackHandler<Feature> handler = getHandlerWith(new DocumentRowMapper());
+
+        this.template.query(query.toString(), map, handler);
+
+        return handler.getResults();
+    }
+
+    public int streamFeatureState(int collabroomId, UTCRange dateRange, int geoType, Consumer<Feature> consumer) {
+        MapSqlParameterSource map = new MapSqlParameterSource();
+        QueryModel query = buildFeatureStateQuery(collabroomId, dateRange, geoType, map)
+                .orderBy(SADisplayConstants.FEATURE_ID);
+
+        return queryStreaming(query.toString(), map,
+                new StreamingJoinRowCallbackHandler<Feature>(consumer, new FeatureRowMapper(),
+                        new DocumentRowMapper()));
+    }
+
+    private QueryModel buildFeatureStateQuery(int collabroomId, UTCRange dateRange, int geoType,
+                                              MapSqlParameterSource map) {
         QueryModel query = QueryManager.createQuery(SADisplayConstants.FEATURE).selectAllFromFeatureTable(geoType)
                 .join(SADisplayConstants.COLLABROOM_FEATURE_TABLE).using(SADisplayConstants.FEATURE_ID).left()
                 .join(SADisplayConstants.DOCUMENT_FEATURE_TABLE).using(SADisplayConstants.FEATURE_ID).left()
                 .join(SADisplayConstants.DOCUMENT_TABLE).using(SADisplayConstants.DOCUMENT_ID).where()
                 .equals(SADisplayConstants.COLLAB_ROOM_ID, collabroomId).and().equals(SADisplayConstants.DELETED);
 
-        MapSqlParameterSource map = new MapSqlParameterSource(SADisplayConstants.COLLAB_ROOM_ID, collabroomId)
+        map.addValue(SADisplayConstants.COLLAB_ROOM_ID, collabroomId)
                 .addValue(SADisplayConstants.DELETED, false);
 
         if(dateRange != null && dateRange.colName != null && dateRange.from != null) {
@@ -94,12 +144,7 @@ public class FeatureDAOImpl extends GenericDAO implements FeatureDAO {
             }
 
         }
-
-        JoinRowCallbackHandler<Feature> handler = getHandlerWith(new DocumentRowMapper());
-
-        this.template.query(query.toString(), map, handler);
-
-        return handler.getResults();
+        return query;
     }
 
     public List<Long> getDeletedFeatures(int collabroomId, UTCRange dateRange) {
@@ -136,15 +181,8 @@ public class FeatureDAOImpl extends GenericDAO implements FeatureDAO {
     }
 
     public int addFeatureComment(FeatureComment featureComment) {
-        List<String> fields = Arrays.asList(SADisplayConstants.FEATURE_COMMENT, SADisplayConstants.TIMESTAMP,
-                SADisplayConstants.FEATURE_ID, SADisplayConstants.USER_NAME);
-
-        QueryModel model = QueryManager.createQuery(SADisplayConstants.FEATURE_COMMENT_TABLE).insertInto(fields,
-                SADisplayConstants.FEATURE_COMMENT_ID).returnValue(SADisplayConstants.FEATURE_COMMENT_ID);
-        ;
-
-        return this.template
-                .queryForObject(model.toString(), new BeanPropertySqlParameterSource(featureComment), Integer.class);
+        return ADD_FEATURE_COMMENT.queryForObject(this.template, new BeanPropertySqlParameterSource(featureComment),
+                Integer.class);
     }
 
     public int deleteFeatureComment(long featureCommentId) {
@@ -267,11 +305,7 @@ public class FeatureDAOImpl extends GenericDAO implements FeatureDAO {
 
     public void addCollabroomFeature(CollabroomFeature collabroomFeature) throws Exception {
         try {
-            List<String> fields = Arrays.asList(SADisplayConstants.COLLAB_ROOM_ID, SADisplayConstants.FEATURE_ID);
-
-            QueryModel model = QueryManager.createQuery(SADisplayConstants.FEATURE_COLLABROOM).insertInto(fields);
-
-            this.template.update(model.toString(), new BeanPropertySqlParameterSource(collabroomFeature));
+            ADD_COLLABROOM_FEATURE.update(this.template, new BeanPropertySqlParameterSource(collabroomFeature));
         } catch(Exception e) {
             throw new Exception("Unhandled exception while persisting Collabroom Feature entity: " + e.getMessage());
         }
@@ -279,26 +313,16 @@ public class FeatureDAOImpl extends GenericDAO implements FeatureDAO {
 
     public void addUserFeature(UserFeature userFeature) throws Exception {
         try {
-            List<String> fields = Arrays.asList(SADisplayConstants.USER_ID, SADisplayConstants.FEATURE_ID);
-
-            QueryModel model = QueryManager.createQuery(SADisplayConstants.FEATURE_USER).insertInto(fields);
-
-            this.template.update(model.toString(), new BeanPropertySqlParameterSource(userFeature));
+            ADD_USER_FEATURE.update(this.template, new BeanPropertySqlParameterSource(userFeature));
         } catch(Exception e) {
             throw new Exception("Unhandled exception while persisting User Feature entity: " + e.getMessage());
         }
     }
 
     public Feature getFeature(long featureId) {
-        QueryModel model = QueryManager.createQuery(SADisplayConstants.FEATURE).selectAllFromTable().left()
-                .join(SADisplayConstants.DOCUMENT_FEATURE_TABLE).using(SADisplayConstants.FEATURE_ID).left()
-                .join(SADisplayConstants.DOCUMENT_TABLE).using(SADisplayConstants.DOCUMENT_ID).where()
-                .equals(SADisplayConstants.FEATURE_ID);
-
         JoinRowCallbackHandler<Feature> handler = getHandlerWith(new DocumentRowMapper());
 
-        this.template.query(model.toString(), new MapSqlParameterSource(SADisplayConstants.FEATURE_ID, featureId),
-                handler);
+        GET_FEATURE.query(this.template, new MapSqlParameterSource(SADisplayConstants.FEATURE_ID, featureId), handler);
 
         return handler.getSingleResult();
     }
@@ -329,11 +353,11 @@ public class FeatureDAOImpl extends GenericDAO implements FeatureDAO {
         QueryModel model = QueryManager.createQuery(SADisplayConstants.FEATURE_TABLE).selectAllFromTable().left()
                 .join(SADisplayConstants.DOCUMENT_FEATURE_TABLE).using(SADisplayConstants.FEATURE_ID).left()
                 .join(SADisplayConstants.DOCUMENT_TABLE).using(SADisplayConstants.DOCUMENT_ID).where()
-                .inAsLong(SADisplayConstants.FEATURE_ID, featureIds);
+                .inArrayAsLong(SADisplayConstants.FEATURE_ID, featureIds);
 
         JoinRowCallbackHandler<Feature> handler = getHandlerWith(new DocumentRowMapper());
 
-        template.query(model.toString(), new MapSqlParameterSource(), handler);
+        template.query(model.toString(), model.getParameters(), handler);
         features = handler.getResults();
 
         return features;
@@ -368,18 +392,12 @@ public class FeatureDAOImpl extends GenericDAO implements FeatureDAO {
     }
 
     public int deleteUserFeature(long featureId) throws Exception {
-        QueryModel delUserFeature = QueryManager.createQuery(SADisplayConstants.USER_FEATURE).deleteFromTableWhere()
-                .equals(SADisplayConstants.FEATURE_ID);
-
-        int userFeature = template.update(delUserFeature.toString(),
+        int userFeature = DELETE_USER_FEATURE.update(template,
                 new MapSqlParameterSource(SADisplayConstants.FEATURE_ID, featureId));
 
         // if one feature was deleted
         if(userFeature == 1) {
-            QueryModel delFeature = QueryManager.createQuery(SADisplayConstants.FEATURE).deleteFromTableWhere()
-                    .equals(SADisplayConstants.FEATURE_ID);
-
-            return template.update(delFeature.toString(),
+            return DELETE_FEATURE.update(template,
                     new MapSqlParameterSource(SADisplayConstants.FEATURE_ID, featureId));
         }
         return -1;
@@ -32,8 +32,10 @@ package edu.mit.ll.nics.nicsdao.impl;
 import edu.mit.ll.nics.common.entity.ReportLatest;
 import edu.mit.ll.nics.nicsdao.mappers.ReportLatestRowMapper;
 import edu.mit.ll.dao.QueryModel;
+import edu.mit.ll.dao.SqlArrayValue;
 import edu.mit.ll.jdbc.JoinRowCallbackHandler;
 import edu.mit.ll.jdbc.JoinRowMapper;
+import edu.mit.ll.jdbc.StreamingJoinRowCallbackHandler;
 import edu.mit.ll.nics.common.constants.SADisplayConstants;
 import edu.mit.ll.nics.common.entity.Form;
 import edu.mit.ll.nics.common.entity.FormType;
@@ -48,6 +50,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
@@ -156,15 +159,14 @@ public class FormDAOImpl extends GenericDAO implements FormDAO {
         int formTypeId = getFormTypeId(formTypeName);
 
         MapSqlParameterSource params = new MapSqlParameterSource();
-    /*params.addValue("incidentid", incidentId);
-    params.addValue("formtypeid", formTypeId);*/
+        params.addValue(SADisplayConstants.INCIDENT_ID, incidentId);
+        params.addValue(SADisplayConstants.FORM_TYPE_ID, formTypeId);
 
         JoinRowCallbackHandler<ReportLatest> handler = getReportLatestHandlerWith();
 
-        // TODO: build query and use proper parameter map
-        String query = "SELECT DISTINCT ON (userid) formid, seqtime, message, \"user\".username FROM form join usersession " +
-                "using(usersessionid) join userorg using(userorgid) join \"user\" using(userid) " +
-                "where formtypeid=" + formTypeId + " and incidentid="+incidentId+" ORDER BY userid, seqtime desc";
+        String query = "SELECT DISTINCT ON (userid) formid, seqtime, message, \"user\".username FROM form " +
+                "join usersession using(usersessionid) join userorg using(userorgid) join \"user\" using(userid) " +
+                "where formtypeid=:formtypeid and incidentid=:incidentId ORDER BY userid, seqtime desc";
 
         try {
             this.template.query(query, params, handler);
@@ -259,25 +261,51 @@ public class FormDAOImpl extends GenericDAO implements FormDAO {
 
     public List<Form> readForms(List<Integer> formTypeIds,
                                 Map<String, Object> queryOpts) throws Exception {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = buildFormsQuery(formTypeIds, queryOpts, params);
+
+        JoinRowCallbackHandler<Form> handler = new JoinRowCallbackHandler<Form>(new FormRowMapper());
+        template.query(sql, params, handler);
+        List<Form> queryForms = handler.getResults();
+        log.info("Got forms: " + queryForms.size());
+		
+		/*List<Form> forms = new ArrayList<Form>(results.size());
+		for (Object result : results) {
+			forms.add((Form)result);
+		}*/
+
+        return queryForms;
+    }
+
+    /**
+     * Streams the forms matched by {@link #readForms(List, Map)} to the consumer through a server-side cursor,
+     * rather than loading them all into memory.
+     *
+     * @return the number of forms passed to the consumer
+     */
+    public int streamForms(List<Integer> formTypeIds, Map<String, Object> queryOpts,
+                           Consumer<Form> consumer) throws Exception {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = buildFormsQuery(formTypeIds, queryOpts, params);
+
+        return queryStreaming(sql, params,
+                new StreamingJoinRowCallbackHandler<Form>(consumer, new FormRowMapper()));
+    }
+
+    private String buildFormsQuery(List<Integer> formTypeIds, Map<String, Object> queryOpts,
+                                   MapSqlParameterSource params) throws Exception {
 
         StringBuilder sql = new StringBuilder();
 
         // Build the Form type ID predicate; i.e., single value vs. multi-value.
         StringBuilder ftPred = new StringBuilder();
         if(formTypeIds.size() == 1) {
-            ftPred.append("WHERE formtypeid=").append(formTypeIds.iterator().next());
+            ftPred.append("WHERE formtypeid=:formtypeid");
+            params.addValue(SADisplayConstants.FORM_TYPE_ID, formTypeIds.iterator().next());
         } else if(formTypeIds.size() > 1) {
-            ftPred.append("WHERE formtypeid in (");
-            boolean firstOne = true;
-            for(Integer i : formTypeIds) {
-                if(firstOne) {
-                    firstOne = false;
-                } else {
-                    ftPred.append(", ");
-                }
-                ftPred.append(i);
-            }
-            ftPred.append(")");
+            ftPred.append("WHERE formtypeid = ANY(:formtypeid)");
+            params.addValue(SADisplayConstants.FORM_TYPE_ID,
+                    new SqlArrayValue(SqlArrayValue.INTEGER, formTypeIds));
         }
 
         sql.append("SELECT ");
@@ -297,11 +325,15 @@ public class FormDAOImpl extends GenericDAO implements FormDAO {
 
         // Was an incidentId passed?
         if(queryOpts.containsKey(SADisplayConstants.INCIDENT_ID)) {
-            sql.append(" AND incidentid = ").append(queryOpts.get(SADisplayConstants.INCIDENT_ID));
+            sql.append(" AND incidentid = :incidentId");
+            params.addValue(SADisplayConstants.INCIDENT_ID,
+                    Integer.valueOf(queryOpts.get(SADisplayConstants.INCIDENT_ID).toString()));
         }
 
         if(queryOpts.get(SADisplayConstants.COLLAB_ROOM_ID) != null) {
-            sql.append(" AND collabroomid = ").append(queryOpts.get(SADisplayConstants.COLLAB_ROOM_ID));
+            sql.append(" AND collabroomid = :collabroomid");
+            params.addValue(SADisplayConstants.COLLAB_ROOM_ID,
+                    Integer.valueOf(queryOpts.get(SADisplayConstants.COLLAB_ROOM_ID).toString()));
         }
 
         // Assemble the where clause.
@@ -318,17 +350,7 @@ public class FormDAOImpl extends GenericDAO implements FormDAO {
         log.info("Form query: \n" + sql.toString() + "\n");
         //List<Object> results = PhinicsDbUtil.sqlExecuteNative(sql.toString(), Form.class, em, log);
 
-        JoinRowCallbackHandler<Form> handler = new JoinRowCallbackHandler<Form>(new FormRowMapper());
-        template.query(sql.toString(), handler);
-        List<Form> queryForms = handler.getResults();
-        log.info("Got forms: " + queryForms.size());
-		
-		/*List<Form> forms = new ArrayList<Form>(results.size());
-		for (Object result : results) {
-			forms.add((Form)result);
-		}*/
-
-        return queryForms;
+        return sql.toString();
     }
 
 
@@ -46,9 +46,11 @@ import edu.mit.ll.nics.nicsdao.QueryManager;
 import edu.mit.ll.nics.nicsdao.mappers.*;
 
 import java.sql.Timestamp;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -435,9 +437,10 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
                 .join(SADisplayConstants.INCIDENT_TABLE).using(SADisplayConstants.USERSESSION_ID)
                 .where().equals(SADisplayConstants.WORKSPACE_ID)
                 .and().equals(SADisplayConstants.ACTIVE)
-                .and().notInAsInteger(SADisplayConstants.ORG_ID, orgIds);
+                .and().notInArrayAsInteger(SADisplayConstants.ORG_ID, orgIds);
 
-        MapSqlParameterSource map = new MapSqlParameterSource(SADisplayConstants.WORKSPACE_ID, workspaceId)
+        MapSqlParameterSource map = new MapSqlParameterSource(queryModel.getParameters())
+                .addValue(SADisplayConstants.WORKSPACE_ID, workspaceId)
                 .addValue(SADisplayConstants.ACTIVE, true);
 
         return template.queryForList(queryModel.toString(), map);
@@ -653,7 +656,7 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
 
         queryModel = queryModel.and().equals(SADisplayConstants.ACTIVE, !archived)
                 .and().equals(SADisplayConstants.WORKSPACE_ID, workspaceId)
-                .and().inAsInteger(SADisplayConstants.INCIDENT_ID, incidentIds);
+                .and().inArrayAsInteger(SADisplayConstants.INCIDENT_ID, incidentIds);
 
         System.out.println("Query: " + queryModel.toString());
 
@@ -711,7 +714,7 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
         queryModel = queryModel.ilike(SADisplayConstants.INCIDENT_NAME).value("'%" + name + "%'")
                 .and().equals(SADisplayConstants.ACTIVE, !archived)
                 .and().equals(SADisplayConstants.WORKSPACE_ID, workspaceId)
-                .and().inAsInteger(SADisplayConstants.INCIDENT_ID, incidentIds);
+                .and().inArrayAsInteger(SADisplayConstants.INCIDENT_ID, incidentIds);
 
         try {
             return template.queryForList(queryModel.toString(), queryModel.getParameters());
@@ -735,7 +738,7 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
                 .where().equals(SADisplayConstants.INCIDENT_TYPE_ID, incidentTypeId)
                 .and().equals(SADisplayConstants.ACTIVE, !archived)
                 .and().equals(SADisplayConstants.WORKSPACE_ID, workspaceId)
-                .and().inAsInteger(SADisplayConstants.INCIDENT_ID, incidentIds);
+                .and().inArrayAsInteger(SADisplayConstants.INCIDENT_ID, incidentIds);
 
         if(startDate != -1) {
             Timestamp startValue = new Timestamp(startDate);
@@ -771,7 +774,7 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
                 .join(SADisplayConstants.INCIDENT_INCIDENTTYPE_TABLE).using(SADisplayConstants.INCIDENT_ID)
                 .where().equals(SADisplayConstants.ACTIVE, !archived)
                 .and().equals(SADisplayConstants.WORKSPACE_ID, workspaceId)
-                .and().inAsInteger(SADisplayConstants.INCIDENT_ID, incidentIds);
+                .and().inArrayAsInteger(SADisplayConstants.INCIDENT_ID, incidentIds);
 
         if(startDate != -1) {
             Timestamp startValue = new Timestamp(startDate);
@@ -806,7 +809,7 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
                 .join(SADisplayConstants.INCIDENT_INCIDENTTYPE_TABLE).using(SADisplayConstants.INCIDENT_ID)
                 .where().equals(SADisplayConstants.ACTIVE, !archived)
                 .and().equals(SADisplayConstants.WORKSPACE_ID, workspaceId)
-                .and().inAsInteger(SADisplayConstants.INCIDENT_ID, incidentIds);
+                .and().inArrayAsInteger(SADisplayConstants.INCIDENT_ID, incidentIds);
 
         try {
             return template.queryForList(queryModel.toString(), queryModel.getParameters());
@@ -827,7 +830,7 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
                 .left().join(SADisplayConstants.INCIDENT_INCIDENTTYPE_TABLE).using(SADisplayConstants.INCIDENT_ID)
                 .left().join(SADisplayConstants.INCIDENT_TYPE_TABLE).using(SADisplayConstants.INCIDENT_TYPE_ID)
                 .where().equals(SADisplayConstants.ACTIVE)
-                .and().equals(SADisplayConstants.WORKSPACE_ID).and().isNull(SADisplayConstants.PARENT_INCIDENT_ID)
+                .and().equals(SADisplayConstants.WORKSPACE_ID)
                 .orderBy(SADisplayConstants.CREATED).desc();
 
         JoinRowCallbackHandler<Incident> handler = getIncidentHandlerWith(
@@ -835,7 +838,7 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
         template.query(queryModel.toString(),
                 new MapSqlParameterSource(SADisplayConstants.ACTIVE, true)
                         .addValue(SADisplayConstants.WORKSPACE_ID, workspaceId), handler);
-        return getIncidentsTree(workspaceId, handler.getResults());
+        return buildIncidentsTree(handler.getResults());
     }
 
     public List<Incident> getIncidentsTreeRestricted(int workspaceId, List<Integer> orgIds) {
@@ -844,7 +847,7 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
                 .left().join(SADisplayConstants.INCIDENT_INCIDENTTYPE_TABLE).using(SADisplayConstants.INCIDENT_ID)
                 .left().join(SADisplayConstants.INCIDENT_TYPE_TABLE).using(SADisplayConstants.INCIDENT_TYPE_ID)
                 .where().equals(SADisplayConstants.ACTIVE)
-                .and().equals(SADisplayConstants.WORKSPACE_ID).and().isNull(SADisplayConstants.PARENT_INCIDENT_ID)
+                .and().equals(SADisplayConstants.WORKSPACE_ID)
                 .and().notIn(SADisplayConstants.INCIDENT_ID, getExcludedIncidentIdQuery(orgIds))
                 .orderBy(SADisplayConstants.CREATED).desc();
 
@@ -853,7 +856,7 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
         template.query(queryModel.toString(),
                 new MapSqlParameterSource(SADisplayConstants.ACTIVE, true)
                         .addValue(SADisplayConstants.WORKSPACE_ID, workspaceId), handler);
-        return getIncidentsTreeRestricted(workspaceId, handler.getResults(), orgIds);
+        return buildIncidentsTree(handler.getResults());
     }
 
     /**
@@ -919,13 +922,12 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
     public List<Incident> getIncidentsByName(List<String> names, int workspaceid) {
         QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.INCIDENT_TABLE)
                 .selectAllFromTableWhere()
-                .inAsString(SADisplayConstants.INCIDENT_NAME, names)
-                .and().equals(SADisplayConstants.WORKSPACE_ID);
+                .inArrayAsString(SADisplayConstants.INCIDENT_NAME, names)
+                .and().equals(SADisplayConstants.WORKSPACE_ID, workspaceid);
 
         JoinRowCallbackHandler<Incident> handler = getIncidentHandlerWith(
                 new Incident_IncidentTypeRowMapper().attachAdditionalMapper(new IncidentTypeRowMapper()));
-        template.query(queryModel.toString(),
-                new MapSqlParameterSource(SADisplayConstants.WORKSPACE_ID, workspaceid), handler);
+        template.query(queryModel.toString(), queryModel.getParameters(), handler);
         return handler.getResults();
 
     }
@@ -967,11 +969,12 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
     public void updateIncidentFolder(List<String> incidentNames, String folder, int workspaceid) {
         QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.INCIDENT_TABLE)
                 .update().equals(SADisplayConstants.FOLDER).where()
-                .inAsString(SADisplayConstants.INCIDENT_NAME, incidentNames)
+                .inArrayAsString(SADisplayConstants.INCIDENT_NAME, incidentNames)
                 .and().equals(SADisplayConstants.WORKSPACE_ID);
 
         this.template.update(queryModel.toString(),
-                new MapSqlParameterSource(SADisplayConstants.FOLDER, folder)
+                new MapSqlParameterSource(queryModel.getParameters())
+                        .addValue(SADisplayConstants.FOLDER, folder)
                         .addValue(SADisplayConstants.WORKSPACE_ID, workspaceid));
     }
 
@@ -979,7 +982,7 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
     public List<String> getChildIncidentNames(List<String> incidentNames, int workspaceid) {
         QueryModel incidentQuery = QueryManager.createQuery(SADisplayConstants.INCIDENT_TABLE)
                 .selectFromTableWhere(SADisplayConstants.INCIDENT_ID)
-                .inAsString(SADisplayConstants.INCIDENT_NAME, incidentNames)
+                .inArrayAsString(SADisplayConstants.INCIDENT_NAME, incidentNames)
                 .and().equals(SADisplayConstants.WORKSPACE_ID);
 
         QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.INCIDENT_TABLE)
@@ -987,14 +990,15 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
                 .inAsSQL(SADisplayConstants.PARENT_INCIDENT_ID, incidentQuery.toString());
 
         return this.template.queryForList(queryModel.toString(),
-                new MapSqlParameterSource(SADisplayConstants.WORKSPACE_ID, workspaceid), String.class);
+                new MapSqlParameterSource(incidentQuery.getParameters())
+                        .addValue(SADisplayConstants.WORKSPACE_ID, workspaceid), String.class);
     }
 
     @Deprecated
     public List<String> getParentIncidentNames(List<String> incidentNames, int workspaceid) {
         QueryModel incidentQuery = QueryManager.createQuery(SADisplayConstants.INCIDENT_TABLE)
                 .selectFromTableWhere(SADisplayConstants.PARENT_INCIDENT_ID)
-                .inAsString(SADisplayConstants.INCIDENT_NAME, incidentNames)
+                .inArrayAsString(SADisplayConstants.INCIDENT_NAME, incidentNames)
                 .and().equals(SADisplayConstants.WORKSPACE_ID);
 
         QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.INCIDENT_TABLE)
@@ -1002,7 +1006,8 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
                 .inAsSQL(SADisplayConstants.INCIDENT_ID, incidentQuery.toString());
 
         return this.template.queryForList(queryModel.toString(),
-                new MapSqlParameterSource(SADisplayConstants.WORKSPACE_ID, workspaceid), String.class);
+                new MapSqlParameterSource(incidentQuery.getParameters())
+                        .addValue(SADisplayConstants.WORKSPACE_ID, workspaceid), String.class);
     }
 
     public List<Map<String, Object>> getIncidentMapAdmins(int incidentid, String roomname) {
@@ -1145,46 +1150,38 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
     }
 
     /**
-     * getIncidentsTree
+     * Links a flat list of incidents into a tree by parentincidentid, keeping the order of the list at each level.
+     * Incidents whose parent is not in the list are dropped along with their descendants, as they can't be reached
+     * from a top level incident.
      *
-     * @param parents parent incidents
-     * @return Setr<Incident>
+     * @param incidents the incidents, already filtered and ordered
+     * @return the top level incidents, with their children set
      */
-
-    private List<Incident> getIncidentsTree(int workspaceId, List<Incident> parents) {
-
-        List<Incident> incidents = new ArrayList<Incident>();
-
-        for(int i = 0; i < parents.size(); i++) {
-
-            Incident newIncident = parents.get(i);
-
-            QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.INCIDENT_TABLE).selectAllFromTable()
-                    .left().join(SADisplayConstants.INCIDENT_INCIDENTTYPE_TABLE).using(SADisplayConstants.INCIDENT_ID)
-                    .left().join(SADisplayConstants.INCIDENT_TYPE_TABLE).using(SADisplayConstants.INCIDENT_TYPE_ID)
-                    .where().equals(SADisplayConstants.ACTIVE)
-                    .and().equals(SADisplayConstants.WORKSPACE_ID).and().equals(SADisplayConstants.PARENT_INCIDENT_ID)
-                    .orderBy(SADisplayConstants.CREATED).desc();
-
-            JoinRowCallbackHandler<Incident> handler = getIncidentHandlerWith(
-                    new Incident_IncidentTypeRowMapper().attachAdditionalMapper(new IncidentTypeRowMapper()));
-            template.query(queryModel.toString(),
-                    new MapSqlParameterSource(SADisplayConstants.ACTIVE, true)
-                            .addValue(SADisplayConstants.WORKSPACE_ID, workspaceId)
-                            .addValue(SADisplayConstants.PARENT_INCIDENT_ID, parents.get(i).getIncidentid()), handler);
-
-            List<Incident> currentChildren = handler.getResults();
-
-            if(currentChildren.size() > 0) {
-                getIncidentsTree(workspaceId, currentChildren);
-                newIncident.setChildren(currentChildren);
-                newIncident.setLeaf(false);
+    private List<Incident> buildIncidentsTree(List<Incident> incidents) {
+        List<Incident> roots = new ArrayList<Incident>();
+        Map<Integer, List<Incident>> childrenByParent = new HashMap<Integer, List<Incident>>();
+
+        for(Incident incident : incidents) {
+            Integer parentId = incident.getParentincidentid();
+            if(parentId == null || parentId == 0) {
+                roots.add(incident);
+            } else {
+                childrenByParent.computeIfAbsent(parentId, id -> new ArrayList<Incident>()).add(incident);
             }
+        }
 
-            incidents.add(newIncident);
+        Deque<Incident> pending = new ArrayDeque<Incident>(roots);
+        while(!pending.isEmpty()) {
+            Incident parent = pending.pop();
+            List<Incident> children = childrenByParent.get(parent.getIncidentid());
+            if(children != null) {
+                parent.setChildren(children);
+                parent.setLeaf(false);
+                pending.addAll(children);
+            }
         }
 
-        return incidents;
+        return roots;
     }
 
     /**
@@ -1209,43 +1206,6 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
         return excludeIdQuery.toString();
     }
 
-    private List<Incident> getIncidentsTreeRestricted(int workspaceId, List<Incident> parents, List<Integer> orgIds) {
-
-        List<Incident> incidents = new ArrayList<Incident>();
-
-        for(int i = 0; i < parents.size(); i++) {
-
-            Incident newIncident = parents.get(i);
-
-            QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.INCIDENT_TABLE).selectAllFromTable()
-                    .left().join(SADisplayConstants.INCIDENT_INCIDENTTYPE_TABLE).using(SADisplayConstants.INCIDENT_ID)
-                    .left().join(SADisplayConstants.INCIDENT_TYPE_TABLE).using(SADisplayConstants.INCIDENT_TYPE_ID)
-                    .where().equals(SADisplayConstants.ACTIVE)
-                    .and().equals(SADisplayConstants.WORKSPACE_ID).and().equals(SADisplayConstants.PARENT_INCIDENT_ID)
-                    .and().notIn(SADisplayConstants.INCIDENT_ID, getExcludedIncidentIdQuery(orgIds))
-                    .orderBy(SADisplayConstants.CREATED).desc();
-
-            JoinRowCallbackHandler<Incident> handler = getIncidentHandlerWith(
-                    new Incident_IncidentTypeRowMapper().attachAdditionalMapper(new IncidentTypeRowMapper()));
-            template.query(queryModel.toString(),
-                    new MapSqlParameterSource(SADisplayConstants.ACTIVE, true)
-                            .addValue(SADisplayConstants.WORKSPACE_ID, workspaceId)
-                            .addValue(SADisplayConstants.PARENT_INCIDENT_ID, parents.get(i).getIncidentid()), handler);
-
-            List<Incident> currentChildren = handler.getResults();
-
-            if(currentChildren.size() > 0) {
-                getIncidentsTreeRestricted(workspaceId, currentChildren, orgIds);
-                newIncident.setChildren(currentChildren);
-                newIncident.setLeaf(false);
-            }
-
-            incidents.add(newIncident);
-        }
-
-        return incidents;
-    }
-
     @Override
     public List<Integer> getIncidentOrgIds(Integer incidentId) {
         QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.INCIDENT_ORG_TABLE)
@@ -1515,12 +1475,13 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
 
         QueryModel model = QueryManager.createQuery(SADisplayConstants.INCIDENT_ORG_TABLE)
                 .deleteFromTableWhere().equals(SADisplayConstants.INCIDENT_ID).and()
-                .inAsInteger(SADisplayConstants.ORG_ID, orgIds);
+                .inArrayAsInteger(SADisplayConstants.ORG_ID, orgIds);
 
         LOG.trace("removeIncidentOrgs: {}", model.toString());
 
         int result = this.template.update(model.toString(),
-                new MapSqlParameterSource(SADisplayConstants.INCIDENT_ID, incidentId));
+                new MapSqlParameterSource(model.getParameters())
+                        .addValue(SADisplayConstants.INCIDENT_ID, incidentId));
 
         LOG.debug("User {} deleted {} incidentOrgs from IncidentId {}", userId, result, incidentId);
 
@@ -1714,10 +1675,10 @@ public class IncidentDAOImpl extends GenericDAO implements IncidentDAO {
     public int deleteIncidentTypeReportTypes(int workspaceId, int incidentTypeId, List<Integer> formTypeIds) {
         QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.INCIDENTTYPE_FORMTYPE_TABLE)
                 .deleteFromTableWhere().equals(SADisplayConstants.INCIDENT_TYPE_ID)
-                .and().inAsInteger(SADisplayConstants.FORM_TYPE_ID, formTypeIds);
+                .and().inArrayAsInteger(SADisplayConstants.FORM_TYPE_ID, formTypeIds);
 
-        MapSqlParameterSource params = new MapSqlParameterSource(SADisplayConstants.INCIDENT_TYPE_ID,
-                incidentTypeId);
+        MapSqlParameterSource params = new MapSqlParameterSource(queryModel.getParameters())
+                .addValue(SADisplayConstants.INCIDENT_TYPE_ID, incidentTypeId);
 
         LOG.debug("Query to delete formTypeIds specified that are mapped to incidenttypeid: ", queryModel.toString());
         int affected = this.template.update(queryModel.toString(), params);
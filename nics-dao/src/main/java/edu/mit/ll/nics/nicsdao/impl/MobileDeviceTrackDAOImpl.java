@@ -40,7 +40,10 @@ import edu.mit.ll.nics.nicsdao.QueryManager;
 import edu.mit.ll.nics.nicsdao.exceptions.InvalidMobileDeviceTrackingException;
 import edu.mit.ll.nics.nicsdao.mappers.MobileDeviceTrackRowMapper;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import javax.sql.DataSource;
 import org.postgis.PGgeometry;
@@ -50,6 +53,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 
 /**
  * DAO For interacting with MobileDeviceTrack data
@@ -83,10 +87,12 @@ public class MobileDeviceTrackDAOImpl extends GenericDAO implements MobileDevice
             SADisplayConstants.MDT_LOCATION, SRC_SRID, SADisplayConstants.MDT_LOCATION);
 
     /**
-     * WellKnownText for insert/update on location with transform
+     * Location for insert/update, built from the bound longitude, latitude and altitude parameters and transformed
+     * to MDT_SRID. Binding the coordinates keeps the statement text the same for every ping.
      */
-    private static final String INSERT_LOCATION_TRANSFORM_TEMPLATE =
-            "ST_Transform(ST_GeomFromText('POINT(%s %s %s)', %s), %s)";
+    private static final String BOUND_LOCATION_TRANSFORM = String.format(
+            "ST_Transform(ST_SetSRID(ST_MakePoint(:%s, :%s, :%s), %s), %s)", SADisplayConstants.LONGITUDE,
+            SADisplayConstants.LATITUDE, SADisplayConstants.MDT_ALTITUDE, SRC_SRID, MDT_SRID);
 
     /**
      * List of ALL the fields, to be used when querying for a full MDT. Also includes location processing that the
@@ -116,6 +122,16 @@ public class MobileDeviceTrackDAOImpl extends GenericDAO implements MobileDevice
             SADisplayConstants.MDT_EXTENDEDDATA, SADisplayConstants.MDT_TIMESTAMP, SADisplayConstants.LOCATION,
             SADisplayConstants.MDT_NAME);
 
+    /**
+     * Inserts a track, or overwrites the updateFields of the existing track for the same deviceid, username and
+     * workspaceid, in a single atomic statement
+     */
+    private static final String UPSERT_SQL = QueryManager.createQuery(SADisplayConstants.MDT_TABLE)
+            .insertInto(insertAllFields)
+            .onConflict(SADisplayConstants.MDT_DEVICEID, SADisplayConstants.USER_NAME, SADisplayConstants.WORKSPACE_ID)
+            .doUpdateExcluded(updateFields)
+            .toString().replace(":" + SADisplayConstants.LOCATION, BOUND_LOCATION_TRANSFORM);
+
     /**
      * JdbcTemplate
      */
@@ -146,6 +162,11 @@ public class MobileDeviceTrackDAOImpl extends GenericDAO implements MobileDevice
     @Override
     public boolean insertOrUpdate(MobileDeviceTrack mobileDeviceTrack) throws DataAccessException {
 
+        if(mobileDeviceTrack.getWorkspaceId() != null) {
+            return upsert(mobileDeviceTrack);
+        }
+
+        // NULLs never conflict in a unique index, so tracks without a workspace can't use the upsert
         MobileDeviceTrack currentTrack = getCurrentTrack(mobileDeviceTrack);
         if(currentTrack == null) {
             return insert(mobileDeviceTrack);
@@ -156,6 +177,47 @@ public class MobileDeviceTrackDAOImpl extends GenericDAO implements MobileDevice
         }
     }
 
+    @Override
+    public int insertOrUpdate(Collection<MobileDeviceTrack> mobileDeviceTracks) throws DataAccessException {
+        int persisted = 0;
+
+        List<SqlParameterSource> batch = new ArrayList<>(mobileDeviceTracks.size());
+        for(MobileDeviceTrack mobileDeviceTrack : mobileDeviceTracks) {
+            if(mobileDeviceTrack.getWorkspaceId() != null) {
+                batch.add(getTrackParams(mobileDeviceTrack));
+            } else if(insertOrUpdate(mobileDeviceTrack)) {
+                persisted++;
+            }
+        }
+
+        if(!batch.isEmpty()) {
+            int[] results = template.batchUpdate(UPSERT_SQL, batch.toArray(new SqlParameterSource[0]));
+            for(int result : results) {
+                if(result == 1 || result == Statement.SUCCESS_NO_INFO) {
+                    persisted++;
+                }
+            }
+        }
+
+        LOG.debug("Persisted {} of {} tracks", persisted, mobileDeviceTracks.size());
+
+        return persisted;
+    }
+
+    /**
+     * Internal method for performing an INSERT ... ON CONFLICT DO UPDATE on the deviceid, username and workspaceid
+     * of the track. Only to be called by {@link MobileDeviceTrackDAOImpl#insertOrUpdate(MobileDeviceTrack)}
+     *
+     * @param mobileDeviceTrack the {@link MobileDeviceTrack} to insert or update, must have a workspaceId
+     * @return true if a row was inserted or updated, false otherwise
+     *
+     * @throws DataAccessException when there's an issue upserting
+     */
+    private boolean upsert(MobileDeviceTrack mobileDeviceTrack) throws DataAccessException {
+        int result = template.update(UPSERT_SQL, getTrackParams(mobileDeviceTrack));
+
+        return result == 1;
+    }
 
     /**
      * Internal method for performing Insert. Only to be called by
@@ -171,26 +233,10 @@ public class MobileDeviceTrackDAOImpl extends GenericDAO implements MobileDevice
         QueryModel query = QueryManager.createQuery(SADisplayConstants.MDT_TABLE)
                 .insertInto(insertAllFields);
 
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue(SADisplayConstants.MDT_DEVICEID, mobileDeviceTrack.getDeviceId());
-        params.addValue(SADisplayConstants.USER_NAME, mobileDeviceTrack.getUsername());
-        params.addValue(SADisplayConstants.MDT_NAME, mobileDeviceTrack.getName());
-        params.addValue(SADisplayConstants.DESCRIPTION, mobileDeviceTrack.getDescription());
-        params.addValue(SADisplayConstants.MDT_COURSE, mobileDeviceTrack.getCourse());
-        params.addValue(SADisplayConstants.MDT_SPEED, mobileDeviceTrack.getSpeed());
-        params.addValue(SADisplayConstants.MDT_ACCURACY, mobileDeviceTrack.getAccuracy());
-        params.addValue(SADisplayConstants.MDT_EXTENDEDDATA, mobileDeviceTrack.getExtendeddata());
-        params.addValue(SADisplayConstants.MDT_TIMESTAMP, mobileDeviceTrack.getTimestamp());
-        params.addValue(SADisplayConstants.WORKSPACE_ID, mobileDeviceTrack.getWorkspaceId());
-
-        String queryWithLocation = query.toString();
-        queryWithLocation = queryWithLocation.replace(":location",
-                String.format(INSERT_LOCATION_TRANSFORM_TEMPLATE, mobileDeviceTrack.getLongitude(),
-                        mobileDeviceTrack.getLatitude(),
-                        (mobileDeviceTrack.getAltitude() == null) ? 0.0 : mobileDeviceTrack.getAltitude(),
-                        SRC_SRID, MDT_SRID));
+        String queryWithLocation = query.toString()
+                .replace(":" + SADisplayConstants.LOCATION, BOUND_LOCATION_TRANSFORM);
 
-        int result = template.update(queryWithLocation, params);
+        int result = template.update(queryWithLocation, getTrackParams(mobileDeviceTrack));
 
         return result == 1;
     }
@@ -209,25 +255,40 @@ public class MobileDeviceTrackDAOImpl extends GenericDAO implements MobileDevice
         QueryModel query = QueryManager.createQuery(SADisplayConstants.MDT_TABLE)
                 .update(updateFields).where().equals(SADisplayConstants.MDT_ID);
 
-        MapSqlParameterSource params = new MapSqlParameterSource();
+        MapSqlParameterSource params = getTrackParams(mobileDeviceTrack);
         params.addValue(SADisplayConstants.MDT_ID, mobileDeviceTrack.getMobileDeviceTrackId());
+
+        String tformQuery = query.toString()
+                .replace(":" + SADisplayConstants.LOCATION, BOUND_LOCATION_TRANSFORM);
+
+        int result = template.update(tformQuery, params);
+
+        return result == 1;
+    }
+
+    /**
+     * Builds the parameters for writing a track, including the coordinates used by BOUND_LOCATION_TRANSFORM
+     *
+     * @param mobileDeviceTrack the track being written
+     * @return the named parameters for an insert, update or upsert of the track
+     */
+    private MapSqlParameterSource getTrackParams(MobileDeviceTrack mobileDeviceTrack) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue(SADisplayConstants.MDT_DEVICEID, mobileDeviceTrack.getDeviceId());
+        params.addValue(SADisplayConstants.USER_NAME, mobileDeviceTrack.getUsername());
+        params.addValue(SADisplayConstants.MDT_NAME, mobileDeviceTrack.getName());
         params.addValue(SADisplayConstants.DESCRIPTION, mobileDeviceTrack.getDescription());
         params.addValue(SADisplayConstants.MDT_COURSE, mobileDeviceTrack.getCourse());
         params.addValue(SADisplayConstants.MDT_SPEED, mobileDeviceTrack.getSpeed());
         params.addValue(SADisplayConstants.MDT_ACCURACY, mobileDeviceTrack.getAccuracy());
         params.addValue(SADisplayConstants.MDT_EXTENDEDDATA, mobileDeviceTrack.getExtendeddata());
         params.addValue(SADisplayConstants.MDT_TIMESTAMP, mobileDeviceTrack.getTimestamp());
-        params.addValue(SADisplayConstants.MDT_NAME, mobileDeviceTrack.getName());
-
-        String tformQuery = query.toString();
-        tformQuery = tformQuery.replace(":location", String.format(INSERT_LOCATION_TRANSFORM_TEMPLATE,
-                mobileDeviceTrack.getLongitude(), mobileDeviceTrack.getLatitude(),
-                (mobileDeviceTrack.getAltitude() == null) ? 0.0 : mobileDeviceTrack.getAltitude(),
-                SRC_SRID, MDT_SRID));
-
-        int result = template.update(tformQuery, params);
-
-        return result == 1;
+        params.addValue(SADisplayConstants.WORKSPACE_ID, mobileDeviceTrack.getWorkspaceId());
+        params.addValue(SADisplayConstants.LONGITUDE, mobileDeviceTrack.getLongitude());
+        params.addValue(SADisplayConstants.LATITUDE, mobileDeviceTrack.getLatitude());
+        params.addValue(SADisplayConstants.MDT_ALTITUDE,
+                (mobileDeviceTrack.getAltitude() == null) ? 0.0 : mobileDeviceTrack.getAltitude());
+        return params;
     }
 
     /**
@@ -44,6 +44,7 @@ import edu.mit.ll.nics.common.entity.OrgOrgType;
 import edu.mit.ll.nics.common.entity.OrgType;
 import edu.mit.ll.nics.nicsdao.GenericDAO;
 import edu.mit.ll.nics.nicsdao.OrgDAO;
+import edu.mit.ll.nics.nicsdao.OrgHierarchy;
 import edu.mit.ll.nics.nicsdao.QueryManager;
 import edu.mit.ll.nics.nicsdao.mappers.CapRowMapper;
 import edu.mit.ll.nics.nicsdao.mappers.IncidentTypeRowMapper;
@@ -74,6 +75,8 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
 
     private NamedParameterJdbcTemplate template;
 
+    private OrgHierarchy hierarchy;
+
     private String ADMIN_ID = "adminsystemroleid";
     private String SUPER_ID = "supersystemroleid";
 
@@ -81,6 +84,7 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
     public void initialize() {
         log = LoggerFactory.getLogger(OrgDAOImpl.class);
         this.template = new NamedParameterJdbcTemplate(datasource);
+        this.hierarchy = OrgHierarchy.forDataSource(datasource);
     }
 
     /**
@@ -154,11 +158,10 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
         // Incident IDs that are locked down, minus any from above they have explicit permission on
         QueryModel query = QueryManager.createQuery(SADisplayConstants.ORG_TABLE)
                 .selectDistinctFromTable(SADisplayConstants.ORG_ID).where()
-                .inAsInteger(SADisplayConstants.PARENT_ORG_ID, orgIds);
+                .inArrayAsInteger(SADisplayConstants.PARENT_ORG_ID, orgIds);
         //orgid not in (orglist) ? so it won't return duplicates?
 
-        return this.template.queryForList(query.toString(),
-                (new HashMap<String, Object>()), Integer.class);
+        return this.template.queryForList(query.toString(), query.getParameters(), Integer.class);
     }
 
     /**
@@ -171,12 +174,12 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
         // Incident IDs that are locked down, minus any from above they have explicit permission on
         QueryModel query = QueryManager.createQuery(SADisplayConstants.ORG_TABLE)
                 .selectDistinctFromTable(SADisplayConstants.PARENT_ORG_ID).where()
-                .inAsInteger(SADisplayConstants.ORG_ID, orgIds)
+                .inArrayAsInteger(SADisplayConstants.ORG_ID, orgIds)
                 .and().isNotNull(SADisplayConstants.PARENT_ORG_ID)
                 .and().notEqual(SADisplayConstants.PARENT_ORG_ID);
         //orgid not in (orglist) ? so it won't return duplicates?
 
-        MapSqlParameterSource map = new MapSqlParameterSource();
+        MapSqlParameterSource map = new MapSqlParameterSource(query.getParameters());
         map.addValue(SADisplayConstants.PARENT_ORG_ID, 0);
 
         return this.template.queryForList(query.toString(),
@@ -188,48 +191,10 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
      * getAllChildren
      *
      * @param orgIds
-     * @return List<Integer> Recursively search for all children
+     * @return List<Integer> All descendants of these orgs, resolved from the cached {@link OrgHierarchy}
      */
     public List<Integer> getAllChildren(List<Integer> orgIds) {
-        if(orgIds == null || orgIds.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        //Find all of the children that the user has access to...
-        //ids is set to the first level of children for these orgs
-        List<Integer> ids = this.getChildOrgIds(orgIds);
-
-        //Keep track of children until there are no more returned
-        List<Integer> childIds = new ArrayList<>();
-
-        //Array of children to return
-        List<Integer> foundChildren = new ArrayList<>();
-
-        if(ids != null) {
-            while(ids != null && ids.size() != 0) {
-                childIds.clear();
-                for(int id : ids) {
-                    //Make sure we haven't already searched on the id
-                    if(!orgIds.contains(id) &&
-                            !foundChildren.contains(id)) {
-                        //Add to the list of orgs
-                        foundChildren.add(id);
-
-                        //Search for children
-                        childIds.add(id);
-                    }
-                }
-                //Search for children in the new list
-                if(childIds.size() > 0) {
-                    ids = this.getChildOrgIds(childIds);
-                } else {
-                    //Done searching
-                    ids.clear();
-                }
-            }
-        }
-        //returns a list of all original orgIds plus children
-        return foundChildren;
+        return hierarchy.getDescendants(orgIds);
     }
 
     /**
@@ -248,9 +213,9 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
 
             QueryModel query = QueryManager.createQuery(SADisplayConstants.ORG_TABLE)
                     .selectAllFromTableWhere()
-                    .inAsInteger(SADisplayConstants.ORG_ID, childOrgIds);
+                    .inArrayAsInteger(SADisplayConstants.ORG_ID, childOrgIds);
 
-            MapSqlParameterSource map = new MapSqlParameterSource();
+            MapSqlParameterSource map = new MapSqlParameterSource(query.getParameters());
             JoinRowCallbackHandler<Org> handler = getHandlerWith();
 
             this.template.query(query.toString(), map, handler);
@@ -264,41 +229,10 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
      * getAllParents
      *
      * @param orgIds
-     * @return List<Integer> Recursively search for all children
+     * @return List<Integer> All ancestors of these orgs, resolved from the cached {@link OrgHierarchy}
      */
     public List<Integer> getAllParents(List<Integer> orgIds) {
-        //Find all of the parents that the in this list of orgs
-        List<Integer> ids = this.getParentOrgIds(orgIds);
-
-        //Keep track of parents until there are no more returned
-        List<Integer> parentIds = new ArrayList<>();
-
-        //Array of parents to return
-        List<Integer> foundParents = new ArrayList<>();
-
-        while(ids.size() != 0) {
-            parentIds.clear();
-            for(int id : ids) {
-                //Make sure we haven't already searched on the id
-                if(!orgIds.contains(id) &&
-                        !foundParents.contains(id)) {
-                    //Add to the list of orgs
-                    foundParents.add(id);
-
-                    //Search for parents
-                    parentIds.add(id);
-                }
-            }
-            //Search for children in the new list
-            if(parentIds.size() > 0) {
-                ids = this.getParentOrgIds(parentIds);
-            } else {
-                //Done searching
-                ids.clear();
-            }
-        }
-        //returns a list of all original orgIds plus children
-        return foundParents;
+        return hierarchy.getAncestors(orgIds);
     }
 
     /**
@@ -390,12 +324,12 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
                 .join(SADisplayConstants.USER_ORG_TABLE).using(SADisplayConstants.ORG_ID)
                 .join(SADisplayConstants.USER_ORG_WORKSPACE_TABLE).using(SADisplayConstants.USER_ORG_ID)
                 .join(SADisplayConstants.ORG_ORGTYPE_TABLE).using(SADisplayConstants.ORG_ID)
-                .where().inAsInteger(SADisplayConstants.ORG_ID, orgIds)
+                .where().inArrayAsInteger(SADisplayConstants.ORG_ID, orgIds)
                 .orderBy(SADisplayConstants.ORG_NAME);
 
         JoinRowCallbackHandler<Org> handler = getHandlerWith(new UserOrgRowMapper(), new OrgOrgTypeRowMapper());
         template.query(queryModel.toString(),
-                new MapSqlParameterSource(),
+                queryModel.getParameters(),
                 handler);
         return handler.getResults();
     }
@@ -465,9 +399,11 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
         QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.ORG_ORGTYPE_TABLE)
                 .deleteFromTableWhere().equals(SADisplayConstants.ORG_ID).and().equals(SADisplayConstants.ORG_TYPE_ID);
 
-        return this.template.update(queryModel.toString(),
+        int removed = this.template.update(queryModel.toString(),
                 new MapSqlParameterSource(SADisplayConstants.ORG_TYPE_ID, orgTypeId)
                         .addValue(SADisplayConstants.ORG_ID, orgId));
+        hierarchy.invalidate();
+        return removed;
     }
 
     @Override
@@ -520,11 +456,11 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
         //Search for Orgs associated with Org Types
         QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.ORG_TABLE)
                 .selectAllFromTable().join(SADisplayConstants.ORG_ORGTYPE_TABLE).using(SADisplayConstants.ORG_ID)
-                .where().inAsInteger(SADisplayConstants.ORG_ID, orgIds)
+                .where().inArrayAsInteger(SADisplayConstants.ORG_ID, orgIds)
                 .orderBy(SADisplayConstants.ORG_NAME);
 
         JoinRowCallbackHandler<Org> handler = getHandlerWith(new OrgOrgTypeRowMapper());
-        this.template.query(queryModel.toString(), new MapSqlParameterSource(), handler);
+        this.template.query(queryModel.toString(), queryModel.getParameters(), handler);
 
         orgs.addAll(handler.getResults());
 
@@ -534,9 +470,9 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
                 .selectAllFromTable().where().notIn(SADisplayConstants.ORG_ID,
                         QueryManager.createQuery(SADisplayConstants.ORG_ORGTYPE_TABLE)
                                 .selectFromTable(SADisplayConstants.ORG_ID).toString())
-                .and().inAsInteger(SADisplayConstants.ORG_ID, orgIds);
+                .and().inArrayAsInteger(SADisplayConstants.ORG_ID, orgIds);
 
-        this.template.query(allOrgQuery.toString(), new MapSqlParameterSource(), allOrgsHandler);
+        this.template.query(allOrgQuery.toString(), allOrgQuery.getParameters(), allOrgsHandler);
 
         orgs.addAll(allOrgsHandler.getResults());
 
@@ -945,6 +881,8 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
             } catch(Exception e) {
                 throw new Exception("Error updating the org with id: " +
                         org.getOrgId() + ": " + e.getMessage());
+            } finally {
+                hierarchy.invalidate();
             }
 
             return org.getOrgId();
@@ -969,6 +907,7 @@ public class OrgDAOImpl extends GenericDAO implements OrgDAO {
                 //this.template.update(model.toString(), new BeanPropertySqlParameterSource(org));
                 int orgId = this.template.queryForObject(model.toString(), new BeanPropertySqlParameterSource(org),
                         Integer.class);
+                hierarchy.invalidate();
 
                 if(orgId <= 0) {
                     log.warn("Inserted org returned an invalid orgId: {}", orgId);
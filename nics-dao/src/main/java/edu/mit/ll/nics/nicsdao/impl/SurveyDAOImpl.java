@@ -31,6 +31,7 @@ package edu.mit.ll.nics.nicsdao.impl;
 
 import edu.mit.ll.dao.QueryModel;
 import edu.mit.ll.jdbc.JoinRowCallbackHandler;
+import edu.mit.ll.jdbc.StreamingJoinRowCallbackHandler;
 
 import edu.mit.ll.nics.common.constants.SADisplayConstants;
 import edu.mit.ll.nics.common.entity.Survey;
@@ -50,6 +51,7 @@ import java.sql.Timestamp;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.function.Consumer;
 
 import javax.sql.DataSource;
 import org.postgresql.util.PGobject;
@@ -350,6 +352,20 @@ public class SurveyDAOImpl extends GenericDAO implements SurveyDAO {
         return null;
     }
 
+    @Override
+    public int streamSurveyResults(Consumer<SurveyResult> consumer) {
+        QueryModel query = QueryManager.createQuery(SADisplayConstants.SURVEYRESULT_SURVEYRESULT).selectAllFromTable();
+
+        try {
+            return queryStreaming(query.toString(), new MapSqlParameterSource(),
+                    new StreamingJoinRowCallbackHandler<>(consumer, new SurveyResultRowMapper()));
+        } catch(Exception e) {
+            LOG.error("Exception streaming surveyresults", e);
+        }
+
+        return -1;
+    }
+
     @Override
     public List<SurveyResult> getSurveyResultsForSurvey(int surveyId) {
         if(surveyId <= 0) {
@@ -29,6 +29,7 @@
  */
 package edu.mit.ll.nics.nicsdao.impl;
 
+import edu.mit.ll.dao.CompiledQuery;
 import edu.mit.ll.dao.QueryModel;
 import edu.mit.ll.jdbc.JoinRowCallbackHandler;
 import edu.mit.ll.jdbc.JoinRowMapper;
@@ -44,9 +45,7 @@ import edu.mit.ll.nics.nicsdao.mappers.UsersessionRowMapper;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,6 +57,55 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 public class UserSessionDAOImpl extends GenericDAO implements UserSessionDAO {
 
+    private static final CompiledQuery REMOVE_CURRENT_USER_SESSION = QueryManager
+            .createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
+            .deleteFromTableWhere().equals(SADisplayConstants.USER_ID).compile();
+
+    private static final CompiledQuery GET_USER_ID_BY_SESSION_ID = QueryManager
+            .createQuery(SADisplayConstants.USER_ESCAPED)
+            .selectFromTable(SADisplayConstants.USER_ID)
+            .join(SADisplayConstants.USER_ORG_TABLE).using(SADisplayConstants.USER_ID)
+            .join(SADisplayConstants.USERSESSION_TABLE).using(SADisplayConstants.USER_ORG_ID)
+            .where().equals(SADisplayConstants.SESSION_ID).compile();
+
+    private static final CompiledQuery GET_WORKSPACE_ID = QueryManager
+            .createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
+            .selectFromTable(SADisplayConstants.WORKSPACE_ID)
+            .where().equals(SADisplayConstants.USERSESSION_ID).compile();
+
+    private static final CompiledQuery GET_USERSESSION_ID_BY_USER_NAME = QueryManager
+            .createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
+            .selectFromTable(SADisplayConstants.USERSESSION_ID)
+            .join(SADisplayConstants.USER_ESCAPED).using(SADisplayConstants.USER_ID)
+            .where().equals(SADisplayConstants.USER_NAME).compile();
+
+    private static final CompiledQuery GET_CURRENT_USERSESSION_ID = QueryManager
+            .createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
+            .selectFromTable(SADisplayConstants.CURRENT_USERSESSION_ID)
+            .where().equals(SADisplayConstants.USER_ID).compile();
+
+    private static final CompiledQuery GET_ALL_CURRENT_SESSIONS = QueryManager
+            .createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
+            .selectAllFromTable()
+            .join(SADisplayConstants.USER_ESCAPED).using(SADisplayConstants.USER_ID)
+            .where().equals(SADisplayConstants.WORKSPACE_ID).compile();
+
+    private static final CompiledQuery HAS_CURRENT_USER_SESSION = QueryManager
+            .createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
+            .selectAllFromTable()
+            .join(SADisplayConstants.USER_SESSION_TABLE).using(SADisplayConstants.USERSESSION_ID)
+            .where().equals(SADisplayConstants.WORKSPACE_ID)
+            .and().equals(SADisplayConstants.USER_ORG_ID)
+            .and().equals(SADisplayConstants.SESSION_ID).compile();
+
+    private static final CompiledQuery UPDATE_LAST_SEEN = QueryManager
+            .createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
+            .update(SADisplayConstants.LAST_SEEN).now().where().equals(SADisplayConstants.USER_ID).compile();
+
+    private static final CompiledQuery GET_USER_SESSION = QueryManager
+            .createQuery(SADisplayConstants.USERSESSION_TABLE)
+            .selectAllFromTable().where().equals(SADisplayConstants.USERSESSION_ID).compile();
+
     private Logger log;
 
     private NamedParameterJdbcTemplate template;
@@ -126,25 +174,15 @@ public class UserSessionDAOImpl extends GenericDAO implements UserSessionDAO {
     }
 
     public boolean removeCurrentUserSession(int userid) {
-        QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
-                .deleteFromTableWhere().equals(SADisplayConstants.USER_ID);
-
-        Map<String, Object> params = new HashMap<String, Object>();
-        params.put(SADisplayConstants.USER_ID, userid);
-
-        this.template.update(queryModel.toString(), params);
+        REMOVE_CURRENT_USER_SESSION.update(this.template,
+                new MapSqlParameterSource(SADisplayConstants.USER_ID, userid));
 
         return true;
     }
 
     public int getUserId(String sessionId) {
-        QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.USER_ESCAPED)
-                .selectFromTable(SADisplayConstants.USER_ID)
-                .join(SADisplayConstants.USER_ORG_TABLE).using(SADisplayConstants.USER_ID)
-                .join(SADisplayConstants.USERSESSION_TABLE).using(SADisplayConstants.USER_ORG_ID)
-                .where().equals(SADisplayConstants.SESSION_ID);
         try {
-            return this.template.queryForObject(queryModel.toString(),
+            return GET_USER_ID_BY_SESSION_ID.queryForObject(this.template,
                     new MapSqlParameterSource(SADisplayConstants.SESSION_ID, sessionId), Integer.class);
         } catch(Exception e) {
             log.info("Could not find usersession for session id: " + sessionId);
@@ -153,11 +191,8 @@ public class UserSessionDAOImpl extends GenericDAO implements UserSessionDAO {
     }
 
     public int getWorkspaceId(int usersessionid) {
-        QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
-                .selectFromTable(SADisplayConstants.WORKSPACE_ID)
-                .where().equals(SADisplayConstants.USERSESSION_ID);
         try {
-            return this.template.queryForObject(queryModel.toString(),
+            return GET_WORKSPACE_ID.queryForObject(this.template,
                     new MapSqlParameterSource(SADisplayConstants.USERSESSION_ID, usersessionid), Integer.class);
         } catch(Exception e) {
             log.info("Could not get workspaceid for usersessionid #0", usersessionid);
@@ -182,14 +217,8 @@ public class UserSessionDAOImpl extends GenericDAO implements UserSessionDAO {
     }
 
     public int getUserSessionid(String username) {
-        QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
-                .selectFromTable(SADisplayConstants.USERSESSION_ID)
-                .join(SADisplayConstants.USER_ESCAPED).using(SADisplayConstants.USER_ID)
-                .where().equals(SADisplayConstants.USER_NAME);
         try {
-            //return this.template.queryForObject(queryModel.toString(), new MapSqlParameterSource(SADisplayConstants
-            // .USER_NAME, username));
-            return this.template.queryForObject(queryModel.toString(),
+            return GET_USERSESSION_ID_BY_USER_NAME.queryForObject(this.template,
                     new MapSqlParameterSource(SADisplayConstants.USER_NAME, username), Integer.class);
         } catch(Exception e) {
             log.info("Could not get usersessionid for username: " + username);
@@ -216,13 +245,8 @@ public class UserSessionDAOImpl extends GenericDAO implements UserSessionDAO {
     }
 
     public long getCurrentUserSessionid(long userId) {
-        QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
-                .selectFromTable(SADisplayConstants.CURRENT_USERSESSION_ID)
-                .where().equals(SADisplayConstants.USER_ID);
         try {
-            //return this.template.queryForObject(queryModel.toString(), new MapSqlParameterSource(SADisplayConstants
-            // .USER_NAME, username));
-            return this.template.queryForObject(queryModel.toString(),
+            return GET_CURRENT_USERSESSION_ID.queryForObject(this.template,
                     new MapSqlParameterSource(SADisplayConstants.USER_ID, userId), Long.class);
         } catch(Exception e) {
             log.info("Could not get current usersessionid for username: " + userId);
@@ -231,16 +255,10 @@ public class UserSessionDAOImpl extends GenericDAO implements UserSessionDAO {
     }
 
     public List<CurrentUserSession> getAllCurrentSessions(int workspaceid) {
-        QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
-                .selectAllFromTable()
-                .join(SADisplayConstants.USER_ESCAPED).using(SADisplayConstants.USER_ID)
-                .where().equals(SADisplayConstants.WORKSPACE_ID);
-
         JoinRowCallbackHandler<CurrentUserSession> handler = this.getCurrentSessionHandlerWith(new UserRowMapper());
 
-        this.template
-                .query(queryModel.toString(), new MapSqlParameterSource(SADisplayConstants.WORKSPACE_ID, workspaceid),
-                        handler);
+        GET_ALL_CURRENT_SESSIONS.query(this.template,
+                new MapSqlParameterSource(SADisplayConstants.WORKSPACE_ID, workspaceid), handler);
 
         return handler.getResults();
     }
@@ -275,20 +293,13 @@ public class UserSessionDAOImpl extends GenericDAO implements UserSessionDAO {
      * @return The user's CurrentUserSession if it exists, null otherwise
      */
     public CurrentUserSession hasCurrentUserSession(int workspaceId, int userOrgId, String sessionId) {
-        QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
-                .selectAllFromTable()
-                .join(SADisplayConstants.USER_SESSION_TABLE).using(SADisplayConstants.USERSESSION_ID)
-                .where().equals(SADisplayConstants.WORKSPACE_ID)
-                .and().equals(SADisplayConstants.USER_ORG_ID)
-                .and().equals(SADisplayConstants.SESSION_ID);
-
         MapSqlParameterSource map = new MapSqlParameterSource(SADisplayConstants.WORKSPACE_ID, workspaceId)
                 .addValue(SADisplayConstants.USER_ORG_ID, userOrgId)
                 .addValue(SADisplayConstants.SESSION_ID, sessionId);
 
         JoinRowCallbackHandler<CurrentUserSession> handler = getCurrentSessionHandlerWith(new UsersessionRowMapper());
 
-        template.query(queryModel.toString(), map, handler);
+        HAS_CURRENT_USER_SESSION.query(template, map, handler);
 
         return handler.getSingleResult();
     }
@@ -389,10 +400,7 @@ public class UserSessionDAOImpl extends GenericDAO implements UserSessionDAO {
     }
 
     public void updateLastSeen(int userid) {
-        QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.CURRENT_USERSESSION_TABLE)
-                .update(SADisplayConstants.LAST_SEEN).now().where().equals(SADisplayConstants.USER_ID);
-
-        this.template.update(queryModel.toString(), new MapSqlParameterSource(SADisplayConstants.USER_ID, userid));
+        UPDATE_LAST_SEEN.update(this.template, new MapSqlParameterSource(SADisplayConstants.USER_ID, userid));
     	
     	/*em.createQuery("update CurrentUserSession set lastseen=now() where userid=:userid")
 		.setParameter("userid", cUserHome.getCurrentUser().getUserId()).executeUpdate();*/
@@ -411,14 +419,10 @@ public class UserSessionDAOImpl extends GenericDAO implements UserSessionDAO {
     public Usersession getUserSession(long userSessionId) {
         Usersession userSession = null;
 
-        QueryModel queryModel = QueryManager.createQuery(SADisplayConstants.USERSESSION_TABLE)
-                .selectAllFromTable().where().equals(SADisplayConstants.USERSESSION_ID);
-
         JoinRowCallbackHandler<Usersession> handler = getUsersessionHandlerWith();
-        Map<String, Object> map = new HashMap<String, Object>();
-        map.put(SADisplayConstants.USERSESSION_ID, userSessionId);
         try {
-            template.query(queryModel.toString(), map, handler);
+            GET_USER_SESSION.query(template, new MapSqlParameterSource(SADisplayConstants.USERSESSION_ID,
+                    userSessionId), handler);
             userSession = handler.getSingleResult();
         } catch(DataAccessException e) {
             log.error("Exception query for Usersession with id {}", userSessionId, e);
@@ -44,14 +44,14 @@ public class AlertRowMapper extends JoinRowMapper<Alert> {
     @Override
     public Alert createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Alert alert = new Alert();
-        alert.setAlertid(rs.getInt(SADisplayConstants.ALERT_ID));
-        alert.setCreated(rs.getTimestamp(SADisplayConstants.CREATED));
-        alert.setMessage(rs.getString(SADisplayConstants.MESSAGE));
-        alert.setUsername(rs.getString(SADisplayConstants.USER_NAME));
+        alert.setAlertid(rs.getInt(findColumn(rs, SADisplayConstants.ALERT_ID)));
+        alert.setCreated(rs.getTimestamp(findColumn(rs, SADisplayConstants.CREATED)));
+        alert.setMessage(rs.getString(findColumn(rs, SADisplayConstants.MESSAGE)));
+        alert.setUsername(rs.getString(findColumn(rs, SADisplayConstants.USER_NAME)));
         return alert;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.ALERT_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.ALERT_ID));
     }
 }
\ No newline at end of file
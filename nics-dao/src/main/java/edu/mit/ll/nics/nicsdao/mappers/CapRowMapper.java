@@ -45,16 +45,16 @@ public class CapRowMapper extends JoinRowMapper<Cap> {
     public Cap createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Cap cap = new Cap();
 
-        cap.setCapId(rs.getInt(SADisplayConstants.CAP_ID));
-        cap.setName(rs.getString(SADisplayConstants.NAME));
-        cap.setDescription(rs.getString(SADisplayConstants.DESCRIPTION));
+        cap.setCapId(rs.getInt(findColumn(rs, SADisplayConstants.CAP_ID)));
+        cap.setName(rs.getString(findColumn(rs, SADisplayConstants.NAME)));
+        cap.setDescription(rs.getString(findColumn(rs, SADisplayConstants.DESCRIPTION)));
 
         return cap;
     }
 
     @Override
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.CAP_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.CAP_ID));
     }
 
 
@@ -44,16 +44,16 @@ public class ChatRowMapper extends JoinRowMapper<Chat> {
     @Override
     public Chat createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Chat chat = new Chat();
-        chat.setChatid(rs.getLong(SADisplayConstants.CHAT_ID));
-        chat.setCollabroomid(rs.getInt(SADisplayConstants.COLLAB_ROOM_ID));
-        chat.setUserorgid(rs.getInt(SADisplayConstants.USER_ORG_ID));
-        chat.setCreated(rs.getTimestamp(SADisplayConstants.CREATED));
-        chat.setSeqnum(rs.getLong(SADisplayConstants.SEQ_NUM));
-        chat.setMessage(rs.getString(SADisplayConstants.MESSAGE));
+        chat.setChatid(rs.getLong(findColumn(rs, SADisplayConstants.CHAT_ID)));
+        chat.setCollabroomid(rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_ID)));
+        chat.setUserorgid(rs.getInt(findColumn(rs, SADisplayConstants.USER_ORG_ID)));
+        chat.setCreated(rs.getTimestamp(findColumn(rs, SADisplayConstants.CREATED)));
+        chat.setSeqnum(rs.getLong(findColumn(rs, SADisplayConstants.SEQ_NUM)));
+        chat.setMessage(rs.getString(findColumn(rs, SADisplayConstants.MESSAGE)));
         return chat;
     }
 
     public Long getKey(ResultSet rs) throws SQLException {
-        return rs.getLong(SADisplayConstants.CHAT_ID);
+        return rs.getLong(findColumn(rs, SADisplayConstants.CHAT_ID));
     }
 }
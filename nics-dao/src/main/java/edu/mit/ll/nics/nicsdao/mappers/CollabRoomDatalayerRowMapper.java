@@ -43,15 +43,18 @@ public class CollabRoomDatalayerRowMapper extends JoinRowMapper<CollabroomDatala
 
     @Override
     public CollabroomDatalayer createRowObject(ResultSet rs, int rowNum) throws SQLException {
-        int id = rs.getInt(SADisplayConstants.COLLAB_ROOM_DATALAYER_ID);
+        int id = rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_DATALAYER_ID));
         if(id != 0) {
             CollabroomDatalayer collabroomDatalayer = new CollabroomDatalayer();
-            collabroomDatalayer.setCollabroomid(rs.getInt(SADisplayConstants.COLLAB_ROOM_ID));
-            collabroomDatalayer.setCollabroomDatalayerId(rs.getInt(SADisplayConstants.COLLAB_ROOM_DATALAYER_ID));
-            collabroomDatalayer.setDatalayerid(rs.getString(SADisplayConstants.DATALAYER_ID));
-            collabroomDatalayer.setEnablemobile(rs.getBoolean(SADisplayConstants.DATALAYER_MOBILE_ENABLED));
-            collabroomDatalayer.setCollabroomOpacity(rs.getDouble(SADisplayConstants.COLLABROOM_OPACITY));
-            collabroomDatalayer.setHazard(rs.getString(SADisplayConstants.HAZARD));
+            collabroomDatalayer.setCollabroomid(rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_ID)));
+            collabroomDatalayer.setCollabroomDatalayerId(
+                    rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_DATALAYER_ID)));
+            collabroomDatalayer.setDatalayerid(rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_ID)));
+            collabroomDatalayer.setEnablemobile(
+                    rs.getBoolean(findColumn(rs, SADisplayConstants.DATALAYER_MOBILE_ENABLED)));
+            collabroomDatalayer.setCollabroomOpacity(
+                    rs.getDouble(findColumn(rs, SADisplayConstants.COLLABROOM_OPACITY)));
+            collabroomDatalayer.setHazard(rs.getString(findColumn(rs, SADisplayConstants.HAZARD)));
             return collabroomDatalayer;
         }
         return null;
@@ -65,6 +68,6 @@ public class CollabRoomDatalayerRowMapper extends JoinRowMapper<CollabroomDatala
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.COLLAB_ROOM_DATALAYER_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_DATALAYER_ID));
     }
 }
\ No newline at end of file
@@ -44,13 +44,13 @@ public class CollabRoomFeatureRowMapper extends JoinRowMapper<CollabroomFeature>
     @Override
     public CollabroomFeature createRowObject(ResultSet rs, int rowNum) throws SQLException {
         CollabroomFeature collabroom = new CollabroomFeature();
-        collabroom.setCollabroomfeatureid(rs.getInt(SADisplayConstants.COLLAB_ROOM_FEATURE_ID));
-        collabroom.setCollabroomid(rs.getInt(SADisplayConstants.COLLAB_ROOM_ID));
-        collabroom.setFeatureId(rs.getLong(SADisplayConstants.FEATURE_ID));
+        collabroom.setCollabroomfeatureid(rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_FEATURE_ID)));
+        collabroom.setCollabroomid(rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_ID)));
+        collabroom.setFeatureId(rs.getLong(findColumn(rs, SADisplayConstants.FEATURE_ID)));
         return collabroom;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.COLLAB_ROOM_FEATURE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_FEATURE_ID));
     }
 }
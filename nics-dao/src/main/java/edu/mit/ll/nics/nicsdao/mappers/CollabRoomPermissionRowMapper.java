@@ -43,13 +43,14 @@ public class CollabRoomPermissionRowMapper extends JoinRowMapper<CollabroomPermi
 
     @Override
     public CollabroomPermission createRowObject(ResultSet rs, int rowNum) throws SQLException {
-        int id = rs.getInt(SADisplayConstants.COLLAB_ROOM_PERMISSION_ID);
+        int id = rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_PERMISSION_ID));
         if(id != 0) {
             CollabroomPermission permission = new CollabroomPermission();
-            permission.setCollabRoomId(rs.getInt(SADisplayConstants.COLLAB_ROOM_ID));
-            permission.setCollabroomPermissionId(rs.getInt(SADisplayConstants.COLLAB_ROOM_PERMISSION_ID));
-            permission.setSystemRoleId(rs.getInt(SADisplayConstants.SYSTEM_ROLE_ID));
-            permission.setUserId(rs.getInt(SADisplayConstants.USER_ID));
+            permission.setCollabRoomId(rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_ID)));
+            permission.setCollabroomPermissionId(
+                    rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_PERMISSION_ID)));
+            permission.setSystemRoleId(rs.getInt(findColumn(rs, SADisplayConstants.SYSTEM_ROLE_ID)));
+            permission.setUserId(rs.getInt(findColumn(rs, SADisplayConstants.USER_ID)));
             return permission;
         }
         return null;
@@ -63,6 +64,6 @@ public class CollabRoomPermissionRowMapper extends JoinRowMapper<CollabroomPermi
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.COLLAB_ROOM_PERMISSION_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_PERMISSION_ID));
     }
 }
\ No newline at end of file
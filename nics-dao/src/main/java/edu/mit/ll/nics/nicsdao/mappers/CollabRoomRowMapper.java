@@ -44,15 +44,15 @@ public class CollabRoomRowMapper extends JoinRowMapper<CollabRoom> {
     @Override
     public CollabRoom createRowObject(ResultSet rs, int rowNum) throws SQLException {
         CollabRoom collabroom = new CollabRoom();
-        collabroom.setCollabRoomId(rs.getInt(SADisplayConstants.COLLAB_ROOM_ID));
-        collabroom.setCreated(rs.getDate(SADisplayConstants.CREATED));
-        collabroom.setIncidentid(rs.getInt(SADisplayConstants.INCIDENT_ID));
-        collabroom.setName(rs.getString(SADisplayConstants.NAME));
-        collabroom.setUsersessionid(rs.getInt(SADisplayConstants.USERSESSION_ID));
+        collabroom.setCollabRoomId(rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_ID)));
+        collabroom.setCreated(rs.getDate(findColumn(rs, SADisplayConstants.CREATED)));
+        collabroom.setIncidentid(rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_ID)));
+        collabroom.setName(rs.getString(findColumn(rs, SADisplayConstants.NAME)));
+        collabroom.setUsersessionid(rs.getInt(findColumn(rs, SADisplayConstants.USERSESSION_ID)));
         return collabroom;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.COLLAB_ROOM_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_ID));
     }
 }
@@ -43,22 +43,22 @@ public class ContactRowMapper extends JoinRowMapper<Contact> {
 
     @Override
     public Contact createRowObject(ResultSet rs, int rowNum) throws SQLException {
-        int contactid = rs.getInt(SADisplayConstants.CONTACT_ID);
+        int contactid = rs.getInt(findColumn(rs, SADisplayConstants.CONTACT_ID));
         if(contactid != 0) {
             Contact contact = new Contact();
             contact.setContactid(contactid);
-            contact.setContacttypeid(rs.getInt(SADisplayConstants.CONTACT_TYPE_ID));
-            contact.setCreated(rs.getDate(SADisplayConstants.CREATED));
-            contact.setEnabled(rs.getBoolean(SADisplayConstants.ENABLED));
-            contact.setUserId(rs.getInt(SADisplayConstants.USER_ID));
-            contact.setValue(rs.getString(SADisplayConstants.VALUE));
-            contact.setEnableLogin(rs.getBoolean(SADisplayConstants.ENABLE_LOGIN));
+            contact.setContacttypeid(rs.getInt(findColumn(rs, SADisplayConstants.CONTACT_TYPE_ID)));
+            contact.setCreated(rs.getDate(findColumn(rs, SADisplayConstants.CREATED)));
+            contact.setEnabled(rs.getBoolean(findColumn(rs, SADisplayConstants.ENABLED)));
+            contact.setUserId(rs.getInt(findColumn(rs, SADisplayConstants.USER_ID)));
+            contact.setValue(rs.getString(findColumn(rs, SADisplayConstants.VALUE)));
+            contact.setEnableLogin(rs.getBoolean(findColumn(rs, SADisplayConstants.ENABLE_LOGIN)));
             return contact;
         }
         return null;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.CONTACT_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.CONTACT_ID));
     }
 }
@@ -44,13 +44,13 @@ public class ContactTypeRowMapper extends JoinRowMapper<ContactType> {
     @Override
     public ContactType createRowObject(ResultSet rs, int rowNum) throws SQLException {
         ContactType contactType = new ContactType();
-        contactType.setContactTypeId(rs.getInt(SADisplayConstants.CONTACT_TYPE_ID));
-        contactType.setType(rs.getString(SADisplayConstants.TYPE));
-        contactType.setDisplay(rs.getString(SADisplayConstants.CONTACT_TYPE_DISPLAY));
+        contactType.setContactTypeId(rs.getInt(findColumn(rs, SADisplayConstants.CONTACT_TYPE_ID)));
+        contactType.setType(rs.getString(findColumn(rs, SADisplayConstants.TYPE)));
+        contactType.setDisplay(rs.getString(findColumn(rs, SADisplayConstants.CONTACT_TYPE_DISPLAY)));
         return contactType;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.CONTACT_TYPE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.CONTACT_TYPE_ID));
     }
 }
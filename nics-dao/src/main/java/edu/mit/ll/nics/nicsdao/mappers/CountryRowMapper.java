@@ -45,15 +45,15 @@ public class CountryRowMapper extends JoinRowMapper<Country> {
     public Country createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Country country = new Country();
 
-        country.setCountryId(rs.getInt(SADisplayConstants.COUNTRY_ID));
-        country.setName(rs.getString(SADisplayConstants.NAME));
-        country.setCountryCode(rs.getString(SADisplayConstants.COUNTRY_CODE));
+        country.setCountryId(rs.getInt(findColumn(rs, SADisplayConstants.COUNTRY_ID)));
+        country.setName(rs.getString(findColumn(rs, SADisplayConstants.NAME)));
+        country.setCountryCode(rs.getString(findColumn(rs, SADisplayConstants.COUNTRY_CODE)));
 
         return country;
     }
 
     @Override
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.COUNTRY_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.COUNTRY_ID));
     }
 }
@@ -44,19 +44,19 @@ public class CurrentUserSessionRowMapper extends JoinRowMapper<CurrentUserSessio
     @Override
     public CurrentUserSession createRowObject(ResultSet rs, int rowNum) throws SQLException {
         CurrentUserSession cUserSession = new CurrentUserSession();
-        cUserSession.setCurrentusersessionid(rs.getInt(SADisplayConstants.CURRENT_USERSESSION_ID));
-        cUserSession.setDisplayname(rs.getString(SADisplayConstants.DISPLAY_NAME));
-        cUserSession.setLastseen(rs.getTimestamp(SADisplayConstants.LAST_SEEN));
-        cUserSession.setLoggedin(rs.getTimestamp(SADisplayConstants.LOGGED_IN));
-        cUserSession.setSystemroleid(rs.getInt(SADisplayConstants.SYSTEM_ROLE_ID));
-        cUserSession.setUserid(rs.getInt(SADisplayConstants.USER_ID));
-        cUserSession.setUsersessionid(rs.getInt(SADisplayConstants.USERSESSION_ID));
-        cUserSession.setWorkspaceid(rs.getInt(SADisplayConstants.WORKSPACE_ID));
-        cUserSession.setMobile(rs.getBoolean(SADisplayConstants.MOBILE_USER));
+        cUserSession.setCurrentusersessionid(rs.getInt(findColumn(rs, SADisplayConstants.CURRENT_USERSESSION_ID)));
+        cUserSession.setDisplayname(rs.getString(findColumn(rs, SADisplayConstants.DISPLAY_NAME)));
+        cUserSession.setLastseen(rs.getTimestamp(findColumn(rs, SADisplayConstants.LAST_SEEN)));
+        cUserSession.setLoggedin(rs.getTimestamp(findColumn(rs, SADisplayConstants.LOGGED_IN)));
+        cUserSession.setSystemroleid(rs.getInt(findColumn(rs, SADisplayConstants.SYSTEM_ROLE_ID)));
+        cUserSession.setUserid(rs.getInt(findColumn(rs, SADisplayConstants.USER_ID)));
+        cUserSession.setUsersessionid(rs.getInt(findColumn(rs, SADisplayConstants.USERSESSION_ID)));
+        cUserSession.setWorkspaceid(rs.getInt(findColumn(rs, SADisplayConstants.WORKSPACE_ID)));
+        cUserSession.setMobile(rs.getBoolean(findColumn(rs, SADisplayConstants.MOBILE_USER)));
         return cUserSession;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.CURRENT_USERSESSION_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.CURRENT_USERSESSION_ID));
     }
 }
\ No newline at end of file
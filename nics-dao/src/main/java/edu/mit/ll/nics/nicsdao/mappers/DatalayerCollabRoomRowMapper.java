@@ -44,13 +44,14 @@ public class DatalayerCollabRoomRowMapper extends JoinRowMapper<DatalayerCollabr
     @Override
     public DatalayerCollabroom createRowObject(ResultSet rs, int rowNum) throws SQLException {
         DatalayerCollabroom datalayercollabroom = new DatalayerCollabroom();
-        datalayercollabroom.setDatalayerCollabroomid(rs.getString(SADisplayConstants.COLLAB_ROOM_DATALAYER_ID));
-        datalayercollabroom.setDatalayerid(rs.getString(SADisplayConstants.DATALAYER_ID));
-        datalayercollabroom.setCollabroomid(rs.getInt(SADisplayConstants.COLLAB_ROOM_ID));
+        datalayercollabroom.setDatalayerCollabroomid(
+                rs.getString(findColumn(rs, SADisplayConstants.COLLAB_ROOM_DATALAYER_ID)));
+        datalayercollabroom.setDatalayerid(rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_ID)));
+        datalayercollabroom.setCollabroomid(rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_ID)));
         return datalayercollabroom;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.COLLAB_ROOM_DATALAYER_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.COLLAB_ROOM_DATALAYER_ID));
     }
 }
\ No newline at end of file
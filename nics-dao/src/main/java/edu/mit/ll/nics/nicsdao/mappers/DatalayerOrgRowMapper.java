@@ -43,13 +43,13 @@ public class DatalayerOrgRowMapper extends JoinRowMapper<DatalayerOrg> {
     @Override
     public DatalayerOrg createRowObject(ResultSet rs, int rowNum) throws SQLException {
         DatalayerOrg datalayerOrg = new DatalayerOrg();
-        datalayerOrg.setDatalayer_orgid(rs.getString(SADisplayConstants.DATALAYER_ORG_ID));
-        datalayerOrg.setDatalayerid(rs.getString(SADisplayConstants.DATALAYER_ID));
-        datalayerOrg.setOrgid(rs.getInt(SADisplayConstants.ORG_ID));
+        datalayerOrg.setDatalayer_orgid(rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_ORG_ID)));
+        datalayerOrg.setDatalayerid(rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_ID)));
+        datalayerOrg.setOrgid(rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID)));
         return datalayerOrg;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.DATALAYER_ORG_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_ORG_ID));
     }
 }
@@ -44,17 +44,17 @@ public class DatalayerRowMapper extends JoinRowMapper<Datalayer> {
     @Override
     public Datalayer createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Datalayer datalayer = new Datalayer();
-        datalayer.setBaselayer(rs.getBoolean(SADisplayConstants.BASE_LAYER));
-        datalayer.setCreated(rs.getDate(SADisplayConstants.CREATED));
-        datalayer.setDatalayerid(rs.getString(SADisplayConstants.DATALAYER_ID));
-        datalayer.setDatalayersourceid(rs.getString(SADisplayConstants.DATALAYER_SOURCE_ID));
-        datalayer.setDisplayname(rs.getString(SADisplayConstants.DISPLAY_NAME));
-        datalayer.setUsersessionid(rs.getInt(SADisplayConstants.USERSESSION_ID));
-        datalayer.setLegend(rs.getString(SADisplayConstants.LEGEND));
+        datalayer.setBaselayer(rs.getBoolean(findColumn(rs, SADisplayConstants.BASE_LAYER)));
+        datalayer.setCreated(rs.getDate(findColumn(rs, SADisplayConstants.CREATED)));
+        datalayer.setDatalayerid(rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_ID)));
+        datalayer.setDatalayersourceid(rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_SOURCE_ID)));
+        datalayer.setDisplayname(rs.getString(findColumn(rs, SADisplayConstants.DISPLAY_NAME)));
+        datalayer.setUsersessionid(rs.getInt(findColumn(rs, SADisplayConstants.USERSESSION_ID)));
+        datalayer.setLegend(rs.getString(findColumn(rs, SADisplayConstants.LEGEND)));
         return datalayer;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.DATALAYER_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_ID));
     }
 }
\ No newline at end of file
@@ -44,14 +44,14 @@ public class DatalayerfolderRowMapper extends JoinRowMapper<Datalayerfolder> {
     @Override
     public Datalayerfolder createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Datalayerfolder datalayerfolder = new Datalayerfolder();
-        datalayerfolder.setDatalayerfolderid(rs.getInt(SADisplayConstants.DATALAYER_FOLDER_ID));
-        datalayerfolder.setDatalayerid(rs.getString(SADisplayConstants.DATALAYER_ID));
-        datalayerfolder.setFolderid(rs.getString(SADisplayConstants.FOLDER_ID));
-        datalayerfolder.setIndex(rs.getInt(SADisplayConstants.INDEX));
+        datalayerfolder.setDatalayerfolderid(rs.getInt(findColumn(rs, SADisplayConstants.DATALAYER_FOLDER_ID)));
+        datalayerfolder.setDatalayerid(rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_ID)));
+        datalayerfolder.setFolderid(rs.getString(findColumn(rs, SADisplayConstants.FOLDER_ID)));
+        datalayerfolder.setIndex(rs.getInt(findColumn(rs, SADisplayConstants.INDEX)));
         return datalayerfolder;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.DATALAYER_FOLDER_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_FOLDER_ID));
     }
 }
\ No newline at end of file
@@ -44,24 +44,24 @@ public class DatalayersourceRowMapper extends JoinRowMapper<Datalayersource> {
     @Override
     public Datalayersource createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Datalayersource dlsource = new Datalayersource();
-        dlsource.setAttributes(rs.getString(SADisplayConstants.ATTRIBUTES));
-        dlsource.setCreated(rs.getDate(SADisplayConstants.CREATED));
-        dlsource.setDatalayersourceid(rs.getString(SADisplayConstants.DATALAYER_SOURCE_ID));
-        dlsource.setDatasourceid(rs.getString(SADisplayConstants.DATASOURCE_ID));
-        dlsource.setImageformat(rs.getString(SADisplayConstants.IMAGE_FORMAT));
-        dlsource.setLayername(rs.getString(SADisplayConstants.LAYERNAME));
-        dlsource.setNativeprojection(rs.getString(SADisplayConstants.NATIVE_PROJECTION));
-        dlsource.setOpacity(rs.getDouble(SADisplayConstants.OPACITY));
-        dlsource.setRefreshrate(rs.getInt(SADisplayConstants.REFRESH_RATE));
-        dlsource.setStylepath(rs.getString(SADisplayConstants.STYLE_PATH));
-        dlsource.setStyleicon(rs.getString(SADisplayConstants.STYLE_ICON));
-        dlsource.setTilegridset(rs.getString(SADisplayConstants.TILE_GRID_SET));
-        dlsource.setTilesize(rs.getInt(SADisplayConstants.TILE_SIZE));
-        dlsource.setUsersessionid(rs.getInt(SADisplayConstants.USERSESSION_ID));
+        dlsource.setAttributes(rs.getString(findColumn(rs, SADisplayConstants.ATTRIBUTES)));
+        dlsource.setCreated(rs.getDate(findColumn(rs, SADisplayConstants.CREATED)));
+        dlsource.setDatalayersourceid(rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_SOURCE_ID)));
+        dlsource.setDatasourceid(rs.getString(findColumn(rs, SADisplayConstants.DATASOURCE_ID)));
+        dlsource.setImageformat(rs.getString(findColumn(rs, SADisplayConstants.IMAGE_FORMAT)));
+        dlsource.setLayername(rs.getString(findColumn(rs, SADisplayConstants.LAYERNAME)));
+        dlsource.setNativeprojection(rs.getString(findColumn(rs, SADisplayConstants.NATIVE_PROJECTION)));
+        dlsource.setOpacity(rs.getDouble(findColumn(rs, SADisplayConstants.OPACITY)));
+        dlsource.setRefreshrate(rs.getInt(findColumn(rs, SADisplayConstants.REFRESH_RATE)));
+        dlsource.setStylepath(rs.getString(findColumn(rs, SADisplayConstants.STYLE_PATH)));
+        dlsource.setStyleicon(rs.getString(findColumn(rs, SADisplayConstants.STYLE_ICON)));
+        dlsource.setTilegridset(rs.getString(findColumn(rs, SADisplayConstants.TILE_GRID_SET)));
+        dlsource.setTilesize(rs.getInt(findColumn(rs, SADisplayConstants.TILE_SIZE)));
+        dlsource.setUsersessionid(rs.getInt(findColumn(rs, SADisplayConstants.USERSESSION_ID)));
         return dlsource;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.DATALAYER_SOURCE_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.DATALAYER_SOURCE_ID));
     }
 }
\ No newline at end of file
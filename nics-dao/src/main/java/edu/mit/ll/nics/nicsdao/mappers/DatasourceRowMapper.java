@@ -44,19 +44,19 @@ public class DatasourceRowMapper extends JoinRowMapper<Datasource> {
     @Override
     public Datasource createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Datasource source = new Datasource();
-        source.setDatasourceid(rs.getString(SADisplayConstants.DATASOURCE_ID));
-        source.setDatasourcetypeid(rs.getInt(SADisplayConstants.DATASOURCE_TYPE_ID));
-        source.setDisplayname(rs.getString(SADisplayConstants.DISPLAY_NAME));
-        source.setExternalurl(rs.getString(SADisplayConstants.EXTERNAL_URL));
-        source.setInternalurl(rs.getString(SADisplayConstants.INTERNAL_URL));
-        if(rs.getString(SADisplayConstants.USER_NAME) != null &&
-                rs.getString(SADisplayConstants.PASSWORD) != null) {
+        source.setDatasourceid(rs.getString(findColumn(rs, SADisplayConstants.DATASOURCE_ID)));
+        source.setDatasourcetypeid(rs.getInt(findColumn(rs, SADisplayConstants.DATASOURCE_TYPE_ID)));
+        source.setDisplayname(rs.getString(findColumn(rs, SADisplayConstants.DISPLAY_NAME)));
+        source.setExternalurl(rs.getString(findColumn(rs, SADisplayConstants.EXTERNAL_URL)));
+        source.setInternalurl(rs.getString(findColumn(rs, SADisplayConstants.INTERNAL_URL)));
+        if(rs.getString(findColumn(rs, SADisplayConstants.USER_NAME)) != null &&
+                rs.getString(findColumn(rs, SADisplayConstants.PASSWORD)) != null) {
             source.setSecure(true);
         }
         return source;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.DATASOURCE_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.DATASOURCE_ID));
     }
 }
\ No newline at end of file
@@ -44,12 +44,12 @@ public class DatasourcetypeRowMapper extends JoinRowMapper<Datasourcetype> {
     @Override
     public Datasourcetype createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Datasourcetype datasourcetype = new Datasourcetype();
-        datasourcetype.setDatasourcetypeid(rs.getInt(SADisplayConstants.DATASOURCE_TYPE_ID));
-        datasourcetype.setTypename(rs.getString(SADisplayConstants.TYPE_NAME));
+        datasourcetype.setDatasourcetypeid(rs.getInt(findColumn(rs, SADisplayConstants.DATASOURCE_TYPE_ID)));
+        datasourcetype.setTypename(rs.getString(findColumn(rs, SADisplayConstants.TYPE_NAME)));
         return datasourcetype;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.DATASOURCE_TYPE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.DATASOURCE_TYPE_ID));
     }
 }
\ No newline at end of file
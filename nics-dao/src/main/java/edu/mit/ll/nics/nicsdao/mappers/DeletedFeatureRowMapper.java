@@ -47,14 +47,14 @@ public class DeletedFeatureRowMapper extends JoinRowMapper<DeletedFeature> {
 
         DeletedFeature feature = new DeletedFeature();
 
-        feature.setCollabroomid(rs.getInt("collabroomid"));
-        feature.setFeatureid(rs.getString("featureid"));
-        feature.setTimestamp(rs.getDate("timestamp"));
+        feature.setCollabroomid(rs.getInt(findColumn(rs, "collabroomid")));
+        feature.setFeatureid(rs.getString(findColumn(rs, "featureid")));
+        feature.setTimestamp(rs.getDate(findColumn(rs, "timestamp")));
 
         return feature;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.FEATURE_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.FEATURE_ID));
     }
 }
@@ -44,20 +44,20 @@ public class DocumentRowMapper extends JoinRowMapper<Document> {
     @Override
     public Document createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Document document = new Document();
-        document.setCreated(rs.getTimestamp(SADisplayConstants.CREATED));
-        document.setDatasourceid(rs.getString(SADisplayConstants.DATASOURCE_ID));
-        document.setDescription(rs.getString(SADisplayConstants.DESCRIPTION));
-        document.setDisplayname(rs.getString(SADisplayConstants.DISPLAY_NAME));
-        document.setDocumentid(rs.getString(SADisplayConstants.DOCUMENT_ID));
-        document.setFilename(rs.getString(SADisplayConstants.FILENAME));
-        document.setFiletype(rs.getString(SADisplayConstants.FILETYPE));
-        document.setFolderid(rs.getString(SADisplayConstants.FOLDER_ID));
-        document.setGlobalview(rs.getBoolean(SADisplayConstants.GLOBAL_VIEW));
-        document.setUsersessionid(rs.getInt(SADisplayConstants.USERSESSION_ID));
+        document.setCreated(rs.getTimestamp(findColumn(rs, SADisplayConstants.CREATED)));
+        document.setDatasourceid(rs.getString(findColumn(rs, SADisplayConstants.DATASOURCE_ID)));
+        document.setDescription(rs.getString(findColumn(rs, SADisplayConstants.DESCRIPTION)));
+        document.setDisplayname(rs.getString(findColumn(rs, SADisplayConstants.DISPLAY_NAME)));
+        document.setDocumentid(rs.getString(findColumn(rs, SADisplayConstants.DOCUMENT_ID)));
+        document.setFilename(rs.getString(findColumn(rs, SADisplayConstants.FILENAME)));
+        document.setFiletype(rs.getString(findColumn(rs, SADisplayConstants.FILETYPE)));
+        document.setFolderid(rs.getString(findColumn(rs, SADisplayConstants.FOLDER_ID)));
+        document.setGlobalview(rs.getBoolean(findColumn(rs, SADisplayConstants.GLOBAL_VIEW)));
+        document.setUsersessionid(rs.getInt(findColumn(rs, SADisplayConstants.USERSESSION_ID)));
         return document;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.DOCUMENT_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.DOCUMENT_ID));
     }
 }
\ No newline at end of file
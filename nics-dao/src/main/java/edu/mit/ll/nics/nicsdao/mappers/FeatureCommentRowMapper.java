@@ -44,15 +44,15 @@ public class FeatureCommentRowMapper extends JoinRowMapper<FeatureComment> {
     @Override
     public FeatureComment createRowObject(ResultSet rs, int rowNum) throws SQLException {
         FeatureComment featureComment = new FeatureComment();
-        featureComment.setFeatureCommentId(rs.getLong(SADisplayConstants.FEATURE_COMMENT_ID));
-        featureComment.setComment(rs.getString(SADisplayConstants.FEATURE_COMMENT));
-        featureComment.setFeatureId(rs.getLong(SADisplayConstants.FEATURE_ID));
-        featureComment.setDatetime(rs.getTimestamp(SADisplayConstants.TIMESTAMP));
-        featureComment.setUsername(rs.getString(SADisplayConstants.USER_NAME));
+        featureComment.setFeatureCommentId(rs.getLong(findColumn(rs, SADisplayConstants.FEATURE_COMMENT_ID)));
+        featureComment.setComment(rs.getString(findColumn(rs, SADisplayConstants.FEATURE_COMMENT)));
+        featureComment.setFeatureId(rs.getLong(findColumn(rs, SADisplayConstants.FEATURE_ID)));
+        featureComment.setDatetime(rs.getTimestamp(findColumn(rs, SADisplayConstants.TIMESTAMP)));
+        featureComment.setUsername(rs.getString(findColumn(rs, SADisplayConstants.USER_NAME)));
         return featureComment;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.FEATURE_COMMENT_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.FEATURE_COMMENT_ID));
     }
 }
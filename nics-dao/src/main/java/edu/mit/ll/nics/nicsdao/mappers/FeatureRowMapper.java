@@ -48,14 +48,14 @@ public class FeatureRowMapper extends JoinRowMapper<Feature> {
 
         String geometryString = null;
         try {
-            geometryString = rs.getString("st_astext");
+            geometryString = rs.getString(findColumn(rs, "st_astext"));
         } catch(SQLException sqlEx) {
             //Geometry was not returned as a string
         }
 
         if(geometryString == null) {
             try {
-                PGgeometry pgGeometry = (PGgeometry) rs.getObject("geometry");
+                PGgeometry pgGeometry = (PGgeometry) rs.getObject(findColumn(rs, "geometry"));
                 String[] temp = PGgeometry.splitSRID(pgGeometry.getGeometry().toString());
                 geometryString = temp[1];
             } catch(Exception e) {
@@ -64,36 +64,36 @@ public class FeatureRowMapper extends JoinRowMapper<Feature> {
         }
 
         feature.setGeometry(geometryString);
-        feature.setFeatureId(rs.getLong("featureid"));
-        feature.setDashStyle(rs.getString("dashstyle"));
-        feature.setAttributes(rs.getString("attributes"));
-        feature.setFillColor(rs.getString("fillcolor"));
-        feature.setGraphic(rs.getString("graphic"));
-        feature.setGraphicHeight(rs.getDouble("graphicheight"));
-        feature.setGraphicWidth(rs.getDouble("graphicwidth"));
-        feature.setHasGraphic(rs.getBoolean("hasgraphic"));
-        feature.setIp(rs.getString("ip"));
-        feature.setLabelsize(rs.getDouble("labelsize"));
-        feature.setLabelText(rs.getString("labeltext"));
-        feature.setLastupdate(rs.getTimestamp("lastupdate"));
-        feature.setNickname(rs.getString("nickname"));
-        feature.setOpacity(rs.getDouble("opacity"));
-        feature.setPointRadius(rs.getDouble("pointradius"));
-        feature.setRotation(rs.getDouble("rotation"));
-        feature.setSeqnum(rs.getLong("seqnum"));
-        feature.setSeqtime(rs.getLong("seqtime"));
-        feature.setStrokeColor(rs.getString("strokecolor"));
-        feature.setStrokeWidth(rs.getDouble("strokewidth"));
-        feature.setTime(rs.getString("time"));
-        feature.setTopic(rs.getString("topic"));
-        feature.setType(rs.getString("type"));
-        feature.setUsername(rs.getString("username"));
-        feature.setUsersessionId(rs.getInt("usersessionid"));
-        feature.setVersion(rs.getString("version"));
+        feature.setFeatureId(rs.getLong(findColumn(rs, "featureid")));
+        feature.setDashStyle(rs.getString(findColumn(rs, "dashstyle")));
+        feature.setAttributes(rs.getString(findColumn(rs, "attributes")));
+        feature.setFillColor(rs.getString(findColumn(rs, "fillcolor")));
+        feature.setGraphic(rs.getString(findColumn(rs, "graphic")));
+        feature.setGraphicHeight(rs.getDouble(findColumn(rs, "graphicheight")));
+        feature.setGraphicWidth(rs.getDouble(findColumn(rs, "graphicwidth")));
+        feature.setHasGraphic(rs.getBoolean(findColumn(rs, "hasgraphic")));
+        feature.setIp(rs.getString(findColumn(rs, "ip")));
+        feature.setLabelsize(rs.getDouble(findColumn(rs, "labelsize")));
+        feature.setLabelText(rs.getString(findColumn(rs, "labeltext")));
+        feature.setLastupdate(rs.getTimestamp(findColumn(rs, "lastupdate")));
+        feature.setNickname(rs.getString(findColumn(rs, "nickname")));
+        feature.setOpacity(rs.getDouble(findColumn(rs, "opacity")));
+        feature.setPointRadius(rs.getDouble(findColumn(rs, "pointradius")));
+        feature.setRotation(rs.getDouble(findColumn(rs, "rotation")));
+        feature.setSeqnum(rs.getLong(findColumn(rs, "seqnum")));
+        feature.setSeqtime(rs.getLong(findColumn(rs, "seqtime")));
+        feature.setStrokeColor(rs.getString(findColumn(rs, "strokecolor")));
+        feature.setStrokeWidth(rs.getDouble(findColumn(rs, "strokewidth")));
+        feature.setTime(rs.getString(findColumn(rs, "time")));
+        feature.setTopic(rs.getString(findColumn(rs, "topic")));
+        feature.setType(rs.getString(findColumn(rs, "type")));
+        feature.setUsername(rs.getString(findColumn(rs, "username")));
+        feature.setUsersessionId(rs.getInt(findColumn(rs, "usersessionid")));
+        feature.setVersion(rs.getString(findColumn(rs, "version")));
         return feature;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.FEATURE_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.FEATURE_ID));
     }
 }
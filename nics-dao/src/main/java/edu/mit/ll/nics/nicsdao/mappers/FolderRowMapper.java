@@ -44,15 +44,15 @@ public class FolderRowMapper extends JoinRowMapper<Folder> {
     @Override
     public Folder createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Folder folder = new Folder();
-        folder.setFolderid(rs.getString(SADisplayConstants.FOLDER_ID));
-        folder.setIndex(rs.getInt(SADisplayConstants.INDEX));
-        folder.setFoldername(rs.getString(SADisplayConstants.FOLDER_NAME));
-        folder.setParentfolderid(rs.getString(SADisplayConstants.PARENT_FOLDER_ID));
-        folder.setWorkspaceid(rs.getInt(SADisplayConstants.WORKSPACE_ID));
+        folder.setFolderid(rs.getString(findColumn(rs, SADisplayConstants.FOLDER_ID)));
+        folder.setIndex(rs.getInt(findColumn(rs, SADisplayConstants.INDEX)));
+        folder.setFoldername(rs.getString(findColumn(rs, SADisplayConstants.FOLDER_NAME)));
+        folder.setParentfolderid(rs.getString(findColumn(rs, SADisplayConstants.PARENT_FOLDER_ID)));
+        folder.setWorkspaceid(rs.getInt(findColumn(rs, SADisplayConstants.WORKSPACE_ID)));
         return folder;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.FOLDER_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.FOLDER_ID));
     }
 }
\ No newline at end of file
@@ -44,20 +44,20 @@ public class FormRowMapper extends JoinRowMapper<Form> {
     @Override
     public Form createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Form form = new Form();
-        form.setDistributed(rs.getBoolean(SADisplayConstants.DISTRIBUTED));
-        form.setFormId(rs.getInt(SADisplayConstants.FORM_ID));
-        form.setFormtypeid(rs.getInt(SADisplayConstants.FORM_TYPE_ID));
-        form.setIncidentid(rs.getInt(SADisplayConstants.INCIDENT_ID));
-        form.setIncidentname(rs.getString(SADisplayConstants.INCIDENT_NAME));
-        form.setMessage(rs.getString(SADisplayConstants.MESSAGE));
-        form.setSeqnum(rs.getLong(SADisplayConstants.SEQ_NUM));
-        form.setSeqtime(rs.getLong(SADisplayConstants.SEQ_TIME));
-        form.setUsersessionid(rs.getInt(SADisplayConstants.USERSESSION_ID));
-        form.setCollabroomid(rs.getInt(SADisplayConstants.COLLAB_ROOM_ID));
+        form.setDistributed(rs.getBoolean(findColumn(rs, SADisplayConstants.DISTRIBUTED)));
+        form.setFormId(rs.getInt(findColumn(rs, SADisplayConstants.FORM_ID)));
+        form.setFormtypeid(rs.getInt(findColumn(rs, SADisplayConstants.FORM_TYPE_ID)));
+        form.setIncidentid(rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_ID)));
+        form.setIncidentname(rs.getString(findColumn(rs, SADisplayConstants.INCIDENT_NAME)));
+        form.setMessage(rs.getString(findColumn(rs, SADisplayConstants.MESSAGE)));
+        form.setSeqnum(rs.getLong(findColumn(rs, SADisplayConstants.SEQ_NUM)));
+        form.setSeqtime(rs.getLong(findColumn(rs, SADisplayConstants.SEQ_TIME)));
+        form.setUsersessionid(rs.getInt(findColumn(rs, SADisplayConstants.USERSESSION_ID)));
+        form.setCollabroomid(rs.getInt(findColumn(rs, SADisplayConstants.COLLAB_ROOM_ID)));
         return form;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.FORM_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.FORM_ID));
     }
 }
\ No newline at end of file
@@ -44,12 +44,12 @@ public class FormTypeRowMapper extends JoinRowMapper<FormType> {
     @Override
     public FormType createRowObject(ResultSet rs, int rowNum) throws SQLException {
         FormType formType = new FormType();
-        formType.setFormTypeId(rs.getInt(SADisplayConstants.FORM_TYPE_ID));
-        formType.setFormTypeName(rs.getString(SADisplayConstants.FORM_TYPE_NAME));
+        formType.setFormTypeId(rs.getInt(findColumn(rs, SADisplayConstants.FORM_TYPE_ID)));
+        formType.setFormTypeName(rs.getString(findColumn(rs, SADisplayConstants.FORM_TYPE_NAME)));
         return formType;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.FORM_TYPE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.FORM_TYPE_ID));
     }
 }
\ No newline at end of file
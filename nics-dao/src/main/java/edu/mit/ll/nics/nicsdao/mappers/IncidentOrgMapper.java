@@ -48,10 +48,10 @@ public class IncidentOrgMapper extends JoinRowMapper<IncidentOrg> {
     @Override
     public IncidentOrg createRowObject(ResultSet rs, int rowNum) throws SQLException {
         IncidentOrg incidentOrg = new IncidentOrg();
-        incidentOrg.setOrgid(rs.getInt(SADisplayConstants.ORG_ID));
-        incidentOrg.setIncidentid(rs.getInt(SADisplayConstants.INCIDENT_ID));
-        incidentOrg.setCreated(rs.getTimestamp(SADisplayConstants.CREATED));
-        incidentOrg.setUserid(rs.getInt(SADisplayConstants.USER_ID));
+        incidentOrg.setOrgid(rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID)));
+        incidentOrg.setIncidentid(rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_ID)));
+        incidentOrg.setCreated(rs.getTimestamp(findColumn(rs, SADisplayConstants.CREATED)));
+        incidentOrg.setUserid(rs.getInt(findColumn(rs, SADisplayConstants.USER_ID)));
         return incidentOrg;
     }
 
@@ -60,7 +60,8 @@ public class IncidentOrgMapper extends JoinRowMapper<IncidentOrg> {
         //       not sure if there's a better way to do this, like by returning some
         //       composite key object?
 
-        String key = rs.getInt(SADisplayConstants.INCIDENT_ID) + "0" + rs.getInt(SADisplayConstants.ORG_ID);
+        String key = rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_ID)) + "0" +
+                rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID));
         int intKey = 0;
         try {
             intKey = Integer.parseInt(key, 10);
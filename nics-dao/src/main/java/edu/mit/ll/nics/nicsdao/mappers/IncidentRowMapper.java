@@ -44,23 +44,23 @@ public class IncidentRowMapper extends JoinRowMapper<Incident> {
     @Override
     public Incident createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Incident incident = new Incident();
-        incident.setActive(rs.getBoolean(SADisplayConstants.ACTIVE));
+        incident.setActive(rs.getBoolean(findColumn(rs, SADisplayConstants.ACTIVE)));
         //incident.setBounds();
-        incident.setCreated(rs.getTimestamp(SADisplayConstants.CREATED));
-        incident.setFolder(rs.getString(SADisplayConstants.FOLDER));
-        incident.setIncidentid(rs.getInt(SADisplayConstants.INCIDENT_ID));
-        incident.setIncidentname(rs.getString(SADisplayConstants.INCIDENT_NAME));
-        incident.setLastUpdate(rs.getTimestamp(SADisplayConstants.LAST_UPDATE));
-        incident.setLat(rs.getDouble(SADisplayConstants.LATITUDE));
-        incident.setLon(rs.getDouble(SADisplayConstants.LONGITUDE));
-        incident.setUsersessionid(rs.getInt(SADisplayConstants.USERSESSION_ID));
-        incident.setWorkspaceid(rs.getInt(SADisplayConstants.WORKSPACE_ID));
-        incident.setDescription(rs.getString(SADisplayConstants.DESCRIPTION));
-        incident.setParentincidentid(rs.getInt(SADisplayConstants.PARENT_INCIDENT_ID));
+        incident.setCreated(rs.getTimestamp(findColumn(rs, SADisplayConstants.CREATED)));
+        incident.setFolder(rs.getString(findColumn(rs, SADisplayConstants.FOLDER)));
+        incident.setIncidentid(rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_ID)));
+        incident.setIncidentname(rs.getString(findColumn(rs, SADisplayConstants.INCIDENT_NAME)));
+        incident.setLastUpdate(rs.getTimestamp(findColumn(rs, SADisplayConstants.LAST_UPDATE)));
+        incident.setLat(rs.getDouble(findColumn(rs, SADisplayConstants.LATITUDE)));
+        incident.setLon(rs.getDouble(findColumn(rs, SADisplayConstants.LONGITUDE)));
+        incident.setUsersessionid(rs.getInt(findColumn(rs, SADisplayConstants.USERSESSION_ID)));
+        incident.setWorkspaceid(rs.getInt(findColumn(rs, SADisplayConstants.WORKSPACE_ID)));
+        incident.setDescription(rs.getString(findColumn(rs, SADisplayConstants.DESCRIPTION)));
+        incident.setParentincidentid(rs.getInt(findColumn(rs, SADisplayConstants.PARENT_INCIDENT_ID)));
         return incident;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.INCIDENT_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_ID));
     }
 }
\ No newline at end of file
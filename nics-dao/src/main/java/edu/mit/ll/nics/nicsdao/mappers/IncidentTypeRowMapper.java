@@ -44,13 +44,13 @@ public class IncidentTypeRowMapper extends JoinRowMapper<IncidentType> {
     @Override
     public IncidentType createRowObject(ResultSet rs, int rowNum) throws SQLException {
         IncidentType incidentType = new IncidentType();
-        incidentType.setIncidentTypeId(rs.getInt(SADisplayConstants.INCIDENT_TYPE_ID));
-        incidentType.setIncidentTypeName(rs.getString(SADisplayConstants.INCIDENT_TYPE_NAME));
-        incidentType.setDefaulttype(rs.getBoolean(SADisplayConstants.INCIDENT_TYPE_DEFAULTTYPE));
+        incidentType.setIncidentTypeId(rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_TYPE_ID)));
+        incidentType.setIncidentTypeName(rs.getString(findColumn(rs, SADisplayConstants.INCIDENT_TYPE_NAME)));
+        incidentType.setDefaulttype(rs.getBoolean(findColumn(rs, SADisplayConstants.INCIDENT_TYPE_DEFAULTTYPE)));
         return incidentType;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.INCIDENT_TYPE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_TYPE_ID));
     }
 }
\ No newline at end of file
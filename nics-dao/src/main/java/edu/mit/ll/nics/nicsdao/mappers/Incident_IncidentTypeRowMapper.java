@@ -44,13 +44,13 @@ public class Incident_IncidentTypeRowMapper extends JoinRowMapper<IncidentIncide
     @Override
     public IncidentIncidentType createRowObject(ResultSet rs, int rowNum) throws SQLException {
         IncidentIncidentType incidentType = new IncidentIncidentType();
-        incidentType.setIncidentIncidenttypeid(rs.getInt(SADisplayConstants.INCIDENT_INCIDENTTYPE_ID));
-        incidentType.setIncidenttypeid(rs.getInt(SADisplayConstants.INCIDENT_TYPE_ID));
-        incidentType.setIncidentid(rs.getInt(SADisplayConstants.INCIDENT_ID));
+        incidentType.setIncidentIncidenttypeid(rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_INCIDENTTYPE_ID)));
+        incidentType.setIncidenttypeid(rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_TYPE_ID)));
+        incidentType.setIncidentid(rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_ID)));
         return incidentType;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.INCIDENT_INCIDENTTYPE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_INCIDENTTYPE_ID));
     }
 }
\ No newline at end of file
@@ -44,17 +44,17 @@ public class LogRowMapper extends JoinRowMapper<Log> {
     @Override
     public Log createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Log log = new Log();
-        log.setLogid(rs.getInt("logid"));
-        log.setLogtypeid(rs.getInt("logtypeid"));
-        log.setMessage(rs.getString("message"));
-        log.setCreated(rs.getDate("created"));
-        log.setStatus(rs.getInt("status"));
-        log.setUsersessionid(rs.getInt("usersessionid"));
-        log.setWorkspaceId(rs.getInt("workspaceid"));
+        log.setLogid(rs.getInt(findColumn(rs, "logid")));
+        log.setLogtypeid(rs.getInt(findColumn(rs, "logtypeid")));
+        log.setMessage(rs.getString(findColumn(rs, "message")));
+        log.setCreated(rs.getDate(findColumn(rs, "created")));
+        log.setStatus(rs.getInt(findColumn(rs, "status")));
+        log.setUsersessionid(rs.getInt(findColumn(rs, "usersessionid")));
+        log.setWorkspaceId(rs.getInt(findColumn(rs, "workspaceid")));
         return log;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.LOG_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.LOG_ID));
     }
 }
\ No newline at end of file
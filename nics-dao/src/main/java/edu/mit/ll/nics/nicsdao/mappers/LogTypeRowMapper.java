@@ -44,13 +44,13 @@ public class LogTypeRowMapper extends JoinRowMapper<LogType> {
     @Override
     public LogType createRowObject(ResultSet rs, int rowNum) throws SQLException {
         LogType logType = new LogType();
-        logType.setLogTypeId(rs.getInt("logtypeid"));
-        logType.setName(rs.getString("name"));
+        logType.setLogTypeId(rs.getInt(findColumn(rs, "logtypeid")));
+        logType.setName(rs.getString(findColumn(rs, "name")));
 
         return logType;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.LOG_TYPE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.LOG_TYPE_ID));
     }
 }
\ No newline at end of file
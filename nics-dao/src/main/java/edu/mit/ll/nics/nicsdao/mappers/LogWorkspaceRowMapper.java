@@ -44,13 +44,13 @@ public class LogWorkspaceRowMapper extends JoinRowMapper<LogWorkspace> {
     @Override
     public LogWorkspace createRowObject(ResultSet rs, int rowNum) throws SQLException {
         LogWorkspace log = new LogWorkspace();
-        log.setLogid(rs.getInt(SADisplayConstants.LOG_ID));
-        log.setLogworkspaceid(rs.getInt(SADisplayConstants.LOG_WORKSPACE_ID));
-        log.setWorkspaceid(rs.getInt(SADisplayConstants.WORKSPACE_ID));
+        log.setLogid(rs.getInt(findColumn(rs, SADisplayConstants.LOG_ID)));
+        log.setLogworkspaceid(rs.getInt(findColumn(rs, SADisplayConstants.LOG_WORKSPACE_ID)));
+        log.setWorkspaceid(rs.getInt(findColumn(rs, SADisplayConstants.WORKSPACE_ID)));
         return log;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.LOG_WORKSPACE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.LOG_WORKSPACE_ID));
     }
 }
\ No newline at end of file
@@ -46,12 +46,12 @@ public class MediaStreamRowMapper extends JoinRowMapper<MediaStream> {
 
     @Override
     public MediaStream createRowObject(ResultSet rs, int rowNum) throws SQLException {
-        long id = rs.getLong(SADisplayConstants.MEDIASTREAM_ID);
+        long id = rs.getLong(findColumn(rs, SADisplayConstants.MEDIASTREAM_ID));
         if(id != 0) {
             MediaStream ms = new MediaStream();
             ms.setMsid(id);
-            ms.setTitle(rs.getString(SADisplayConstants.MEDIASTREAM_TITLE));
-            ms.setUrl(rs.getString(SADisplayConstants.MEDIASTREAM_URL));
+            ms.setTitle(rs.getString(findColumn(rs, SADisplayConstants.MEDIASTREAM_TITLE)));
+            ms.setUrl(rs.getString(findColumn(rs, SADisplayConstants.MEDIASTREAM_URL)));
 
             return ms;
         }
@@ -61,6 +61,6 @@ public class MediaStreamRowMapper extends JoinRowMapper<MediaStream> {
 
     @Override
     public Object getKey(ResultSet rs) throws SQLException {
-        return rs.getLong(SADisplayConstants.MEDIASTREAM_ID);
+        return rs.getLong(findColumn(rs, SADisplayConstants.MEDIASTREAM_ID));
     }
 }
\ No newline at end of file
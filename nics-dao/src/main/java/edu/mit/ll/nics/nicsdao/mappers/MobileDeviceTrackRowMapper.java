@@ -53,15 +53,15 @@ public class MobileDeviceTrackRowMapper extends JoinRowMapper<MobileDeviceTrack>
     @Override
     public MobileDeviceTrack createRowObject(ResultSet rs, int rowNum) throws SQLException {
         MobileDeviceTrack mdt = new MobileDeviceTrack();
-        mdt.setMobileDeviceTrackId(rs.getInt(SADisplayConstants.MDT_ID));
-        mdt.setAccuracy(rs.getDouble(SADisplayConstants.MDT_ACCURACY));
-        mdt.setCourse(rs.getDouble(SADisplayConstants.MDT_COURSE));
-        mdt.setDeviceId(rs.getString(SADisplayConstants.MDT_DEVICEID));
-        mdt.setUsername(rs.getString(SADisplayConstants.USER_NAME));
-        mdt.setExtendeddata(rs.getString(SADisplayConstants.MDT_EXTENDEDDATA));
+        mdt.setMobileDeviceTrackId(rs.getInt(findColumn(rs, SADisplayConstants.MDT_ID)));
+        mdt.setAccuracy(rs.getDouble(findColumn(rs, SADisplayConstants.MDT_ACCURACY)));
+        mdt.setCourse(rs.getDouble(findColumn(rs, SADisplayConstants.MDT_COURSE)));
+        mdt.setDeviceId(rs.getString(findColumn(rs, SADisplayConstants.MDT_DEVICEID)));
+        mdt.setUsername(rs.getString(findColumn(rs, SADisplayConstants.USER_NAME)));
+        mdt.setExtendeddata(rs.getString(findColumn(rs, SADisplayConstants.MDT_EXTENDEDDATA)));
 
         // Process Geometry fields
-        PGgeometry pGgeometry = (PGgeometry) rs.getObject(SADisplayConstants.MDT_LOCATION);
+        PGgeometry pGgeometry = (PGgeometry) rs.getObject(findColumn(rs, SADisplayConstants.MDT_LOCATION));
         try {
             Point point = (Point) pGgeometry.getGeometry();
             mdt.setLongitude(point.getX());
@@ -72,16 +72,16 @@ public class MobileDeviceTrackRowMapper extends JoinRowMapper<MobileDeviceTrack>
                     mdt.getMobileDeviceTrackId() + ": " + e.getMessage());
         }
 
-        mdt.setName(rs.getString(SADisplayConstants.MDT_NAME));
-        mdt.setSpeed(rs.getDouble(SADisplayConstants.MDT_SPEED));
-        mdt.setTimestamp(rs.getTimestamp(SADisplayConstants.MDT_TIMESTAMP));
-        mdt.setDescription(rs.getString(SADisplayConstants.DESCRIPTION));
-        mdt.setWorkspaceId(rs.getInt(SADisplayConstants.WORKSPACE_ID));
+        mdt.setName(rs.getString(findColumn(rs, SADisplayConstants.MDT_NAME)));
+        mdt.setSpeed(rs.getDouble(findColumn(rs, SADisplayConstants.MDT_SPEED)));
+        mdt.setTimestamp(rs.getTimestamp(findColumn(rs, SADisplayConstants.MDT_TIMESTAMP)));
+        mdt.setDescription(rs.getString(findColumn(rs, SADisplayConstants.DESCRIPTION)));
+        mdt.setWorkspaceId(rs.getInt(findColumn(rs, SADisplayConstants.WORKSPACE_ID)));
 
         return mdt;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.MDT_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.MDT_ID));
     }
 }
\ No newline at end of file
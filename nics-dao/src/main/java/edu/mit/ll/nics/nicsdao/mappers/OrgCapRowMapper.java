@@ -45,17 +45,17 @@ public class OrgCapRowMapper extends JoinRowMapper<OrgCap> {
     public OrgCap createRowObject(ResultSet rs, int rowNum) throws SQLException {
         OrgCap orgcap = new OrgCap();
 
-        orgcap.setOrgCapId(rs.getInt(SADisplayConstants.ORG_CAP_ID));
-        orgcap.setOrgId(rs.getInt(SADisplayConstants.ORG_ID));
-        orgcap.setActiveWeb(rs.getBoolean(SADisplayConstants.ACTIVE_WEB));
-        orgcap.setActiveMobile(rs.getBoolean(SADisplayConstants.ACTIVE_MOBILE));
-        orgcap.setUpdated(rs.getDate(SADisplayConstants.LAST_UPDATE));
+        orgcap.setOrgCapId(rs.getInt(findColumn(rs, SADisplayConstants.ORG_CAP_ID)));
+        orgcap.setOrgId(rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID)));
+        orgcap.setActiveWeb(rs.getBoolean(findColumn(rs, SADisplayConstants.ACTIVE_WEB)));
+        orgcap.setActiveMobile(rs.getBoolean(findColumn(rs, SADisplayConstants.ACTIVE_MOBILE)));
+        orgcap.setUpdated(rs.getDate(findColumn(rs, SADisplayConstants.LAST_UPDATE)));
 
         return orgcap;
     }
 
     @Override
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.ORG_CAP_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.ORG_CAP_ID));
     }
 }
\ No newline at end of file
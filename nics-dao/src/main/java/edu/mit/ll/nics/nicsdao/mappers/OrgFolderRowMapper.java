@@ -44,14 +44,14 @@ public class OrgFolderRowMapper extends JoinRowMapper<OrgFolder> {
     @Override
     public OrgFolder createRowObject(ResultSet rs, int rowNum) throws SQLException {
         OrgFolder orgFolder = new OrgFolder();
-        orgFolder.setOrgfolderid(rs.getInt(SADisplayConstants.ORG_FOLDER_ID));
-        orgFolder.setFolderid(rs.getString(SADisplayConstants.FOLDER_ID));
-        orgFolder.setOrgid(rs.getInt(SADisplayConstants.ORG_ID));
+        orgFolder.setOrgfolderid(rs.getInt(findColumn(rs, SADisplayConstants.ORG_FOLDER_ID)));
+        orgFolder.setFolderid(rs.getString(findColumn(rs, SADisplayConstants.FOLDER_ID)));
+        orgFolder.setOrgid(rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID)));
         return orgFolder;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.ORG_FOLDER_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.ORG_FOLDER_ID));
     }
 
 }
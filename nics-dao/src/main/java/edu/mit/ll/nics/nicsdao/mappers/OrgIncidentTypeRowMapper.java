@@ -44,16 +44,15 @@ public class OrgIncidentTypeRowMapper extends JoinRowMapper<OrgIncidentType> {
     @Override
     public OrgIncidentType createRowObject(ResultSet rs, int rowNum) throws SQLException {
         OrgIncidentType orgincidenttype = new OrgIncidentType();
-        orgincidenttype.setOrgIncidenttypeid(rs.getInt(SADisplayConstants.ORG_INCIDENTTYPE_ID));
-        orgincidenttype.setIncidenttypeid(rs.getInt(SADisplayConstants.INCIDENT_TYPE_ID));
-        orgincidenttype.setOrgid(rs.getInt(SADisplayConstants.ORG_ID));
-        orgincidenttype.setDefaulttype(rs.getBoolean(
-                SADisplayConstants.DEFAULT_ORG_INCIDENT_TYPE));
+        orgincidenttype.setOrgIncidenttypeid(rs.getInt(findColumn(rs, SADisplayConstants.ORG_INCIDENTTYPE_ID)));
+        orgincidenttype.setIncidenttypeid(rs.getInt(findColumn(rs, SADisplayConstants.INCIDENT_TYPE_ID)));
+        orgincidenttype.setOrgid(rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID)));
+        orgincidenttype.setDefaulttype(rs.getBoolean(findColumn(rs, SADisplayConstants.DEFAULT_ORG_INCIDENT_TYPE)));
         return orgincidenttype;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.ORG_INCIDENTTYPE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.ORG_INCIDENTTYPE_ID));
     }
 
 }
@@ -44,13 +44,13 @@ public class OrgOrgTypeRowMapper extends JoinRowMapper<OrgOrgType> {
     @Override
     public OrgOrgType createRowObject(ResultSet rs, int rowNum) throws SQLException {
         OrgOrgType orgorgtype = new OrgOrgType();
-        orgorgtype.setOrgtypeid(rs.getInt(SADisplayConstants.ORG_TYPE_ID));
-        orgorgtype.setOrgid(rs.getInt(SADisplayConstants.ORG_ID));
+        orgorgtype.setOrgtypeid(rs.getInt(findColumn(rs, SADisplayConstants.ORG_TYPE_ID)));
+        orgorgtype.setOrgid(rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID)));
         return orgorgtype;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.ORG_ORGTYPE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.ORG_ORGTYPE_ID));
     }
 
 }
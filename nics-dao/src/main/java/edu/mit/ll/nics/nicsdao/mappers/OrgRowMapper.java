@@ -44,26 +44,27 @@ public class OrgRowMapper extends JoinRowMapper<Org> {
     @Override
     public Org createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Org org = new Org();
-        org.setOrgId(rs.getInt(SADisplayConstants.ORG_ID));
-        org.setName(rs.getString(SADisplayConstants.ORG_NAME));
-        org.setDefaultlatitude(rs.getDouble(SADisplayConstants.DEFAULT_LAT));
-        org.setDefaultlongitude(rs.getDouble(SADisplayConstants.DEFAULT_LON));
-        org.setDistribution(rs.getString((SADisplayConstants.DISTRIBUTION)));
-        org.setPrefix(rs.getString(SADisplayConstants.PREFIX));
-        org.setState(rs.getString((SADisplayConstants.STATE)));
-        org.setCounty(rs.getString(SADisplayConstants.COUNTY));
-        org.setCountryId(rs.getInt(SADisplayConstants.COUNTRY_ID));
-        org.setDefaultlanguage(rs.getString(SADisplayConstants.DEFAULT_LANGUAGE));
-        org.setParentorgid(rs.getInt(SADisplayConstants.PARENT_ORG_ID));
+        org.setOrgId(rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID)));
+        org.setName(rs.getString(findColumn(rs, SADisplayConstants.ORG_NAME)));
+        org.setDefaultlatitude(rs.getDouble(findColumn(rs, SADisplayConstants.DEFAULT_LAT)));
+        org.setDefaultlongitude(rs.getDouble(findColumn(rs, SADisplayConstants.DEFAULT_LON)));
+        org.setDistribution(rs.getString(findColumn(rs, SADisplayConstants.DISTRIBUTION)));
+        org.setPrefix(rs.getString(findColumn(rs, SADisplayConstants.PREFIX)));
+        org.setState(rs.getString(findColumn(rs, SADisplayConstants.STATE)));
+        org.setCounty(rs.getString(findColumn(rs, SADisplayConstants.COUNTY)));
+        org.setCountryId(rs.getInt(findColumn(rs, SADisplayConstants.COUNTRY_ID)));
+        org.setDefaultlanguage(rs.getString(findColumn(rs, SADisplayConstants.DEFAULT_LANGUAGE)));
+        org.setParentorgid(rs.getInt(findColumn(rs, SADisplayConstants.PARENT_ORG_ID)));
         if(org.getParentorgid() != null && org.getParentorgid() == 0) {
             org.setParentorgid(null);
         }
-        org.setRestrictincidents(rs.getBoolean(SADisplayConstants.ORG_RESTRICT_INCIDENTS));
-        org.setCreateincidentrequiresadmin(rs.getBoolean(SADisplayConstants.ORG_CREATE_INCIDENT_REQUIRES_ADMIN));
+        org.setRestrictincidents(rs.getBoolean(findColumn(rs, SADisplayConstants.ORG_RESTRICT_INCIDENTS)));
+        org.setCreateincidentrequiresadmin(
+                rs.getBoolean(findColumn(rs, SADisplayConstants.ORG_CREATE_INCIDENT_REQUIRES_ADMIN)));
         return org;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.ORG_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID));
     }
 }
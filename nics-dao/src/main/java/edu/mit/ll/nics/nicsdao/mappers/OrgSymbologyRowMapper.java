@@ -47,13 +47,14 @@ public class OrgSymbologyRowMapper extends JoinRowMapper<OrgSymbology> {
 
     @Override
     public OrgSymbology createRowObject(ResultSet rs, int rowNum) throws SQLException {
-        OrgSymbology orgSymbology = new OrgSymbology(rs.getInt(SADisplayConstants.ORG_SYMBOLOGY_ID),
-                rs.getInt(SADisplayConstants.ORG_ID), rs.getInt(SADisplayConstants.SYMBOLOGY_ID));
+        OrgSymbology orgSymbology = new OrgSymbology(rs.getInt(findColumn(rs, SADisplayConstants.ORG_SYMBOLOGY_ID)),
+                rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID)),
+                rs.getInt(findColumn(rs, SADisplayConstants.SYMBOLOGY_ID)));
 
         return orgSymbology;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.ORG_SYMBOLOGY_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.ORG_SYMBOLOGY_ID));
     }
 }
\ No newline at end of file
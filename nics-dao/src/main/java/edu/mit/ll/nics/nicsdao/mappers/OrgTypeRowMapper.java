@@ -44,13 +44,13 @@ public class OrgTypeRowMapper extends JoinRowMapper<OrgType> {
     @Override
     public OrgType createRowObject(ResultSet rs, int rowNum) throws SQLException {
         OrgType orgtype = new OrgType();
-        orgtype.setOrgTypeId(rs.getInt(SADisplayConstants.ORG_TYPE_ID));
-        orgtype.setOrgTypeName(rs.getString(SADisplayConstants.ORG_TYPE_NAME));
+        orgtype.setOrgTypeId(rs.getInt(findColumn(rs, SADisplayConstants.ORG_TYPE_ID)));
+        orgtype.setOrgTypeName(rs.getString(findColumn(rs, SADisplayConstants.ORG_TYPE_NAME)));
         return orgtype;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.ORG_TYPE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.ORG_TYPE_ID));
     }
 
 }
@@ -45,16 +45,16 @@ public class RegionRowMapper extends JoinRowMapper<Region> {
     public Region createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Region region = new Region();
 
-        region.setRegionId(rs.getInt(SADisplayConstants.REGION_ID));
-        region.setCountryId(rs.getInt(SADisplayConstants.COUNTRY_ID));
-        region.setRegionCode(rs.getString(SADisplayConstants.REGION_CODE));
-        region.setRegionName(rs.getString(SADisplayConstants.REGION_NAME));
+        region.setRegionId(rs.getInt(findColumn(rs, SADisplayConstants.REGION_ID)));
+        region.setCountryId(rs.getInt(findColumn(rs, SADisplayConstants.COUNTRY_ID)));
+        region.setRegionCode(rs.getString(findColumn(rs, SADisplayConstants.REGION_CODE)));
+        region.setRegionName(rs.getString(findColumn(rs, SADisplayConstants.REGION_NAME)));
 
         return region;
     }
 
     @Override
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.REGION_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.REGION_ID));
     }
 }
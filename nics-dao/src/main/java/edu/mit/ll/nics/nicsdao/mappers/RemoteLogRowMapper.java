@@ -56,14 +56,14 @@ public class RemoteLogRowMapper extends JoinRowMapper<RemoteLog> {
             throws SQLException {
 
         RemoteLog log = new RemoteLog();
-        log.setId(rs.getLong(SADisplayConstants.ID));
-        log.setType(rs.getInt(SADisplayConstants.TYPE));
-        log.setUsername(rs.getString(SADisplayConstants.USER_NAME));
-        log.setMessage(rs.getString(SADisplayConstants.MESSAGE));
-        log.setCreated(rs.getDate(SADisplayConstants.CREATED));
-        log.setUsersessionid(rs.getInt(SADisplayConstants.USERSESSION_ID));
-        log.setWorkspaceId(rs.getInt(SADisplayConstants.WORKSPACE_ID));
-        log.setError(rs.getString(SADisplayConstants.REMOTELOG_ERROR));
+        log.setId(rs.getLong(findColumn(rs, SADisplayConstants.ID)));
+        log.setType(rs.getInt(findColumn(rs, SADisplayConstants.TYPE)));
+        log.setUsername(rs.getString(findColumn(rs, SADisplayConstants.USER_NAME)));
+        log.setMessage(rs.getString(findColumn(rs, SADisplayConstants.MESSAGE)));
+        log.setCreated(rs.getDate(findColumn(rs, SADisplayConstants.CREATED)));
+        log.setUsersessionid(rs.getInt(findColumn(rs, SADisplayConstants.USERSESSION_ID)));
+        log.setWorkspaceId(rs.getInt(findColumn(rs, SADisplayConstants.WORKSPACE_ID)));
+        log.setError(rs.getString(findColumn(rs, SADisplayConstants.REMOTELOG_ERROR)));
         return log;
     }
 
@@ -72,6 +72,6 @@ public class RemoteLogRowMapper extends JoinRowMapper<RemoteLog> {
      * Specifies the ID column as the primary key
      */
     public Long getKey(ResultSet rs) throws SQLException {
-        return rs.getLong(SADisplayConstants.ID);
+        return rs.getLong(findColumn(rs, SADisplayConstants.ID));
     }
 }
\ No newline at end of file
@@ -52,13 +52,13 @@ public class RemoteLogTypeRowMapper extends JoinRowMapper<RemoteLogType> {
             throws SQLException {
 
         RemoteLogType logType = new RemoteLogType();
-        logType.setId(rs.getInt(SADisplayConstants.ID));
-        logType.setName(rs.getString(SADisplayConstants.NAME));
+        logType.setId(rs.getInt(findColumn(rs, SADisplayConstants.ID)));
+        logType.setName(rs.getString(findColumn(rs, SADisplayConstants.NAME)));
 
         return logType;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.ID));
     }
 }
\ No newline at end of file
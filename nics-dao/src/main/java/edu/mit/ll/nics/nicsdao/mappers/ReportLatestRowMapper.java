@@ -44,14 +44,14 @@ public class ReportLatestRowMapper extends JoinRowMapper<ReportLatest> {
     @Override
     public ReportLatest createRowObject(ResultSet rs, int rowNum) throws SQLException {
         ReportLatest form = new ReportLatest();
-        form.setUsername(rs.getString(SADisplayConstants.USER_NAME));
-        form.setFormId(rs.getInt(SADisplayConstants.FORM_ID));
+        form.setUsername(rs.getString(findColumn(rs, SADisplayConstants.USER_NAME)));
+        form.setFormId(rs.getInt(findColumn(rs, SADisplayConstants.FORM_ID)));
         //form.setFormTypeId(rs.getInt(SADisplayConstants.FORM_TYPE_ID));
         //form.setIncidentId(rs.getInt(SADisplayConstants.INCIDENT_ID));
         //form.setIncidentName(rs.getString(SADisplayConstants.INCIDENT_NAME));
-        form.setMessage(rs.getString(SADisplayConstants.MESSAGE));
+        form.setMessage(rs.getString(findColumn(rs, SADisplayConstants.MESSAGE)));
         //form.setSeqNum(rs.getLong(SADisplayConstants.SEQ_NUM));
-        form.setSeqTime(rs.getLong(SADisplayConstants.SEQ_TIME));
+        form.setSeqTime(rs.getLong(findColumn(rs, SADisplayConstants.SEQ_TIME)));
         //form.setUserSessionId(rs.getInt(SADisplayConstants.USERSESSION_ID));
 
         return form;
@@ -59,6 +59,6 @@ public class ReportLatestRowMapper extends JoinRowMapper<ReportLatest> {
     }
     
     public Integer getKey(ResultSet rs) throws SQLException{
-    	return rs.getInt(SADisplayConstants.FORM_ID);
+    	return rs.getInt(findColumn(rs, SADisplayConstants.FORM_ID));
     }
 }
\ No newline at end of file
@@ -44,13 +44,13 @@ public class RootFolderRowMapper extends JoinRowMapper<Rootfolder> {
     @Override
     public Rootfolder createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Rootfolder folder = new Rootfolder();
-        folder.setFolderid(rs.getString(SADisplayConstants.FOLDER_ID));
-        folder.setRootid(rs.getString(SADisplayConstants.ROOT_FOLDER_ID));
-        folder.setTabname(rs.getString(SADisplayConstants.TABNAME));
+        folder.setFolderid(rs.getString(findColumn(rs, SADisplayConstants.FOLDER_ID)));
+        folder.setRootid(rs.getString(findColumn(rs, SADisplayConstants.ROOT_FOLDER_ID)));
+        folder.setTabname(rs.getString(findColumn(rs, SADisplayConstants.TABNAME)));
         return folder;
     }
 
     public String getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.ROOT_FOLDER_ID);
+        return rs.getString(findColumn(rs, SADisplayConstants.ROOT_FOLDER_ID));
     }
 }
\ No newline at end of file
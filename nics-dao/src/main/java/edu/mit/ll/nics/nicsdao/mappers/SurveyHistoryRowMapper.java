@@ -58,18 +58,18 @@ public class SurveyHistoryRowMapper extends JoinRowMapper<SurveyHistory> {
     public SurveyHistory createRowObject(ResultSet rs, int rowNum) throws SQLException {
         // initialize Survey
         SurveyHistory s = new SurveyHistory();
-        s.setSurveyHistoryId(rs.getLong(SADisplayConstants.SURVEYHISTORY_ID));
-        s.setSurveyid(rs.getInt(SADisplayConstants.SURVEY_ID));
-        s.setTitle(rs.getString(SADisplayConstants.SURVEY_TITLE));
-        s.setSurvey(rs.getString(SADisplayConstants.SURVEY_SURVEY));
-        s.setOriginaldate(rs.getTimestamp(SADisplayConstants.SURVEYHISTORY_ORIGINALDATE));
-        s.setArchiveddate(rs.getTimestamp(SADisplayConstants.SURVEYHISTORY_ARCHIVEDDATE));
+        s.setSurveyHistoryId(rs.getLong(findColumn(rs, SADisplayConstants.SURVEYHISTORY_ID)));
+        s.setSurveyid(rs.getInt(findColumn(rs, SADisplayConstants.SURVEY_ID)));
+        s.setTitle(rs.getString(findColumn(rs, SADisplayConstants.SURVEY_TITLE)));
+        s.setSurvey(rs.getString(findColumn(rs, SADisplayConstants.SURVEY_SURVEY)));
+        s.setOriginaldate(rs.getTimestamp(findColumn(rs, SADisplayConstants.SURVEYHISTORY_ORIGINALDATE)));
+        s.setArchiveddate(rs.getTimestamp(findColumn(rs, SADisplayConstants.SURVEYHISTORY_ARCHIVEDDATE)));
 
         return s;
     }
 
     @Override
     public Object getKey(ResultSet rs) throws SQLException {
-        return rs.getLong(SADisplayConstants.SURVEYHISTORY_ID);
+        return rs.getLong(findColumn(rs, SADisplayConstants.SURVEYHISTORY_ID));
     }
 }
@@ -60,14 +60,14 @@ public class SurveyMetadataRowMapper extends JoinRowMapper<Survey> {
     public Survey createRowObject(ResultSet rs, int rowNum) throws SQLException {
 
         Survey s = new Survey();
-        s.setSurveyid(rs.getInt(SADisplayConstants.SURVEY_ID));
-        s.setTitle(rs.getString(SADisplayConstants.SURVEY_TITLE));
+        s.setSurveyid(rs.getInt(findColumn(rs, SADisplayConstants.SURVEY_ID)));
+        s.setTitle(rs.getString(findColumn(rs, SADisplayConstants.SURVEY_TITLE)));
 
         return s;
     }
 
     @Override
     public Object getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.SURVEY_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.SURVEY_ID));
     }
 }
@@ -59,9 +59,9 @@ public class SurveyResultRowMapper extends JoinRowMapper<SurveyResult> {
     public SurveyResult createRowObject(ResultSet rs, int rowNum) throws SQLException {
         // initialize Survey
         SurveyResult s = new SurveyResult();
-        s.setSurveyresultid(rs.getInt(SADisplayConstants.SURVEYRESULT_ID));
-        s.setSurveyid(rs.getInt(SADisplayConstants.SURVEY_ID));
-        s.setUserid(rs.getString(SADisplayConstants.SURVEYRESULT_USER));
+        s.setSurveyresultid(rs.getInt(findColumn(rs, SADisplayConstants.SURVEYRESULT_ID)));
+        s.setSurveyid(rs.getInt(findColumn(rs, SADisplayConstants.SURVEY_ID)));
+        s.setUserid(rs.getString(findColumn(rs, SADisplayConstants.SURVEYRESULT_USER)));
 
         /*JSONObject surveyJson = null;
         try {
@@ -70,15 +70,15 @@ public class SurveyResultRowMapper extends JoinRowMapper<SurveyResult> {
             throw new SQLException("JSON exception reading surveyresult", e);
         }
         s.setSurveyresult(surveyJson);*/
-        s.setSurveyresult(rs.getString(SADisplayConstants.SURVEYRESULT_SURVEYRESULT));
+        s.setSurveyresult(rs.getString(findColumn(rs, SADisplayConstants.SURVEYRESULT_SURVEYRESULT)));
 
-        s.setCreated(rs.getTimestamp(SADisplayConstants.SURVEY_CREATED));
+        s.setCreated(rs.getTimestamp(findColumn(rs, SADisplayConstants.SURVEY_CREATED)));
 
         return s;
     }
 
     @Override
     public Object getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.SURVEYRESULT_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.SURVEYRESULT_ID));
     }
 }
@@ -59,16 +59,16 @@ public class SurveyRowMapper extends JoinRowMapper<Survey> {
     public Survey createRowObject(ResultSet rs, int rowNum) throws SQLException {
         // initialize Survey
         Survey s = new Survey();
-        s.setSurveyid(rs.getInt(SADisplayConstants.SURVEY_ID));
-        s.setTitle(rs.getString(SADisplayConstants.SURVEY_TITLE));
-        s.setSurvey(rs.getString(SADisplayConstants.SURVEY_SURVEY));
-        s.setCreated(rs.getTimestamp(SADisplayConstants.SURVEY_CREATED));
+        s.setSurveyid(rs.getInt(findColumn(rs, SADisplayConstants.SURVEY_ID)));
+        s.setTitle(rs.getString(findColumn(rs, SADisplayConstants.SURVEY_TITLE)));
+        s.setSurvey(rs.getString(findColumn(rs, SADisplayConstants.SURVEY_SURVEY)));
+        s.setCreated(rs.getTimestamp(findColumn(rs, SADisplayConstants.SURVEY_CREATED)));
 
         return s;
     }
 
     @Override
     public Object getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.SURVEY_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.SURVEY_ID));
     }
 }
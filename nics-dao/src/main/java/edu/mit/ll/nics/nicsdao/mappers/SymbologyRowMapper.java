@@ -49,17 +49,17 @@ public class SymbologyRowMapper extends JoinRowMapper<Symbology> {
     @Override
     public Symbology createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Symbology symbology = new Symbology();
-        symbology.setSymbologyid(rs.getInt(SADisplayConstants.SYMBOLOGY_ID));
-        symbology.setName(rs.getString(SADisplayConstants.SYMBOLOGY_NAME));
-        symbology.setDescription(rs.getString(SADisplayConstants.SYMBOLOGY_DESCRIPTION));
-        symbology.setOwner(rs.getString(SADisplayConstants.SYMBOLOGY_OWNER));
-        symbology.setListing(rs.getString(SADisplayConstants.SYMBOLOGY_LISTING));
-        symbology.setCreated(rs.getTimestamp(SADisplayConstants.SYMBOLOGY_CREATED));
+        symbology.setSymbologyid(rs.getInt(findColumn(rs, SADisplayConstants.SYMBOLOGY_ID)));
+        symbology.setName(rs.getString(findColumn(rs, SADisplayConstants.SYMBOLOGY_NAME)));
+        symbology.setDescription(rs.getString(findColumn(rs, SADisplayConstants.SYMBOLOGY_DESCRIPTION)));
+        symbology.setOwner(rs.getString(findColumn(rs, SADisplayConstants.SYMBOLOGY_OWNER)));
+        symbology.setListing(rs.getString(findColumn(rs, SADisplayConstants.SYMBOLOGY_LISTING)));
+        symbology.setCreated(rs.getTimestamp(findColumn(rs, SADisplayConstants.SYMBOLOGY_CREATED)));
         return symbology;
     }
 
     @Override
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.SYMBOLOGY_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.SYMBOLOGY_ID));
     }
 }
\ No newline at end of file
@@ -44,12 +44,12 @@ public class SystemRoleRowMapper extends JoinRowMapper<SystemRole> {
     @Override
     public SystemRole createRowObject(ResultSet rs, int rowNum) throws SQLException {
         SystemRole role = new SystemRole();
-        role.setRolename(rs.getString(SADisplayConstants.SYSTEM_ROLE_NAME));
-        role.setSystemroleid(rs.getInt(SADisplayConstants.SYSTEM_ROLE_ID));
+        role.setRolename(rs.getString(findColumn(rs, SADisplayConstants.SYSTEM_ROLE_NAME)));
+        role.setSystemroleid(rs.getInt(findColumn(rs, SADisplayConstants.SYSTEM_ROLE_ID)));
         return role;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.SYSTEM_ROLE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.SYSTEM_ROLE_ID));
     }
 }
\ No newline at end of file
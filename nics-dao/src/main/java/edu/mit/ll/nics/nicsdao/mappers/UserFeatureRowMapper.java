@@ -44,13 +44,13 @@ public class UserFeatureRowMapper extends JoinRowMapper<UserFeature> {
     @Override
     public UserFeature createRowObject(ResultSet rs, int rowNum) throws SQLException {
         UserFeature userfeature = new UserFeature();
-        userfeature.setFeatureId(rs.getLong(SADisplayConstants.FEATURE_ID));
-        userfeature.setUserFeatureId(rs.getInt(SADisplayConstants.USER_FEATURE_ID));
-        userfeature.setUserId(rs.getInt(SADisplayConstants.USER_ID));
+        userfeature.setFeatureId(rs.getLong(findColumn(rs, SADisplayConstants.FEATURE_ID)));
+        userfeature.setUserFeatureId(rs.getInt(findColumn(rs, SADisplayConstants.USER_FEATURE_ID)));
+        userfeature.setUserId(rs.getInt(findColumn(rs, SADisplayConstants.USER_ID)));
         return userfeature;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.USER_FEATURE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.USER_FEATURE_ID));
     }
 }
@@ -43,23 +43,23 @@ public class UserOrgRowMapper extends JoinRowMapper<UserOrg> {
 
     @Override
     public UserOrg createRowObject(ResultSet rs, int rowNum) throws SQLException {
-        int userorgid = rs.getInt(SADisplayConstants.USER_ORG_ID);
+        int userorgid = rs.getInt(findColumn(rs, SADisplayConstants.USER_ORG_ID));
         if(userorgid != 0) {
             UserOrg userorg = new UserOrg();
             userorg.setUserorgid(userorgid);
-            userorg.setUserId(rs.getInt(SADisplayConstants.USER_ID));
-            userorg.setSystemroleid(rs.getInt(SADisplayConstants.SYSTEM_ROLE_ID));
-            userorg.setDescription(rs.getString(SADisplayConstants.DESCRIPTION));
-            userorg.setRank(rs.getString(SADisplayConstants.RANK));
-            userorg.setJobTitle(rs.getString(SADisplayConstants.JOB_TITLE));
-            userorg.setOrgId(rs.getInt(SADisplayConstants.ORG_ID));
-            userorg.setDefaultLanguage(rs.getString(SADisplayConstants.DEFAULT_LANGUAGE));
+            userorg.setUserId(rs.getInt(findColumn(rs, SADisplayConstants.USER_ID)));
+            userorg.setSystemroleid(rs.getInt(findColumn(rs, SADisplayConstants.SYSTEM_ROLE_ID)));
+            userorg.setDescription(rs.getString(findColumn(rs, SADisplayConstants.DESCRIPTION)));
+            userorg.setRank(rs.getString(findColumn(rs, SADisplayConstants.RANK)));
+            userorg.setJobTitle(rs.getString(findColumn(rs, SADisplayConstants.JOB_TITLE)));
+            userorg.setOrgId(rs.getInt(findColumn(rs, SADisplayConstants.ORG_ID)));
+            userorg.setDefaultLanguage(rs.getString(findColumn(rs, SADisplayConstants.DEFAULT_LANGUAGE)));
             return userorg;
         }
         return null;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.USER_ORG_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.USER_ORG_ID));
     }
 }
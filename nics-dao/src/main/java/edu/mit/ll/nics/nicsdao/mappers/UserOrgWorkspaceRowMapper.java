@@ -45,19 +45,19 @@ public class UserOrgWorkspaceRowMapper extends JoinRowMapper<UserOrgWorkspace> {
 
     @Override
     public UserOrgWorkspace createRowObject(ResultSet rs, int rowNum) throws SQLException {
-        int userorgworkspaceid = rs.getInt(SADisplayConstants.USER_ORG_WORKSPACE_ID);
+        int userorgworkspaceid = rs.getInt(findColumn(rs, SADisplayConstants.USER_ORG_WORKSPACE_ID));
         if(userorgworkspaceid != 0) {
             UserOrgWorkspace userorgworkspace = new UserOrgWorkspace();
             userorgworkspace.setUserorgworkspaceid(userorgworkspaceid);
-            userorgworkspace.setEnabled(rs.getBoolean(SADisplayConstants.ENABLED));
-            userorgworkspace.setUserorgworkspaceid(rs.getInt(SADisplayConstants.USER_ORG_ID));
-            userorgworkspace.setWorkspaceid(rs.getInt(SADisplayConstants.WORKSPACE_ID));
+            userorgworkspace.setEnabled(rs.getBoolean(findColumn(rs, SADisplayConstants.ENABLED)));
+            userorgworkspace.setUserorgworkspaceid(rs.getInt(findColumn(rs, SADisplayConstants.USER_ORG_ID)));
+            userorgworkspace.setWorkspaceid(rs.getInt(findColumn(rs, SADisplayConstants.WORKSPACE_ID)));
             return userorgworkspace;
         }
         return null;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.USER_ORG_WORKSPACE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.USER_ORG_WORKSPACE_ID));
     }
 }
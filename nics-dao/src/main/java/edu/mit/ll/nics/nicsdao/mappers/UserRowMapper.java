@@ -44,16 +44,16 @@ public class UserRowMapper extends JoinRowMapper<User> {
     @Override
     public User createRowObject(ResultSet rs, int rowNum) throws SQLException {
         User user = new User();
-        user.setUserId(rs.getInt(SADisplayConstants.USER_ID));
-        user.setActive(rs.getBoolean(SADisplayConstants.ACTIVE));
-        user.setFirstname(rs.getString(SADisplayConstants.FIRSTNAME));
-        user.setLastname(rs.getString(SADisplayConstants.LASTNAME));
-        user.setUsername(rs.getString(SADisplayConstants.USER_NAME));
+        user.setUserId(rs.getInt(findColumn(rs, SADisplayConstants.USER_ID)));
+        user.setActive(rs.getBoolean(findColumn(rs, SADisplayConstants.ACTIVE)));
+        user.setFirstname(rs.getString(findColumn(rs, SADisplayConstants.FIRSTNAME)));
+        user.setLastname(rs.getString(findColumn(rs, SADisplayConstants.LASTNAME)));
+        user.setUsername(rs.getString(findColumn(rs, SADisplayConstants.USER_NAME)));
 
         return user;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.USER_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.USER_ID));
     }
 }
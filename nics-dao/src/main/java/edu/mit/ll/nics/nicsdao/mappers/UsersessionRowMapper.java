@@ -44,15 +44,15 @@ public class UsersessionRowMapper extends JoinRowMapper<Usersession> {
     @Override
     public Usersession createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Usersession usersession = new Usersession();
-        usersession.setUsersessionid(rs.getInt(SADisplayConstants.USERSESSION_ID));
-        usersession.setUserorgid(rs.getInt(SADisplayConstants.USER_ORG_ID));
-        usersession.setLoggedin(rs.getTimestamp(SADisplayConstants.LOGGED_IN));
-        usersession.setLoggedout(rs.getTimestamp(SADisplayConstants.LOGGED_OUT));
-        usersession.setSessionid(rs.getString(SADisplayConstants.SESSION_ID));
+        usersession.setUsersessionid(rs.getInt(findColumn(rs, SADisplayConstants.USERSESSION_ID)));
+        usersession.setUserorgid(rs.getInt(findColumn(rs, SADisplayConstants.USER_ORG_ID)));
+        usersession.setLoggedin(rs.getTimestamp(findColumn(rs, SADisplayConstants.LOGGED_IN)));
+        usersession.setLoggedout(rs.getTimestamp(findColumn(rs, SADisplayConstants.LOGGED_OUT)));
+        usersession.setSessionid(rs.getString(findColumn(rs, SADisplayConstants.SESSION_ID)));
         return usersession;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.USERSESSION_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.USERSESSION_ID));
     }
 }
\ No newline at end of file
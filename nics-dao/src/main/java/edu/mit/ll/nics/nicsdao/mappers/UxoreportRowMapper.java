@@ -47,17 +47,17 @@ public class UxoreportRowMapper extends JoinRowMapper<Uxoreport> {
     public Uxoreport createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Uxoreport report = new Uxoreport();
 
-        report.setUxoreportid(rs.getLong("uxoreportid"));
-        report.setIncidentid(rs.getInt("incidentid"));
-        report.setMessage(rs.getString("message"));
-        report.setLat(rs.getDouble("lat"));
-        report.setLon(rs.getDouble("lon"));
+        report.setUxoreportid(rs.getLong(findColumn(rs, "uxoreportid")));
+        report.setIncidentid(rs.getInt(findColumn(rs, "incidentid")));
+        report.setMessage(rs.getString(findColumn(rs, "message")));
+        report.setLat(rs.getDouble(findColumn(rs, "lat")));
+        report.setLon(rs.getDouble(findColumn(rs, "lon")));
 
         return report;
     }
 
     @Override
     public Object getKey(ResultSet rs) throws SQLException {
-        return rs.getString(SADisplayConstants.UXOREPORTID);
+        return rs.getString(findColumn(rs, SADisplayConstants.UXOREPORTID));
     }
 }
@@ -44,13 +44,13 @@ public class WorkspaceRowMapper extends JoinRowMapper<Workspace> {
     @Override
     public Workspace createRowObject(ResultSet rs, int rowNum) throws SQLException {
         Workspace workspace = new Workspace();
-        workspace.setWorkspacename(rs.getString(SADisplayConstants.WORKSPACE_NAME));
-        workspace.setWorkspaceid(rs.getInt(SADisplayConstants.WORKSPACE_ID));
-        workspace.setEnabled(rs.getBoolean(SADisplayConstants.ENABLED));
+        workspace.setWorkspacename(rs.getString(findColumn(rs, SADisplayConstants.WORKSPACE_NAME)));
+        workspace.setWorkspaceid(rs.getInt(findColumn(rs, SADisplayConstants.WORKSPACE_ID)));
+        workspace.setEnabled(rs.getBoolean(findColumn(rs, SADisplayConstants.ENABLED)));
         return workspace;
     }
 
     public Integer getKey(ResultSet rs) throws SQLException {
-        return rs.getInt(SADisplayConstants.WORKSPACE_ID);
+        return rs.getInt(findColumn(rs, SADisplayConstants.WORKSPACE_ID));
     }
 }
\ No newline at end of file
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.nicsdao.test.mdt;
+
+import edu.mit.ll.nics.common.entity.MobileDeviceTrack;
+import edu.mit.ll.nics.nicsdao.BaseDAO;
+import edu.mit.ll.nics.nicsdao.MobileDeviceTrackDao;
+import edu.mit.ll.nics.nicsdao.MobileDeviceTrackIngest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import javax.sql.DataSource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the batching, coalescing and shutdown of MobileDeviceTrackIngest against an in-memory DAO
+ */
+public class MobileDeviceTrackIngestTest {
+
+    @Test
+    public void testCoalescesLatestPingPerTrack() throws InterruptedException {
+        RecordingDao dao = new RecordingDao();
+        MobileDeviceTrackIngest ingest = new MobileDeviceTrackIngest(dao, 100, 100, 60000);
+        ingest.offer(track("device1", "user1", 1.0));
+        ingest.offer(track("device2", "user1", 2.0));
+        ingest.offer(track("device1", "user1", 3.0));
+        ingest.offer(track("device1", "user1", 4.0));
+        ingest.close();
+
+        Assert.assertEquals(dao.batches.size(), 1);
+        List<MobileDeviceTrack> batch = dao.batches.get(0);
+        Assert.assertEquals(batch.size(), 2);
+        Assert.assertEquals(batch.get(0).getDeviceId(), "device1");
+        Assert.assertEquals(batch.get(0).getLatitude(), Double.valueOf(4.0));
+        Assert.assertEquals(batch.get(1).getDeviceId(), "device2");
+        Assert.assertEquals(ingest.getReceived(), 4);
+        Assert.assertEquals(ingest.getCoalesced(), 2);
+        Assert.assertEquals(ingest.getPersisted(), 2);
+    }
+
+    @Test
+    public void testSameDeviceInAnotherWorkspaceIsNotCoalesced() throws InterruptedException {
+        RecordingDao dao = new RecordingDao();
+        MobileDeviceTrackIngest ingest = new MobileDeviceTrackIngest(dao, 100, 100, 60000);
+        MobileDeviceTrack other = track("device1", "user1", 2.0);
+        other.setWorkspaceId(2);
+        ingest.offer(track("device1", "user1", 1.0));
+        ingest.offer(other);
+        ingest.close();
+
+        Assert.assertEquals(dao.persisted(), 2);
+        Assert.assertEquals(ingest.getCoalesced(), 0);
+    }
+
+    @Test
+    public void testFlushesWhenBatchSizeIsReached() throws InterruptedException {
+        RecordingDao dao = new RecordingDao();
+        MobileDeviceTrackIngest ingest = new MobileDeviceTrackIngest(dao, 100, 10, 60000);
+        for(int i = 0; i < 25; i++) {
+            Assert.assertTrue(ingest.offer(track("device" + i, "user1", i)));
+        }
+
+        waitFor(() -> dao.batches.size() == 2);
+        Assert.assertEquals(dao.batches.get(0).size(), 10);
+        Assert.assertEquals(dao.batches.get(1).size(), 10);
+
+        ingest.close();
+        Assert.assertEquals(dao.batches.size(), 3);
+        Assert.assertEquals(dao.batches.get(2).size(), 5);
+        Assert.assertEquals(ingest.getFlushes(), 3);
+    }
+
+    @Test
+    public void testFlushesWhenIntervalElapses() throws InterruptedException {
+        RecordingDao dao = new RecordingDao();
+        MobileDeviceTrackIngest ingest = new MobileDeviceTrackIngest(dao, 100, 1000, 100);
+        long start = System.nanoTime();
+        ingest.offer(track("device1", "user1", 1.0));
+        ingest.offer(track("device2", "user1", 1.0));
+
+        waitFor(() -> dao.persisted() == 2);
+        Assert.assertTrue(System.nanoTime() - start >= 100000000L, "flushed before the interval elapsed");
+        Assert.assertEquals(dao.batches.size(), 1);
+        Assert.assertEquals(ingest.getQueueDepth(), 0);
+        ingest.close();
+    }
+
+    @Test
+    public void testCloseWritesEverythingQueued() throws InterruptedException {
+        RecordingDao dao = new RecordingDao();
+        dao.delayMillis = 20;
+        MobileDeviceTrackIngest ingest = new MobileDeviceTrackIngest(dao, 1000, 5, 60000);
+        for(int i = 0; i < 200; i++) {
+            Assert.assertTrue(ingest.offer(track("device" + i, "user1", i)));
+        }
+        ingest.close();
+
+        Assert.assertEquals(dao.persisted(), 200);
+        Assert.assertEquals(ingest.getPersisted(), 200);
+        Assert.assertEquals(ingest.getQueueDepth(), 0);
+        Assert.assertFalse(ingest.offer(track("late", "user1", 1.0)));
+        Assert.assertEquals(ingest.getRejected(), 1);
+    }
+
+    @Test
+    public void testNoAcceptedPingIsLostWhenClosingUnderLoad() throws InterruptedException {
+        for(int round = 0; round < 20; round++) {
+            RecordingDao dao = new RecordingDao();
+            MobileDeviceTrackIngest ingest = new MobileDeviceTrackIngest(dao, 100000, 50, 5);
+            AtomicInteger accepted = new AtomicInteger();
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> producers = new ArrayList<Thread>();
+            for(int p = 0; p < 4; p++) {
+                final int producer = p;
+                Thread thread = new Thread(() -> {
+                    started.countDown();
+                    for(int i = 0; ; i++) {
+                        if(!ingest.offer(track("device" + producer + "-" + i, "user1", i))) {
+                            return;
+                        }
+                        accepted.incrementAndGet();
+                    }
+                });
+                thread.start();
+                producers.add(thread);
+            }
+
+            started.await();
+            Thread.sleep(2);
+            ingest.close();
+            for(Thread thread : producers) {
+                thread.join();
+            }
+
+            Assert.assertEquals(dao.persisted(), accepted.get());
+            Assert.assertEquals(ingest.getReceived(), accepted.get());
+        }
+    }
+
+    @Test
+    public void testFailedBatchIsCountedAndNotRetried() throws InterruptedException {
+        RecordingDao dao = new RecordingDao();
+        dao.fail = true;
+        MobileDeviceTrackIngest ingest = new MobileDeviceTrackIngest(dao, 100, 100, 60000);
+        ingest.offer(track("device1", "user1", 1.0));
+        ingest.close();
+
+        Assert.assertEquals(ingest.getFailedFlushes(), 1);
+        Assert.assertEquals(ingest.getFlushes(), 1);
+        Assert.assertEquals(ingest.getPersisted(), 0);
+        Assert.assertEquals(dao.attempts.get(), 1);
+    }
+
+    @Test
+    public void testDefaultBatchInsertWritesEachTrack() {
+        RecordingDao dao = new RecordingDao();
+        MobileDeviceTrack noDevice = track(null, "user1", 2.0);
+        int persisted = dao.insertEach(Arrays.asList(track("device1", "user1", 1.0), noDevice,
+                track("device2", "user1", 3.0)));
+
+        Assert.assertEquals(persisted, 2);
+        Assert.assertEquals(dao.singles.size(), 3);
+    }
+
+    private static MobileDeviceTrack track(String deviceId, String username, double latitude) {
+        MobileDeviceTrack track = new MobileDeviceTrack();
+        track.setDeviceId(deviceId);
+        track.setUsername(username);
+        track.setWorkspaceId(1);
+        track.setLatitude(latitude);
+        track.setLongitude(-71.0);
+        return track;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while(!condition.getAsBoolean()) {
+            if(System.currentTimeMillis() > deadline) {
+                Assert.fail("Timed out waiting for the ingest");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Records the batches it is given. Single tracks without a deviceId are refused.
+     */
+    private static class RecordingDao implements MobileDeviceTrackDao {
+
+        private final List<List<MobileDeviceTrack>> batches = new CopyOnWriteArrayList<List<MobileDeviceTrack>>();
+        private final List<MobileDeviceTrack> singles = new CopyOnWriteArrayList<MobileDeviceTrack>();
+        private final AtomicInteger attempts = new AtomicInteger();
+        private volatile long delayMillis;
+        private volatile boolean fail;
+
+        @Override
+        public boolean insertOrUpdate(MobileDeviceTrack mobileDeviceTrack) throws DataAccessException {
+            singles.add(mobileDeviceTrack);
+            return mobileDeviceTrack.getDeviceId() != null;
+        }
+
+        @Override
+        public int insertOrUpdate(Collection<MobileDeviceTrack> mobileDeviceTracks) throws DataAccessException {
+            attempts.incrementAndGet();
+            if(delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if(fail) {
+                throw new DataAccessResourceFailureException("test failure");
+            }
+            batches.add(new ArrayList<MobileDeviceTrack>(mobileDeviceTracks));
+            return mobileDeviceTracks.size();
+        }
+
+        private int insertEach(Collection<MobileDeviceTrack> mobileDeviceTracks) {
+            return MobileDeviceTrackDao.super.insertOrUpdate(mobileDeviceTracks);
+        }
+
+        private int persisted() {
+            int count = 0;
+            for(List<MobileDeviceTrack> batch : batches) {
+                count += batch.size();
+            }
+            return count;
+        }
+
+        @Override
+        public boolean delete(String deviceId, String username, Integer workspaceId) throws DataAccessException {
+            return false;
+        }
+
+        @Override
+        public MobileDeviceTrack getTrackById(long mobileDeviceTrackId) throws DataAccessException {
+            return null;
+        }
+
+        @Override
+        public MobileDeviceTrack getMobileDeviceTrack(String deviceId, String username, Integer workspaceId)
+                throws DataAccessException {
+            return null;
+        }
+
+        @Override
+        public BaseDAO getDataSource() {
+            return null;
+        }
+
+        @Override
+        public void setDataSource(DataSource dataSource) {
+        }
+    }
+}
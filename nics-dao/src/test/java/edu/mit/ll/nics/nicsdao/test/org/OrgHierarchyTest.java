@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.nicsdao.test.org;
+
+import edu.mit.ll.nics.nicsdao.OrgHierarchy;
+import java.util.Arrays;
+import java.util.Collections;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the closures computed by OrgHierarchy against an in-memory org table
+ */
+public class OrgHierarchyTest {
+
+    private DriverManagerDataSource dataSource;
+
+    private NamedParameterJdbcTemplate template;
+
+    @BeforeMethod
+    public void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:orghierarchy", "sa", "");
+        dataSource.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+        template = new NamedParameterJdbcTemplate(dataSource);
+        template.getJdbcOperations().execute("DROP TABLE org IF EXISTS");
+        template.getJdbcOperations().execute("CREATE TABLE org (orgid INTEGER PRIMARY KEY, parentorgid INTEGER)");
+
+        //   1          7      9 <-> 10
+        //  / \         |
+        // 2   3        8
+        // |   |
+        // 4   5
+        // |
+        // 6
+        addOrg(1, null);
+        addOrg(2, 1);
+        addOrg(3, 1);
+        addOrg(4, 2);
+        addOrg(5, 3);
+        addOrg(6, 4);
+        addOrg(7, 0);
+        addOrg(8, 7);
+        addOrg(9, 10);
+        addOrg(10, 9);
+    }
+
+    private void addOrg(int orgId, Integer parentOrgId) {
+        template.update("INSERT INTO org (orgid, parentorgid) VALUES (:orgid, :parentorgid)",
+                new MapSqlParameterSource("orgid", orgId).addValue("parentorgid", parentOrgId));
+    }
+
+    @Test
+    public void testDescendantsNearestFirst() {
+        OrgHierarchy hierarchy = new OrgHierarchy(dataSource);
+        Assert.assertEquals(hierarchy.getDescendants(Arrays.asList(1)), Arrays.asList(2, 3, 4, 5, 6));
+        Assert.assertEquals(hierarchy.getDescendants(Arrays.asList(6)), Collections.emptyList());
+    }
+
+    @Test
+    public void testDescendantsOfSeveralOrgsAreLevelOrdered() {
+        OrgHierarchy hierarchy = new OrgHierarchy(dataSource);
+        Assert.assertEquals(hierarchy.getDescendants(Arrays.asList(1, 7)), Arrays.asList(2, 3, 8, 4, 5, 6));
+        Assert.assertEquals(hierarchy.getDescendants(Arrays.asList(7, 1)), Arrays.asList(2, 3, 8, 4, 5, 6));
+    }
+
+    @Test
+    public void testGivenOrgsAreExcluded() {
+        OrgHierarchy hierarchy = new OrgHierarchy(dataSource);
+        Assert.assertEquals(hierarchy.getDescendants(Arrays.asList(1, 2)), Arrays.asList(3, 4, 5, 6));
+        Assert.assertEquals(hierarchy.getAncestors(Arrays.asList(6, 2)), Arrays.asList(1, 4));
+    }
+
+    @Test
+    public void testAncestors() {
+        OrgHierarchy hierarchy = new OrgHierarchy(dataSource);
+        Assert.assertEquals(hierarchy.getAncestors(Arrays.asList(6)), Arrays.asList(4, 2, 1));
+        Assert.assertEquals(hierarchy.getAncestors(Arrays.asList(6, 5)), Arrays.asList(3, 4, 1, 2));
+        Assert.assertEquals(hierarchy.getAncestors(Arrays.asList(8)), Arrays.asList(7));
+        Assert.assertEquals(hierarchy.getAncestors(Arrays.asList(7)), Collections.emptyList());
+    }
+
+    @Test
+    public void testCyclesTerminate() {
+        OrgHierarchy hierarchy = new OrgHierarchy(dataSource);
+        Assert.assertEquals(hierarchy.getDescendants(Arrays.asList(9)), Arrays.asList(10));
+        Assert.assertEquals(hierarchy.getAncestors(Arrays.asList(9)), Arrays.asList(10));
+    }
+
+    @Test
+    public void testEmptyInput() {
+        OrgHierarchy hierarchy = new OrgHierarchy(dataSource);
+        Assert.assertTrue(hierarchy.getDescendants(null).isEmpty());
+        Assert.assertTrue(hierarchy.getDescendants(Collections.<Integer>emptyList()).isEmpty());
+        Assert.assertTrue(hierarchy.getAncestors(Arrays.asList((Integer) null)).isEmpty());
+    }
+
+    @Test
+    public void testInvalidateReloads() {
+        OrgHierarchy hierarchy = new OrgHierarchy(dataSource);
+        Assert.assertEquals(hierarchy.getDescendants(Arrays.asList(7)), Arrays.asList(8));
+
+        addOrg(11, 8);
+        Assert.assertEquals(hierarchy.getDescendants(Arrays.asList(7)), Arrays.asList(8));
+
+        hierarchy.invalidate();
+        Assert.assertEquals(hierarchy.getDescendants(Arrays.asList(7)), Arrays.asList(8, 11));
+    }
+
+    @Test
+    public void testExpiredSnapshotReloads() throws InterruptedException {
+        OrgHierarchy hierarchy = new OrgHierarchy(dataSource);
+        hierarchy.setMaxAge(50);
+        Assert.assertEquals(hierarchy.getAncestors(Arrays.asList(8)), Arrays.asList(7));
+
+        addOrg(11, 8);
+        Assert.assertTrue(hierarchy.getDescendants(Arrays.asList(8)).isEmpty());
+
+        Thread.sleep(100);
+        Assert.assertEquals(hierarchy.getDescendants(Arrays.asList(8)), Arrays.asList(11));
+    }
+
+    @Test
+    public void testSharedPerDataSource() {
+        Assert.assertSame(OrgHierarchy.forDataSource(dataSource), OrgHierarchy.forDataSource(dataSource));
+        Assert.assertNotSame(OrgHierarchy.forDataSource(dataSource), new OrgHierarchy(dataSource));
+    }
+}
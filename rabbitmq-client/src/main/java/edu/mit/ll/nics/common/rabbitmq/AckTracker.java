@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Tracks the deliveries on one consumer channel and works out how far a cumulative ack (multiple=true) can go:
+ * up to just before the oldest delivery still being processed, ending on a delivery that was processed rather
+ * than rejected. The broker closes the channel if an ack names a tag it has already been nacked for.
+ *
+ * <p>{@link #delivered(long)} is called from the delivery thread and {@link #completed(long)} from workers;
+ * {@link #rejected(long)} and {@link #nextAck()} must be called under the lock that also guards the nack and ack
+ * sent to the broker. A rejected delivery must be recorded, and nacked, before it is completed.</p>
+ */
+public final class AckTracker {
+
+    private final ConcurrentSkipListSet<Long> outstanding = new ConcurrentSkipListSet<Long>();
+    private final ConcurrentSkipListSet<Long> rejected = new ConcurrentSkipListSet<Long>();
+    private volatile long lastDelivered;
+    private long lastSettled;
+
+    public void delivered(long deliveryTag) {
+        // Added to outstanding before lastDelivered is published, so nextAck() never passes an unfinished tag
+        outstanding.add(deliveryTag);
+        lastDelivered = deliveryTag;
+    }
+
+    public void completed(long deliveryTag) {
+        outstanding.remove(deliveryTag);
+    }
+
+    public void rejected(long deliveryTag) {
+        rejected.add(deliveryTag);
+    }
+
+    /**
+     * Marks every delivery up to the oldest one still outstanding as settled.
+     *
+     * @return the tag to ack with multiple=true, or 0 if nothing newly settled needs an ack
+     */
+    public long nextAck() {
+        long settled = lastDelivered;
+        if(!outstanding.isEmpty()) {
+            try {
+                settled = Math.min(settled, outstanding.first() - 1);
+            } catch(NoSuchElementException e) {
+                // Emptied since the check
+            }
+        }
+        if(settled <= lastSettled) {
+            return 0;
+        }
+        long ack = settled;
+        while(ack > lastSettled && rejected.contains(ack)) {
+            ack--;
+        }
+        rejected.headSet(settled, true).clear();
+        long previous = lastSettled;
+        lastSettled = settled;
+        return ack > previous ? ack : 0;
+    }
+
+    public int getOutstandingCount() {
+        return outstanding.size();
+    }
+}
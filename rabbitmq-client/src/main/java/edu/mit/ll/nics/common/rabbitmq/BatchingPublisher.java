@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Groups messages sent to the same routing key into one broker message, for bulk operations that publish hundreds
+ * of messages to a key at once.
+ *
+ * <p>A key's batch is published when it reaches maxMessages or maxBytes, or lingerMillis after its first message,
+ * whichever comes first. A batch holding a single message is published as a plain message; larger ones use the
+ * {@link MessageBatches} envelope, which {@link RabbitPubSubConsumer} splits again before calling its handler.
+ * Other consumers can use {@link MessageBatches#unbatch(RabbitPubSubMsg)}.</p>
+ *
+ * <p>Messages for a key are published in the order they were added. A batch published because it filled up is sent
+ * on the adding thread, so its errors are thrown from {@link #add}; errors publishing a batch whose linger expired
+ * are logged and recorded in the producer's {@link PublishMetrics}. Either way the messages in that batch are
+ * dropped.</p>
+ */
+public class BatchingPublisher implements Closeable {
+
+    public static final long DEFAULT_LINGER_MILLIS = 20;
+
+    public static final int DEFAULT_MAX_MESSAGES = 500;
+
+    public static final int DEFAULT_MAX_BYTES = 256 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(BatchingPublisher.class);
+
+    private final RabbitPubSubProducer producer;
+    private final AMQP.BasicProperties properties;
+    private final long lingerMillis;
+    private final int maxMessages;
+    private final int maxBytes;
+    private final ConcurrentHashMap<String, Batch> batches = new ConcurrentHashMap<String, Batch>();
+    private final ScheduledExecutorService timer;
+    private volatile boolean closed;
+
+    public BatchingPublisher(RabbitPubSubProducer producer, AMQP.BasicProperties properties) {
+        this(producer, properties, DEFAULT_LINGER_MILLIS, DEFAULT_MAX_MESSAGES, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param properties the properties of every message, such as {@link Payloads#JSON_UTF8}; may be null
+     */
+    public BatchingPublisher(RabbitPubSubProducer producer, AMQP.BasicProperties properties, long lingerMillis,
+                             int maxMessages, int maxBytes) {
+        this.producer = producer;
+        this.properties = properties;
+        this.lingerMillis = lingerMillis;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.timer = Executors.newSingleThreadScheduledExecutor(WorkerThreads.newPlatformFactory("rabbit-batch"));
+    }
+
+    public void add(String routingKey, String message) throws IOException {
+        if(message == null) {
+            throw new IllegalArgumentException("message is null");
+        }
+        add(routingKey, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void add(String routingKey, byte[] body) throws IOException {
+        if(body == null) {
+            throw new IllegalArgumentException("message is null");
+        }
+        if(routingKey == null) {
+            throw new NullPointerException("routingKey is null");
+        }
+        while(true) {
+            Batch batch = batches.computeIfAbsent(routingKey, Batch::new);
+            synchronized(batch) {
+                // Checked under the batch's monitor, so close() either flushes this message or we throw
+                if(closed) {
+                    throw new IllegalStateException("Batching publisher is closed");
+                }
+                if(batch.retired) {
+                    // Removed by the linger timer after we looked it up
+                    continue;
+                }
+                if(batch.count > 0 && batch.size() + 4 + body.length > maxBytes) {
+                    batch.publish();
+                }
+                batch.append(body);
+                if(batch.count >= maxMessages || batch.size() >= maxBytes) {
+                    batch.publish();
+                } else if(!batch.scheduled) {
+                    batch.schedule();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publishes every pending batch now.
+     */
+    public void flush() throws IOException {
+        IOException failure = null;
+        for(Batch batch : batches.values()) {
+            synchronized(batch) {
+                try {
+                    batch.publish();
+                } catch(IOException e) {
+                    failure = e;
+                }
+            }
+        }
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Publishes every pending batch and stops the linger timer; the producer is left open. Adding a message
+     * afterwards throws IllegalStateException.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        timer.shutdownNow();
+        flush();
+    }
+
+    public int getPendingCount() {
+        int pending = 0;
+        for(Batch batch : batches.values()) {
+            synchronized(batch) {
+                pending += batch.count;
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Sends one batch, or a single message, to the producer.
+     */
+    protected void publish(String routingKey, byte[] body, AMQP.BasicProperties props) throws IOException {
+        producer.produce(routingKey, body, props);
+    }
+
+    private void lingerExpired(Batch batch) {
+        synchronized(batch) {
+            batch.scheduled = false;
+            try {
+                batch.publish();
+            } catch(IOException | RuntimeException e) {
+                log.error("Failed to publish batch for routing key {}", batch.routingKey, e);
+            }
+            batch.retired = true;
+            batches.remove(batch.routingKey, batch);
+        }
+    }
+
+    /**
+     * Messages pending for one routing key; guarded by its own monitor.
+     */
+    private final class Batch {
+
+        private final String routingKey;
+        private final ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(frames);
+        private byte[] single;
+        private int count;
+        private boolean scheduled;
+        private boolean retired;
+
+        private Batch(String routingKey) {
+            this.routingKey = routingKey;
+        }
+
+        private int size() {
+            return frames.size();
+        }
+
+        private void append(byte[] body) throws IOException {
+            out.writeInt(body.length);
+            out.write(body);
+            single = count == 0 ? body : null;
+            count++;
+        }
+
+        private void schedule() {
+            try {
+                timer.schedule(() -> lingerExpired(this), lingerMillis, TimeUnit.MILLISECONDS);
+                scheduled = true;
+            } catch(RejectedExecutionException e) {
+                // Closed while adding; close() flushes the batch once we release its monitor
+            }
+        }
+
+        private void publish() throws IOException {
+            if(count == 0) {
+                return;
+            }
+            byte[] body = count == 1 ? single : frames.toByteArray();
+            AMQP.BasicProperties props = count == 1 ? properties :
+                    MessageBatches.envelopeProperties(properties, count);
+            frames.reset();
+            single = null;
+            count = 0;
+            BatchingPublisher.this.publish(routingKey, body, props);
+        }
+    }
+}
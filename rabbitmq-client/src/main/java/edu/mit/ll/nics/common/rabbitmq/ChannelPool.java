@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of channels over a single connection. AMQP channels must not be used by more than one thread at a
+ * time, so each publish borrows a channel for its exclusive use and hands it back afterwards. At most maxChannels
+ * are open at once; further callers wait up to the borrow timeout for one to be returned.
+ */
+public class ChannelPool {
+
+    public static final int DEFAULT_MAX_CHANNELS = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+    public static final long DEFAULT_BORROW_TIMEOUT = 30000;
+
+    private static final Logger log = LoggerFactory.getLogger(ChannelPool.class);
+
+    private final Connection connection;
+    private final int maxChannels;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Channel> idle = new ConcurrentLinkedDeque<Channel>();
+
+    private volatile long borrowTimeout = DEFAULT_BORROW_TIMEOUT;
+    private volatile boolean closed;
+
+    public ChannelPool(Connection connection) {
+        this(connection, DEFAULT_MAX_CHANNELS);
+    }
+
+    public ChannelPool(Connection connection, int maxChannels) {
+        if(connection == null) {
+            throw new NullPointerException("Unexpected null \"connection\" argument.");
+        }
+        if(maxChannels < 1) {
+            throw new IllegalArgumentException("Argument \"maxChannels\" must be at least 1.");
+        }
+        this.connection = connection;
+        this.maxChannels = maxChannels;
+        this.permits = new Semaphore(maxChannels, true);
+    }
+
+    /**
+     * Callback run with exclusive use of a pooled channel.
+     */
+    public interface ChannelCallback<T> {
+        T doInChannel(Channel channel) throws IOException;
+    }
+
+    /**
+     * Runs the callback on a borrowed channel and returns the channel to the pool. If the callback fails the channel
+     * is closed instead, since a channel level error leaves it unusable.
+     */
+    public <T> T execute(ChannelCallback<T> callback) throws IOException {
+        Channel channel = borrow();
+        boolean healthy = false;
+        try {
+            T result = callback.doInChannel(channel);
+            healthy = true;
+            return result;
+        } finally {
+            if(healthy) {
+                release(channel);
+            } else {
+                invalidate(channel);
+            }
+        }
+    }
+
+    /**
+     * Borrows a channel, opening a new one if none is idle. Every borrowed channel must be passed back to either
+     * {@link #release(Channel)} or {@link #invalidate(Channel)}.
+     */
+    public Channel borrow() throws IOException {
+        ensureOpen();
+        try {
+            if(!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out after " + borrowTimeout + "ms waiting for one of " + maxChannels +
+                        " channels");
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a channel");
+        }
+
+        try {
+            ensureOpen();
+            Channel channel;
+            while((channel = idle.pollFirst()) != null) {
+                if(channel.isOpen()) {
+                    return channel;
+                }
+            }
+            return newChannel();
+        } catch(IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void release(Channel channel) {
+        if(channel.isOpen() && !closed) {
+            // Most recently used first, so a quiet pool keeps reusing the same few channels
+            idle.offerFirst(channel);
+        } else {
+            closeQuietly(channel);
+        }
+        permits.release();
+    }
+
+    public void invalidate(Channel channel) {
+        closeQuietly(channel);
+        permits.release();
+    }
+
+    protected Channel newChannel() throws IOException {
+        Channel channel = connection.createChannel();
+        if(channel == null) {
+            throw new IOException("Connection refused to open another channel");
+        }
+        return channel;
+    }
+
+    /**
+     * Closes the idle channels and stops handing out new ones. Channels still borrowed are closed when released.
+     */
+    public void close() {
+        closed = true;
+        Channel channel;
+        while((channel = idle.pollFirst()) != null) {
+            closeQuietly(channel);
+        }
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public int getMaxChannels() {
+        return maxChannels;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getBorrowedCount() {
+        return maxChannels - permits.availablePermits();
+    }
+
+    public long getBorrowTimeout() {
+        return borrowTimeout;
+    }
+
+    public void setBorrowTimeout(long borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    private void ensureOpen() throws IOException {
+        if(closed) {
+            throw new IOException("Channel pool is closed");
+        }
+    }
+
+    private static void closeQuietly(Channel channel) {
+        // Close even when already closed: that is what stops connection recovery from reopening the channel
+        try {
+            channel.close();
+        } catch(IOException | TimeoutException | RuntimeException e) {
+            log.debug("Failed to close channel {}", channel.getChannelNumber(), e);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes with publisher confirms without waiting for them. Each publish returns a future that the broker's ack
+ * completes, or that a nack or the channel closing completes exceptionally. Outstanding delivery tags are kept
+ * sorted per channel, so an ack with multiple=true settles everything up to its tag in one step.
+ *
+ * <p>At most maxInFlight messages may be unconfirmed at once; publish blocks for up to the permit timeout once
+ * that many are waiting, which keeps a slow broker from growing the outstanding set without bound. Futures are
+ * completed on the connection's I/O thread, so dependent actions must not block.</p>
+ *
+ * <p>When a channel shuts down without the application closing it, its unconfirmed messages fail but the channel
+ * keeps its tracker: with automatic recovery the same channel object is reopened, with publish sequence numbers
+ * starting again at 1.</p>
+ */
+public class ConfirmingPublisher {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10000;
+
+    public static final long DEFAULT_PERMIT_TIMEOUT = 30000;
+
+    private final ChannelPool pool;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final Map<Channel, ConfirmTracker> trackers = new ConcurrentHashMap<Channel, ConfirmTracker>();
+
+    private volatile long permitTimeout = DEFAULT_PERMIT_TIMEOUT;
+
+    public ConfirmingPublisher(Connection connection) {
+        this(connection, ChannelPool.DEFAULT_MAX_CHANNELS, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public ConfirmingPublisher(Connection connection, int maxChannels, int maxInFlight) {
+        if(maxInFlight < 1) {
+            throw new IllegalArgumentException("Argument \"maxInFlight\" must be at least 1.");
+        }
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.pool = new ChannelPool(connection, maxChannels) {
+            @Override
+            protected Channel newChannel() throws IOException {
+                Channel channel = super.newChannel();
+                channel.confirmSelect();
+                ConfirmTracker tracker = new ConfirmTracker(channel);
+                trackers.put(channel, tracker);
+                channel.addConfirmListener(tracker);
+                channel.addShutdownListener(tracker);
+                return channel;
+            }
+        };
+    }
+
+    public CompletableFuture<Void> publish(String exchange, String routingKey, AMQP.BasicProperties props,
+                                           byte[] body) {
+        try {
+            acquirePermit();
+        } catch(IOException e) {
+            return failed(e);
+        }
+
+        CompletableFuture<Void> confirmed = new CompletableFuture<Void>();
+        confirmed.whenComplete((ignored, error) -> inFlight.release());
+
+        Channel channel;
+        try {
+            channel = pool.borrow();
+        } catch(IOException e) {
+            confirmed.completeExceptionally(e);
+            return confirmed;
+        }
+
+        ConfirmTracker tracker = trackers.get(channel);
+        if(tracker == null) {
+            // The channel closed after it was borrowed
+            pool.invalidate(channel);
+            confirmed.completeExceptionally(new IOException("Channel " + channel.getChannelNumber() + " closed"));
+            return confirmed;
+        }
+        long tag = channel.getNextPublishSeqNo();
+        tracker.outstanding.put(tag, confirmed);
+        try {
+            channel.basicPublish(exchange, routingKey, props, body);
+            pool.release(channel);
+        } catch(IOException | RuntimeException e) {
+            tracker.outstanding.remove(tag);
+            confirmed.completeExceptionally(e);
+            pool.invalidate(channel);
+        }
+        return confirmed;
+    }
+
+    /**
+     * Waits until every message published so far has been acked or nacked.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean awaitConfirms(long timeout, TimeUnit unit) throws InterruptedException {
+        if(inFlight.tryAcquire(maxInFlight, timeout, unit)) {
+            inFlight.release(maxInFlight);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Closes the channels. Messages still unconfirmed fail, so call {@link #awaitConfirms} first to close cleanly.
+     */
+    public void close() {
+        pool.close();
+        for(ConfirmTracker tracker : trackers.values()) {
+            tracker.failAll(new IOException("Publisher closed before the broker confirmed the message"));
+        }
+    }
+
+    public int getInFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public long getPermitTimeout() {
+        return permitTimeout;
+    }
+
+    public void setPermitTimeout(long permitTimeout) {
+        this.permitTimeout = permitTimeout;
+    }
+
+    public ChannelPool getChannelPool() {
+        return pool;
+    }
+
+    private void acquirePermit() throws IOException {
+        try {
+            if(!inFlight.tryAcquire(permitTimeout, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out after " + permitTimeout + "ms with " + maxInFlight +
+                        " messages awaiting confirmation");
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to publish");
+        }
+    }
+
+    private static CompletableFuture<Void> failed(Throwable error) {
+        CompletableFuture<Void> future = new CompletableFuture<Void>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private final class ConfirmTracker implements ConfirmListener, ShutdownListener {
+
+        private final Channel channel;
+        private final ConcurrentSkipListMap<Long, CompletableFuture<Void>> outstanding =
+                new ConcurrentSkipListMap<Long, CompletableFuture<Void>>();
+
+        private ConfirmTracker(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void handleAck(long deliveryTag, boolean multiple) {
+            settle(deliveryTag, multiple, null);
+        }
+
+        @Override
+        public void handleNack(long deliveryTag, boolean multiple) {
+            settle(deliveryTag, multiple, new IOException("Broker nacked delivery tag " + deliveryTag + " on channel " +
+                    channel.getChannelNumber()));
+        }
+
+        @Override
+        public void shutdownCompleted(ShutdownSignalException cause) {
+            // Only a channel closed by the application, or one that cannot recover, is gone for good
+            if(cause.isInitiatedByApplication() || !(channel instanceof Recoverable)) {
+                trackers.remove(channel);
+            }
+            failAll(new IOException("Channel closed before the broker confirmed the message", cause));
+        }
+
+        private void settle(long deliveryTag, boolean multiple, Throwable error) {
+            if(multiple) {
+                ConcurrentNavigableMap<Long, CompletableFuture<Void>> settled = outstanding.headMap(deliveryTag, true);
+                Iterator<CompletableFuture<Void>> it = settled.values().iterator();
+                while(it.hasNext()) {
+                    complete(it.next(), error);
+                    it.remove();
+                }
+            } else {
+                CompletableFuture<Void> future = outstanding.remove(deliveryTag);
+                if(future != null) {
+                    complete(future, error);
+                }
+            }
+        }
+
+        private void failAll(Throwable error) {
+            Map.Entry<Long, CompletableFuture<Void>> entry;
+            while((entry = outstanding.pollFirstEntry()) != null) {
+                entry.getValue().completeExceptionally(error);
+            }
+        }
+
+        private void complete(CompletableFuture<Void> future, Throwable error) {
+            if(error == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+}
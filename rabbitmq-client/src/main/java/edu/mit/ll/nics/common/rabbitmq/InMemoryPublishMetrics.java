@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps publish counts, failures, byte totals and a latency histogram per exchange and routing key. Routing keys
+ * often embed ids, so once maxKeys distinct pairs have been seen any new pair is counted under its exchange with
+ * the routing key {@link #OTHER_KEYS}.
+ */
+public class InMemoryPublishMetrics implements PublishMetrics {
+
+    public static final int DEFAULT_MAX_KEYS = 1000;
+
+    public static final String OTHER_KEYS = "*";
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Stats>> stats =
+            new ConcurrentHashMap<String, ConcurrentHashMap<String, Stats>>();
+    private final LongAdder keys = new LongAdder();
+    private final int maxKeys;
+
+    public InMemoryPublishMetrics() {
+        this(DEFAULT_MAX_KEYS);
+    }
+
+    public InMemoryPublishMetrics(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public void published(String exchange, String routingKey, int bytes, long latencyNanos) {
+        Stats s = getOrCreate(exchange, routingKey);
+        s.published.increment();
+        s.bytes.add(bytes);
+        s.latency.record(latencyNanos);
+    }
+
+    @Override
+    public void failed(String exchange, String routingKey, int bytes, Throwable error) {
+        getOrCreate(exchange, routingKey).failed.increment();
+    }
+
+    /**
+     * @return the stats for the pair, or null if nothing was published with it
+     */
+    public Stats getStats(String exchange, String routingKey) {
+        Map<String, Stats> byKey = stats.get(exchange);
+        return byKey == null ? null : byKey.get(routingKey);
+    }
+
+    /**
+     * @return a copy of the stats, keyed by exchange and then routing key
+     */
+    public Map<String, Map<String, Stats>> getAllStats() {
+        Map<String, Map<String, Stats>> copy = new HashMap<String, Map<String, Stats>>();
+        for(Map.Entry<String, ConcurrentHashMap<String, Stats>> entry : stats.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<String, Stats>(entry.getValue())));
+        }
+        return copy;
+    }
+
+    public void reset() {
+        stats.clear();
+        keys.reset();
+    }
+
+    private Stats getOrCreate(String exchange, String routingKey) {
+        ConcurrentHashMap<String, Stats> byKey = stats.get(exchange);
+        if(byKey == null) {
+            byKey = stats.computeIfAbsent(exchange, e -> new ConcurrentHashMap<String, Stats>());
+        }
+        Stats s = byKey.get(routingKey);
+        if(s == null) {
+            if(keys.sum() >= maxKeys) {
+                routingKey = OTHER_KEYS;
+            } else {
+                keys.increment();
+            }
+            s = byKey.computeIfAbsent(routingKey, k -> new Stats());
+        }
+        return s;
+    }
+
+    public static final class Stats {
+
+        private final LongAdder published = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        public long getPublished() {
+            return published.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+
+    /**
+     * Latencies bucketed by powers of two of microseconds: bucket 0 counts anything under 1us, bucket i counts
+     * [2^(i-1), 2^i) microseconds, and the last bucket everything slower.
+     */
+    public static final class LatencyHistogram {
+
+        public static final int BUCKETS = 32;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder totalNanos = new LongAdder();
+
+        void record(long nanos) {
+            long micros = nanos / 1000;
+            int bucket = micros <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            counts.incrementAndGet(bucket);
+            totalNanos.add(nanos);
+        }
+
+        public long[] getCounts() {
+            long[] copy = new long[BUCKETS];
+            for(int i = 0; i < BUCKETS; i++) {
+                copy[i] = counts.get(i);
+            }
+            return copy;
+        }
+
+        public long getCount() {
+            long count = 0;
+            for(int i = 0; i < BUCKETS; i++) {
+                count += counts.get(i);
+            }
+            return count;
+        }
+
+        public double getMeanNanos() {
+            long count = getCount();
+            return count == 0 ? 0 : (double) totalNanos.sum() / count;
+        }
+
+        /**
+         * @return the upper bound in microseconds of the bucket holding the given quantile, e.g. 0.99
+         */
+        public long getQuantileUpperBoundMicros(double quantile) {
+            long[] snapshot = getCounts();
+            long count = 0;
+            for(long c : snapshot) {
+                count += c;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for(int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if(seen >= rank && seen > 0) {
+                    return i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+                }
+            }
+            return 0;
+        }
+    }
+}
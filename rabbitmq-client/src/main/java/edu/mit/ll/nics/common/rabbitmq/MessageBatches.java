@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The envelope format used by {@link BatchingPublisher}: the messages' bodies as length-prefixed frames, each a
+ * four byte big-endian length followed by that many bytes. The envelope's content type is {@link #CONTENT_TYPE};
+ * the content type the messages were published with is kept in the {@link #CONTENT_TYPE_HEADER} header.
+ */
+public final class MessageBatches {
+
+    public static final String CONTENT_TYPE = "application/vnd.nics.batch";
+
+    public static final String CONTENT_TYPE_HEADER = "x-batch-content-type";
+
+    public static final String COUNT_HEADER = "x-batch-count";
+
+    private MessageBatches() {
+    }
+
+    public static boolean isBatch(AMQP.BasicProperties properties) {
+        return properties != null && CONTENT_TYPE.equals(properties.getContentType());
+    }
+
+    /**
+     * @param messageProperties the properties shared by the batched messages; may be null
+     */
+    public static AMQP.BasicProperties envelopeProperties(AMQP.BasicProperties messageProperties, int count) {
+        AMQP.BasicProperties.Builder builder = messageProperties == null ? new AMQP.BasicProperties.Builder() :
+                messageProperties.builder();
+        Map<String, Object> headers = new HashMap<String, Object>();
+        if(messageProperties != null && messageProperties.getHeaders() != null) {
+            headers.putAll(messageProperties.getHeaders());
+        }
+        if(messageProperties != null && messageProperties.getContentType() != null) {
+            headers.put(CONTENT_TYPE_HEADER, messageProperties.getContentType());
+        }
+        headers.put(COUNT_HEADER, count);
+        return builder.contentType(CONTENT_TYPE).headers(headers).build();
+    }
+
+    /**
+     * @return the properties the batched messages were published with, rebuilt from the envelope's
+     */
+    public static AMQP.BasicProperties messageProperties(AMQP.BasicProperties envelopeProperties) {
+        Map<String, Object> headers = envelopeProperties.getHeaders() == null ? new HashMap<String, Object>() :
+                new HashMap<String, Object>(envelopeProperties.getHeaders());
+        Object contentType = headers.remove(CONTENT_TYPE_HEADER);
+        headers.remove(COUNT_HEADER);
+        return envelopeProperties.builder()
+                .contentType(contentType == null ? null : contentType.toString())
+                .headers(headers.isEmpty() ? null : headers)
+                .build();
+    }
+
+    /**
+     * Splits an envelope back into the bodies of its messages, in the order they were published.
+     *
+     * @throws IOException if the body is not a well formed batch
+     */
+    public static List<byte[]> unbatch(byte[] envelope) throws IOException {
+        if(envelope.length == 0) {
+            return Collections.emptyList();
+        }
+        List<byte[]> bodies = new ArrayList<byte[]>();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(envelope));
+        int remaining = envelope.length;
+        try {
+            while(remaining > 0) {
+                int length = in.readInt();
+                if(length < 0 || length > remaining - 4) {
+                    throw new IOException("Invalid frame length " + length + " in message batch");
+                }
+                byte[] body = new byte[length];
+                in.readFully(body);
+                bodies.add(body);
+                remaining -= 4 + length;
+            }
+        } catch(EOFException e) {
+            throw new IOException("Truncated message batch", e);
+        }
+        return bodies;
+    }
+
+    /**
+     * Splits a consumed message into the messages it carries, or returns it unchanged if it is not a batch.
+     */
+    public static List<RabbitPubSubMsg> unbatch(RabbitPubSubMsg message) throws IOException {
+        if(!isBatch(message.getProperties())) {
+            return Collections.singletonList(message);
+        }
+        AMQP.BasicProperties properties = messageProperties(message.getProperties());
+        List<RabbitPubSubMsg> messages = new ArrayList<RabbitPubSubMsg>();
+        for(byte[] body : unbatch(message.getBody())) {
+            messages.add(new RabbitPubSubMsg(body, message.getRoutingKey(), properties));
+        }
+        return messages;
+    }
+}
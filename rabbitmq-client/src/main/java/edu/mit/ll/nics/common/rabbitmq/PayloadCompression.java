@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses message bodies at or above a size threshold and marks them with the content-encoding property.
+ * Smaller bodies, bodies that already have a content encoding, and bodies that would not get smaller are sent
+ * as they are. {@link RabbitPubSubConsumer} decompresses transparently; other consumers can use
+ * {@link #decompress(RabbitPubSubMsg)}.
+ */
+public class PayloadCompression {
+
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    public static final int DEFAULT_MAX_DECOMPRESSED_SIZE = 64 * 1024 * 1024;
+
+    public enum Codec {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String contentEncoding;
+
+        Codec(String contentEncoding) {
+            this.contentEncoding = contentEncoding;
+        }
+
+        public String getContentEncoding() {
+            return contentEncoding;
+        }
+
+        private OutputStream compressing(OutputStream out) throws IOException {
+            return this == GZIP ? new GZIPOutputStream(out) : new DeflaterOutputStream(out);
+        }
+
+        private InputStream decompressing(InputStream in) throws IOException {
+            return this == GZIP ? new GZIPInputStream(in) : new InflaterInputStream(in);
+        }
+
+        public static Codec forContentEncoding(String contentEncoding) {
+            for(Codec codec : values()) {
+                if(codec.contentEncoding.equalsIgnoreCase(contentEncoding)) {
+                    return codec;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Codec codec;
+    private final int threshold;
+
+    public PayloadCompression(Codec codec) {
+        this(codec, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold bodies smaller than this many bytes are not compressed
+     */
+    public PayloadCompression(Codec codec, int threshold) {
+        this.codec = codec;
+        this.threshold = threshold;
+    }
+
+    public Codec getCodec() {
+        return codec;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return the body to send: body itself if it was not worth compressing, otherwise a new compressed array,
+     * to be sent with the properties from {@link #withEncoding}
+     */
+    public byte[] compress(byte[] body, AMQP.BasicProperties props) throws IOException {
+        if(body.length < threshold || (props != null && props.getContentEncoding() != null)) {
+            return body;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try(OutputStream out = codec.compressing(compressed)) {
+            out.write(body);
+        }
+        return compressed.size() < body.length ? compressed.toByteArray() : body;
+    }
+
+    public AMQP.BasicProperties withEncoding(AMQP.BasicProperties props) {
+        AMQP.BasicProperties.Builder builder = props == null ? new AMQP.BasicProperties.Builder() : props.builder();
+        return builder.contentEncoding(codec.getContentEncoding()).build();
+    }
+
+    /**
+     * @return true if the body is compressed with an encoding this class can decompress
+     */
+    public static boolean isCompressed(AMQP.BasicProperties props) {
+        return props != null && Codec.forContentEncoding(props.getContentEncoding()) != null;
+    }
+
+    public static byte[] decompress(byte[] body, String contentEncoding) throws IOException {
+        return decompress(body, contentEncoding, DEFAULT_MAX_DECOMPRESSED_SIZE);
+    }
+
+    /**
+     * @param maxSize the most bytes the body may inflate to, so a small malicious body cannot exhaust the heap
+     * @throws IOException if the encoding is unsupported, the body is corrupt or it inflates past maxSize
+     */
+    public static byte[] decompress(byte[] body, String contentEncoding, int maxSize) throws IOException {
+        Codec codec = Codec.forContentEncoding(contentEncoding);
+        if(codec == null) {
+            throw new IOException("Unsupported content encoding " + contentEncoding);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(body.length * 4L, maxSize));
+        try(InputStream in = codec.decompressing(new ByteArrayInputStream(body))) {
+            byte[] chunk = new byte[8192];
+            int read;
+            while((read = in.read(chunk)) != -1) {
+                if(read > maxSize - out.size()) {
+                    throw new IOException("Body inflates to more than " + maxSize + " bytes");
+                }
+                out.write(chunk, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static RabbitPubSubMsg decompress(RabbitPubSubMsg message) throws IOException {
+        return decompress(message, DEFAULT_MAX_DECOMPRESSED_SIZE);
+    }
+
+    /**
+     * @return the message with its body decompressed and content encoding cleared, or the message itself if it is
+     * not compressed
+     * @see #decompress(byte[], String, int)
+     */
+    public static RabbitPubSubMsg decompress(RabbitPubSubMsg message, int maxSize) throws IOException {
+        AMQP.BasicProperties props = message.getProperties();
+        if(!isCompressed(props)) {
+            return message;
+        }
+        byte[] body = decompress(message.getBody(), props.getContentEncoding(), maxSize);
+        return new RabbitPubSubMsg(body, message.getRoutingKey(), props.builder().contentEncoding(null).build());
+    }
+}
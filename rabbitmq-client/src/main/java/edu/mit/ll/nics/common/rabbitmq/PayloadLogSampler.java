@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+
+/**
+ * Opt-in, sampled logging of published payloads. Off by default; once enabled with {@link #setSampleEvery(int)}
+ * every nth message is logged at DEBUG, truncated to maxBytes. The payload is only decoded for sampled messages,
+ * in the charset named by its content type, or UTF-8.
+ */
+public class PayloadLogSampler {
+
+    public static final int DEFAULT_MAX_BYTES = 1024;
+
+    private final Logger log;
+    private final AtomicLong counter = new AtomicLong();
+
+    private volatile int sampleEvery;
+    private volatile int maxBytes = DEFAULT_MAX_BYTES;
+
+    public PayloadLogSampler(Logger log) {
+        this.log = log;
+    }
+
+    public void sent(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body) {
+        int every = sampleEvery;
+        if(every <= 0 || counter.incrementAndGet() % every != 0 || !log.isDebugEnabled()) {
+            return;
+        }
+        int length = Math.min(body.length, maxBytes);
+        String payload = new String(body, 0, length, Payloads.charsetOf(props));
+        log.debug("Sent {} bytes to {}/{}: {}{}", body.length, exchange, routingKey, payload,
+                length < body.length ? "..." : "");
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    /**
+     * @param sampleEvery log one in this many messages; 0 turns payload logging off
+     */
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Message properties and body conversions shared by the producers and consumers.
+ *
+ * <p>The charset travels as a parameter of the content type, e.g. "application/json; charset=UTF-8", since AMQP
+ * reserves content-encoding for transfer encodings such as gzip. Bodies without one are read as UTF-8.</p>
+ */
+public final class Payloads {
+
+    public static final AMQP.BasicProperties TEXT_UTF8 = new AMQP.BasicProperties.Builder()
+            .contentType("text/plain; charset=UTF-8")
+            .build();
+
+    public static final AMQP.BasicProperties JSON_UTF8 = new AMQP.BasicProperties.Builder()
+            .contentType("application/json; charset=UTF-8")
+            .build();
+
+    private static final int DEFAULT_WRITER_SIZE = 1024;
+
+    private Payloads() {
+    }
+
+    /**
+     * Returns the buffer's backing array when the remaining bytes span all of it, and a copy of the remaining
+     * bytes otherwise. The client library only publishes whole arrays, so slices and direct buffers are copied
+     * once. The buffer's position is not changed.
+     */
+    public static byte[] toBytes(ByteBuffer buffer) {
+        if(buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] body = new byte[buffer.remaining()];
+        buffer.duplicate().get(body);
+        return body;
+    }
+
+    public static byte[] toBytes(PayloadWriter writer) throws IOException {
+        return toBytes(writer, DEFAULT_WRITER_SIZE);
+    }
+
+    /**
+     * @param sizeHint expected body size; a close guess avoids growing the buffer while writing
+     */
+    public static byte[] toBytes(PayloadWriter writer, int sizeHint) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(sizeHint, 32));
+        writer.writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the charset named in the content type, or UTF-8 if there is none or it is not supported
+     */
+    public static Charset charsetOf(AMQP.BasicProperties properties) {
+        String contentType = properties == null ? null : properties.getContentType();
+        if(contentType == null) {
+            return StandardCharsets.UTF_8;
+        }
+        for(String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if(trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                try {
+                    return Charset.forName(trimmed.substring(8).replace("\"", "").trim());
+                } catch(IllegalArgumentException e) {
+                    return StandardCharsets.UTF_8;
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
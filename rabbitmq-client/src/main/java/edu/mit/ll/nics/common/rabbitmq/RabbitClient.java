@@ -29,14 +29,19 @@
  */
 package edu.mit.ll.nics.common.rabbitmq;
 
+import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
+import org.slf4j.LoggerFactory;
 
 public abstract class RabbitClient {
 
@@ -46,22 +51,52 @@ public abstract class RabbitClient {
 
     private Channel channel;
 
+    private ChannelPool channelPool;
+
+    private volatile ConfirmingPublisher confirmingPublisher;
+
+    private int maxUnconfirmed = ConfirmingPublisher.DEFAULT_MAX_IN_FLIGHT;
+
+    private volatile PayloadCompression compression;
+
+    private volatile PublishMetrics publishMetrics = new InMemoryPublishMetrics();
+
+    private final PayloadLogSampler payloadLog = new PayloadLogSampler(LoggerFactory.getLogger(getClass()));
+
     private String serverHostname;
 
     private static final List<String> undeclarables =
             Arrays.asList(AMQ_TOPIC);
 
     protected RabbitClient(String serverHostname) throws IOException, TimeoutException {
-        initialize(serverHostname, null, null);
+        initialize(serverHostname, null, null, ChannelPool.DEFAULT_MAX_CHANNELS);
     }
 
     protected RabbitClient(String serverHostname, String rabbitUsername,
                            String rabbitUserpwd) throws IOException, TimeoutException {
-        initialize(serverHostname, rabbitUsername, rabbitUserpwd);
+        initialize(serverHostname, rabbitUsername, rabbitUserpwd, ChannelPool.DEFAULT_MAX_CHANNELS);
+    }
+
+    protected RabbitClient(String serverHostname, String rabbitUsername,
+                           String rabbitUserpwd, int maxChannels) throws IOException, TimeoutException {
+        initialize(serverHostname, rabbitUsername, rabbitUserpwd, maxChannels);
+    }
+
+    /**
+     * Uses a connection the caller opened, e.g. with settings the other constructors do not expose. The client takes
+     * it over: {@link #destroy()} closes it.
+     */
+    protected RabbitClient(Connection connection, int maxChannels) throws IOException {
+        if(connection == null) {
+            throw new NullPointerException("Unexpected null \"connection\" argument.");
+        }
+        this.connection = connection;
+        channel = connection.createChannel();
+        channelPool = new ChannelPool(connection, maxChannels);
     }
 
     private void initialize(String serverHostname, String rabbitUsername,
-                            String rabbitUserpwd) throws IOException, TimeoutException {
+                            String rabbitUserpwd, int maxChannels) throws IOException, TimeoutException {
         setServerHostname(serverHostname);
         ConnectionFactory factory = new ConnectionFactory();
         factory.setHost(serverHostname);
@@ -73,16 +108,149 @@ public abstract class RabbitClient {
         }
         connection = factory.newConnection();
         channel = connection.createChannel();
+        channelPool = new ChannelPool(connection, maxChannels);
+    }
+
+    /**
+     * Publishes on a channel borrowed from the pool, so it is safe to call from any number of threads at once.
+     */
+    protected void publish(String exchange, String routingKey, AMQP.BasicProperties props,
+                           byte[] body) throws IOException {
+        PublishMetrics metrics = publishMetrics;
+        long start = System.nanoTime();
+        byte[] sent = body;
+        try {
+            PayloadCompression compression = this.compression;
+            AMQP.BasicProperties sentProps = props;
+            if(compression != null) {
+                sent = compression.compress(body, props);
+                sentProps = sent == body ? props : compression.withEncoding(props);
+            }
+            publishRaw(exchange, routingKey, sentProps, sent);
+        } catch(IOException | RuntimeException e) {
+            metrics.failed(exchange, routingKey, sent.length, e);
+            throw e;
+        }
+        metrics.published(exchange, routingKey, sent.length, System.nanoTime() - start);
+        payloadLog.sent(exchange, routingKey, props, body);
+    }
+
+    private void publishRaw(String exchange, String routingKey, AMQP.BasicProperties props,
+                            byte[] body) throws IOException {
+        getChannelPool().execute(pooled -> {
+            pooled.basicPublish(exchange, routingKey, props, body);
+            return null;
+        });
+    }
+
+    /**
+     * Publishes with publisher confirms; the future completes when the broker acks the message and fails if it is
+     * nacked or the channel closes first.
+     */
+    protected CompletableFuture<Void> publishAsync(String exchange, String routingKey, AMQP.BasicProperties props,
+                                                   byte[] body) {
+        PublishMetrics metrics = publishMetrics;
+        long start = System.nanoTime();
+        PayloadCompression compression = this.compression;
+        byte[] sent = body;
+        AMQP.BasicProperties sentProps = props;
+        if(compression != null) {
+            try {
+                sent = compression.compress(body, props);
+            } catch(IOException e) {
+                metrics.failed(exchange, routingKey, body.length, e);
+                CompletableFuture<Void> failed = new CompletableFuture<Void>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+            sentProps = sent == body ? props : compression.withEncoding(props);
+        }
+        int size = sent.length;
+        CompletableFuture<Void> confirmed = getConfirmingPublisher().publish(exchange, routingKey, sentProps, sent);
+        confirmed.whenComplete((ignored, error) -> {
+            if(error == null) {
+                metrics.published(exchange, routingKey, size, System.nanoTime() - start);
+            } else {
+                metrics.failed(exchange, routingKey, size, error);
+            }
+        });
+        payloadLog.sent(exchange, routingKey, props, body);
+        return confirmed;
+    }
+
+    /**
+     * Confirm mode is per channel, so confirmed publishes use their own pool, opened on first use.
+     */
+    protected ConfirmingPublisher getConfirmingPublisher() {
+        ConfirmingPublisher publisher = confirmingPublisher;
+        if(publisher == null) {
+            synchronized(this) {
+                publisher = confirmingPublisher;
+                if(publisher == null) {
+                    publisher = new ConfirmingPublisher(connection, channelPool.getMaxChannels(), maxUnconfirmed);
+                    confirmingPublisher = publisher;
+                }
+            }
+        }
+        return publisher;
+    }
+
+    public int getMaxUnconfirmed() {
+        return maxUnconfirmed;
+    }
+
+    /**
+     * Caps the messages published with confirms that may await the broker's ack at once. Takes effect only before
+     * the first confirmed publish.
+     */
+    public void setMaxUnconfirmed(int maxUnconfirmed) {
+        this.maxUnconfirmed = maxUnconfirmed;
+    }
+
+    public PayloadCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * @param compression compresses large bodies before they are published; null, the default, sends them as they are
+     */
+    public void setCompression(PayloadCompression compression) {
+        this.compression = compression;
+    }
+
+    public PublishMetrics getPublishMetrics() {
+        return publishMetrics;
+    }
+
+    /**
+     * Replaces the default {@link InMemoryPublishMetrics}, e.g. with an adapter to the application's registry.
+     */
+    public void setPublishMetrics(PublishMetrics publishMetrics) {
+        this.publishMetrics = publishMetrics == null ? PublishMetrics.NOOP : publishMetrics;
+    }
+
+    /**
+     * @return the sampler controlling payload logging, which is off unless enabled here
+     */
+    public PayloadLogSampler getPayloadLogSampler() {
+        return payloadLog;
     }
 
     protected Connection getConnection() {
         return connection;
     }
 
+    /**
+     * @return the channel used for declarations; publishing should go through {@link #getChannelPool()}
+     */
     protected Channel getChannel() {
         return channel;
     }
 
+    protected ChannelPool getChannelPool() {
+        return channelPool;
+    }
+
     public String getServerHostname() {
         return serverHostname;
     }
@@ -104,6 +272,13 @@ public abstract class RabbitClient {
     }
 
     protected void destroy() {
+        if(confirmingPublisher != null) {
+            confirmingPublisher.close();
+            confirmingPublisher = null;
+        }
+        if(channelPool != null) {
+            channelPool.close();
+        }
         if(channel != null && channel.isOpen()) {
             try {
                 channel.close();
@@ -136,10 +311,17 @@ public abstract class RabbitClient {
             throw new IllegalArgumentException("Argument \"queueName\" must have a value.");
         }
         if(!isDeclaredByRabbit(queueName)) {
-            getChannel().queueDeclare(queueName, false, false, false, null);
+            TopologyRegistry.getInstance().declare(connection, TopologyRegistry.queueEntity(queueName),
+                    () -> getChannel().queueDeclare(queueName, false, false, false, null));
         }
     }
 
+    /**
+     * Declares the exchange without waiting for the broker's reply, so creating a client per topic costs no round
+     * trip; if the declare fails, the broker closes the declaring channel. The exchange is auto-delete and is never
+     * recorded in the {@link TopologyRegistry}. Publishes go out on other channels and could in principle reach the
+     * broker first; use {@link #predeclare} at startup where the first messages must not be lost.
+     */
     protected void declareExchange(String exchangeName) throws IOException {
         if(exchangeName == null) {
             throw new NullPointerException("Unexpected null \"exchangeName\" argument.");
@@ -148,7 +330,56 @@ public abstract class RabbitClient {
             throw new IllegalArgumentException("Argument \"exchangeName\" must have a value.");
         }
         if(!isDeclaredByRabbit(exchangeName)) {
-            getChannel().exchangeDeclare(exchangeName, "topic", true, true, new HashMap<String, Object>());
+            getChannel().exchangeDeclareNoWait(exchangeName, "topic", true, true, false,
+                    new HashMap<String, Object>());
+        }
+    }
+
+    /**
+     * Declares the exchanges, and the queues not yet declared on this connection, in one round trip: all but the last
+     * are sent without waiting for a reply, and since a failed declare closes the channel, the reply to the last one
+     * confirms them all. Meant for startup, before creating a client per topic. Exchanges are auto-delete, so they
+     * are always declared again rather than cached.
+     */
+    public void predeclare(Collection<String> exchangeNames, Collection<String> queueNames) throws IOException {
+        TopologyRegistry registry = TopologyRegistry.getInstance();
+        List<String> exchanges = new ArrayList<String>();
+        for(String exchangeName : exchangeNames) {
+            if(!isDeclaredByRabbit(exchangeName)) {
+                exchanges.add(exchangeName);
+            }
+        }
+        List<String> queues = new ArrayList<String>();
+        for(String queueName : queueNames) {
+            if(!isDeclaredByRabbit(queueName)
+                    && !registry.isDeclared(connection, TopologyRegistry.queueEntity(queueName))) {
+                queues.add(queueName);
+            }
+        }
+        if(exchanges.isEmpty() && queues.isEmpty()) {
+            return;
+        }
+
+        Channel declaring = getChannel();
+        int remaining = exchanges.size() + queues.size();
+        for(String exchangeName : exchanges) {
+            if(--remaining > 0) {
+                declaring.exchangeDeclareNoWait(exchangeName, "topic", true, true, false,
+                        new HashMap<String, Object>());
+            } else {
+                declaring.exchangeDeclare(exchangeName, "topic", true, true, new HashMap<String, Object>());
+            }
+        }
+        for(String queueName : queues) {
+            if(--remaining > 0) {
+                declaring.queueDeclareNoWait(queueName, false, false, false, null);
+            } else {
+                declaring.queueDeclare(queueName, false, false, false, null);
+            }
+        }
+
+        for(String queueName : queues) {
+            registry.markDeclared(connection, TopologyRegistry.queueEntity(queueName));
         }
     }
 }
@@ -38,9 +38,13 @@ public class RabbitFactory {
 
     private static RabbitPubSubProducer producer = null;
 
-    public static RabbitPubSubProducer makeRabbitPubSubProducer(String rabbitHost,
-                                                                String rabbitExchange, String rabbitUsername,
-                                                                String rabbitPassword)
+    /**
+     * The producer is shared by the whole application; it publishes over a channel pool, so concurrent callers do
+     * not need to synchronize around it.
+     */
+    public static synchronized RabbitPubSubProducer makeRabbitPubSubProducer(String rabbitHost, String rabbitExchange,
+                                                                             String rabbitUsername,
+                                                                             String rabbitPassword)
             throws IOException, TimeoutException {
         if(producer == null) {
             String host = validateRabbitHostName(rabbitHost);
@@ -58,6 +62,27 @@ public class RabbitFactory {
         return producer;
     }
 
+    /**
+     * Unlike the shared producer, each call opens a new publisher with its own connections; the caller closes it.
+     *
+     * @param shards the number of connections to spread routing keys across
+     */
+    public static ShardedPublisher makeShardedPublisher(String rabbitHost, String rabbitExchange,
+                                                        String rabbitUsername, String rabbitPassword, int shards)
+            throws IOException, TimeoutException {
+        String host = validateRabbitHostName(rabbitHost);
+        String exchange = validateRabbitExchange(rabbitExchange);
+        String username = validateRabbitUsername(rabbitUsername);
+        String userpwd = validateRabbitUserpwd(rabbitPassword);
+
+        try {
+            return new ShardedPublisher(host, exchange, username, userpwd, shards);
+        } catch(IOException e) {
+            throw new IOException("Failure trying to connect to " + host + "/" +
+                    exchange + ". " + e.getMessage());
+        }
+    }
+
     private static String validateRabbitHostName(String host) {
         if(host == null || host.isEmpty()) {
             throw new IllegalArgumentException("Host is not defined");
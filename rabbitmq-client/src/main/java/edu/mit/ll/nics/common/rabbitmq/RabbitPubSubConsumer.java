@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Consumes from a topic exchange and hands each message to a {@link MessageHandler} on a pool of workers.
+ *
+ * <p>Messages with the same routing key always go to the same worker, which processes them one at a time in
+ * delivery order; different keys are processed in parallel. The broker sends at most prefetch unacked messages, so
+ * the work queued in memory is bounded. Completed messages are acked in batches with multiple=true, up to the
+ * oldest message still being processed, every ackBatchSize messages or ackInterval milliseconds.</p>
+ *
+ * <p>By default the consumer reads from a server-named queue that only lives as long as the connection; set a
+ * queue name to share a durable queue between consumers instead. Configure with the setters, then call
+ * {@link #start()}; {@link #drain(long, TimeUnit)} stops consuming and waits for queued work before closing.</p>
+ *
+ * <p>Bodies compressed with {@link PayloadCompression} are decompressed before the handler sees them; one that
+ * inflates past maxDecompressedSize is rejected. Batches from {@link BatchingPublisher} are split and handed over
+ * one message at a time. The batch is acked as one delivery, so if the handler throws, the rest of the batch is
+ * skipped and the whole batch is rejected.</p>
+ */
+public class RabbitPubSubConsumer extends RabbitClient {
+
+    public static final int DEFAULT_PREFETCH = 250;
+
+    public static final int DEFAULT_ACK_BATCH_SIZE = 50;
+
+    public static final long DEFAULT_ACK_INTERVAL = 200;
+
+    private static final Logger log = LoggerFactory.getLogger(RabbitPubSubConsumer.class);
+
+    private final String exchangeName;
+    private final MessageHandler handler;
+    private final List<String> bindingKeys = new ArrayList<String>();
+
+    private String queueName;
+    private int prefetch = DEFAULT_PREFETCH;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int ackBatchSize = DEFAULT_ACK_BATCH_SIZE;
+    private long ackInterval = DEFAULT_ACK_INTERVAL;
+    private boolean requeueOnFailure;
+    private int maxDecompressedSize = PayloadCompression.DEFAULT_MAX_DECOMPRESSED_SIZE;
+    private ThreadFactory threadFactory;
+
+    private Channel consumerChannel;
+    private String consumerTag;
+    private ExecutorService[] lanes;
+    private ScheduledExecutorService ackTimer;
+
+    private final AckTracker acks = new AckTracker();
+    private final AtomicInteger completedSinceAck = new AtomicInteger();
+    private final Object ackLock = new Object();
+
+    public RabbitPubSubConsumer(String hostname, String exchangeName, MessageHandler handler)
+            throws IOException, TimeoutException {
+        super(hostname);
+        this.exchangeName = exchangeName;
+        this.handler = handler;
+        declareExchange(exchangeName);
+    }
+
+    public RabbitPubSubConsumer(String hostname, String exchangeName, String rabbitUsername,
+                                String rabbitUserpwd, MessageHandler handler) throws IOException, TimeoutException {
+        super(hostname, rabbitUsername, rabbitUserpwd);
+        this.exchangeName = exchangeName;
+        this.handler = handler;
+        declareExchange(exchangeName);
+    }
+
+    /**
+     * Adds binding keys, e.g. "iweb.NICS.collabroom.*"; once started they are bound immediately.
+     */
+    public synchronized void subscribe(String... keys) throws IOException {
+        bindingKeys.addAll(Arrays.asList(keys));
+        if(consumerChannel != null) {
+            for(String key : keys) {
+                consumerChannel.queueBind(queueName, exchangeName, key);
+            }
+        }
+    }
+
+    public synchronized void start() throws IOException {
+        if(consumerChannel != null) {
+            throw new IllegalStateException("Consumer already started");
+        }
+        ThreadFactory factory = threadFactory != null ? threadFactory :
+                WorkerThreads.newFactory("rabbit-consumer-" + exchangeName);
+        lanes = new ExecutorService[workers];
+        for(int i = 0; i < workers; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(factory);
+        }
+        ackTimer = Executors.newSingleThreadScheduledExecutor(
+                WorkerThreads.newPlatformFactory("rabbit-consumer-ack-" + exchangeName));
+        ackTimer.scheduleWithFixedDelay(this::flushAcks, ackInterval, ackInterval, TimeUnit.MILLISECONDS);
+
+        consumerChannel = getConnection().createChannel();
+        consumerChannel.basicQos(prefetch);
+        if(queueName == null) {
+            queueName = consumerChannel.queueDeclare().getQueue();
+        } else {
+            consumerChannel.queueDeclare(queueName, true, false, false, null);
+        }
+        for(String key : bindingKeys) {
+            consumerChannel.queueBind(queueName, exchangeName, key);
+        }
+        consumerTag = consumerChannel.basicConsume(queueName, false, new DefaultConsumer(consumerChannel) {
+            @Override
+            public void handleDelivery(String tag, Envelope envelope, AMQP.BasicProperties properties,
+                                       byte[] body) {
+                dispatch(envelope, properties, body);
+            }
+        });
+    }
+
+    /**
+     * Stops taking new messages, waits for those already delivered to be processed and acks them. Messages not
+     * processed before the timeout are returned to the queue when the channel closes.
+     *
+     * @return true if all delivered messages were processed in time
+     */
+    public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized(this) {
+            if(consumerChannel == null) {
+                return true;
+            }
+            if(consumerChannel.isOpen()) {
+                try {
+                    consumerChannel.basicCancel(consumerTag);
+                } catch(IOException | RuntimeException e) {
+                    log.warn("Failed to cancel consumer {}", consumerTag, e);
+                }
+            }
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for(ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        boolean drained = true;
+        for(ExecutorService lane : lanes) {
+            drained &= lane.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        ackTimer.shutdown();
+        flushAcks();
+        return drained;
+    }
+
+    @Override
+    public void destroy() {
+        synchronized(this) {
+            if(lanes != null) {
+                for(ExecutorService lane : lanes) {
+                    lane.shutdownNow();
+                }
+                ackTimer.shutdownNow();
+            }
+            if(consumerChannel != null && consumerChannel.isOpen()) {
+                try {
+                    consumerChannel.close();
+                } catch(IOException | TimeoutException | RuntimeException e) {
+                    log.warn("Failed to close consumer channel", e);
+                }
+            }
+        }
+        super.destroy();
+    }
+
+    private void dispatch(Envelope envelope, AMQP.BasicProperties properties, byte[] body) {
+        long deliveryTag = envelope.getDeliveryTag();
+        acks.delivered(deliveryTag);
+
+        String routingKey = envelope.getRoutingKey();
+        RabbitPubSubMsg message = new RabbitPubSubMsg(body, routingKey, properties);
+        ExecutorService lane = lanes[(routingKey.hashCode() & Integer.MAX_VALUE) % lanes.length];
+        try {
+            lane.execute(() -> process(deliveryTag, message));
+        } catch(RejectedExecutionException e) {
+            // Delivered after drain() stopped the workers, so hand it back to the queue
+            reject(deliveryTag, true);
+            acks.completed(deliveryTag);
+        }
+    }
+
+    private void process(long deliveryTag, RabbitPubSubMsg message) {
+        try {
+            RabbitPubSubMsg decompressed = PayloadCompression.decompress(message, maxDecompressedSize);
+            for(RabbitPubSubMsg unbatched : MessageBatches.unbatch(decompressed)) {
+                handler.handle(unbatched);
+            }
+        } catch(Exception e) {
+            log.error("Failed to handle message with routing key {}", message.getRoutingKey(), e);
+            reject(deliveryTag, requeueOnFailure);
+        }
+        acks.completed(deliveryTag);
+        if(completedSinceAck.incrementAndGet() >= ackBatchSize) {
+            flushAcks();
+        }
+    }
+
+    private void reject(long deliveryTag, boolean requeue) {
+        synchronized(ackLock) {
+            acks.rejected(deliveryTag);
+            try {
+                consumerChannel.basicNack(deliveryTag, false, requeue);
+            } catch(IOException | RuntimeException e) {
+                log.warn("Failed to reject delivery {}", deliveryTag, e);
+            }
+        }
+    }
+
+    /**
+     * Acks everything up to the oldest delivery still being processed, skipping back past any rejected ones.
+     */
+    private void flushAcks() {
+        synchronized(ackLock) {
+            if(consumerChannel == null || !consumerChannel.isOpen()) {
+                return;
+            }
+            long ackable = acks.nextAck();
+            completedSinceAck.set(0);
+            if(ackable > 0) {
+                try {
+                    consumerChannel.basicAck(ackable, true);
+                } catch(IOException | RuntimeException e) {
+                    log.warn("Failed to ack deliveries up to {}", ackable, e);
+                }
+            }
+        }
+    }
+
+    public String getExchangeName() {
+        return exchangeName;
+    }
+
+    public String getQueueName() {
+        return queueName;
+    }
+
+    public void setQueueName(String queueName) {
+        this.queueName = queueName;
+    }
+
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(int prefetch) {
+        if(prefetch < 1) {
+            throw new IllegalArgumentException("Argument \"prefetch\" must be at least 1.");
+        }
+        this.prefetch = prefetch;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        if(workers < 1) {
+            throw new IllegalArgumentException("Argument \"workers\" must be at least 1.");
+        }
+        this.workers = workers;
+    }
+
+    public int getAckBatchSize() {
+        return ackBatchSize;
+    }
+
+    public void setAckBatchSize(int ackBatchSize) {
+        if(ackBatchSize < 1) {
+            throw new IllegalArgumentException("Argument \"ackBatchSize\" must be at least 1.");
+        }
+        this.ackBatchSize = ackBatchSize;
+    }
+
+    public long getAckInterval() {
+        return ackInterval;
+    }
+
+    public void setAckInterval(long ackInterval) {
+        if(ackInterval < 1) {
+            throw new IllegalArgumentException("Argument \"ackInterval\" must be at least 1.");
+        }
+        this.ackInterval = ackInterval;
+    }
+
+    public boolean isRequeueOnFailure() {
+        return requeueOnFailure;
+    }
+
+    /**
+     * @param requeueOnFailure if false, the default, a message whose handler throws is dropped or dead-lettered
+     *                         rather than redelivered
+     */
+    public void setRequeueOnFailure(boolean requeueOnFailure) {
+        this.requeueOnFailure = requeueOnFailure;
+    }
+
+    public int getMaxDecompressedSize() {
+        return maxDecompressedSize;
+    }
+
+    /**
+     * @param maxDecompressedSize the most bytes a compressed body may inflate to; larger ones are rejected like a
+     *                            message whose handler throws
+     */
+    public void setMaxDecompressedSize(int maxDecompressedSize) {
+        if(maxDecompressedSize < 1) {
+            throw new IllegalArgumentException("Argument \"maxDecompressedSize\" must be at least 1.");
+        }
+        this.maxDecompressedSize = maxDecompressedSize;
+    }
+
+    /**
+     * Overrides the worker threads, which are virtual threads where the JVM supports them.
+     */
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    public int getUnackedCount() {
+        return acks.getOutstandingCount();
+    }
+}
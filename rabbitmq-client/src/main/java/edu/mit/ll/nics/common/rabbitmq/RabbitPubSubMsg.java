@@ -29,10 +29,20 @@
  */
 package edu.mit.ll.nics.common.rabbitmq;
 
+import com.rabbitmq.client.AMQP;
+
+/**
+ * A message and its routing key. The body may be held as text or as raw bytes; each form is converted from the
+ * other on first use, using the charset from the content type or UTF-8.
+ */
 public class RabbitPubSubMsg {
 
     private String msg;
 
+    private byte[] body;
+
+    private AMQP.BasicProperties properties;
+
     private String routingKey;
 
     public RabbitPubSubMsg() {
@@ -44,16 +54,46 @@ public class RabbitPubSubMsg {
         setRoutingKey(routingKey);
     }
 
+    public RabbitPubSubMsg(byte[] body, String routingKey, AMQP.BasicProperties properties) {
+        setBody(body);
+        setRoutingKey(routingKey);
+        setProperties(properties);
+    }
+
     public String getMsg() {
+        if(msg == null && body != null) {
+            msg = new String(body, Payloads.charsetOf(properties));
+        }
         return msg;
     }
 
+    public byte[] getBody() {
+        if(body == null && msg != null) {
+            body = msg.getBytes(Payloads.charsetOf(properties));
+        }
+        return body;
+    }
+
+    public AMQP.BasicProperties getProperties() {
+        return properties;
+    }
+
     public String getRoutingKey() {
         return routingKey;
     }
 
     public void setMsg(String msg) {
         this.msg = msg;
+        this.body = null;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+        this.msg = null;
+    }
+
+    public void setProperties(AMQP.BasicProperties properties) {
+        this.properties = properties;
     }
 
     public void setRoutingKey(String routingKey) {
@@ -29,14 +29,16 @@
  */
 package edu.mit.ll.nics.common.rabbitmq;
 
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Connection;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 
 public class RabbitPubSubProducer extends RabbitClient {
-    private Logger log = LoggerFactory.getLogger(RabbitPubSubProducer.class);
     private String exchangeName;
 
     public RabbitPubSubProducer(String hostname, String exchangeName)
@@ -52,6 +54,15 @@ public class RabbitPubSubProducer extends RabbitClient {
         initialize(hostname, exchangeName);
     }
 
+    /**
+     * Publishes over a connection the caller opened, which the producer then owns, see
+     * {@link RabbitClient#RabbitClient(Connection, int)}.
+     */
+    public RabbitPubSubProducer(Connection connection, String exchangeName) throws IOException {
+        super(connection, ChannelPool.DEFAULT_MAX_CHANNELS);
+        initialize(null, exchangeName);
+    }
+
     private void initialize(String hostname, String exchangeName)
             throws IOException {
         declareExchange(exchangeName);
@@ -62,11 +73,59 @@ public class RabbitPubSubProducer extends RabbitClient {
         if(message == null) {
             throw new IllegalArgumentException("message is null");
         }
+        produce(routingKey, message.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    /**
+     * Publishes bytes as they are, e.g. JSON already serialized as UTF-8; the array must not change afterwards.
+     *
+     * @param props content type and other properties, such as {@link Payloads#JSON_UTF8}; may be null
+     */
+    public void produce(String routingKey, byte[] body, AMQP.BasicProperties props) throws IOException {
+        if(body == null) {
+            throw new IllegalArgumentException("message is null");
+        }
+        if(routingKey == null) {
+            throw new NullPointerException("routingKey is null");
+        }
+        publish(exchangeName, routingKey, props, body);
+    }
+
+    /**
+     * Publishes the buffer's remaining bytes without changing its position.
+     */
+    public void produce(String routingKey, ByteBuffer body, AMQP.BasicProperties props) throws IOException {
+        if(body == null) {
+            throw new IllegalArgumentException("message is null");
+        }
+        produce(routingKey, Payloads.toBytes(body), props);
+    }
+
+    public void produce(String routingKey, PayloadWriter writer, AMQP.BasicProperties props) throws IOException {
+        if(writer == null) {
+            throw new IllegalArgumentException("message is null");
+        }
+        produce(routingKey, Payloads.toBytes(writer), props);
+    }
+
+    /**
+     * Publishes without waiting for the broker; the returned future completes once the broker confirms the message.
+     */
+    public CompletableFuture<Void> produceAsync(String routingKey, String message) {
+        if(message == null) {
+            throw new IllegalArgumentException("message is null");
+        }
+        return produceAsync(routingKey, message.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    public CompletableFuture<Void> produceAsync(String routingKey, byte[] body, AMQP.BasicProperties props) {
+        if(body == null) {
+            throw new IllegalArgumentException("message is null");
+        }
         if(routingKey == null) {
             throw new NullPointerException("routingKey is null");
         }
-        getChannel().basicPublish(exchangeName, routingKey, null, message.getBytes());
-        log.info(" [x] Sent '" + routingKey + "':'" + message + "'");
+        return publishAsync(exchangeName, routingKey, props, body);
     }
 
     public void destroy() {
@@ -29,14 +29,15 @@
  */
 package edu.mit.ll.nics.common.rabbitmq;
 
+import com.rabbitmq.client.AMQP;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 
 public class RabbitQueueProducer extends RabbitClient {
-    private Logger log = LoggerFactory.getLogger(RabbitQueueProducer.class);
     private String queueName;
 
     public RabbitQueueProducer(String hostname, String queueName) throws IOException, TimeoutException {
@@ -56,8 +57,38 @@ public class RabbitQueueProducer extends RabbitClient {
     }
 
     public void produce(String message) throws IOException {
-        getChannel().basicPublish("", queueName, null, message.getBytes());
-        log.info(" [x] Sent '" + message + "'");
+        produce(message.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    /**
+     * Publishes bytes as they are, e.g. JSON already serialized as UTF-8; the array must not change afterwards.
+     *
+     * @param props content type and other properties, such as {@link Payloads#JSON_UTF8}; may be null
+     */
+    public void produce(byte[] body, AMQP.BasicProperties props) throws IOException {
+        publish("", queueName, props, body);
+    }
+
+    /**
+     * Publishes the buffer's remaining bytes without changing its position.
+     */
+    public void produce(ByteBuffer body, AMQP.BasicProperties props) throws IOException {
+        produce(Payloads.toBytes(body), props);
+    }
+
+    public void produce(PayloadWriter writer, AMQP.BasicProperties props) throws IOException {
+        produce(Payloads.toBytes(writer), props);
+    }
+
+    /**
+     * Publishes without waiting for the broker; the returned future completes once the broker confirms the message.
+     */
+    public CompletableFuture<Void> produceAsync(String message) {
+        return produceAsync(message.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    public CompletableFuture<Void> produceAsync(byte[] body, AMQP.BasicProperties props) {
+        return publishAsync("", queueName, props, body);
     }
 
     public void destroy() {
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes to one exchange over several connections, so that publishing is not limited to one connection's socket
+ * and I/O thread.
+ *
+ * <p>Each routing key is mapped to a shard by consistent hashing over a ring of virtual nodes. Each shard has its
+ * own connection, a bounded queue and one thread that publishes the queue in order, so messages for a key are
+ * published in the order {@link #produce} was called. When a shard's queue is full, produce blocks until there is
+ * room. The queue lengths are exposed as {@link #getBacklogs()}.</p>
+ */
+public class ShardedPublisher {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    public static final int VIRTUAL_NODES = 128;
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedPublisher.class);
+
+    private final String exchangeName;
+    private final Shard[] shards;
+    private final TreeMap<Integer, Shard> ring = new TreeMap<Integer, Shard>();
+    private volatile boolean closed;
+
+    public ShardedPublisher(String hostname, String exchangeName, String rabbitUsername, String rabbitUserpwd,
+                            int shardCount) throws IOException, TimeoutException {
+        this(hostname, exchangeName, rabbitUsername, rabbitUserpwd, shardCount, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public ShardedPublisher(String hostname, String exchangeName, String rabbitUsername, String rabbitUserpwd,
+                            int shardCount, int queueCapacity) throws IOException, TimeoutException {
+        this(exchangeName, connect(hostname, exchangeName, rabbitUsername, rabbitUserpwd, shardCount), queueCapacity);
+    }
+
+    /**
+     * Publishes through producers the caller created, one shard each in list order; they must publish to
+     * exchangeName over separate connections. {@link #close} destroys them.
+     */
+    public ShardedPublisher(String exchangeName, List<? extends RabbitPubSubProducer> producers, int queueCapacity) {
+        if(producers.isEmpty()) {
+            throw new IllegalArgumentException("shardCount must be at least 1");
+        }
+        this.exchangeName = exchangeName;
+        this.shards = new Shard[producers.size()];
+        ThreadFactory threads = WorkerThreads.newPlatformFactory("rabbit-shard-" + exchangeName);
+        for(int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, producers.get(i), queueCapacity);
+        }
+        for(Shard shard : shards) {
+            for(int v = 0; v < VIRTUAL_NODES; v++) {
+                ring.put(hash("shard-" + shard.index + "#" + v), shard);
+            }
+            shard.start(threads);
+        }
+    }
+
+    public CompletableFuture<Void> produce(String routingKey, String message) {
+        if(message == null) {
+            throw new IllegalArgumentException("message is null");
+        }
+        return produce(routingKey, message.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    /**
+     * Queues the message on its routing key's shard, blocking while that shard's queue is full.
+     *
+     * @return completes once the message is published, or with the error if publishing fails
+     */
+    public CompletableFuture<Void> produce(String routingKey, byte[] body, AMQP.BasicProperties props) {
+        if(body == null) {
+            throw new IllegalArgumentException("message is null");
+        }
+        if(routingKey == null) {
+            throw new NullPointerException("routingKey is null");
+        }
+        if(closed) {
+            throw new IllegalStateException("Publisher for " + exchangeName + " is closed");
+        }
+        Pending pending = new Pending(routingKey, body, props);
+        Shard shard = shardFor(routingKey);
+        try {
+            shard.queue.put(pending);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.future.completeExceptionally(e);
+            return pending.future;
+        }
+        if(closed && shard.queue.remove(pending)) {
+            // Closed while queueing, possibly after the shard's thread stopped
+            pending.future.completeExceptionally(new IOException("Publisher for " + exchangeName + " closed"));
+        }
+        return pending.future;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int getShard(String routingKey) {
+        return shardFor(routingKey).index;
+    }
+
+    /**
+     * @return the number of messages waiting in each shard's queue, indexed by shard
+     */
+    public int[] getBacklogs() {
+        int[] backlogs = new int[shards.length];
+        for(int i = 0; i < shards.length; i++) {
+            backlogs[i] = shards[i].queue.size();
+        }
+        return backlogs;
+    }
+
+    /**
+     * @return the number of messages each shard has published, indexed by shard
+     */
+    public long[] getPublishedCounts() {
+        long[] published = new long[shards.length];
+        for(int i = 0; i < shards.length; i++) {
+            published[i] = shards[i].published.get();
+        }
+        return published;
+    }
+
+    /**
+     * Records every shard's publishes in the same metrics.
+     */
+    public void setPublishMetrics(PublishMetrics publishMetrics) {
+        for(Shard shard : shards) {
+            shard.producer.setPublishMetrics(publishMetrics);
+        }
+    }
+
+    public void setCompression(PayloadCompression compression) {
+        for(Shard shard : shards) {
+            shard.producer.setCompression(compression);
+        }
+    }
+
+    /**
+     * Stops accepting messages, waits for the queued ones to be published and closes the connections. Messages
+     * still queued at the timeout fail.
+     *
+     * @return true if every queued message was published or failed before the timeout
+     */
+    public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+        closed = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean drained = true;
+        for(Shard shard : shards) {
+            shard.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            drained &= !shard.thread.isAlive();
+        }
+        for(Shard shard : shards) {
+            // Empty the queue before interrupting, or the shard's thread could take the next message once the
+            // interrupt has ended the one it was publishing
+            List<Pending> abandoned = new ArrayList<Pending>();
+            shard.queue.drainTo(abandoned);
+            for(Pending pending : abandoned) {
+                pending.future.completeExceptionally(new IOException("Publisher for " + exchangeName + " closed"));
+            }
+            shard.thread.interrupt();
+            shard.producer.destroy();
+        }
+        return drained;
+    }
+
+    private static List<RabbitPubSubProducer> connect(String hostname, String exchangeName, String rabbitUsername,
+                                                      String rabbitUserpwd, int shardCount)
+            throws IOException, TimeoutException {
+        if(shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be at least 1");
+        }
+        List<RabbitPubSubProducer> producers = new ArrayList<RabbitPubSubProducer>(shardCount);
+        try {
+            for(int i = 0; i < shardCount; i++) {
+                producers.add(new RabbitPubSubProducer(hostname, exchangeName, rabbitUsername, rabbitUserpwd));
+            }
+        } catch(IOException | TimeoutException | RuntimeException e) {
+            for(RabbitPubSubProducer producer : producers) {
+                producer.destroy();
+            }
+            throw e;
+        }
+        return producers;
+    }
+
+    private Shard shardFor(String routingKey) {
+        Map.Entry<Integer, Shard> entry = ring.ceilingEntry(hash(routingKey));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * FNV-1a with a final avalanche, so that similar keys such as "topic.1" and "topic.2" land far apart.
+     */
+    private static int hash(String key) {
+        int hash = 0x811c9dc5;
+        for(int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    private static final class Pending {
+        private final String routingKey;
+        private final byte[] body;
+        private final AMQP.BasicProperties props;
+        private final CompletableFuture<Void> future = new CompletableFuture<Void>();
+
+        private Pending(String routingKey, byte[] body, AMQP.BasicProperties props) {
+            this.routingKey = routingKey;
+            this.body = body;
+            this.props = props;
+        }
+    }
+
+    private final class Shard implements Runnable {
+        private final int index;
+        private final RabbitPubSubProducer producer;
+        private final BlockingQueue<Pending> queue;
+        private final AtomicLong published = new AtomicLong();
+        private Thread thread;
+
+        private Shard(int index, RabbitPubSubProducer producer, int queueCapacity) {
+            this.index = index;
+            this.producer = producer;
+            this.queue = new LinkedBlockingQueue<Pending>(queueCapacity);
+        }
+
+        private void start(ThreadFactory threads) {
+            thread = threads.newThread(this);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while(!closed || !queue.isEmpty()) {
+                    Pending pending = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if(pending != null) {
+                        publish(pending);
+                    }
+                }
+            } catch(InterruptedException e) {
+                // Closing; close() fails whatever is left
+            }
+        }
+
+        private void publish(Pending pending) {
+            try {
+                producer.produce(pending.routingKey, pending.body, pending.props);
+                published.incrementAndGet();
+                pending.future.complete(null);
+            } catch(IOException | RuntimeException e) {
+                log.warn("Shard {} failed to publish to {}", index, pending.routingKey, e);
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq;
+
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Recoverable;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers which queues have been declared on each connection, so that declaring one again on the same connection
+ * skips the broker round trip. Exchanges are not recorded: the ones {@link RabbitClient} declares are auto-delete,
+ * and the broker removes those once their last binding goes, while every connection stays up.
+ *
+ * <p>A connection's record is emptied when the connection is lost, since the broker may have restarted and lost
+ * non-durable queues, and dropped when the connection is closed. A new connection starts with an empty record, so
+ * its first declare of each queue always reaches the broker.</p>
+ */
+public final class TopologyRegistry {
+
+    /**
+     * Performs the declaration; called only when the entity is not yet known to be declared.
+     */
+    public interface Declarer {
+        void declare() throws IOException;
+    }
+
+    private static final TopologyRegistry INSTANCE = new TopologyRegistry();
+
+    private final ConcurrentMap<Connection, Set<String>> declared = new ConcurrentHashMap<Connection, Set<String>>();
+
+    private TopologyRegistry() {
+    }
+
+    public static TopologyRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public static String queueEntity(String queueName) {
+        return "queue/" + queueName;
+    }
+
+    /**
+     * Runs the declarer unless the entity was already declared on the connection. Two threads declaring the same
+     * entity at once may both reach the broker, which is harmless since declarations are idempotent.
+     *
+     * @return true if the declarer ran
+     */
+    public boolean declare(Connection connection, String entity, Declarer declarer) throws IOException {
+        if(isDeclared(connection, entity)) {
+            return false;
+        }
+        declarer.declare();
+        markDeclared(connection, entity);
+        return true;
+    }
+
+    public boolean isDeclared(Connection connection, String entity) {
+        Set<String> entities = declared.get(connection);
+        return entities != null && entities.contains(entity);
+    }
+
+    public void markDeclared(Connection connection, String entity) {
+        Set<String> entities = declared.get(connection);
+        if(entities == null) {
+            Set<String> created = ConcurrentHashMap.newKeySet();
+            entities = declared.putIfAbsent(connection, created);
+            if(entities == null) {
+                entities = created;
+                // Outside putIfAbsent: a listener added to a closed connection runs straight away
+                watch(connection, created);
+            }
+        }
+        entities.add(entity);
+    }
+
+    public void forget(Connection connection) {
+        declared.remove(connection);
+    }
+
+    public void clear() {
+        declared.clear();
+    }
+
+    private void watch(Connection connection, Set<String> entities) {
+        connection.addShutdownListener(cause -> {
+            if(cause.isInitiatedByApplication() || !(connection instanceof Recoverable)) {
+                declared.remove(connection, entities);
+            } else {
+                // Automatic recovery reuses the connection, but the broker may have lost what it declared
+                entities.clear();
+            }
+        });
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.client;
+
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.RecoveryDelayHandler;
+import com.rabbitmq.client.RecoveryListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Owns a connection that recovers by itself. Automatic and topology recovery are enabled on the factory with an
+ * exponential backoff between attempts, and when the broker is unreachable at startup the first connection is
+ * retried with the same backoff on a background thread, so no caller ever waits on the broker.
+ */
+public class ConnectionManager {
+
+    public static final long DEFAULT_INITIAL_BACKOFF = 1000;
+
+    public static final long DEFAULT_MAX_BACKOFF = 60000;
+
+    private static final Logger log = LoggerFactory.getLogger(ConnectionManager.class);
+
+    /**
+     * Notified when the connection becomes usable or stops being usable. Called on the library's or the
+     * manager's background threads, so implementations must not block for long.
+     */
+    public interface Listener {
+        void connected(Connection connection);
+
+        void disconnected(Connection connection);
+    }
+
+    private final ConnectionFactory factory;
+    private final String name;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+    private volatile long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+    private volatile long maxBackoff = DEFAULT_MAX_BACKOFF;
+    private volatile Connection connection;
+    private volatile boolean connected;
+    private volatile boolean closed;
+    private Thread connector;
+
+    public ConnectionManager(ConnectionFactory factory, String name) {
+        this.factory = factory;
+        this.name = name;
+        factory.setAutomaticRecoveryEnabled(true);
+        factory.setTopologyRecoveryEnabled(true);
+        factory.setRecoveryDelayHandler(new RecoveryDelayHandler() {
+            @Override
+            public long getDelay(int recoveryAttempts) {
+                return backoff(recoveryAttempts);
+            }
+        });
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Makes one connection attempt on the calling thread.
+     */
+    public void connect() throws IOException, TimeoutException {
+        synchronized(this) {
+            if(closed) {
+                throw new IOException(name + " connection manager is closed");
+            }
+            if(connection != null && connection.isOpen()) {
+                return;
+            }
+        }
+
+        // Connect without holding the lock, so close() never waits on an unreachable broker
+        Connection newConnection = factory.newConnection(name);
+        synchronized(this) {
+            if(closed || (connection != null && connection.isOpen())) {
+                newConnection.abort();
+                return;
+            }
+            newConnection.addShutdownListener(this::shutdown);
+            if(newConnection instanceof Recoverable) {
+                ((Recoverable) newConnection).addRecoveryListener(new RecoveryListener() {
+                    @Override
+                    public void handleRecovery(Recoverable recoverable) {
+                        log.info("Connection {} recovered", ConnectionManager.this.name);
+                        markConnected(newConnection);
+                    }
+
+                    @Override
+                    public void handleRecoveryStarted(Recoverable recoverable) {
+                    }
+                });
+            }
+            connection = newConnection;
+        }
+        markConnected(newConnection);
+    }
+
+    /**
+     * Connects on a background thread, retrying with exponential backoff until it succeeds or the manager closes.
+     * Does nothing if already connected or connecting.
+     */
+    public synchronized void connectInBackground() {
+        if(closed || connected || (connector != null && connector.isAlive())) {
+            return;
+        }
+        connector = new Thread(this::connectLoop, name + "-connector");
+        connector.setDaemon(true);
+        connector.start();
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public void close() {
+        Thread running;
+        Connection open;
+        synchronized(this) {
+            closed = true;
+            running = connector;
+            open = connection;
+            connection = null;
+        }
+        if(running != null) {
+            running.interrupt();
+        }
+        if(open != null && open.isOpen()) {
+            try {
+                open.close();
+            } catch(IOException | RuntimeException e) {
+                log.warn("Failed to close connection {}", name, e);
+            }
+        }
+        connected = false;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(long initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    long backoff(int attempt) {
+        long delay = initialBackoff << Math.min(Math.max(attempt, 0), 20);
+        return delay <= 0 ? maxBackoff : Math.min(delay, maxBackoff);
+    }
+
+    private void connectLoop() {
+        int attempt = 0;
+        while(!closed && !connected) {
+            try {
+                connect();
+                return;
+            } catch(IOException | TimeoutException e) {
+                long delay = backoff(attempt++);
+                log.warn("Could not connect {} (attempt {}), retrying in {}ms: {}", name, attempt, delay,
+                        e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch(InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void markConnected(Connection current) {
+        connected = true;
+        for(Listener listener : listeners) {
+            try {
+                listener.connected(current);
+            } catch(RuntimeException e) {
+                log.error("Connection listener failed", e);
+            }
+        }
+    }
+
+    private void shutdown(ShutdownSignalException cause) {
+        connected = false;
+        if(!cause.isInitiatedByApplication()) {
+            log.warn("Connection {} lost, recovering: {}", name, cause.getMessage());
+        }
+        Connection current = connection;
+        for(Listener listener : listeners) {
+            try {
+                listener.disconnected(current);
+            } catch(RuntimeException e) {
+                log.error("Connection listener failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.client;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds outgoing messages while the broker is unreachable and hands them back in the order they were offered.
+ * Up to maxMessages are kept in memory. With a spill file configured, messages beyond that are appended to the
+ * file, up to maxSpillBytes; once anything has spilled, later messages also go to the file until it has been
+ * drained, which keeps the overall order intact. On close, messages still in memory are written to the file ahead
+ * of the spilled ones, and whatever the file holds is replayed by the next buffer opened on it. The file is not
+ * synced per message, so a machine crash can lose the tail.
+ */
+public class OutboundBuffer implements Closeable {
+
+    public static final int DEFAULT_MAX_MESSAGES = 10000;
+
+    public static final long DEFAULT_MAX_SPILL_BYTES = 256L * 1024 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundBuffer.class);
+
+    private final ArrayDeque<Message> memory = new ArrayDeque<Message>();
+    private final int maxMessages;
+    private final Path spillFile;
+    private final RandomAccessFile spill;
+    private final long maxSpillBytes;
+
+    private long readPos;
+    private long writePos;
+    private Message spillHead;
+    private long spillHeadLength;
+    private long spilledCount;
+    private long rejected;
+
+    /**
+     * A memory only buffer.
+     */
+    public OutboundBuffer(int maxMessages) {
+        this.maxMessages = maxMessages;
+        this.spillFile = null;
+        this.spill = null;
+        this.maxSpillBytes = 0;
+    }
+
+    public OutboundBuffer(int maxMessages, Path spillFile, long maxSpillBytes) throws IOException {
+        this.maxMessages = maxMessages;
+        this.maxSpillBytes = maxSpillBytes;
+        this.spillFile = spillFile;
+        this.spill = new RandomAccessFile(spillFile.toFile(), "rw");
+        recover();
+    }
+
+    public static final class Message {
+
+        private final String exchange;
+        private final String routingKey;
+        private final byte[] body;
+
+        public Message(String exchange, String routingKey, byte[] body) {
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.body = body;
+        }
+
+        public String getExchange() {
+            return exchange;
+        }
+
+        public String getRoutingKey() {
+            return routingKey;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    /**
+     * @return false if the message was rejected because the buffer is full
+     */
+    public synchronized boolean offer(Message message) {
+        if(writePos == readPos && memory.size() < maxMessages) {
+            memory.addLast(message);
+            return true;
+        }
+        if(spill != null) {
+            try {
+                if(append(message)) {
+                    return true;
+                }
+            } catch(IOException e) {
+                log.error("Failed to spill message for {}/{}", message.getExchange(), message.getRoutingKey(), e);
+            }
+        }
+        rejected++;
+        return false;
+    }
+
+    /**
+     * @return the oldest message without removing it, or null if the buffer is empty
+     */
+    public synchronized Message peek() throws IOException {
+        Message head = memory.peekFirst();
+        if(head != null) {
+            return head;
+        }
+        if(spillHead == null && readPos < writePos) {
+            spill.seek(readPos);
+            spillHead = read();
+            spillHeadLength = spill.getFilePointer() - readPos;
+        }
+        return spillHead;
+    }
+
+    /**
+     * Removes the message last returned by {@link #peek()}.
+     */
+    public synchronized void remove() throws IOException {
+        if(memory.pollFirst() != null) {
+            return;
+        }
+        if(spillHead != null) {
+            readPos += spillHeadLength;
+            spillHead = null;
+            spilledCount--;
+            if(readPos >= writePos) {
+                spill.setLength(0);
+                readPos = 0;
+                writePos = 0;
+            }
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return memory.isEmpty() && readPos >= writePos;
+    }
+
+    public synchronized int getMemoryCount() {
+        return memory.size();
+    }
+
+    public synchronized long getSpilledCount() {
+        return spilledCount;
+    }
+
+    public synchronized long getSpilledBytes() {
+        return writePos - readPos;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if(spill == null) {
+            if(!memory.isEmpty()) {
+                log.warn("Discarding {} unsent messages", memory.size());
+            }
+            return;
+        }
+        if(memory.isEmpty()) {
+            // Keep unsent messages for the next run, but not the ones already sent
+            if(readPos > 0) {
+                compact();
+            }
+            spill.close();
+            return;
+        }
+
+        // Memory holds the oldest messages, so they go first in the rewritten file
+        Path rewritten = spillFile.resolveSibling(spillFile.getFileName() + ".tmp");
+        try(OutputStream out = new BufferedOutputStream(Files.newOutputStream(rewritten))) {
+            for(Message message : memory) {
+                out.write(encode(message));
+            }
+            byte[] chunk = new byte[64 * 1024];
+            for(long from = readPos; from < writePos; ) {
+                spill.seek(from);
+                int n = spill.read(chunk, 0, (int) Math.min(chunk.length, writePos - from));
+                out.write(chunk, 0, n);
+                from += n;
+            }
+        } finally {
+            spill.close();
+        }
+        Files.move(rewritten, spillFile, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Saved {} unsent messages to {}", memory.size() + spilledCount, spillFile);
+        memory.clear();
+    }
+
+    private boolean append(Message message) throws IOException {
+        byte[] record = encode(message);
+        if(writePos - readPos + record.length > maxSpillBytes) {
+            return false;
+        }
+        spill.seek(writePos);
+        spill.write(record);
+        writePos += record.length;
+        spilledCount++;
+        return true;
+    }
+
+    private static byte[] encode(Message message) throws IOException {
+        byte[] exchange = message.getExchange().getBytes(StandardCharsets.UTF_8);
+        byte[] routingKey = message.getRoutingKey().getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(12 + exchange.length + routingKey.length +
+                message.getBody().length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(exchange.length);
+        out.write(exchange);
+        out.writeInt(routingKey.length);
+        out.write(routingKey);
+        out.writeInt(message.getBody().length);
+        out.write(message.getBody());
+        return bytes.toByteArray();
+    }
+
+    private Message read() throws IOException {
+        String exchange = new String(readBlock(), StandardCharsets.UTF_8);
+        String routingKey = new String(readBlock(), StandardCharsets.UTF_8);
+        return new Message(exchange, routingKey, readBlock());
+    }
+
+    private byte[] readBlock() throws IOException {
+        int length = spill.readInt();
+        if(length < 0 || length > spill.length() - spill.getFilePointer()) {
+            throw new EOFException("Truncated record in spill file");
+        }
+        byte[] block = new byte[length];
+        spill.readFully(block);
+        return block;
+    }
+
+    /**
+     * Counts the records left by a previous run and drops a trailing record cut short by a crash.
+     */
+    private void recover() throws IOException {
+        long pos = 0;
+        spill.seek(0);
+        while(pos < spill.length()) {
+            try {
+                read();
+                pos = spill.getFilePointer();
+                spilledCount++;
+            } catch(EOFException e) {
+                log.warn("Dropping {} bytes of truncated record from the end of the spill file",
+                        spill.length() - pos);
+                break;
+            }
+        }
+        spill.setLength(pos);
+        writePos = pos;
+        if(spilledCount > 0) {
+            log.info("Replaying {} messages spilled by a previous run", spilledCount);
+        }
+    }
+
+    private void compact() throws IOException {
+        long remaining = writePos - readPos;
+        byte[] chunk = new byte[64 * 1024];
+        long from = readPos;
+        long to = 0;
+        while(from < writePos) {
+            spill.seek(from);
+            int n = spill.read(chunk, 0, (int) Math.min(chunk.length, writePos - from));
+            spill.seek(to);
+            spill.write(chunk, 0, n);
+            from += n;
+            to += n;
+        }
+        spill.setLength(remaining);
+        readPos = 0;
+        writePos = remaining;
+    }
+}
@@ -1,167 +1,335 @@
-/*
- * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions are met:
- *
- * 1. Redistributions of source code must retain the above copyright notice, this
- * list of conditions and the following disclaimer.
- *
- * 2. Redistributions in binary form must reproduce the above copyright notice,
- * this list of conditions and the following disclaimer in the documentation
- * and/or other materials provided with the distribution.
- *
- * 3. Neither the name of the copyright holder nor the names of its contributors
- * may be used to endorse or promote products derived from this software without
- * specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
- * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
- * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
- * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
- * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
- * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
- * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
- * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
- * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
- * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-package edu.mit.ll.nics.common.rabbitmq.client;
-
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
-import com.rabbitmq.client.ConnectionFactory;
-import com.rabbitmq.client.ShutdownSignalException;
-import java.io.IOException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-public class RabbitProducer {
-
-    private static final String CMPT_NAME = "rabbitProducer";
-
-    private Logger log = LoggerFactory.getLogger(RabbitProducer.class);
-
-    private String host;
-    private int port;
-    private String username;
-    private String password;
-    private String exchange = "amq.topic";
-
-    transient private Connection conn;
-    transient private ConnectionFactory factory = null;
-    transient private Channel channel;
-
-    public RabbitProducer(String username, String password, String host, int port) {
-
-        this.username = username;
-        this.password = password;
-        this.host = host;
-        this.port = port;
-
-        log.info("Starting " + CMPT_NAME + " with:" +
-                "\n\t" + username + "@" + host + ":" + port + "\n");
-
-        boolean initResult = initConn();
-        if(!initResult) {
-            throw new InstantiationError("could not initialize connection to rabbit server");
-        }
-    }
-
-    public boolean initConn() {
-        boolean result = true;
-        try {
-            log.debug("In initConn...");
-
-            if(factory == null) {
-                factory = new ConnectionFactory();
-                factory.setUsername(this.username);
-                factory.setPassword(this.password);
-                factory.setHost(host);
-                factory.setPort(port);
-            }
-
-            conn = null;
-            conn = factory.newConnection();
-
-            channel = conn.createChannel();
-
-            log.debug("\tconn and channel successfully created.");
-        } catch(IOException ioe) {
-            log.error("Error initializing connection: ", ioe);
-            result = false;
-        } catch(Exception e) {
-            log.error("Unhandled error initializing connection: ", e);
-            result = false;
-        }
-
-        return result;
-    }
-
-    public boolean sendMessage(String topic, String message) {
-        return sendMessage(this.exchange, topic, message);
-    }
-
-
-    public boolean sendMessage(String exchange, String topic, String message) {
-
-        try {
-
-            if(!isConnected()) {
-                initConn();
-            }
-
-            if(exchange == null || exchange.isEmpty()) {
-                exchange = this.exchange;
-            }
-
-            if(topic == null || topic.isEmpty()) {
-                topic = "default";
-            }
-
-            log.debug("Sending message (exchange=" + exchange + ", topic=" + topic + "): " + message);
-            channel.basicPublish(exchange, topic, null, message.getBytes());
-
-        } catch(IOException ioe) {
-            log.error("Exception sending message: ", ioe);
-            return false;
-        } catch(Exception e) {
-            log.error("Unhandled exception while sending message: ", e);
-            return false;
-        }
-
-        return true;
-    }
-
-    public boolean isConnected() {
-        if(conn != null && channel != null) {
-            return conn.isOpen() && channel.isOpen();
-        }
-        return false;
-    }
-
-    public void destroy() {
-
-        log.debug("Destroying '" + CMPT_NAME + "' component");
-
-        if(null != conn) {
-            try {
-                if(conn.isOpen()) {
-                    conn.close();
-                }
-                conn = null;
-
-            } catch(IOException ioe) {
-                log.error("IOException while destroying " + CMPT_NAME + " component: ", ioe);
-            } catch(ShutdownSignalException sse) {
-                log.error("Shutdown Exception while destroying " + CMPT_NAME + " component: ", sse);
-            } catch(Exception e) {
-                log.error("Caught unhandled exception while destroying " + CMPT_NAME +
-                        " component: ", e);
-            }
-        }
-
-        log.info("\tdestroyed.");
-    }
-}
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.client;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import edu.mit.ll.nics.common.rabbitmq.ChannelPool;
+import edu.mit.ll.nics.common.rabbitmq.InMemoryPublishMetrics;
+import edu.mit.ll.nics.common.rabbitmq.PayloadCompression;
+import edu.mit.ll.nics.common.rabbitmq.PayloadLogSampler;
+import edu.mit.ll.nics.common.rabbitmq.PublishMetrics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes to a topic exchange over a self-recovering connection. While the broker is unreachable messages are
+ * held in an {@link OutboundBuffer} and sent, in order, by a background thread once the connection is back, so
+ * {@link #sendMessage} never waits on the broker.
+ */
+public class RabbitProducer {
+
+    private static final String CMPT_NAME = "rabbitProducer";
+
+    private Logger log = LoggerFactory.getLogger(RabbitProducer.class);
+
+    private String host;
+    private int port;
+    private String username;
+    private String password;
+    private String exchange = "amq.topic";
+    private int maxChannels;
+    private volatile PayloadCompression compression;
+
+    private volatile PublishMetrics publishMetrics = new InMemoryPublishMetrics();
+    private final PayloadLogSampler payloadLog = new PayloadLogSampler(log);
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    transient private ConnectionFactory factory;
+    transient private ConnectionManager connectionManager;
+    transient private volatile ChannelPool channelPool;
+    transient private OutboundBuffer buffer;
+    transient private ExecutorService drainer;
+
+    public RabbitProducer(String username, String password, String host, int port) {
+        this(username, password, host, port, ChannelPool.DEFAULT_MAX_CHANNELS);
+    }
+
+    public RabbitProducer(String username, String password, String host, int port, int maxChannels) {
+        this(username, password, host, port, maxChannels, new OutboundBuffer(OutboundBuffer.DEFAULT_MAX_MESSAGES),
+                true);
+    }
+
+    /**
+     * @param buffer   holds messages while the broker is unreachable
+     * @param failFast if true the first connection attempt is made here and an unreachable broker fails
+     *                 construction; otherwise the producer connects in the background and buffers until it has
+     */
+    public RabbitProducer(String username, String password, String host, int port, int maxChannels,
+                          OutboundBuffer buffer, boolean failFast) {
+
+        this.username = username;
+        this.password = password;
+        this.host = host;
+        this.port = port;
+        this.maxChannels = maxChannels;
+        this.buffer = buffer;
+
+        log.info("Starting " + CMPT_NAME + " with:" +
+                "\n\t" + username + "@" + host + ":" + port + "\n");
+
+        factory = new ConnectionFactory();
+        factory.setUsername(this.username);
+        factory.setPassword(this.password);
+        factory.setHost(host);
+        factory.setPort(port);
+
+        drainer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, CMPT_NAME + "-drain");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        connectionManager = new ConnectionManager(factory, CMPT_NAME);
+        connectionManager.addListener(new ConnectionManager.Listener() {
+            @Override
+            public void connected(Connection connection) {
+                ChannelPool pool = channelPool;
+                if(pool == null || pool.getConnection() != connection) {
+                    if(pool != null) {
+                        pool.close();
+                    }
+                    channelPool = new ChannelPool(connection, RabbitProducer.this.maxChannels);
+                }
+                scheduleDrain();
+            }
+
+            @Override
+            public void disconnected(Connection connection) {
+            }
+        });
+
+        if(failFast) {
+            boolean initResult = initConn();
+            if(!initResult) {
+                throw new InstantiationError("could not initialize connection to rabbit server");
+            }
+        } else {
+            connectionManager.connectInBackground();
+        }
+    }
+
+    /**
+     * Makes a connection attempt on the calling thread if not already connected. Lost connections recover by
+     * themselves, so this is only needed to retry a producer that was never connected.
+     */
+    public boolean initConn() {
+        boolean result = true;
+        try {
+            log.debug("In initConn...");
+            connectionManager.connect();
+            log.debug("\tconn successfully created.");
+        } catch(IOException ioe) {
+            log.error("Error initializing connection: ", ioe);
+            result = false;
+        } catch(Exception e) {
+            log.error("Unhandled error initializing connection: ", e);
+            result = false;
+        }
+
+        return result;
+    }
+
+    public boolean sendMessage(String topic, String message) {
+        return sendMessage(this.exchange, topic, message);
+    }
+
+    public boolean sendMessage(String topic, byte[] body) {
+        return sendMessage(this.exchange, topic, body);
+    }
+
+    /**
+     * Publishes the message, or buffers it if the broker is unreachable or earlier messages are still buffered.
+     *
+     * @return false only if the message could not be published or buffered
+     */
+    public boolean sendMessage(String exchange, String topic, String message) {
+        if(message == null) {
+            log.error("Not sending null message for {}/{}", exchange, topic);
+            return false;
+        }
+        return sendMessage(exchange, topic, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends bytes as they are, e.g. JSON already serialized as UTF-8; the array must not change afterwards, since
+     * it may be buffered.
+     */
+    public boolean sendMessage(String exchange, String topic, byte[] body) {
+
+        try {
+
+            if(exchange == null || exchange.isEmpty()) {
+                exchange = this.exchange;
+            }
+
+            if(topic == null || topic.isEmpty()) {
+                topic = "default";
+            }
+
+            if(isConnected() && buffer.isEmpty()) {
+                try {
+                    publish(exchange, topic, body);
+                    return true;
+                } catch(IOException ioe) {
+                    log.warn("Buffering message after failed send: {}", ioe.getMessage());
+                }
+            }
+
+            if(buffer.offer(new OutboundBuffer.Message(exchange, topic, body))) {
+                scheduleDrain();
+                return true;
+            }
+            log.error("Outbound buffer is full, dropping message for {}/{}", exchange, topic);
+            publishMetrics.failed(exchange, topic, body.length, new IOException("Outbound buffer is full"));
+            return false;
+
+        } catch(Exception e) {
+            log.error("Unhandled exception while sending message: ", e);
+            publishMetrics.failed(exchange, topic, body == null ? 0 : body.length, e);
+            return false;
+        }
+    }
+
+    private void publish(String exchange, String topic, byte[] body) throws IOException {
+        PublishMetrics metrics = publishMetrics;
+        PayloadCompression compression = this.compression;
+        long start = System.nanoTime();
+        byte[] sent = compression == null ? body : compression.compress(body, null);
+        AMQP.BasicProperties props = sent == body ? null : compression.withEncoding(null);
+        channelPool.execute(channel -> {
+            channel.basicPublish(exchange, topic, props, sent);
+            return null;
+        });
+        metrics.published(exchange, topic, sent.length, System.nanoTime() - start);
+        payloadLog.sent(exchange, topic, null, body);
+    }
+
+    private void scheduleDrain() {
+        if(isConnected() && !buffer.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                drainer.execute(this::drain);
+            } catch(RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        boolean failed = false;
+        try {
+            OutboundBuffer.Message message;
+            while(isConnected() && (message = buffer.peek()) != null) {
+                publish(message.getExchange(), message.getRoutingKey(), message.getBody());
+                buffer.remove();
+            }
+        } catch(IOException | RuntimeException e) {
+            log.warn("Stopped sending buffered messages: {}", e.getMessage());
+            failed = true;
+        } finally {
+            draining.set(false);
+        }
+        // A message may have been buffered just as the loop found the buffer empty
+        if(!failed) {
+            scheduleDrain();
+        }
+    }
+
+    public PayloadCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * @param compression compresses large messages when they are sent; buffered messages are kept uncompressed
+     */
+    public void setCompression(PayloadCompression compression) {
+        this.compression = compression;
+    }
+
+    public PublishMetrics getPublishMetrics() {
+        return publishMetrics;
+    }
+
+    public void setPublishMetrics(PublishMetrics publishMetrics) {
+        this.publishMetrics = publishMetrics == null ? PublishMetrics.NOOP : publishMetrics;
+    }
+
+    /**
+     * @return the sampler controlling payload logging, which is off unless enabled here
+     */
+    public PayloadLogSampler getPayloadLogSampler() {
+        return payloadLog;
+    }
+
+    public OutboundBuffer getOutboundBuffer() {
+        return buffer;
+    }
+
+    public ConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    public boolean isConnected() {
+        return connectionManager.isConnected() && channelPool != null;
+    }
+
+    public void destroy() {
+
+        log.debug("Destroying '" + CMPT_NAME + "' component");
+
+        drainer.shutdown();
+
+        if(null != channelPool) {
+            channelPool.close();
+        }
+
+        try {
+            connectionManager.close();
+        } catch(Exception e) {
+            log.error("Caught unhandled exception while destroying " + CMPT_NAME +
+                    " component: ", e);
+        }
+
+        try {
+            buffer.close();
+        } catch(IOException ioe) {
+            log.error("IOException while closing the outbound buffer of " + CMPT_NAME + " component: ", ioe);
+        }
+
+        log.info("\tdestroyed.");
+    }
+}
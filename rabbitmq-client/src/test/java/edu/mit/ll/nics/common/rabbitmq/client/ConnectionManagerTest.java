@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.client;
+
+import com.rabbitmq.client.ConnectionFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the reconnect backoff of ConnectionManager, which needs no broker
+ */
+public class ConnectionManagerTest {
+
+    @Test
+    public void testBackoffDoublesUpToMax() {
+        ConnectionManager manager = new ConnectionManager(new ConnectionFactory(), "test");
+        manager.setInitialBackoff(100);
+        manager.setMaxBackoff(1000);
+        Assert.assertEquals(manager.backoff(0), 100);
+        Assert.assertEquals(manager.backoff(1), 200);
+        Assert.assertEquals(manager.backoff(3), 800);
+        Assert.assertEquals(manager.backoff(4), 1000);
+        Assert.assertEquals(manager.backoff(50), 1000);
+    }
+
+    @Test
+    public void testBackoffClampsOutOfRangeAttempts() {
+        ConnectionManager manager = new ConnectionManager(new ConnectionFactory(), "test");
+        manager.setInitialBackoff(ConnectionManager.DEFAULT_INITIAL_BACKOFF);
+        Assert.assertEquals(manager.backoff(-1), ConnectionManager.DEFAULT_INITIAL_BACKOFF);
+        Assert.assertEquals(manager.backoff(Integer.MAX_VALUE), ConnectionManager.DEFAULT_MAX_BACKOFF);
+
+        // A shift that overflows must not come out negative or zero
+        manager.setInitialBackoff(Long.MAX_VALUE / 2);
+        manager.setMaxBackoff(5000);
+        Assert.assertEquals(manager.backoff(20), 5000);
+    }
+
+    @Test
+    public void testFactoryUsesBackoffForRecovery() {
+        ConnectionFactory factory = new ConnectionFactory();
+        ConnectionManager manager = new ConnectionManager(factory, "test");
+        manager.setInitialBackoff(50);
+        manager.setMaxBackoff(300);
+        Assert.assertTrue(factory.isAutomaticRecoveryEnabled());
+        Assert.assertEquals(factory.getRecoveryDelayHandler().getDelay(2), 200);
+        Assert.assertEquals(factory.getRecoveryDelayHandler().getDelay(5), 300);
+    }
+}
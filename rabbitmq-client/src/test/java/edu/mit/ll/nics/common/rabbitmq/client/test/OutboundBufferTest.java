@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.client.test;
+
+import edu.mit.ll.nics.common.rabbitmq.client.OutboundBuffer;
+import edu.mit.ll.nics.common.rabbitmq.client.OutboundBuffer.Message;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the ordering and persistence of OutboundBuffer, using a spill file in a temporary directory
+ */
+public class OutboundBufferTest {
+
+    private Path dir;
+    private Path spillFile;
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("outbound");
+        spillFile = dir.resolve("spill.dat");
+    }
+
+    @AfterMethod
+    public void deleteDir() throws IOException {
+        for(Path file : Files.newDirectoryStream(dir)) {
+            Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testMemoryOnlyRejectsWhenFull() throws IOException {
+        OutboundBuffer buffer = new OutboundBuffer(2);
+        Assert.assertTrue(buffer.offer(message(1)));
+        Assert.assertTrue(buffer.offer(message(2)));
+        Assert.assertFalse(buffer.offer(message(3)));
+        Assert.assertEquals(buffer.getRejectedCount(), 1);
+        Assert.assertEquals(drain(buffer), names(1, 2));
+    }
+
+    @Test
+    public void testSpillKeepsOrderUntilFileDrains() throws IOException {
+        OutboundBuffer buffer = new OutboundBuffer(2, spillFile, 1024 * 1024);
+        for(int i = 1; i <= 4; i++) {
+            Assert.assertTrue(buffer.offer(message(i)));
+        }
+        Assert.assertEquals(buffer.getMemoryCount(), 2);
+        Assert.assertEquals(buffer.getSpilledCount(), 2);
+
+        // Memory has room again, but the spilled messages are older, so new ones must queue behind them
+        Assert.assertEquals(take(buffer), "m1");
+        Assert.assertTrue(buffer.offer(message(5)));
+        Assert.assertEquals(buffer.getSpilledCount(), 3);
+        Assert.assertEquals(drain(buffer), names(2, 3, 4, 5));
+        Assert.assertEquals(buffer.getSpilledBytes(), 0);
+
+        // Once the file is empty the buffer goes back to memory
+        Assert.assertTrue(buffer.offer(message(6)));
+        Assert.assertEquals(buffer.getMemoryCount(), 1);
+        Assert.assertEquals(buffer.getSpilledCount(), 0);
+        buffer.close();
+    }
+
+    @Test
+    public void testSpillRejectsPastMaxBytes() throws IOException {
+        OutboundBuffer buffer = new OutboundBuffer(1, spillFile, 2 * recordLength(message(1)));
+        Assert.assertTrue(buffer.offer(message(1)));
+        Assert.assertTrue(buffer.offer(message(2)));
+        Assert.assertTrue(buffer.offer(message(3)));
+        Assert.assertFalse(buffer.offer(message(4)));
+        Assert.assertEquals(buffer.getRejectedCount(), 1);
+        Assert.assertEquals(drain(buffer), names(1, 2, 3));
+        buffer.close();
+    }
+
+    @Test
+    public void testRecoverTruncatesPartialRecord() throws IOException {
+        OutboundBuffer buffer = new OutboundBuffer(0, spillFile, 1024 * 1024);
+        buffer.offer(message(1));
+        buffer.offer(message(2));
+        buffer.close();
+        long complete = Files.size(spillFile);
+
+        // Simulate a crash part way through writing a third record
+        try(RandomAccessFile file = new RandomAccessFile(spillFile.toFile(), "rw")) {
+            file.seek(complete);
+            file.writeInt(2);
+            file.write('m');
+        }
+
+        OutboundBuffer reopened = new OutboundBuffer(0, spillFile, 1024 * 1024);
+        Assert.assertEquals(Files.size(spillFile), complete);
+        Assert.assertEquals(reopened.getSpilledCount(), 2);
+        Assert.assertTrue(reopened.offer(message(3)));
+        Assert.assertEquals(drain(reopened), names(1, 2, 3));
+        reopened.close();
+    }
+
+    @Test
+    public void testCloseWritesMemoryAheadOfSpill() throws IOException {
+        OutboundBuffer buffer = new OutboundBuffer(2, spillFile, 1024 * 1024);
+        for(int i = 1; i <= 5; i++) {
+            buffer.offer(message(i));
+        }
+        Assert.assertEquals(buffer.getMemoryCount(), 2);
+        buffer.close();
+        Assert.assertFalse(Files.exists(dir.resolve("spill.dat.tmp")));
+
+        OutboundBuffer reopened = new OutboundBuffer(2, spillFile, 1024 * 1024);
+        Assert.assertEquals(reopened.getMemoryCount(), 0);
+        Assert.assertEquals(reopened.getSpilledCount(), 5);
+        Assert.assertEquals(drain(reopened), names(1, 2, 3, 4, 5));
+        reopened.close();
+    }
+
+    @Test
+    public void testCloseDropsSentMessages() throws IOException {
+        OutboundBuffer buffer = new OutboundBuffer(0, spillFile, 1024 * 1024);
+        for(int i = 1; i <= 4; i++) {
+            buffer.offer(message(i));
+        }
+        Assert.assertEquals(take(buffer), "m1");
+        Assert.assertEquals(take(buffer), "m2");
+        buffer.close();
+        Assert.assertEquals(Files.size(spillFile), 2 * recordLength(message(3)));
+
+        OutboundBuffer reopened = new OutboundBuffer(0, spillFile, 1024 * 1024);
+        Assert.assertEquals(drain(reopened), names(3, 4));
+        reopened.close();
+    }
+
+    private static Message message(int i) {
+        return new Message("exchange", "key", ("m" + i).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long recordLength(Message message) {
+        return 12 + message.getExchange().length() + message.getRoutingKey().length() + message.getBody().length;
+    }
+
+    private static List<String> names(int... ids) {
+        List<String> names = new ArrayList<String>();
+        for(int id : ids) {
+            names.add("m" + id);
+        }
+        return names;
+    }
+
+    private static String take(OutboundBuffer buffer) throws IOException {
+        Message head = buffer.peek();
+        Assert.assertNotNull(head);
+        Assert.assertEquals(head.getExchange(), "exchange");
+        Assert.assertEquals(head.getRoutingKey(), "key");
+        buffer.remove();
+        return new String(head.getBody(), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> drain(OutboundBuffer buffer) throws IOException {
+        List<String> names = new ArrayList<String>();
+        while(!buffer.isEmpty()) {
+            names.add(take(buffer));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.test;
+
+import edu.mit.ll.nics.common.rabbitmq.AckTracker;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests which tag AckTracker picks for the cumulative ack
+ */
+public class AckTrackerTest {
+
+    @Test
+    public void testAcksUpToOldestOutstanding() {
+        AckTracker acks = delivered(5);
+        acks.completed(1);
+        acks.completed(2);
+        acks.completed(4);
+        Assert.assertEquals(acks.nextAck(), 2);
+        Assert.assertEquals(acks.getOutstandingCount(), 2);
+        Assert.assertEquals(acks.nextAck(), 0, "nothing new has settled");
+
+        acks.completed(3);
+        acks.completed(5);
+        Assert.assertEquals(acks.nextAck(), 5);
+        Assert.assertEquals(acks.getOutstandingCount(), 0);
+    }
+
+    @Test
+    public void testNothingToAckWhileOldestOutstanding() {
+        AckTracker acks = delivered(3);
+        acks.completed(2);
+        acks.completed(3);
+        Assert.assertEquals(acks.nextAck(), 0);
+    }
+
+    @Test
+    public void testAckNeverEndsOnRejectedTag() {
+        AckTracker acks = delivered(3);
+        acks.completed(1);
+        reject(acks, 2);
+        Assert.assertEquals(acks.nextAck(), 1);
+
+        // 2 was already settled by its nack and is covered by the next cumulative ack
+        acks.completed(3);
+        Assert.assertEquals(acks.nextAck(), 3);
+    }
+
+    @Test
+    public void testAckSkipsBackOverSeveralRejectedTags() {
+        AckTracker acks = delivered(5);
+        acks.completed(1);
+        acks.completed(2);
+        reject(acks, 3);
+        reject(acks, 4);
+        reject(acks, 5);
+        Assert.assertEquals(acks.nextAck(), 2);
+    }
+
+    @Test
+    public void testAllRejectedNeedsNoAck() {
+        AckTracker acks = delivered(2);
+        reject(acks, 1);
+        reject(acks, 2);
+        Assert.assertEquals(acks.nextAck(), 0);
+
+        // Later deliveries are acked normally, without going back over the rejected ones
+        acks.delivered(3);
+        reject(acks, 3);
+        acks.delivered(4);
+        acks.completed(4);
+        Assert.assertEquals(acks.nextAck(), 4);
+        Assert.assertEquals(acks.nextAck(), 0);
+    }
+
+    @Test
+    public void testRejectedBehindOutstandingWaits() {
+        AckTracker acks = delivered(4);
+        reject(acks, 3);
+        acks.completed(2);
+        acks.completed(4);
+        Assert.assertEquals(acks.nextAck(), 0);
+
+        acks.completed(1);
+        Assert.assertEquals(acks.nextAck(), 4);
+    }
+
+    private static AckTracker delivered(int count) {
+        AckTracker acks = new AckTracker();
+        for(long tag = 1; tag <= count; tag++) {
+            acks.delivered(tag);
+        }
+        return acks;
+    }
+
+    private static void reject(AckTracker acks, long tag) {
+        acks.rejected(tag);
+        acks.completed(tag);
+    }
+}
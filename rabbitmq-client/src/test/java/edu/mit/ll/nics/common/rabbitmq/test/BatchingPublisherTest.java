@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.test;
+
+import com.rabbitmq.client.AMQP;
+import edu.mit.ll.nics.common.rabbitmq.BatchingPublisher;
+import edu.mit.ll.nics.common.rabbitmq.MessageBatches;
+import edu.mit.ll.nics.common.rabbitmq.Payloads;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests when BatchingPublisher publishes and what it sends, with the producer replaced by a list
+ */
+public class BatchingPublisherTest {
+
+    private static final class Sent {
+        private final String routingKey;
+        private final byte[] body;
+        private final AMQP.BasicProperties props;
+
+        private Sent(String routingKey, byte[] body, AMQP.BasicProperties props) {
+            this.routingKey = routingKey;
+            this.body = body;
+            this.props = props;
+        }
+    }
+
+    private static final class RecordingPublisher extends BatchingPublisher {
+
+        private final List<Sent> sent = new CopyOnWriteArrayList<Sent>();
+
+        private RecordingPublisher(long lingerMillis, int maxMessages, int maxBytes) {
+            super(null, Payloads.JSON_UTF8, lingerMillis, maxMessages, maxBytes);
+        }
+
+        @Override
+        protected void publish(String routingKey, byte[] body, AMQP.BasicProperties props) {
+            sent.add(new Sent(routingKey, body, props));
+        }
+    }
+
+    @Test
+    public void testSingleMessageSentPlain() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(10, 100, 1024);
+        byte[] body = "only".getBytes(StandardCharsets.UTF_8);
+        publisher.add("key", body);
+        awaitSent(publisher, 1);
+        Sent sent = publisher.sent.get(0);
+        Assert.assertSame(sent.body, body);
+        Assert.assertSame(sent.props, Payloads.JSON_UTF8);
+        publisher.close();
+    }
+
+    @Test
+    public void testLingerPublishesBatch() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(50, 100, 1024);
+        publisher.add("key", "a");
+        publisher.add("key", "b");
+        publisher.add("other", "c");
+        Assert.assertTrue(publisher.sent.isEmpty(), "nothing should be sent before the linger expires");
+        Assert.assertEquals(publisher.getPendingCount(), 3);
+
+        awaitSent(publisher, 2);
+        Sent batch = sentTo(publisher, "key");
+        Assert.assertTrue(MessageBatches.isBatch(batch.props));
+        Assert.assertEquals(texts(MessageBatches.unbatch(batch.body)), Arrays.asList("a", "b"));
+        Assert.assertEquals(MessageBatches.messageProperties(batch.props).getContentType(),
+                Payloads.JSON_UTF8.getContentType());
+        Assert.assertFalse(MessageBatches.isBatch(sentTo(publisher, "other").props));
+        Assert.assertEquals(publisher.getPendingCount(), 0);
+        publisher.close();
+    }
+
+    @Test
+    public void testFullBatchSentOnAddingThread() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(60000, 3, 1024);
+        publisher.add("key", "a");
+        publisher.add("key", "b");
+        Assert.assertTrue(publisher.sent.isEmpty());
+        publisher.add("key", "c");
+        Assert.assertEquals(publisher.sent.size(), 1);
+        Assert.assertEquals(texts(MessageBatches.unbatch(publisher.sent.get(0).body)), Arrays.asList("a", "b", "c"));
+        Assert.assertEquals(publisher.getPendingCount(), 0);
+        publisher.close();
+    }
+
+    @Test
+    public void testBatchSentBeforeExceedingMaxBytes() throws Exception {
+        // Each 8 byte body takes 12 bytes framed, so a second one would pass 20 bytes
+        RecordingPublisher publisher = new RecordingPublisher(60000, 100, 20);
+        publisher.add("key", "12345678");
+        publisher.add("key", "abcdefgh");
+        Assert.assertEquals(publisher.sent.size(), 1);
+        Assert.assertEquals(text(publisher.sent.get(0).body), "12345678");
+        Assert.assertFalse(MessageBatches.isBatch(publisher.sent.get(0).props));
+        Assert.assertEquals(publisher.getPendingCount(), 1);
+
+        // A body bigger than maxBytes on its own is sent alone, straight away
+        publisher.add("key", "this body is longer than twenty bytes");
+        Assert.assertEquals(publisher.sent.size(), 3);
+        Assert.assertEquals(text(publisher.sent.get(1).body), "abcdefgh");
+        Assert.assertEquals(text(publisher.sent.get(2).body), "this body is longer than twenty bytes");
+        publisher.close();
+    }
+
+    @Test
+    public void testCloseFlushesPending() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(60000, 100, 1024);
+        for(int i = 0; i < 5; i++) {
+            publisher.add("key", "m" + i);
+        }
+        publisher.close();
+        Assert.assertEquals(publisher.sent.size(), 1);
+        Assert.assertEquals(texts(MessageBatches.unbatch(publisher.sent.get(0).body)),
+                Arrays.asList("m0", "m1", "m2", "m3", "m4"));
+        Assert.assertEquals(publisher.sent.get(0).props.getHeaders().get(MessageBatches.COUNT_HEADER), 5);
+    }
+
+    @Test
+    public void testAddAfterCloseRejected() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(60000, 100, 1024);
+        publisher.add("key", "before");
+        publisher.close();
+        try {
+            publisher.add("key", "after");
+            Assert.fail("add after close should throw");
+        } catch(IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals(publisher.sent.size(), 1);
+        Assert.assertEquals(publisher.getPendingCount(), 0);
+    }
+
+    private static void awaitSent(RecordingPublisher publisher, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while(publisher.sent.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(publisher.sent.size(), count);
+    }
+
+    private static Sent sentTo(RecordingPublisher publisher, String routingKey) {
+        for(Sent sent : publisher.sent) {
+            if(sent.routingKey.equals(routingKey)) {
+                return sent;
+            }
+        }
+        throw new AssertionError("nothing sent to " + routingKey);
+    }
+
+    private static String text(byte[] body) {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> texts(List<byte[]> bodies) {
+        List<String> texts = new ArrayList<String>();
+        for(byte[] body : bodies) {
+            texts.add(text(body));
+        }
+        return texts;
+    }
+}
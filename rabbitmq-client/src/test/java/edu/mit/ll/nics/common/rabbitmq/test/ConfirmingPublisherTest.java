@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.test;
+
+import edu.mit.ll.nics.common.rabbitmq.ConfirmingPublisher;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests how ConfirmingPublisher settles futures, against in-memory channels
+ */
+public class ConfirmingPublisherTest {
+
+    @Test
+    public void testAckSettlesUpToTag() throws Exception {
+        List<FakeChannel> channels = new CopyOnWriteArrayList<FakeChannel>();
+        ConfirmingPublisher publisher = new ConfirmingPublisher(FakeChannel.connection(channels), 1, 10);
+        CompletableFuture<Void> first = publisher.publish("x", "k", null, new byte[1]);
+        CompletableFuture<Void> second = publisher.publish("x", "k", null, new byte[1]);
+        CompletableFuture<Void> third = publisher.publish("x", "k", null, new byte[1]);
+
+        channels.get(0).confirm(2, true);
+        Assert.assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        Assert.assertTrue(second.isDone() && !second.isCompletedExceptionally());
+        Assert.assertFalse(third.isDone());
+        Assert.assertEquals(publisher.getInFlightCount(), 1);
+    }
+
+    @Test
+    public void testChannelKeepsPublishingAfterRecovery() throws Exception {
+        List<FakeChannel> channels = new CopyOnWriteArrayList<FakeChannel>();
+        ConfirmingPublisher publisher = new ConfirmingPublisher(FakeChannel.connection(channels), 1, 10);
+        CompletableFuture<Void> beforeOutage = publisher.publish("x", "k", null, new byte[1]);
+        FakeChannel channel = channels.get(0);
+
+        channel.shutdown(false);
+        Assert.assertTrue(beforeOutage.isCompletedExceptionally());
+        channel.recover();
+
+        CompletableFuture<Void> afterRecovery = publisher.publish("x", "k", null, new byte[1]);
+        Assert.assertEquals(channels.size(), 1, "the recovered channel should be reused");
+        Assert.assertFalse(afterRecovery.isDone());
+        channel.confirm(1, false);
+        Assert.assertTrue(afterRecovery.isDone() && !afterRecovery.isCompletedExceptionally());
+        Assert.assertEquals(publisher.getInFlightCount(), 0);
+    }
+
+    @Test
+    public void testChannelClosedByApplicationIsReplaced() throws Exception {
+        List<FakeChannel> channels = new CopyOnWriteArrayList<FakeChannel>();
+        ConfirmingPublisher publisher = new ConfirmingPublisher(FakeChannel.connection(channels), 1, 10);
+        publisher.publish("x", "k", null, new byte[1]);
+
+        channels.get(0).shutdown(true);
+        CompletableFuture<Void> next = publisher.publish("x", "k", null, new byte[1]);
+        Assert.assertEquals(channels.size(), 2);
+        channels.get(1).confirm(1, false);
+        Assert.assertTrue(next.isDone() && !next.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testCloseFailsUnconfirmed() throws Exception {
+        List<FakeChannel> channels = new CopyOnWriteArrayList<FakeChannel>();
+        ConfirmingPublisher publisher = new ConfirmingPublisher(FakeChannel.connection(channels), 1, 10);
+        CompletableFuture<Void> pending = publisher.publish("x", "k", null, new byte[1]);
+        publisher.close();
+        Assert.assertTrue(pending.isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.test;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for a broker channel. It records what is published, acked and nacked, and lets a test deliver
+ * messages, confirm publishes and shut the channel down.
+ */
+public class FakeChannel {
+
+    public static final class Published {
+        public final String exchange;
+        public final String routingKey;
+        public final AMQP.BasicProperties props;
+        public final byte[] body;
+
+        private Published(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body) {
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.props = props;
+            this.body = body;
+        }
+    }
+
+    public final List<Published> published = new CopyOnWriteArrayList<Published>();
+    /* {deliveryTag, multiple} */
+    public final List<long[]> acks = new CopyOnWriteArrayList<long[]>();
+    /* {deliveryTag, multiple, requeue} */
+    public final List<long[]> nacks = new CopyOnWriteArrayList<long[]>();
+    /* method:name, e.g. "exchangeDeclareNoWait:x" */
+    public final List<String> declared = new CopyOnWriteArrayList<String>();
+    public final List<ConfirmListener> confirmListeners = new CopyOnWriteArrayList<ConfirmListener>();
+    public final List<ShutdownListener> shutdownListeners = new CopyOnWriteArrayList<ShutdownListener>();
+    public final List<Consumer> consumers = new CopyOnWriteArrayList<Consumer>();
+
+    private final int number;
+    private final AtomicLong nextPublishSeqNo = new AtomicLong(1);
+    private final AtomicLong nextDeliveryTag = new AtomicLong(1);
+    private final AtomicBoolean open = new AtomicBoolean(true);
+    private final Channel channel;
+
+    public FakeChannel(int number) {
+        this.number = number;
+        this.channel = (Channel) Proxy.newProxyInstance(FakeChannel.class.getClassLoader(),
+                new Class<?>[] {Channel.class, Recoverable.class}, (proxy, method, args) -> {
+                    switch(method.getName()) {
+                        case "basicPublish":
+                            if(!open.get()) {
+                                throw new IllegalStateException("channel " + number + " is closed");
+                            }
+                            published.add(new Published((String) args[0], (String) args[1],
+                                    (AMQP.BasicProperties) args[args.length - 2], (byte[]) args[args.length - 1]));
+                            nextPublishSeqNo.incrementAndGet();
+                            return null;
+                        case "getNextPublishSeqNo":
+                            return nextPublishSeqNo.get();
+                        case "basicAck":
+                            acks.add(new long[] {(Long) args[0], (Boolean) args[1] ? 1 : 0});
+                            return null;
+                        case "basicNack":
+                            nacks.add(new long[] {(Long) args[0], (Boolean) args[1] ? 1 : 0,
+                                    (Boolean) args[2] ? 1 : 0});
+                            return null;
+                        case "basicConsume":
+                            consumers.add((Consumer) args[args.length - 1]);
+                            return "consumer-" + consumers.size();
+                        case "exchangeDeclare":
+                        case "exchangeDeclareNoWait":
+                        case "queueDeclare":
+                        case "queueDeclareNoWait":
+                            declared.add(method.getName() + ":" + (args == null ? "" : args[0]));
+                            return null;
+                        case "addConfirmListener":
+                            confirmListeners.add((ConfirmListener) args[0]);
+                            return null;
+                        case "addShutdownListener":
+                            shutdownListeners.add((ShutdownListener) args[0]);
+                            return null;
+                        case "isOpen":
+                            return open.get();
+                        case "close":
+                        case "abort":
+                            open.set(false);
+                            return null;
+                        case "getChannelNumber":
+                            return number;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "FakeChannel(" + number + ")";
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /**
+     * @return a connection whose createChannel hands out new channels, adding each to the list
+     */
+    public static Connection connection(List<FakeChannel> channels) {
+        return new FakeConnection(channels).getConnection();
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Delivers a message to the most recently registered consumer, with the next delivery tag
+     *
+     * @return the delivery tag
+     */
+    public long deliver(String routingKey, AMQP.BasicProperties props, byte[] body) throws Exception {
+        long tag = nextDeliveryTag.getAndIncrement();
+        consumers.get(consumers.size() - 1).handleDelivery("consumer-" + consumers.size(),
+                new Envelope(tag, false, "exchange", routingKey), props, body);
+        return tag;
+    }
+
+    /**
+     * Acks publishes, as the broker does once they are confirmed
+     */
+    public void confirm(long deliveryTag, boolean multiple) throws Exception {
+        for(ConfirmListener listener : confirmListeners) {
+            listener.handleAck(deliveryTag, multiple);
+        }
+    }
+
+    /**
+     * Closes the channel and runs its shutdown listeners
+     *
+     * @param byApplication whether the client closed it, rather than the broker or a lost connection
+     */
+    public void shutdown(boolean byApplication) {
+        open.set(false);
+        ShutdownSignalException cause = new ShutdownSignalException(false, byApplication, null, channel);
+        for(ShutdownListener listener : shutdownListeners) {
+            listener.shutdownCompleted(cause);
+        }
+    }
+
+    /**
+     * Reopens the channel the way automatic recovery does: same object, publish sequence numbers restart at 1
+     */
+    public void recover() {
+        nextPublishSeqNo.set(1);
+        open.set(true);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.test;
+
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.ShutdownListener;
+import com.rabbitmq.client.ShutdownSignalException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory stand-in for a broker connection. It hands out {@link FakeChannel}s and lets a test shut it down, as
+ * closing it or losing the broker would.
+ */
+public class FakeConnection {
+
+    public final List<ShutdownListener> shutdownListeners = new CopyOnWriteArrayList<ShutdownListener>();
+
+    private final List<FakeChannel> channels;
+    private final AtomicBoolean open = new AtomicBoolean(true);
+    private final Connection connection;
+
+    public FakeConnection(List<FakeChannel> channels) {
+        this(channels, false);
+    }
+
+    /**
+     * @param recoverable whether the connection implements {@link Recoverable}, as one with automatic recovery does
+     */
+    public FakeConnection(List<FakeChannel> channels, boolean recoverable) {
+        this.channels = channels;
+        Class<?>[] interfaces = recoverable ? new Class<?>[] {Connection.class, Recoverable.class} :
+                new Class<?>[] {Connection.class};
+        this.connection = (Connection) Proxy.newProxyInstance(FakeConnection.class.getClassLoader(), interfaces,
+                (proxy, method, args) -> {
+                    switch(method.getName()) {
+                        case "createChannel":
+                            FakeChannel channel = new FakeChannel(channels.size() + 1);
+                            channels.add(channel);
+                            return channel.getChannel();
+                        case "isOpen":
+                            return open.get();
+                        case "addShutdownListener":
+                            shutdownListeners.add((ShutdownListener) args[0]);
+                            return null;
+                        case "close":
+                        case "abort":
+                            if(open.get()) {
+                                shutdown(true);
+                            }
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "FakeConnection";
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public List<FakeChannel> getChannels() {
+        return channels;
+    }
+
+    /**
+     * Closes the connection and runs its shutdown listeners
+     *
+     * @param byApplication whether the client closed it, rather than the broker or a lost network
+     */
+    public void shutdown(boolean byApplication) {
+        open.set(false);
+        ShutdownSignalException cause = new ShutdownSignalException(true, byApplication, null, connection);
+        for(ShutdownListener listener : shutdownListeners) {
+            listener.shutdownCompleted(cause);
+        }
+    }
+
+    /**
+     * Reopens the connection the way automatic recovery does: same object, same listeners
+     */
+    public void recover() {
+        open.set(true);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.test;
+
+import com.rabbitmq.client.AMQP;
+import edu.mit.ll.nics.common.rabbitmq.MessageBatches;
+import edu.mit.ll.nics.common.rabbitmq.Payloads;
+import edu.mit.ll.nics.common.rabbitmq.RabbitPubSubMsg;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the MessageBatches envelope format
+ */
+public class MessageBatchesTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] envelope = frames("first", "", "third");
+        List<byte[]> bodies = MessageBatches.unbatch(envelope);
+        Assert.assertEquals(bodies.size(), 3);
+        Assert.assertEquals(text(bodies.get(0)), "first");
+        Assert.assertEquals(bodies.get(1).length, 0);
+        Assert.assertEquals(text(bodies.get(2)), "third");
+    }
+
+    @Test
+    public void testEmptyEnvelopeHasNoMessages() throws IOException {
+        Assert.assertTrue(MessageBatches.unbatch(new byte[0]).isEmpty());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testTruncatedLengthRejected() throws IOException {
+        byte[] envelope = frames("first");
+        byte[] truncated = new byte[envelope.length + 2];
+        System.arraycopy(envelope, 0, truncated, 0, envelope.length);
+        MessageBatches.unbatch(truncated);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testFrameLongerThanEnvelopeRejected() throws IOException {
+        byte[] envelope = frames("first");
+        MessageBatches.unbatch(Arrays.copyOf(envelope, envelope.length - 1));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testNegativeLengthRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(-1);
+        out.writeInt(0);
+        MessageBatches.unbatch(bytes.toByteArray());
+    }
+
+    @Test
+    public void testPropertiesRoundTrip() {
+        AMQP.BasicProperties message = Payloads.JSON_UTF8.builder()
+                .headers(Collections.<String, Object>singletonMap("origin", "test"))
+                .build();
+        AMQP.BasicProperties envelope = MessageBatches.envelopeProperties(message, 3);
+        Assert.assertTrue(MessageBatches.isBatch(envelope));
+        Assert.assertEquals(envelope.getHeaders().get(MessageBatches.COUNT_HEADER), 3);
+
+        AMQP.BasicProperties restored = MessageBatches.messageProperties(envelope);
+        Assert.assertFalse(MessageBatches.isBatch(restored));
+        Assert.assertEquals(restored.getContentType(), message.getContentType());
+        Assert.assertEquals(restored.getContentEncoding(), message.getContentEncoding());
+        Assert.assertEquals(restored.getHeaders(), message.getHeaders());
+    }
+
+    @Test
+    public void testPropertiesRoundTripWithoutProperties() {
+        AMQP.BasicProperties restored = MessageBatches.messageProperties(MessageBatches.envelopeProperties(null, 2));
+        Assert.assertNull(restored.getContentType());
+        Assert.assertNull(restored.getHeaders());
+    }
+
+    @Test
+    public void testUnbatchMessage() throws IOException {
+        RabbitPubSubMsg batch = new RabbitPubSubMsg(frames("a", "b"), "key",
+                MessageBatches.envelopeProperties(Payloads.JSON_UTF8, 2));
+        List<RabbitPubSubMsg> messages = MessageBatches.unbatch(batch);
+        Assert.assertEquals(messages.size(), 2);
+        Assert.assertEquals(text(messages.get(0).getBody()), "a");
+        Assert.assertEquals(text(messages.get(1).getBody()), "b");
+        for(RabbitPubSubMsg message : messages) {
+            Assert.assertEquals(message.getRoutingKey(), "key");
+            Assert.assertEquals(message.getProperties().getContentType(), Payloads.JSON_UTF8.getContentType());
+        }
+    }
+
+    @Test
+    public void testPlainMessagePassesThrough() throws IOException {
+        RabbitPubSubMsg plain = new RabbitPubSubMsg(frames("a", "b"), "key", Payloads.JSON_UTF8);
+        List<RabbitPubSubMsg> messages = MessageBatches.unbatch(plain);
+        Assert.assertEquals(messages.size(), 1);
+        Assert.assertSame(messages.get(0), plain);
+    }
+
+    static byte[] frames(String... bodies) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for(String body : bodies) {
+            byte[] encoded = body.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        }
+        return bytes.toByteArray();
+    }
+
+    static String text(byte[] body) {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
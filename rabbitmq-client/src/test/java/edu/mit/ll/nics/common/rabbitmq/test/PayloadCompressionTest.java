@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.test;
+
+import com.rabbitmq.client.AMQP;
+import edu.mit.ll.nics.common.rabbitmq.PayloadCompression;
+import edu.mit.ll.nics.common.rabbitmq.PayloadCompression.Codec;
+import edu.mit.ll.nics.common.rabbitmq.Payloads;
+import edu.mit.ll.nics.common.rabbitmq.RabbitPubSubMsg;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Tests which bodies PayloadCompression compresses, and that they decompress to the original
+ */
+public class PayloadCompressionTest {
+
+    @DataProvider
+    public Object[][] codecs() {
+        return new Object[][] {{Codec.GZIP}, {Codec.DEFLATE}};
+    }
+
+    @Test(dataProvider = "codecs")
+    public void testRoundTrip(Codec codec) throws IOException {
+        PayloadCompression compression = new PayloadCompression(codec, 100);
+        byte[] body = repetitive(5000);
+        byte[] sent = compression.compress(body, Payloads.JSON_UTF8);
+        Assert.assertTrue(sent.length < body.length);
+
+        AMQP.BasicProperties props = compression.withEncoding(Payloads.JSON_UTF8);
+        Assert.assertEquals(props.getContentEncoding(), codec.getContentEncoding());
+        Assert.assertEquals(props.getContentType(), Payloads.JSON_UTF8.getContentType());
+        Assert.assertTrue(PayloadCompression.isCompressed(props));
+        Assert.assertEquals(PayloadCompression.decompress(sent, props.getContentEncoding()), body);
+
+        RabbitPubSubMsg received = PayloadCompression.decompress(new RabbitPubSubMsg(sent, "key", props));
+        Assert.assertEquals(received.getBody(), body);
+        Assert.assertNull(received.getProperties().getContentEncoding());
+        Assert.assertEquals(received.getProperties().getContentType(), Payloads.JSON_UTF8.getContentType());
+    }
+
+    @Test
+    public void testBelowThresholdSentAsIs() throws IOException {
+        PayloadCompression compression = new PayloadCompression(Codec.GZIP, 1000);
+        byte[] small = repetitive(999);
+        Assert.assertSame(compression.compress(small, null), small);
+        byte[] atThreshold = repetitive(1000);
+        Assert.assertNotSame(compression.compress(atThreshold, null), atThreshold);
+    }
+
+    @Test
+    public void testIncompressibleSentAsIs() throws IOException {
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+        Assert.assertSame(new PayloadCompression(Codec.GZIP, 0).compress(random, null), random);
+        Assert.assertSame(new PayloadCompression(Codec.DEFLATE, 0).compress(random, null), random);
+    }
+
+    @Test
+    public void testExistingEncodingSentAsIs() throws IOException {
+        PayloadCompression compression = new PayloadCompression(Codec.GZIP, 0);
+        byte[] body = repetitive(5000);
+        AMQP.BasicProperties encoded = new AMQP.BasicProperties.Builder().contentEncoding("br").build();
+        Assert.assertSame(compression.compress(body, encoded), body);
+    }
+
+    @Test
+    public void testUncompressedMessagePassesThrough() throws IOException {
+        RabbitPubSubMsg plain = new RabbitPubSubMsg(repetitive(10), "key", Payloads.JSON_UTF8);
+        Assert.assertFalse(PayloadCompression.isCompressed(plain.getProperties()));
+        Assert.assertSame(PayloadCompression.decompress(plain), plain);
+        RabbitPubSubMsg noProperties = new RabbitPubSubMsg(repetitive(10), "key", null);
+        Assert.assertSame(PayloadCompression.decompress(noProperties), noProperties);
+    }
+
+    @Test(dataProvider = "codecs")
+    public void testInflatedSizeLimited(Codec codec) throws IOException {
+        PayloadCompression compression = new PayloadCompression(codec, 0);
+        byte[] bomb = compression.compress(new byte[1024 * 1024], null);
+        Assert.assertTrue(bomb.length < 10 * 1024);
+        Assert.assertEquals(PayloadCompression.decompress(bomb, codec.getContentEncoding(), 1024 * 1024).length,
+                1024 * 1024);
+        try {
+            PayloadCompression.decompress(bomb, codec.getContentEncoding(), 1024 * 1024 - 1);
+            Assert.fail("inflating past the limit should throw");
+        } catch(IOException e) {
+            // expected
+        }
+        try {
+            PayloadCompression.decompress(new RabbitPubSubMsg(bomb, "key", compression.withEncoding(null)), 64 * 1024);
+            Assert.fail("inflating past the limit should throw");
+        } catch(IOException e) {
+            // expected
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testUnsupportedEncodingRejected() throws IOException {
+        PayloadCompression.decompress(repetitive(10), "br");
+    }
+
+    @Test
+    public void testCodecLookupIgnoresCase() {
+        Assert.assertEquals(Codec.forContentEncoding("GZIP"), Codec.GZIP);
+        Assert.assertEquals(Codec.forContentEncoding("deflate"), Codec.DEFLATE);
+        Assert.assertNull(Codec.forContentEncoding("identity"));
+        Assert.assertNull(Codec.forContentEncoding(null));
+    }
+
+    private static byte[] repetitive(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while(text.length() < length) {
+            text.append("{\"incidentid\":1,\"name\":\"test\"}");
+        }
+        return text.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+}
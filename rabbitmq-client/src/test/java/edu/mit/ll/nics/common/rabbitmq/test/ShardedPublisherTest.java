@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.test;
+
+import com.rabbitmq.client.AMQP;
+import edu.mit.ll.nics.common.rabbitmq.RabbitPubSubProducer;
+import edu.mit.ll.nics.common.rabbitmq.ShardedPublisher;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests ShardedPublisher's ordering, key-to-shard mapping and closing, with producers over in-memory connections
+ */
+public class ShardedPublisherTest {
+
+    /**
+     * Records what its shard publishes, optionally waiting for a latch before each message
+     */
+    private static final class RecordingProducer extends RabbitPubSubProducer {
+
+        private final List<String> produced = new CopyOnWriteArrayList<String>();
+        private final FakeConnection connection;
+        private final CountDownLatch release;
+
+        private RecordingProducer(FakeConnection connection, CountDownLatch release) throws IOException {
+            super(connection.getConnection(), "x");
+            this.connection = connection;
+            this.release = release;
+        }
+
+        @Override
+        public void produce(String routingKey, byte[] body, AMQP.BasicProperties props) throws IOException {
+            try {
+                release.await();
+            } catch(InterruptedException e) {
+                throw new IOException("Interrupted", e);
+            }
+            String text = new String(body, StandardCharsets.UTF_8);
+            if(text.equals("fail")) {
+                throw new IOException("refused");
+            }
+            produced.add(routingKey + "=" + text);
+        }
+    }
+
+    @Test
+    public void testOrderPerKey() throws Exception {
+        List<RecordingProducer> producers = producers(4, new CountDownLatch(0));
+        ShardedPublisher publisher = new ShardedPublisher("x", producers, 16);
+        List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        for(int i = 0; i < 500; i++) {
+            futures.add(publisher.produce("key." + (i % 25), Integer.toString(i)));
+        }
+        for(CompletableFuture<Void> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        for(int k = 0; k < 25; k++) {
+            String key = "key." + k;
+            List<String> expected = new ArrayList<String>();
+            for(int i = k; i < 500; i += 25) {
+                expected.add(key + "=" + i);
+            }
+            List<String> actual = new ArrayList<String>();
+            for(String produced : producers.get(publisher.getShard(key)).produced) {
+                if(produced.startsWith(key + "=")) {
+                    actual.add(produced);
+                }
+            }
+            Assert.assertEquals(actual, expected, key + " should be published in order on its own shard");
+        }
+        long total = 0;
+        for(long published : publisher.getPublishedCounts()) {
+            total += published;
+        }
+        Assert.assertEquals(total, 500);
+        Assert.assertTrue(publisher.close(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMappingIsStable() throws Exception {
+        ShardedPublisher four = new ShardedPublisher("x", producers(4, new CountDownLatch(0)), 16);
+        ShardedPublisher again = new ShardedPublisher("x", producers(4, new CountDownLatch(0)), 16);
+        ShardedPublisher five = new ShardedPublisher("x", producers(5, new CountDownLatch(0)), 16);
+        int[] perShard = new int[4];
+        int moved = 0;
+        for(int i = 0; i < 2000; i++) {
+            String key = "iweb.NICS.collabroom." + i;
+            int shard = four.getShard(key);
+            perShard[shard]++;
+            Assert.assertEquals(again.getShard(key), shard);
+            if(five.getShard(key) != shard) {
+                // Consistent hashing: adding a shard only takes keys over, it never moves them between old shards
+                Assert.assertEquals(five.getShard(key), 4);
+                moved++;
+            }
+        }
+        for(int count : perShard) {
+            Assert.assertTrue(count > 200, "keys should spread over every shard");
+        }
+        Assert.assertTrue(moved > 0 && moved < 1000);
+        four.close(1, TimeUnit.SECONDS);
+        again.close(1, TimeUnit.SECONDS);
+        five.close(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testFailedPublishFailsOnlyItsMessage() throws Exception {
+        List<RecordingProducer> producers = producers(1, new CountDownLatch(0));
+        ShardedPublisher publisher = new ShardedPublisher("x", producers, 16);
+        CompletableFuture<Void> failed = publisher.produce("key", "fail");
+        CompletableFuture<Void> next = publisher.produce("key", "next");
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            Assert.fail("the publish error should fail the future");
+        } catch(ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+        next.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(producers.get(0).produced.size(), 1);
+        publisher.close(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testCloseFailsWhatIsLeftQueued() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<RecordingProducer> producers = producers(2, release);
+        ShardedPublisher publisher = new ShardedPublisher("x", producers, 16);
+        List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        for(int i = 0; i < 5; i++) {
+            futures.add(publisher.produce("key", Integer.toString(i)));
+        }
+
+        Assert.assertFalse(publisher.close(100, TimeUnit.MILLISECONDS), "the stuck shard cannot drain");
+        // The queued messages fail in close(); the one being published fails once the interrupt reaches it
+        for(CompletableFuture<Void> future : futures.subList(1, futures.size())) {
+            Assert.assertTrue(future.isCompletedExceptionally());
+        }
+        try {
+            futures.get(0).get(5, TimeUnit.SECONDS);
+            Assert.fail("the interrupted publish should fail");
+        } catch(ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+        for(RecordingProducer producer : producers) {
+            Assert.assertTrue(producer.produced.isEmpty());
+            Assert.assertFalse(producer.connection.getConnection().isOpen(), "close should destroy the producers");
+        }
+        try {
+            publisher.produce("key", "late");
+            Assert.fail("produce after close should throw");
+        } catch(IllegalStateException e) {
+            // expected
+        }
+        release.countDown();
+    }
+
+    @Test
+    public void testCloseWaitsForQueued() throws Exception {
+        List<RecordingProducer> producers = producers(2, new CountDownLatch(0));
+        ShardedPublisher publisher = new ShardedPublisher("x", producers, 1000);
+        List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        for(int i = 0; i < 200; i++) {
+            futures.add(publisher.produce("key." + (i % 7), Integer.toString(i)));
+        }
+        Assert.assertTrue(publisher.close(5, TimeUnit.SECONDS));
+        for(CompletableFuture<Void> future : futures) {
+            Assert.assertTrue(future.isDone() && !future.isCompletedExceptionally());
+        }
+    }
+
+    private static List<RecordingProducer> producers(int count, CountDownLatch release) throws IOException {
+        List<RecordingProducer> producers = new ArrayList<RecordingProducer>();
+        for(int i = 0; i < count; i++) {
+            producers.add(new RecordingProducer(new FakeConnection(new CopyOnWriteArrayList<FakeChannel>()),
+                    release));
+        }
+        return producers;
+    }
+}
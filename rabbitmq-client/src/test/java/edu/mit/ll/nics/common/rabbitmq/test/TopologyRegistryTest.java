@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2008-2021, Massachusetts Institute of Technology (MIT)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.mit.ll.nics.common.rabbitmq.test;
+
+import com.rabbitmq.client.Connection;
+import edu.mit.ll.nics.common.rabbitmq.RabbitClient;
+import edu.mit.ll.nics.common.rabbitmq.TopologyRegistry;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests what TopologyRegistry remembers per connection, and which declares RabbitClient sends because of it
+ */
+public class TopologyRegistryTest {
+
+    private static final class TestClient extends RabbitClient {
+
+        private TestClient(Connection connection) throws IOException {
+            super(connection, 2);
+        }
+
+        private void exchange(String exchangeName) throws IOException {
+            declareExchange(exchangeName);
+        }
+
+        private void queue(String queueName) throws IOException {
+            declareQueue(queueName);
+        }
+
+        private void close() {
+            destroy();
+        }
+    }
+
+    private final TopologyRegistry registry = TopologyRegistry.getInstance();
+
+    @Test
+    public void testDeclaredOncePerConnection() throws IOException {
+        Connection first = new FakeConnection(new CopyOnWriteArrayList<FakeChannel>()).getConnection();
+        Connection second = new FakeConnection(new CopyOnWriteArrayList<FakeChannel>()).getConnection();
+        AtomicInteger declares = new AtomicInteger();
+        String queue = TopologyRegistry.queueEntity("q");
+
+        Assert.assertTrue(registry.declare(first, queue, declares::incrementAndGet));
+        Assert.assertFalse(registry.declare(first, queue, declares::incrementAndGet));
+        Assert.assertTrue(registry.declare(second, queue, declares::incrementAndGet), "a new connection declares");
+        Assert.assertEquals(declares.get(), 2);
+        registry.forget(first);
+        registry.forget(second);
+    }
+
+    @Test
+    public void testFailedDeclareNotRecorded() {
+        Connection connection = new FakeConnection(new CopyOnWriteArrayList<FakeChannel>()).getConnection();
+        String queue = TopologyRegistry.queueEntity("q");
+        try {
+            registry.declare(connection, queue, () -> {
+                throw new IOException("refused");
+            });
+            Assert.fail("the declarer's exception should propagate");
+        } catch(IOException e) {
+            // expected
+        }
+        Assert.assertFalse(registry.isDeclared(connection, queue));
+    }
+
+    @Test
+    public void testLostConnectionForgetsUntilRedeclared() throws IOException {
+        FakeConnection fake = new FakeConnection(new CopyOnWriteArrayList<FakeChannel>(), true);
+        Connection connection = fake.getConnection();
+        String queue = TopologyRegistry.queueEntity("q");
+        registry.markDeclared(connection, queue);
+
+        fake.shutdown(false);
+        Assert.assertFalse(registry.isDeclared(connection, queue), "the broker may have lost the queue");
+        fake.recover();
+        registry.markDeclared(connection, queue);
+        Assert.assertTrue(registry.isDeclared(connection, queue));
+        Assert.assertEquals(fake.shutdownListeners.size(), 1, "the connection should be watched only once");
+
+        fake.shutdown(true);
+        Assert.assertFalse(registry.isDeclared(connection, queue));
+    }
+
+    @Test
+    public void testClosedConnectionDropped() {
+        FakeConnection fake = new FakeConnection(new CopyOnWriteArrayList<FakeChannel>());
+        String queue = TopologyRegistry.queueEntity("q");
+        registry.markDeclared(fake.getConnection(), queue);
+        fake.shutdown(false);
+        Assert.assertFalse(registry.isDeclared(fake.getConnection(), queue));
+    }
+
+    @Test
+    public void testClientDeclaresQueueOnce() throws IOException {
+        List<FakeChannel> channels = new CopyOnWriteArrayList<FakeChannel>();
+        TestClient client = new TestClient(new FakeConnection(channels).getConnection());
+        client.queue("q");
+        client.queue("q");
+        Assert.assertEquals(channels.get(0).declared, Collections.singletonList("queueDeclare:q"));
+        client.close();
+    }
+
+    @Test
+    public void testClientDeclaresExchangeEveryTimeWithoutWaiting() throws IOException {
+        List<FakeChannel> channels = new CopyOnWriteArrayList<FakeChannel>();
+        TestClient client = new TestClient(new FakeConnection(channels).getConnection());
+        client.exchange("x");
+        client.exchange("x");
+        client.exchange(RabbitClient.AMQ_TOPIC);
+        Assert.assertEquals(channels.get(0).declared,
+                Arrays.asList("exchangeDeclareNoWait:x", "exchangeDeclareNoWait:x"));
+        client.close();
+    }
+
+    @Test
+    public void testPredeclareWaitsOnlyForTheLast() throws IOException {
+        List<FakeChannel> channels = new CopyOnWriteArrayList<FakeChannel>();
+        TestClient client = new TestClient(new FakeConnection(channels).getConnection());
+        client.queue("q1");
+        client.predeclare(Arrays.asList("x1", "x2", RabbitClient.AMQ_TOPIC), Arrays.asList("q1", "q2", "q3"));
+        Assert.assertEquals(channels.get(0).declared, Arrays.asList("queueDeclare:q1", "exchangeDeclareNoWait:x1",
+                "exchangeDeclareNoWait:x2", "queueDeclareNoWait:q2", "queueDeclare:q3"));
+
+        // The queues are now recorded, the exchanges are not
+        channels.get(0).declared.clear();
+        client.predeclare(Arrays.asList("x1"), Arrays.asList("q1", "q2", "q3"));
+        client.queue("q3");
+        Assert.assertEquals(channels.get(0).declared, Collections.singletonList("exchangeDeclare:x1"));
+        client.close();
+    }
+
+    @Test
+    public void testPredeclareNothingNew() throws IOException {
+        List<FakeChannel> channels = new CopyOnWriteArrayList<FakeChannel>();
+        TestClient client = new TestClient(new FakeConnection(channels).getConnection());
+        client.queue("q");
+        client.predeclare(Collections.singletonList(RabbitClient.AMQ_TOPIC), Collections.singletonList("q"));
+        Assert.assertEquals(channels.get(0).declared, Collections.singletonList("queueDeclare:q"));
+        client.close();
+    }
+}